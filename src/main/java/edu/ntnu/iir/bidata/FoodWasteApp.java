@@ -1,6 +1,17 @@
 package edu.ntnu.iir.bidata;
 
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.RecipeShardServer;
+import edu.ntnu.iir.bidata.logic.ReplicationFollower;
+import edu.ntnu.iir.bidata.logic.ReplicationLeader;
+import edu.ntnu.iir.bidata.ui.ConsoleServer;
 import edu.ntnu.iir.bidata.ui.UserInterface;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The Main class serves as the entry point for the FoodWasteApp application. It contains the main
@@ -9,15 +20,65 @@ import edu.ntnu.iir.bidata.ui.UserInterface;
  * @version 22.0.2
  * @author (Mahmoud Said Madhun Madhun)
  */
+@SuppressWarnings("try")
 public class FoodWasteApp {
 
   
   /**
    * The main method which initializes and starts the application.
    *
+   * <p>Tracing is turned on by starting the application with
+   * {@code -Dfoodwaste.trace.sample=<0..1>} and optionally
+   * {@code -Dfoodwaste.trace.file=<path>} (default {@code foodwaste-trace.jsonl}).
+   *
+   * <p>Starting it with {@code -Dfoodwaste.console.port=<port>} serves the menus over TCP
+   * on the loopback address instead, one session per connection, all sharing one food
+   * storage and recipe book. Adding {@code -Dfoodwaste.replication.port=<port>} also
+   * streams every change to followers on that port, and
+   * {@code -Dfoodwaste.replication.leader=<host>:<port>} instead makes this process a
+   * follower of that leader, whose sessions can only read.
+   *
+   * <p>Starting it with {@code -Dfoodwaste.shard.port=<port>} instead runs one recipe
+   * shard for a {@link edu.ntnu.iir.bidata.logic.ShardedRecipeBook} on the loopback
+   * address, until the process is stopped.
+   *
    * @param arg command line arguments
+   * @throws IOException if the console server or shard cant listen on the port
+   * @throws InterruptedException if the main thread is interrupted while serving
    */
-  public static void main(String[] arg) {
+  public static void main(String[] arg) throws IOException, InterruptedException {
+    String traceSample = System.getProperty("foodwaste.trace.sample");
+    if (traceSample != null) {
+      Tracer.configure(Double.parseDouble(traceSample),
+          Path.of(System.getProperty("foodwaste.trace.file", "foodwaste-trace.jsonl")));
+      Runtime.getRuntime().addShutdownHook(new Thread(Tracer::shutdown));
+    }
+
+    String shardPort = System.getProperty("foodwaste.shard.port");
+    if (shardPort != null) {
+      try (RecipeShardServer shard = new RecipeShardServer(Integer.parseInt(shardPort))) {
+        shard.start();
+        System.out.println("Serving FoodWaste recipe shard on port " + shard.getPort());
+        shard.awaitClose();
+      }
+      return;
+    }
+
+    String consolePort = System.getProperty("foodwaste.console.port");
+    if (consolePort != null) {
+      FoodStorage foodStorage = new FoodStorage(new ConcurrentHashMap<>());
+      RecipeBook recipeBook = new RecipeBook(new ConcurrentHashMap<>());
+      try (ReplicationLeader leader = startLeader(foodStorage, recipeBook);
+          ReplicationFollower follower = startFollower(foodStorage, recipeBook);
+          ConsoleServer server = new ConsoleServer(foodStorage, recipeBook,
+              Integer.parseInt(consolePort), follower != null)) {
+        server.start();
+        System.out.println("Serving FoodWaste sessions on port " + server.getPort());
+        server.awaitClose();
+      }
+      return;
+    }
+
     // creating intance of FoodWasteApp
     // ? working ingredient code.
     UserInterface application = new UserInterface();
@@ -28,5 +89,33 @@ public class FoodWasteApp {
 
   }
 
+  private static ReplicationLeader startLeader(FoodStorage foodStorage, RecipeBook recipeBook)
+      throws IOException {
+    String replicationPort = System.getProperty("foodwaste.replication.port");
+    if (replicationPort == null || System.getProperty("foodwaste.replication.leader") != null) {
+      return null;
+    }
+    ReplicationLeader leader =
+        new ReplicationLeader(foodStorage, recipeBook, Integer.parseInt(replicationPort));
+    leader.start();
+    System.out.println("Replicating FoodWaste changes on port " + leader.getPort());
+    return leader;
+  }
+
+  private static ReplicationFollower startFollower(
+      FoodStorage foodStorage, RecipeBook recipeBook) {
+    String leaderAddress = System.getProperty("foodwaste.replication.leader");
+    if (leaderAddress == null) {
+      return null;
+    }
+    int colon = leaderAddress.lastIndexOf(':');
+    ReplicationFollower follower = new ReplicationFollower(foodStorage, recipeBook,
+        new InetSocketAddress(leaderAddress.substring(0, colon),
+            Integer.parseInt(leaderAddress.substring(colon + 1))));
+    follower.start();
+    System.out.println("Following FoodWaste leader at " + leaderAddress);
+    return follower;
+  }
+
 }
 
@@ -0,0 +1,61 @@
+package edu.ntnu.iir.bidata.entity;
+
+/**
+ * The EntityCodec class holds the binary format shared by {@link EntityWriter} and
+ * {@link EntityReader}.
+ *
+ * <p>A stream starts with a header: the int {@link #MAGIC} and the short
+ * {@link #FORMAT_VERSION}. After it follow records, each framed as
+ * <pre>
+ *   byte  record type
+ *   byte  schema version of the record
+ *   int   body length in bytes
+ *   ...   body
+ * </pre>
+ * All numbers are big-endian. The bodies of version 1 are:
+ * <pre>
+ *   NAME        int id, UTF-8 bytes to the end of the body
+ *   INGREDIENT  int name id, double amount, byte unit, double price, int expiry epoch day
+ *   RECIPE      int name id, int servings, int length + UTF-8 description,
+ *               int length + UTF-8 instructions, int ingredient count,
+ *               count x (int entry length, int name id, double amount, byte unit)
+ * </pre>
+ * A body or entry shorter than the fields of its version, or a length that runs past the
+ * end of its body, makes the reader throw an {@link IllegalArgumentException}.
+ * Names are written once per stream as a NAME record, and referenced by id after that.
+ * A missing expire date is written as {@link #NO_EXPIRY}.
+ *
+ * <p>Schemas evolve forward only: a new version may append fields to the end of a body,
+ * or to the end of a recipe ingredient entry, but never changes or removes the fields
+ * before them. A reader reads the fields it knows and skips the rest of the body or
+ * entry by its length, and skips record types it doesnt know, so old readers can read
+ * streams from newer writers.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public final class EntityCodec {
+
+  /** The first int of every stream, "FWBC" in ASCII. */
+  public static final int MAGIC = 0x46574243;
+
+  /** The version of the stream layout; streams of another major version cant be read. */
+  public static final short FORMAT_VERSION = 1;
+
+  /** The expiry written for an ingredient without an expire date. */
+  public static final int NO_EXPIRY = Integer.MIN_VALUE;
+
+  static final byte NAME_RECORD = 1;
+  static final byte INGREDIENT_RECORD = 2;
+  static final byte RECIPE_RECORD = 3;
+
+  static final byte SCHEMA_VERSION = 1;
+
+  static final int HEADER_BYTES = 6;
+  static final int RECORD_HEADER_BYTES = 6;
+  static final int INGREDIENT_BYTES = 25;
+  static final int RECIPE_INGREDIENT_BYTES = 13;
+
+  private EntityCodec() {
+  }
+}
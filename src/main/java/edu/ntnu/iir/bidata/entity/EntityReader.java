@@ -0,0 +1,201 @@
+package edu.ntnu.iir.bidata.entity;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * The EntityReader class reads {@link Ingredient} and {@link Recipe} records written by
+ * an {@link EntityWriter}.
+ *
+ * <p>{@link #next()} moves to the next ingredient or recipe record. Name records are
+ * taken in on the way, and records of unknown types are skipped. The current record is
+ * then read with {@link #readIngredient()}, {@link #readRecipe()} or, without copying the
+ * ingredient list, {@link #viewRecipe()}.
+ *
+ * <p>Every name is decoded once per stream. A reader is not thread-safe.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * EntityReader reader = new EntityReader(buffer);
+ * while (reader.next()) {
+ *   if (reader.isRecipe()) {
+ *     RecipeView recipe = reader.viewRecipe();
+ *   } else {
+ *     Ingredient ingredient = reader.readIngredient();
+ *   }
+ * }
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class EntityReader {
+
+  private final ByteBuffer buffer;
+  private String[] names = new String[64];
+  private byte recordType;
+  private int bodyStart;
+  private int bodyEnd;
+
+  /**
+   * Constructs an EntityReader and reads the stream header.
+   *
+   * @param buffer the buffer to read, from its current position to its limit
+   * @throws IllegalArgumentException if the buffer is null or doesnt start with a header
+   *                                  of a known version
+   */
+  public EntityReader(ByteBuffer buffer) {
+    if (buffer == null) {
+      throw new IllegalArgumentException("ERR: buffer cant be null");
+    }
+    if (buffer.remaining() < EntityCodec.HEADER_BYTES
+        || buffer.getInt() != EntityCodec.MAGIC
+        || buffer.getShort() != EntityCodec.FORMAT_VERSION) {
+      throw new IllegalArgumentException("ERR: not an entity stream of a known version");
+    }
+    this.buffer = buffer;
+  }
+
+  /**
+   * Moves to the next ingredient or recipe record.
+   *
+   * @return false if the stream has no more records
+   * @throws IllegalArgumentException if a record or name is cut off, or a record has a
+   *                                  schema version below 1
+   */
+  public boolean next() {
+    this.recordType = 0;
+    while (this.buffer.remaining() >= EntityCodec.RECORD_HEADER_BYTES) {
+      byte type = this.buffer.get();
+      byte version = this.buffer.get();
+      int bodyLength = this.buffer.getInt();
+      int start = this.buffer.position();
+      if (bodyLength < 0 || bodyLength > this.buffer.remaining()) {
+        throw new IllegalArgumentException("ERR: record is cut off");
+      }
+      if (version < 1) {
+        throw new IllegalArgumentException("ERR: unknown schema version " + version);
+      }
+      this.buffer.position(start + bodyLength);
+      if (type == EntityCodec.NAME_RECORD) {
+        readName(start, bodyLength);
+      } else if (type == EntityCodec.INGREDIENT_RECORD || type == EntityCodec.RECIPE_RECORD) {
+        this.recordType = type;
+        this.bodyStart = start;
+        this.bodyEnd = start + bodyLength;
+        return true;
+      }
+    }
+    if (this.buffer.hasRemaining()) {
+      throw new IllegalArgumentException("ERR: record is cut off");
+    }
+    return false;
+  }
+
+  /**
+   * Checks if the current record is an ingredient.
+   *
+   * @return true if it is an ingredient
+   */
+  public boolean isIngredient() {
+    return this.recordType == EntityCodec.INGREDIENT_RECORD;
+  }
+
+  /**
+   * Checks if the current record is a recipe.
+   *
+   * @return true if it is a recipe
+   */
+  public boolean isRecipe() {
+    return this.recordType == EntityCodec.RECIPE_RECORD;
+  }
+
+  /**
+   * Reads the current record as an ingredient.
+   *
+   * @return the ingredient
+   * @throws IllegalStateException if the current record isnt an ingredient
+   * @throws IllegalArgumentException if the body is shorter than an ingredient
+   */
+  public Ingredient readIngredient() {
+    if (!isIngredient()) {
+      throw new IllegalStateException("ERR: current record isnt an ingredient");
+    }
+    if (this.bodyEnd - this.bodyStart < EntityCodec.INGREDIENT_BYTES) {
+      throw new IllegalArgumentException("ERR: ingredient record is cut off");
+    }
+    int offset = this.bodyStart;
+    int expiry = this.buffer.getInt(offset + 21);
+    return new Ingredient(
+        nameOf(this.buffer.getInt(offset)),
+        this.buffer.getDouble(offset + 4),
+        this.buffer.get(offset + 12),
+        this.buffer.getDouble(offset + 13),
+        expiry == EntityCodec.NO_EXPIRY ? null : LocalDate.ofEpochDay(expiry));
+  }
+
+  /**
+   * Returns a view of the current record as a recipe. The view reads the buffer
+   * directly and is only valid until the buffer is changed.
+   *
+   * @return the recipe view
+   * @throws IllegalStateException if the current record isnt a recipe
+   * @throws IllegalArgumentException if a field or ingredient entry is cut off
+   */
+  public RecipeView viewRecipe() {
+    if (!isRecipe()) {
+      throw new IllegalStateException("ERR: current record isnt a recipe");
+    }
+    return new RecipeView(this, this.buffer, this.bodyStart, this.bodyEnd);
+  }
+
+  /**
+   * Reads the current record as a recipe, copying its ingredient list.
+   *
+   * @return the recipe
+   * @throws IllegalStateException if the current record isnt a recipe
+   * @throws IllegalArgumentException if a field or ingredient entry is cut off
+   */
+  public Recipe readRecipe() {
+    return viewRecipe().toRecipe();
+  }
+
+  /**
+   * Returns the name with a stream id.
+   *
+   * @param id the stream id
+   * @return the name
+   * @throws IllegalArgumentException if no name record has the id
+   */
+  String nameOf(int id) {
+    if (id < 0 || id >= this.names.length || this.names[id] == null) {
+      throw new IllegalArgumentException("ERR: unknown name id " + id);
+    }
+    return this.names[id];
+  }
+
+  String readString(int offset) {
+    int length = this.buffer.getInt(offset);
+    byte[] bytes = new byte[length];
+    this.buffer.get(offset + Integer.BYTES, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private void readName(int start, int bodyLength) {
+    if (bodyLength < Integer.BYTES) {
+      throw new IllegalArgumentException("ERR: name record is cut off");
+    }
+    int id = this.buffer.getInt(start);
+    byte[] bytes = new byte[bodyLength - Integer.BYTES];
+    this.buffer.get(start + Integer.BYTES, bytes);
+    if (id < 0) {
+      throw new IllegalArgumentException("ERR: unknown name id " + id);
+    }
+    if (id >= this.names.length) {
+      this.names = Arrays.copyOf(this.names, Math.max(id + 1, this.names.length * 2));
+    }
+    this.names[id] = new String(bytes, StandardCharsets.UTF_8);
+  }
+}
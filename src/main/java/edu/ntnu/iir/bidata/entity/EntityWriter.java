@@ -0,0 +1,169 @@
+package edu.ntnu.iir.bidata.entity;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The EntityWriter class writes {@link Ingredient} and {@link Recipe} objects to a
+ * {@link ByteBuffer} in the format of {@link EntityCodec}.
+ *
+ * <p>Every name gets a stream id the first time it is written; later records only
+ * write the id. A writer belongs to one stream and is not thread-safe.
+ *
+ * <p>If a record doesnt fit in the remaining buffer, nothing of it is kept: the buffer
+ * position is restored and a {@link BufferOverflowException} is thrown, so the caller
+ * can flush the buffer and write the record again.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+ * EntityWriter writer = new EntityWriter(buffer);
+ * writer.writeIngredient(tomato);
+ * writer.writeRecipe(salad);
+ * buffer.flip();
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class EntityWriter {
+
+  private final ByteBuffer buffer;
+  private final Map<String, Integer> nameIds = new HashMap<>();
+  private final List<String> newNames = new ArrayList<>();
+
+  /**
+   * Constructs an EntityWriter and writes the stream header.
+   *
+   * @param buffer the buffer to write to, from its current position
+   * @throws IllegalArgumentException if the buffer is null
+   * @throws BufferOverflowException if the header doesnt fit
+   */
+  public EntityWriter(ByteBuffer buffer) {
+    if (buffer == null) {
+      throw new IllegalArgumentException("ERR: buffer cant be null");
+    }
+    this.buffer = buffer;
+    buffer.putInt(EntityCodec.MAGIC).putShort(EntityCodec.FORMAT_VERSION);
+  }
+
+  /**
+   * Returns the buffer the writer writes to.
+   *
+   * @return the buffer
+   */
+  public ByteBuffer getBuffer() {
+    return this.buffer;
+  }
+
+  /**
+   * Writes an ingredient.
+   *
+   * @param ingredient the ingredient to write
+   * @throws IllegalArgumentException if the ingredient is null
+   * @throws BufferOverflowException if the record doesnt fit, the buffer is then unchanged
+   */
+  public void writeIngredient(Ingredient ingredient) {
+    if (ingredient == null) {
+      throw new IllegalArgumentException("ERR: ingredient cant be null");
+    }
+    int start = this.buffer.position();
+    try {
+      int nameId = nameId(ingredient.getIngredientName());
+      int bodyStart = beginRecord(EntityCodec.INGREDIENT_RECORD);
+      LocalDate expireDate = ingredient.getExpireLocalDate();
+      this.buffer.putInt(nameId)
+          .putDouble(ingredient.getIngredientAmount())
+          .put((byte) ingredient.getMeasurementType())
+          .putDouble(ingredient.getStoredPrice())
+          .putInt(expireDate == null ? EntityCodec.NO_EXPIRY : (int) expireDate.toEpochDay());
+      endRecord(bodyStart);
+      this.newNames.clear();
+    } catch (BufferOverflowException e) {
+      rollback(start);
+      throw e;
+    }
+  }
+
+  /**
+   * Writes a recipe with its ingredient list.
+   *
+   * @param recipe the recipe to write
+   * @throws IllegalArgumentException if the recipe is null
+   * @throws BufferOverflowException if the record doesnt fit, the buffer is then unchanged
+   */
+  public void writeRecipe(Recipe recipe) {
+    if (recipe == null) {
+      throw new IllegalArgumentException("ERR: recipe cant be null");
+    }
+    int start = this.buffer.position();
+    try {
+      int[] ingredientNameIds = new int[recipe.getIngredientCount()];
+      for (int i = 0; i < ingredientNameIds.length; i++) {
+        ingredientNameIds[i] = nameId(recipe.getIngredientName(i));
+      }
+      int recipeNameId = nameId(recipe.getRecipeName());
+
+      int bodyStart = beginRecord(EntityCodec.RECIPE_RECORD);
+      this.buffer.putInt(recipeNameId).putInt(recipe.getRecipeServing());
+      putString(recipe.getRecipeDescription());
+      putString(recipe.getRecipeInstructions());
+      this.buffer.putInt(ingredientNameIds.length);
+      for (int i = 0; i < ingredientNameIds.length; i++) {
+        this.buffer.putInt(EntityCodec.RECIPE_INGREDIENT_BYTES)
+            .putInt(ingredientNameIds[i])
+            .putDouble(recipe.getIngredientAmount(i))
+            .put((byte) recipe.getIngredientMeasurement(i));
+      }
+      endRecord(bodyStart);
+      this.newNames.clear();
+    } catch (BufferOverflowException e) {
+      rollback(start);
+      throw e;
+    }
+  }
+
+  /** Returns the stream id of a name, writing a NAME record the first time. */
+  private int nameId(String name) {
+    Integer id = this.nameIds.get(name);
+    if (id != null) {
+      return id;
+    }
+    int newId = this.nameIds.size();
+    int bodyStart = beginRecord(EntityCodec.NAME_RECORD);
+    this.buffer.putInt(newId).put(name.getBytes(StandardCharsets.UTF_8));
+    endRecord(bodyStart);
+    this.nameIds.put(name, newId);
+    this.newNames.add(name);
+    return newId;
+  }
+
+  private int beginRecord(byte recordType) {
+    this.buffer.put(recordType).put(EntityCodec.SCHEMA_VERSION).putInt(0);
+    return this.buffer.position();
+  }
+
+  private void endRecord(int bodyStart) {
+    this.buffer.putInt(bodyStart - Integer.BYTES, this.buffer.position() - bodyStart);
+  }
+
+  private void putString(String text) {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    this.buffer.putInt(bytes.length).put(bytes);
+  }
+
+  /** Forgets the names written for a record that didnt fit, and the record itself. */
+  private void rollback(int start) {
+    for (String name : this.newNames) {
+      this.nameIds.remove(name);
+    }
+    this.newNames.clear();
+    this.buffer.position(start);
+  }
+}
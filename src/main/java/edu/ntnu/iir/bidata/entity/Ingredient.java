@@ -1,7 +1,10 @@
 package edu.ntnu.iir.bidata.entity;
 
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import edu.ntnu.iir.bidata.untility.ValidationCode;
+import edu.ntnu.iir.bidata.untility.ValidationUtil;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 
 /**
@@ -31,6 +34,7 @@ import java.time.format.DateTimeFormatter;
  * @author (Mahmoud Said Madhun Madhun)
  */
 
+@SuppressWarnings("try")
 public class Ingredient {
 
   private String ingredientName;
@@ -38,7 +42,6 @@ public class Ingredient {
   private int ingredientMeasurement;
   private LocalDate ingredientExpireDate;
   private double ingreadientPrice;
-  private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
 
   /**
@@ -49,7 +52,8 @@ public class Ingredient {
    * @param ingredientMeasurement the measurement type of the ingredient. Must be between 0 and 2.
    * @param ingreadientPrice      the price of the ingredient. Must be greater than or equal to 0.
    * @param ingredientExpireDate  the expiration date of the ingredient in the format yyyy-MM-dd.
-   * @throws IllegalArgumentException if the ingredientName starts or ends with a space.
+   * @throws IllegalArgumentException if the ingredientName is blank, null, or starts or ends
+   *                                  with a space.
    * @throws IllegalArgumentException if the ingredientMeasurement is not between 0 and 2.
    * @throws IllegalArgumentException if the ingredientAmount is less than or equal to 0.
    * @throws IllegalArgumentException if the ingreadientPrice is less than 0.
@@ -61,41 +65,28 @@ public class Ingredient {
       int ingredientMeasurement,
       double ingreadientPrice,
       String ingredientExpireDate) { // ^ Test this
+    try (TraceSpan span = Tracer.startSpan("Ingredient.new")) {
+      ValidationCode code = ValidationUtil.validateIngredient(
+          ingredientName, ingredientAmount, ingredientMeasurement, ingreadientPrice);
+      if (!code.isValid()) {
+        throw new IllegalArgumentException(code.getMessage());
+      }
 
+      // ? Guard Statement for the Expire Date, parsed once without throwing
+      long expireEpochDay;
+      try (TraceSpan parseSpan = Tracer.startSpan("Ingredient.parseExpireDate")) {
+        expireEpochDay = ValidationUtil.tryParseEpochDay(ingredientExpireDate);
+      }
+      if (expireEpochDay == ValidationUtil.NOT_PARSED) {
+        throw new IllegalArgumentException(ValidationCode.WRONG_DATE_FORMAT.getMessage());
+      }
 
-    if ((ingredientName.startsWith(" ")
-          || ingredientName.endsWith(" "))) {
-      throw new IllegalArgumentException("ERR: name cant start with space or end with space");
-    }
-    // ? Guard Statement for the Measurement
-    if (ingredientMeasurement >= 1 && ingredientMeasurement > 2) { // ! Types from 0-2
-      throw new IllegalArgumentException("ERR: wrong messurment");
-    }
-    // ? Guard Statement for the Amount
-    if (ingredientAmount <= 0) {
-      throw new IllegalArgumentException("ERR: amount cant be 0 or negative");
-    }
-
-    // ? Guard Statement for the Price
-    if (ingreadientPrice < 0) {
-      throw new IllegalArgumentException("ERR: price cant be 0 or negative");
-    }
-
-    // ? Guard Statement for the Expire Date
-    try {
-      LocalDate.parse(
-          ingredientExpireDate,
-          FORMATTER); // ! To check if ingredientExpireDate is parsed as same as the format
-    } catch (Exception e) {
-      throw new IllegalArgumentException("ERR: Wrong date format i should be (yyyy-MM-dd)");
+      this.ingredientName = normalizeName(ingredientName);
+      this.ingredientMeasurement = ingredientMeasurement;
+      this.ingredientAmount = ingredientAmount;
+      this.ingreadientPrice = ingreadientPrice;
+      this.ingredientExpireDate = LocalDate.ofEpochDay(expireEpochDay);
     }
-
-    this.ingredientName = ingredientName.substring(0, 1).toUpperCase()
-        + ingredientName.substring(1, ingredientName.length()).toLowerCase();
-    this.ingredientMeasurement = ingredientMeasurement;
-    this.ingredientAmount = ingredientAmount;
-    this.ingreadientPrice = ingreadientPrice;
-    this.ingredientExpireDate = LocalDate.parse(ingredientExpireDate, FORMATTER);
   }
 
 
@@ -119,29 +110,99 @@ public class Ingredient {
       String ingredientName,
       double ingredientAmount,
       int ingredientMeasurement) { // ^ Test this
+    try (TraceSpan span = Tracer.startSpan("Ingredient.new")) {
+      // ? Guard Statement for ingredientName
+      if ((ingredientName.isBlank())) {
+        throw new IllegalArgumentException("ERR: name cant be blank or empty");
+      }
+      if ((ingredientName.startsWith(" ")
+          || ingredientName.endsWith(" "))) {
+        throw new IllegalArgumentException("ERR: name cant start with space or end with space");
+      }
+      // ? Guard Statement for the Measurement
+      if (ingredientMeasurement >= 1 && ingredientMeasurement > 2) { // ! Types from 0-2
+        throw new IllegalArgumentException("ERR: wrong messurment");
+      }
+      // ? Guard Statement for the Amount
+      if (ingredientAmount <= 0) {
+        throw new IllegalArgumentException("ERR: amount cant be 0 or negative");
+      }
 
-    // ? Guard Statement for ingredientName
-    if ((ingredientName.isBlank())) {
-      throw new IllegalArgumentException("ERR: name cant be blank or empty");
-    }
-    if ((ingredientName.startsWith(" ")
-        || ingredientName.endsWith(" "))) {
-      throw new IllegalArgumentException("ERR: name cant start with space or end with space");
-    }
-    // ? Guard Statement for the Measurement
-    if (ingredientMeasurement >= 1 && ingredientMeasurement > 2) { // ! Types from 0-2
-      throw new IllegalArgumentException("ERR: wrong messurment");
-    }
-    // ? Guard Statement for the Amount
-    if (ingredientAmount <= 0) {
-      throw new IllegalArgumentException("ERR: amount cant be 0 or negative");
+
+      this.ingredientName = ingredientName.substring(0, 1).toUpperCase()
+          + ingredientName.substring(1, ingredientName.length()).toLowerCase();
+      this.ingredientMeasurement = ingredientMeasurement;
+      this.ingredientAmount = ingredientAmount;
     }
+  }
 
 
-    this.ingredientName = ingredientName.substring(0, 1).toUpperCase()
-        + ingredientName.substring(1, ingredientName.length()).toLowerCase();
-    this.ingredientMeasurement = ingredientMeasurement;
+  /**
+   * Constructs an Ingredient from values that are already validated and normalized,
+   * such as values read back by an {@link EntityReader}. Nothing is checked or parsed.
+   *
+   * @param ingredientName the normalized name of the ingredient
+   * @param ingredientAmount the amount of the ingredient
+   * @param ingredientMeasurement the measurement type, from 0 to 2
+   * @param ingreadientPrice the stored price of the ingredient
+   * @param ingredientExpireDate the expire date, or null for a recipe ingredient
+   */
+  Ingredient(
+      String ingredientName,
+      double ingredientAmount,
+      int ingredientMeasurement,
+      double ingreadientPrice,
+      LocalDate ingredientExpireDate) {
+    this.ingredientName = ingredientName;
     this.ingredientAmount = ingredientAmount;
+    this.ingredientMeasurement = ingredientMeasurement;
+    this.ingreadientPrice = ingreadientPrice;
+    this.ingredientExpireDate = ingredientExpireDate;
+  }
+
+
+  /**
+   * Creates a stored Ingredient from values checked by
+   * {@link ValidationUtil#validateIngredient(String, double, int, double)} and a date
+   * parsed by {@link ValidationUtil#tryParseEpochDay(CharSequence)}. Nothing is checked or
+   * parsed again, so bulk loads pay for each check once and never for an exception.
+   *
+   * @param ingredientName the validated name, it is normalized like in the constructor
+   * @param ingredientAmount the validated amount
+   * @param ingredientMeasurement the validated measurement type
+   * @param ingreadientPrice the validated price
+   * @param expireEpochDay the expire date as days since 1970-01-01
+   * @return the ingredient
+   */
+  public static Ingredient fromValidated(String ingredientName, double ingredientAmount,
+      int ingredientMeasurement, double ingreadientPrice, long expireEpochDay) {
+    return new Ingredient(normalizeName(ingredientName), ingredientAmount,
+        ingredientMeasurement, ingreadientPrice, LocalDate.ofEpochDay(expireEpochDay));
+  }
+
+  /** Capitalizes the first letter of a name and lowercases the rest. */
+  private static String normalizeName(String ingredientName) {
+    return ingredientName.substring(0, 1).toUpperCase()
+        + ingredientName.substring(1, ingredientName.length()).toLowerCase();
+  }
+
+
+  /**
+   * Constructs a copy of an ingredient. Changing the amount of the copy
+   * leaves the original unchanged.
+   *
+   * @param ingredient the ingredient to copy
+   * @throws IllegalArgumentException if the ingredient is null
+   */
+  public Ingredient(Ingredient ingredient) {
+    if (ingredient == null) {
+      throw new IllegalArgumentException("ERR: cant copy a null ingredient");
+    }
+    this.ingredientName = ingredient.ingredientName;
+    this.ingredientAmount = ingredient.ingredientAmount;
+    this.ingredientMeasurement = ingredient.ingredientMeasurement;
+    this.ingredientExpireDate = ingredient.ingredientExpireDate;
+    this.ingreadientPrice = ingredient.ingreadientPrice;
   }
 
 
@@ -194,17 +255,67 @@ public class Ingredient {
     }
   }
 
+  /**
+   * Retrieves the expire date of the ingredient as a date.
+   *
+   * @return the expire date, or null for a recipe ingredient that has none
+   */
+  public LocalDate getExpireLocalDate() {
+    return this.ingredientExpireDate;
+  }
+
+  /**
+   * Checks if the ingredient is expired on a given day. An ingredient is still usable
+   * on the day it expires.
+   *
+   * @param day the day to check
+   * @return true if the ingredient has an expire date before the day
+   */
+  public boolean isExpiredOn(LocalDate day) {
+    return this.ingredientExpireDate != null && this.ingredientExpireDate.isBefore(day);
+  }
+
 
 
 
+  /**
+   * Returns the measurement type as stored, for encoders.
+   *
+   * @return 0 for units, 1 for grams and 2 for liters
+   */
+  int getMeasurementType() {
+    return this.ingredientMeasurement;
+  }
+
+  /**
+   * Returns the price as stored, for encoders. Unlike {@link #getIngredientPrice()} it
+   * is never divided by the amount.
+   *
+   * @return the stored price
+   */
+  double getStoredPrice() {
+    return this.ingreadientPrice;
+  }
+
+
   /**
  * Retrieves the measurement type of the ingredient.
  *
  * @return the measurement type of the ingredient as a string. Possible values are "Unit", "G", "L".
  */
   public String getIngredientMeasurment() {
+    return measurementName(this.ingredientMeasurement);
+  }
+
+  /**
+   * Returns the name of a measurement type.
+   *
+   * @param ingredientMeasurement the measurement type, from 0 to 2
+   * @return "Unit", "G" or "L"
+   */
+  static String measurementName(int ingredientMeasurement) {
     String[] ingredientMeasurementType = { "Unit", "G", "L" }; //! kan utvides videre
-    return ingredientMeasurementType[this.ingredientMeasurement];
+    return ingredientMeasurementType[ingredientMeasurement];
   }
 
 
@@ -227,6 +338,19 @@ public class Ingredient {
   }
 
 
+  /**
+   * Returns the price of one unit, gram or liter of the ingredient.
+   *
+   * @return the price per amount, 0 if the ingredient has no price
+   */
+  public double getIngredientPricePerAmount() {
+    if (this.ingredientMeasurement == 0) {
+      return getIngredientPrice();
+    }
+    return this.ingreadientPrice / this.ingredientAmount;
+  }
+
+
 
 
 
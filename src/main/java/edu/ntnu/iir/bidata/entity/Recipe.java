@@ -1,7 +1,11 @@
 package edu.ntnu.iir.bidata.entity;
 
+import edu.ntnu.iir.bidata.untility.IngredientDictionary;
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 /**
  * Represents a recipe with a name, description, instructions, servings, and ingredients.
@@ -19,6 +23,12 @@ import java.util.Map;
  * 
  * <p>The class provides methods to retrieve these attributes and ensures that the
  * recipe details are valid upon creation.
+ *
+ * <p>The ingredients are kept as packed arrays of ingredient id, amount and measurement
+ * type instead of {@link Ingredient} objects, and are copied when the recipe is created.
+ * Code that walks the requirements should use {@link #getIngredientCount()} and the
+ * indexed getters, which read the arrays without allocating. {@link #getIngredients()}
+ * builds the map for older callers.
  * 
  * <p>Example usage:
  * <pre>
@@ -40,7 +50,11 @@ public class Recipe {
   private String recipeDescription; // A brief description of the recipe.
   private String recipeInstructions; // A brief Instructions of the recipe.
   private int recipeServings; // A brief Instructions of the recipe.
-  private final Map<String, Ingredient> recipeIngredients; // Collection of Ingredients
+  // ? Ids are from the global IngredientDictionary, keys only differ from names in case
+  private final int[] ingredientKeyIds; // The map keys the ingredients were given with
+  private final int[] ingredientIds; // The ingredient names
+  private final double[] ingredientAmounts;
+  private final byte[] ingredientMeasurements;
 
 
   /**
@@ -76,19 +90,82 @@ public class Recipe {
       throw new IllegalArgumentException("ERR: recipe doesnt contain ingredients.");
     }
 
-    this.recipeName =
-        recipeName.substring(0, 1).toUpperCase()
-            + recipeName.substring(1, recipeName.length()).toLowerCase();
-    this.recipeDescription =
-        recipeDescription.substring(0, 1).toUpperCase()
-            + recipeDescription.substring(1, recipeDescription.length()).toLowerCase();
-    ;
-    this.recipeInstructions =
-        recipeInstructions.substring(0, 1).toUpperCase()
-            + recipeInstructions.substring(1, recipeInstructions.length()).toLowerCase();
+    this.recipeName = capitalize(recipeName);
+    this.recipeDescription = capitalize(recipeDescription);
+    this.recipeInstructions = capitalize(recipeInstructions);
 
     this.recipeServings = recipeServings;        
-    this.recipeIngredients = recipeIngredients;
+
+    IngredientDictionary dictionary = IngredientDictionary.global();
+    int ingredientCount = recipeIngredients.size();
+    int[] keyIds = new int[ingredientCount];
+    int[] nameIds = new int[ingredientCount];
+    this.ingredientAmounts = new double[ingredientCount];
+    this.ingredientMeasurements = new byte[ingredientCount];
+    boolean keysAreNames = true;
+    int position = 0;
+    for (Map.Entry<String, Ingredient> entry : recipeIngredients.entrySet()) {
+      Ingredient ingredient = entry.getValue();
+      nameIds[position] = dictionary.idOf(ingredient.getIngredientName());
+      keyIds[position] = entry.getKey().equals(ingredient.getIngredientName())
+          ? nameIds[position] : dictionary.idOf(entry.getKey());
+      keysAreNames &= keyIds[position] == nameIds[position];
+      this.ingredientAmounts[position] = ingredient.getIngredientAmount();
+      this.ingredientMeasurements[position] = (byte) ingredient.getMeasurementType();
+      position++;
+    }
+    this.ingredientIds = nameIds;
+    // ! Share the array when every key is the name, which is almost always
+    this.ingredientKeyIds = keysAreNames ? nameIds : keyIds;
+  }
+
+  private Recipe(String recipeName, String recipeDescription, String recipeInstructions,
+      int recipeServings, int[] ingredientIds, double[] ingredientAmounts,
+      byte[] ingredientMeasurements) {
+    this.recipeName = recipeName;
+    this.recipeDescription = recipeDescription;
+    this.recipeInstructions = recipeInstructions;
+    this.recipeServings = recipeServings;
+    this.ingredientIds = ingredientIds;
+    this.ingredientKeyIds = ingredientIds;
+    this.ingredientAmounts = ingredientAmounts;
+    this.ingredientMeasurements = ingredientMeasurements;
+  }
+
+  /**
+   * Creates a Recipe from values that are already validated by the rules of the
+   * constructor, such as the rows of a catalog import. The text and the ingredient names
+   * are normalized like in the constructors, and the names are resolved to ids in the
+   * global {@link IngredientDictionary}, but nothing is checked again.
+   *
+   * @param recipeName the validated name of the recipe
+   * @param recipeDescription the validated description
+   * @param recipeInstructions the validated instructions
+   * @param recipeServings the validated number of servings
+   * @param ingredientNames the validated ingredient names, without repeats
+   * @param ingredientAmounts the amount of each ingredient
+   * @param ingredientMeasurements the measurement type of each ingredient, from 0 to 2
+   * @param ingredientCount the number of ingredients to take from the arrays
+   * @return the recipe
+   */
+  public static Recipe fromValidated(String recipeName, String recipeDescription,
+      String recipeInstructions, int recipeServings, String[] ingredientNames,
+      double[] ingredientAmounts, int[] ingredientMeasurements, int ingredientCount) {
+    IngredientDictionary dictionary = IngredientDictionary.global();
+    int[] ids = new int[ingredientCount];
+    byte[] measurements = new byte[ingredientCount];
+    for (int i = 0; i < ingredientCount; i++) {
+      ids[i] = dictionary.idOf(capitalize(ingredientNames[i]));
+      measurements[i] = (byte) ingredientMeasurements[i];
+    }
+    return new Recipe(capitalize(recipeName), capitalize(recipeDescription),
+        capitalize(recipeInstructions), recipeServings, ids,
+        Arrays.copyOf(ingredientAmounts, ingredientCount), measurements);
+  }
+
+  /** Capitalizes the first letter of a text and lowercases the rest. */
+  private static String capitalize(String text) {
+    return text.substring(0, 1).toUpperCase() + text.substring(1, text.length()).toLowerCase();
   }
 
   /**
@@ -134,17 +211,92 @@ public class Recipe {
    * @return A list of ingredients required for the recipe.
   */
   public Iterator<Ingredient> getIngredientIterator() {
-    return this.recipeIngredients.values().iterator();
+    return getIngredients().values().iterator();
   }
 
 
   /**
- * Returns an unmodifiable view of the ingredients required for the recipe.
+ * Returns an unmodifiable map of the ingredients required for the recipe, built from the
+ * packed requirements on every call. Changing the returned ingredients leaves the recipe
+ * unchanged.
  *
  * @return An unmodifiable map of ingredients required for the recipe.
  */
   public Map<String, Ingredient> getIngredients() {
-    return Collections.unmodifiableMap(this.recipeIngredients);
+    IngredientDictionary dictionary = IngredientDictionary.global();
+    Map<String, Ingredient> ingredients = new LinkedHashMap<>();
+    for (int i = 0; i < this.ingredientIds.length; i++) {
+      ingredients.put(dictionary.nameOf(this.ingredientKeyIds[i]), new Ingredient(
+          getIngredientName(i), this.ingredientAmounts[i], this.ingredientMeasurements[i],
+          0.0, (LocalDate) null));
+    }
+    return Collections.unmodifiableMap(ingredients);
+  }
+
+  /**
+   * Returns the number of ingredients required for the recipe.
+   *
+   * @return the ingredient count
+   */
+  public int getIngredientCount() {
+    return this.ingredientIds.length;
+  }
+
+  /**
+   * Returns the id of an ingredient in the list, from the global
+   * {@link IngredientDictionary}.
+   *
+   * @param index the position in the list
+   * @return the ingredient id
+   * @throws IndexOutOfBoundsException if the index is outside the list
+   */
+  public int getIngredientId(int index) {
+    return this.ingredientIds[index];
+  }
+
+  /**
+   * Returns the name of an ingredient in the list.
+   *
+   * @param index the position in the list
+   * @return the ingredient name
+   * @throws IndexOutOfBoundsException if the index is outside the list
+   */
+  public String getIngredientName(int index) {
+    return IngredientDictionary.global().nameOf(this.ingredientIds[index]);
+  }
+
+  /**
+   * Returns the required amount of an ingredient in the list.
+   *
+   * @param index the position in the list
+   * @return the amount
+   * @throws IndexOutOfBoundsException if the index is outside the list
+   */
+  public double getIngredientAmount(int index) {
+    return this.ingredientAmounts[index];
+  }
+
+  /**
+   * Returns the measurement type of an ingredient in the list.
+   *
+   * @param index the position in the list
+   * @return 0 for units, 1 for grams and 2 for liters
+   * @throws IndexOutOfBoundsException if the index is outside the list
+   */
+  public int getIngredientMeasurement(int index) {
+    return this.ingredientMeasurements[index];
+  }
+
+  /**
+   * Returns the measurement of an ingredient in the list as text, like
+   * {@link Ingredient#getIngredientMeasurment()}.
+   *
+   * @param index the position in the list
+   * @return "Unit", "G" or "L"
+   * @throws IndexOutOfBoundsException if the index is outside the list
+   */
+  public String getIngredientMeasurment(int index) {
+    return Ingredient.measurementName(this.ingredientMeasurements[index]);
   }
 
 
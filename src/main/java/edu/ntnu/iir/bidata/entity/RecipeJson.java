@@ -0,0 +1,370 @@
+package edu.ntnu.iir.bidata.entity;
+
+import edu.ntnu.iir.bidata.untility.ValidationCode;
+import edu.ntnu.iir.bidata.untility.ValidationUtil;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The RecipeJson class writes a {@link Recipe} as one line of JSON and reads it back,
+ * for catalogs in the JSON lines format. It needs no JSON library.
+ *
+ * <p>A recipe line looks like this:
+ * <pre>{@code
+ * {"name":"Pancakes","description":"Fluffy pancakes","instructions":"Mix and fry",
+ *  "servings":4,"ingredients":[{"name":"Flour","amount":200.0,"measurement":1}]}
+ * }</pre>
+ * The measurement is 0 for units, 1 for grams and 2 for liters. Fields may come in any
+ * order, and unknown fields are skipped as long as they nest at most
+ * {@value #MAX_SKIPPED_DEPTH} levels deep.
+ *
+ * <p>Reading checks the same rules as the {@link Recipe} and {@link Ingredient}
+ * constructors, and normalizes the text the same way. The parser walks the line once
+ * and builds no tree, so its memory only depends on the size of one recipe.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public final class RecipeJson {
+
+  /** How deep the arrays and objects of an unknown field may nest. */
+  public static final int MAX_SKIPPED_DEPTH = 64;
+
+  private RecipeJson() {
+  }
+
+  /**
+   * Appends a recipe as one line of JSON, without the line break.
+   *
+   * @param recipe the recipe to write
+   * @param output the builder to append to
+   * @throws IllegalArgumentException if the recipe or builder is null
+   */
+  public static void appendTo(Recipe recipe, StringBuilder output) {
+    if (recipe == null || output == null) {
+      throw new IllegalArgumentException("ERR: recipe and output cant be null");
+    }
+    output.append("{\"name\":");
+    appendString(recipe.getRecipeName(), output);
+    output.append(",\"description\":");
+    appendString(recipe.getRecipeDescription(), output);
+    output.append(",\"instructions\":");
+    appendString(recipe.getRecipeInstructions(), output);
+    output.append(",\"servings\":").append(recipe.getRecipeServing());
+    output.append(",\"ingredients\":[");
+    for (int i = 0; i < recipe.getIngredientCount(); i++) {
+      if (i > 0) {
+        output.append(',');
+      }
+      output.append("{\"name\":");
+      appendString(recipe.getIngredientName(i), output);
+      output.append(",\"amount\":").append(recipe.getIngredientAmount(i));
+      output.append(",\"measurement\":").append(recipe.getIngredientMeasurement(i));
+      output.append('}');
+    }
+    output.append("]}");
+  }
+
+  /**
+   * Reads a recipe from one line of JSON.
+   *
+   * @param line the line to read
+   * @return the recipe
+   * @throws IllegalArgumentException if the line isnt valid JSON, a field is missing or
+   *                                  has the wrong type, or the recipe breaks a rule of
+   *                                  the Recipe constructor
+   */
+  public static Recipe parse(CharSequence line) {
+    if (line == null) {
+      throw new IllegalArgumentException("ERR: line cant be null");
+    }
+    return new Parser(line).parseRecipe();
+  }
+
+  private static void appendString(String text, StringBuilder output) {
+    output.append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char character = text.charAt(i);
+      switch (character) {
+        case '"' -> output.append("\\\"");
+        case '\\' -> output.append("\\\\");
+        case '\n' -> output.append("\\n");
+        case '\r' -> output.append("\\r");
+        case '\t' -> output.append("\\t");
+        default -> {
+          if (character < 0x20) {
+            output.append(String.format("\\u%04x", (int) character));
+          } else {
+            output.append(character);
+          }
+        }
+      }
+    }
+    output.append('"');
+  }
+
+  /** Reads one recipe object, keeping its position in the line. */
+  private static final class Parser {
+
+    private final CharSequence text;
+    private final StringBuilder scratch = new StringBuilder();
+    private int position;
+    private int ingredientCount;
+    private String[] ingredientNames = new String[8];
+    private double[] ingredientAmounts = new double[8];
+    private int[] ingredientMeasurements = new int[8];
+
+    Parser(CharSequence text) {
+      this.text = text;
+    }
+
+    Recipe parseRecipe() {
+      String recipeName = null;
+      String recipeDescription = null;
+      String recipeInstructions = null;
+      double recipeServings = Double.NaN;
+      boolean hasIngredients = false;
+      expect('{');
+      if (!tryConsume('}')) {
+        do {
+          String field = parseString();
+          expect(':');
+          switch (field) {
+            case "name" -> recipeName = parseString();
+            case "description" -> recipeDescription = parseString();
+            case "instructions" -> recipeInstructions = parseString();
+            case "servings" -> recipeServings = parseNumber();
+            case "ingredients" -> {
+              parseIngredients();
+              hasIngredients = true;
+            }
+            default -> skipValue(1);
+          }
+        } while (tryConsume(','));
+        expect('}');
+      }
+      skipWhitespace();
+      if (this.position != this.text.length()) {
+        throw error("end of line");
+      }
+
+      if (recipeName == null || recipeName.isBlank()) {
+        throw new IllegalArgumentException("ERR: recipe name cant be blank");
+      }
+      if (recipeDescription == null || recipeDescription.isBlank()) {
+        throw new IllegalArgumentException("ERR: recipe description cant be blank");
+      }
+      if (recipeInstructions == null || recipeInstructions.isBlank()) {
+        throw new IllegalArgumentException("ERR: recipe instructions cant be blank");
+      }
+      if (!(recipeServings > 0) || recipeServings != Math.rint(recipeServings)
+          || recipeServings > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("ERR: recipe serving cant be negative or 0");
+      }
+      if (!hasIngredients || this.ingredientCount == 0) {
+        throw new IllegalArgumentException("ERR: recipe doesnt contain ingredients.");
+      }
+      return Recipe.fromValidated(recipeName, recipeDescription, recipeInstructions,
+          (int) recipeServings, this.ingredientNames, this.ingredientAmounts,
+          this.ingredientMeasurements, this.ingredientCount);
+    }
+
+    private void parseIngredients() {
+      Set<String> seenNames = new HashSet<>();
+      expect('[');
+      if (tryConsume(']')) {
+        return;
+      }
+      do {
+        String ingredientName = null;
+        double amount = Double.NaN;
+        double measurement = Double.NaN;
+        expect('{');
+        if (!tryConsume('}')) {
+          do {
+            String field = parseString();
+            expect(':');
+            switch (field) {
+              case "name" -> ingredientName = parseString();
+              case "amount" -> amount = parseNumber();
+              case "measurement" -> measurement = parseNumber();
+              default -> skipValue(1);
+            }
+          } while (tryConsume(','));
+          expect('}');
+        }
+        int measurementType = measurement == Math.rint(measurement)
+            && Math.abs(measurement) <= 2 ? (int) measurement : -1;
+        ValidationCode code = ValidationUtil.validateIngredient(
+            ingredientName, amount, measurementType, 0.0);
+        if (!code.isValid()) {
+          throw new IllegalArgumentException(code.getMessage());
+        }
+        if (!seenNames.add(ingredientName.toLowerCase(Locale.ROOT))) {
+          throw new IllegalArgumentException(
+              "ERR: ingredient " + ingredientName + " is listed twice");
+        }
+        addIngredient(ingredientName, amount, measurementType);
+      } while (tryConsume(','));
+      expect(']');
+    }
+
+    private void addIngredient(String ingredientName, double amount, int measurement) {
+      if (this.ingredientCount == this.ingredientNames.length) {
+        int capacity = this.ingredientCount * 2;
+        this.ingredientNames = Arrays.copyOf(this.ingredientNames, capacity);
+        this.ingredientAmounts = Arrays.copyOf(this.ingredientAmounts, capacity);
+        this.ingredientMeasurements = Arrays.copyOf(this.ingredientMeasurements, capacity);
+      }
+      this.ingredientNames[this.ingredientCount] = ingredientName;
+      this.ingredientAmounts[this.ingredientCount] = amount;
+      this.ingredientMeasurements[this.ingredientCount] = measurement;
+      this.ingredientCount++;
+    }
+
+    private String parseString() {
+      expect('"');
+      this.scratch.setLength(0);
+      while (this.position < this.text.length()) {
+        char character = this.text.charAt(this.position++);
+        if (character == '"') {
+          return this.scratch.toString();
+        }
+        if (character != '\\') {
+          this.scratch.append(character);
+          continue;
+        }
+        if (this.position >= this.text.length()) {
+          break;
+        }
+        char escaped = this.text.charAt(this.position++);
+        switch (escaped) {
+          case '"', '\\', '/' -> this.scratch.append(escaped);
+          case 'b' -> this.scratch.append('\b');
+          case 'f' -> this.scratch.append('\f');
+          case 'n' -> this.scratch.append('\n');
+          case 'r' -> this.scratch.append('\r');
+          case 't' -> this.scratch.append('\t');
+          case 'u' -> this.scratch.append(parseUnicodeEscape());
+          default -> throw error("escape character");
+        }
+      }
+      throw error("closing quote");
+    }
+
+    private char parseUnicodeEscape() {
+      if (this.position + 4 > this.text.length()) {
+        throw error("four hex digits");
+      }
+      int value = 0;
+      for (int i = 0; i < 4; i++) {
+        int digit = Character.digit(this.text.charAt(this.position++), 16);
+        if (digit < 0) {
+          throw error("four hex digits");
+        }
+        value = value * 16 + digit;
+      }
+      return (char) value;
+    }
+
+    private double parseNumber() {
+      skipWhitespace();
+      int start = this.position;
+      while (this.position < this.text.length() && isNumberCharacter(this.text.charAt(
+          this.position))) {
+        this.position++;
+      }
+      double number = ValidationUtil.tryParseDouble(
+          this.text.subSequence(start, this.position).toString());
+      if (Double.isNaN(number)) {
+        this.position = start;
+        throw error("number");
+      }
+      return number;
+    }
+
+    /** Skips a value of a field the recipe format doesnt use, nested at some depth. */
+    private void skipValue(int depth) {
+      // ? Each level is a stack frame, so a hostile line cant run the stack out
+      if (depth > MAX_SKIPPED_DEPTH) {
+        throw error("at most " + MAX_SKIPPED_DEPTH + " levels of nesting");
+      }
+      skipWhitespace();
+      if (this.position >= this.text.length()) {
+        throw error("value");
+      }
+      char character = this.text.charAt(this.position);
+      if (character == '"') {
+        parseString();
+      } else if (character == '{' || character == '[') {
+        char closing = character == '{' ? '}' : ']';
+        this.position++;
+        if (tryConsume(closing)) {
+          return;
+        }
+        do {
+          if (closing == '}') {
+            parseString();
+            expect(':');
+          }
+          skipValue(depth + 1);
+        } while (tryConsume(','));
+        expect(closing);
+      } else if (!tryConsumeWord("true") && !tryConsumeWord("false")
+          && !tryConsumeWord("null")) {
+        parseNumber();
+      }
+    }
+
+    private boolean tryConsumeWord(String word) {
+      int end = this.position + word.length();
+      if (end > this.text.length()) {
+        return false;
+      }
+      for (int i = 0; i < word.length(); i++) {
+        if (this.text.charAt(this.position + i) != word.charAt(i)) {
+          return false;
+        }
+      }
+      this.position = end;
+      return true;
+    }
+
+    private void expect(char expected) {
+      if (!tryConsume(expected)) {
+        throw error("'" + expected + "'");
+      }
+    }
+
+    private boolean tryConsume(char expected) {
+      skipWhitespace();
+      if (this.position < this.text.length() && this.text.charAt(this.position) == expected) {
+        this.position++;
+        return true;
+      }
+      return false;
+    }
+
+    private void skipWhitespace() {
+      while (this.position < this.text.length()) {
+        char character = this.text.charAt(this.position);
+        if (character != ' ' && character != '\t' && character != '\r' && character != '\n') {
+          return;
+        }
+        this.position++;
+      }
+    }
+
+    private IllegalArgumentException error(String expected) {
+      return new IllegalArgumentException(
+          "ERR: invalid JSON, expected " + expected + " at column " + (this.position + 1));
+    }
+
+    private static boolean isNumberCharacter(char character) {
+      return (character >= '0' && character <= '9') || character == '-' || character == '+'
+          || character == '.' || character == 'e' || character == 'E';
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package edu.ntnu.iir.bidata.entity;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The RecipeView class reads a recipe record straight from the buffer of an
+ * {@link EntityReader}, without copying its ingredient list. Ingredient names resolve
+ * through the names of the stream, which are decoded once, and the entries are located
+ * once when the view is made, so walking the list only reads fixed-width fields. Fields
+ * a newer writer appended to an entry are skipped.
+ *
+ * <p>A view is only valid while the buffer it reads isnt changed. Use
+ * {@link #toRecipe()} to keep the recipe.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class RecipeView {
+
+  private final EntityReader reader;
+  private final ByteBuffer buffer;
+  private final int bodyStart;
+  private final int descriptionOffset;
+  private final int instructionsOffset;
+  private final int[] entryOffsets;
+
+  RecipeView(EntityReader reader, ByteBuffer buffer, int bodyStart, int bodyEnd) {
+    this.reader = reader;
+    this.buffer = buffer;
+    this.bodyStart = bodyStart;
+    this.descriptionOffset = bodyStart + 8;
+    // ? Every length is checked against the body, so a bad one never reads the next record
+    this.instructionsOffset = skipString(buffer, this.descriptionOffset, bodyEnd);
+    int countOffset = skipString(buffer, this.instructionsOffset, bodyEnd);
+    if (bodyEnd - countOffset < Integer.BYTES) {
+      throw new IllegalArgumentException("ERR: recipe record is cut off");
+    }
+    int ingredientCount = buffer.getInt(countOffset);
+    int offset = countOffset + Integer.BYTES;
+    // ? A count the body cant hold is refused before the offsets array is made
+    if (ingredientCount < 0 || ingredientCount > (bodyEnd - offset)
+        / (Integer.BYTES + EntityCodec.RECIPE_INGREDIENT_BYTES)) {
+      throw new IllegalArgumentException("ERR: ingredient entry is cut off");
+    }
+    this.entryOffsets = new int[ingredientCount];
+    for (int i = 0; i < this.entryOffsets.length; i++) {
+      if (bodyEnd - offset < Integer.BYTES) {
+        throw new IllegalArgumentException("ERR: ingredient entry is cut off");
+      }
+      int entryLength = buffer.getInt(offset);
+      offset += Integer.BYTES;
+      if (entryLength < EntityCodec.RECIPE_INGREDIENT_BYTES
+          || entryLength > bodyEnd - offset) {
+        throw new IllegalArgumentException("ERR: ingredient entry is cut off");
+      }
+      this.entryOffsets[i] = offset;
+      offset += entryLength;
+    }
+  }
+
+  /**
+   * Returns the name of the recipe.
+   *
+   * @return the recipe name
+   */
+  public String getRecipeName() {
+    return this.reader.nameOf(this.buffer.getInt(this.bodyStart));
+  }
+
+  /**
+   * Returns the number of servings of the recipe.
+   *
+   * @return the servings
+   */
+  public int getRecipeServing() {
+    return this.buffer.getInt(this.bodyStart + 4);
+  }
+
+  /**
+   * Returns the description of the recipe, decoded on every call.
+   *
+   * @return the description
+   */
+  public String getRecipeDescription() {
+    return this.reader.readString(this.descriptionOffset);
+  }
+
+  /**
+   * Returns the instructions of the recipe, decoded on every call.
+   *
+   * @return the instructions
+   */
+  public String getRecipeInstructions() {
+    return this.reader.readString(this.instructionsOffset);
+  }
+
+  /**
+   * Returns the number of ingredients in the recipe.
+   *
+   * @return the ingredient count
+   */
+  public int getIngredientCount() {
+    return this.entryOffsets.length;
+  }
+
+  /**
+   * Returns the name of an ingredient in the list.
+   *
+   * @param index the position in the list
+   * @return the ingredient name
+   * @throws IndexOutOfBoundsException if the index is outside the list
+   */
+  public String getIngredientName(int index) {
+    return this.reader.nameOf(this.buffer.getInt(entryOffset(index)));
+  }
+
+  /**
+   * Returns the required amount of an ingredient in the list.
+   *
+   * @param index the position in the list
+   * @return the amount
+   * @throws IndexOutOfBoundsException if the index is outside the list
+   */
+  public double getIngredientAmount(int index) {
+    return this.buffer.getDouble(entryOffset(index) + 4);
+  }
+
+  /**
+   * Returns the measurement type of an ingredient in the list.
+   *
+   * @param index the position in the list
+   * @return 0 for units, 1 for grams and 2 for liters
+   * @throws IndexOutOfBoundsException if the index is outside the list
+   */
+  public int getIngredientMeasurement(int index) {
+    return this.buffer.get(entryOffset(index) + 12);
+  }
+
+  /**
+   * Copies the view into a recipe.
+   *
+   * @return the recipe
+   */
+  public Recipe toRecipe() {
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    for (int i = 0; i < this.entryOffsets.length; i++) {
+      String ingredientName = getIngredientName(i);
+      ingredients.put(ingredientName, new Ingredient(ingredientName,
+          getIngredientAmount(i), getIngredientMeasurement(i), 0.0, (LocalDate) null));
+    }
+    return new Recipe(getRecipeName(), getRecipeDescription(), getRecipeInstructions(),
+        getRecipeServing(), ingredients);
+  }
+
+  /** Returns the offset after a length-prefixed string, checking it ends in the body. */
+  private static int skipString(ByteBuffer buffer, int offset, int bodyEnd) {
+    if (bodyEnd - offset < Integer.BYTES) {
+      throw new IllegalArgumentException("ERR: recipe record is cut off");
+    }
+    int length = buffer.getInt(offset);
+    if (length < 0 || length > bodyEnd - offset - Integer.BYTES) {
+      throw new IllegalArgumentException("ERR: recipe record is cut off");
+    }
+    return offset + Integer.BYTES + length;
+  }
+
+  private int entryOffset(int index) {
+    if (index < 0 || index >= this.entryOffsets.length) {
+      throw new IndexOutOfBoundsException("ERR: no ingredient at " + index);
+    }
+    return this.entryOffsets[index];
+  }
+}
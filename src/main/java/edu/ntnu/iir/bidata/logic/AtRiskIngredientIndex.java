@@ -0,0 +1,197 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The AtRiskIngredientIndex class ranks the ingredients in a {@link FoodStorage} by how
+ * urgently they should be used: the ones that expire soonest and are worth the most
+ * come first.
+ *
+ * <p>Every stored ingredient that isnt expired has a score from an {@link UrgencyScore},
+ * by default its value divided by its days left. Scores are kept in a sorted set, so a
+ * storage change costs O(log n) and asking for the K most urgent ingredients costs
+ * O(log n + K), without scanning the storage. The value of an ingredient is its amount
+ * times its price per amount.
+ *
+ * <p>Days left change for every ingredient when the date changes, so the first query on
+ * a new day scores the whole storage again, once. Expired ingredients arent ranked.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * AtRiskIngredientIndex atRisk = new AtRiskIngredientIndex(foodStorage);
+ * for (Ingredient ingredient : atRisk.getMostAtRisk(5)) {
+ *   System.out.println(ingredient.getIngredientName());
+ * }
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public final class AtRiskIngredientIndex implements FoodStorageListener, AutoCloseable {
+
+  private static final Comparator<Scored> MOST_URGENT_FIRST =
+      Comparator.<Scored>comparingDouble(scored -> -scored.score)
+          .thenComparing(scored -> scored.ingredient.getIngredientName());
+
+  private final FoodStorage foodStorage;
+  private final Clock clock;
+  private final UrgencyScore urgencyScore;
+  private final Map<String, Scored> scoresByName = new HashMap<>();
+  private final TreeSet<Scored> ranking = new TreeSet<>(MOST_URGENT_FIRST);
+  private LocalDate today;
+
+  /**
+   * Constructs an AtRiskIngredientIndex with the system clock and the default score.
+   *
+   * @param foodStorage the storage to rank
+   * @throws IllegalArgumentException if the storage is null
+   */
+  public AtRiskIngredientIndex(FoodStorage foodStorage) {
+    this(foodStorage, Clock.systemDefaultZone(), UrgencyScore.valuePerDayLeft());
+  }
+
+  /**
+   * Constructs an AtRiskIngredientIndex.
+   *
+   * @param foodStorage the storage to rank
+   * @param clock the clock that gives the current date
+   * @param urgencyScore the score that ranks the ingredients
+   * @throws IllegalArgumentException if any argument is null
+   */
+  public AtRiskIngredientIndex(FoodStorage foodStorage, Clock clock, UrgencyScore urgencyScore) {
+    if (foodStorage == null || clock == null || urgencyScore == null) {
+      throw new IllegalArgumentException("ERR: storage, clock and urgency score cant be null");
+    }
+    this.foodStorage = foodStorage;
+    this.clock = clock;
+    this.urgencyScore = urgencyScore;
+    synchronized (foodStorage) {
+      synchronized (this) {
+        rescoreAll(LocalDate.now(clock));
+      }
+      foodStorage.addListener(this);
+    }
+  }
+
+  /**
+   * Returns the most urgent ingredients.
+   *
+   * @param count the most ingredients to return
+   * @return the ingredients, most urgent first
+   * @throws IllegalArgumentException if the count is negative
+   */
+  public synchronized List<Ingredient> getMostAtRisk(int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("ERR: count cant be negative");
+    }
+    refresh();
+    List<Ingredient> mostAtRisk = new ArrayList<>(Math.min(count, this.ranking.size()));
+    Iterator<Scored> iterator = this.ranking.iterator();
+    while (mostAtRisk.size() < count && iterator.hasNext()) {
+      mostAtRisk.add(iterator.next().ingredient);
+    }
+    return mostAtRisk;
+  }
+
+  /**
+   * Returns the urgency score of an ingredient.
+   *
+   * @param ingredientName the name of the ingredient
+   * @return the score, or null if the ingredient isnt stored or is expired
+   */
+  public synchronized Double getUrgencyScore(String ingredientName) {
+    refresh();
+    Scored scored = this.scoresByName.get(ingredientName);
+    return scored == null ? null : scored.score;
+  }
+
+  /**
+   * Scores the whole storage again if the date of the clock has changed.
+   */
+  public synchronized void refresh() {
+    LocalDate now = LocalDate.now(this.clock);
+    if (!now.equals(this.today)) {
+      rescoreAll(now);
+    }
+  }
+
+  /**
+   * Stops following the storage.
+   */
+  @Override
+  public void close() {
+    this.foodStorage.removeListener(this);
+  }
+
+  @Override
+  public synchronized void ingredientAdded(Ingredient ingredient) {
+    rescore(ingredient);
+  }
+
+  @Override
+  public synchronized void ingredientAmountChanged(Ingredient ingredient, double amountChange) {
+    rescore(ingredient);
+  }
+
+  @Override
+  public synchronized void ingredientRemoved(Ingredient ingredient, boolean expired) {
+    unscore(ingredient.getIngredientName());
+  }
+
+  private void rescoreAll(LocalDate day) {
+    try (TraceSpan span = Tracer.startSpan("AtRiskIngredientIndex.rescoreAll")) {
+      this.today = day;
+      this.scoresByName.clear();
+      this.ranking.clear();
+      for (Ingredient ingredient : this.foodStorage.getIngredients().values()) {
+        rescore(ingredient);
+      }
+    }
+  }
+
+  private void rescore(Ingredient ingredient) {
+    unscore(ingredient.getIngredientName());
+    LocalDate expireDate = ingredient.getExpireLocalDate();
+    if (expireDate == null || expireDate.isBefore(this.today)) {
+      return;
+    }
+    long daysToExpiry = ChronoUnit.DAYS.between(this.today, expireDate);
+    double value = ingredient.getIngredientAmount() * ingredient.getIngredientPricePerAmount();
+    Scored scored = new Scored(ingredient,
+        this.urgencyScore.score(ingredient, daysToExpiry, value));
+    this.scoresByName.put(ingredient.getIngredientName(), scored);
+    this.ranking.add(scored);
+  }
+
+  private void unscore(String ingredientName) {
+    Scored scored = this.scoresByName.remove(ingredientName);
+    if (scored != null) {
+      this.ranking.remove(scored);
+    }
+  }
+
+  /** An ingredient with the score it had when it was last changed. */
+  private static final class Scored {
+
+    private final Ingredient ingredient;
+    private final double score;
+
+    Scored(Ingredient ingredient, double score) {
+      this.ingredient = ingredient;
+      this.score = score;
+    }
+  }
+}
@@ -0,0 +1,520 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.untility.IngredientDictionary;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The ConsumptionLedger class keeps an append-only history of what households buy, use,
+ * throw away and let expire, with daily, weekly and monthly rollups kept up to date as
+ * events are appended.
+ *
+ * <p>Every event is one fixed-width binary record of {@value #RECORD_BYTES} bytes:
+ * <pre>
+ *   int    epoch day
+ *   int    household id
+ *   int    ingredient id
+ *   byte   event type
+ *   double amount
+ *   double value
+ * </pre>
+ * Household and ingredient names are stored once each and referenced by id. Records are
+ * appended to fixed-size {@link ByteBuffer} segments, so the history costs no objects
+ * per event.
+ *
+ * <p>Each appended event is also added to one daily, one weekly and one monthly bucket,
+ * keyed by household, ingredient and event type. A range query covers whole months with
+ * monthly buckets and only the ragged edges with daily buckets, so asking for a year
+ * reads at most twelve monthly buckets and about sixty daily ones, however long the
+ * history is. Weeks start on Monday.
+ *
+ * <p>A ledger follows a storage through {@link #attach(String, FoodStorage)}. Values are
+ * priced with the price per amount the ingredient had when it was added, since using an
+ * amount changes the stored price.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * ConsumptionLedger ledger = new ConsumptionLedger();
+ * ledger.attach("home", foodStorage);
+ * foodStorage.removeExpiredIngredients();
+ * Map<String, Double> waste = ledger.getValueByIngredient(
+ *     ConsumptionLedger.EventType.WASTED, null, LocalDate.now().minusYears(1), LocalDate.now());
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class ConsumptionLedger {
+
+  /** The size of one event record in bytes. */
+  public static final int RECORD_BYTES = 29;
+
+  private static final int SEGMENT_RECORDS = 32 * 1024;
+  private static final int FILE_MAGIC = 0x46574c47; // "FWLG"
+  private static final byte FILE_VERSION = 1;
+
+  /** What happened to an amount of an ingredient. */
+  public enum EventType {
+    /** The amount was added to the storage. */
+    PURCHASED,
+    /** The amount was used, for example by cooking. */
+    CONSUMED,
+    /** The amount was thrown away because it had expired. */
+    WASTED,
+    /** The amount was removed from the storage before it expired. */
+    DISCARDED
+  }
+
+  /** The size of the buckets a series is summed over. */
+  public enum Granularity {
+    /** One bucket per day. */
+    DAY,
+    /** One bucket per week, starting on Monday. */
+    WEEK,
+    /** One bucket per calendar month. */
+    MONTH
+  }
+
+  private final Clock clock;
+  private final IngredientDictionary ingredientIds = new IngredientDictionary();
+  private final IngredientDictionary householdIds = new IngredientDictionary();
+  private final List<ByteBuffer> segments = new ArrayList<>();
+  private final Map<Integer, Map<Long, double[]>> dailyBuckets = new HashMap<>();
+  private final Map<Integer, Map<Long, double[]>> weeklyBuckets = new HashMap<>();
+  private final Map<Integer, Map<Long, double[]>> monthlyBuckets = new HashMap<>();
+  private final Map<Long, Double> purchasePrices = new HashMap<>();
+  private long eventCount;
+
+  /**
+   * Constructs an empty ConsumptionLedger that dates events with the system clock.
+   */
+  public ConsumptionLedger() {
+    this(Clock.systemDefaultZone());
+  }
+
+  /**
+   * Constructs an empty ConsumptionLedger.
+   *
+   * @param clock the clock that dates events seen through an attached storage
+   * @throws IllegalArgumentException if the clock is null
+   */
+  public ConsumptionLedger(Clock clock) {
+    if (clock == null) {
+      throw new IllegalArgumentException("ERR: clock cant be null");
+    }
+    this.clock = clock;
+  }
+
+  /**
+   * Starts recording the changes made through a storage. Remove the returned listener
+   * from the storage to stop.
+   *
+   * @param householdId the household the storage belongs to
+   * @param foodStorage the storage to follow
+   * @return the listener that was registered on the storage
+   * @throws IllegalArgumentException if the household id is blank or the storage is null
+   */
+  public FoodStorageListener attach(String householdId, FoodStorage foodStorage) {
+    if (foodStorage == null) {
+      throw new IllegalArgumentException("ERR: storage cant be null");
+    }
+    int household = this.householdIds.idOf(householdId);
+    FoodStorageListener listener = new FoodStorageListener() {
+      @Override
+      public void ingredientAdded(Ingredient ingredient) {
+        recordChange(household, ingredient, EventType.PURCHASED,
+            ingredient.getIngredientAmount(), true);
+      }
+
+      @Override
+      public void ingredientAmountChanged(Ingredient ingredient, double amountChange) {
+        if (amountChange < 0) {
+          recordChange(household, ingredient, EventType.CONSUMED, -amountChange, false);
+        } else {
+          recordChange(household, ingredient, EventType.PURCHASED, amountChange, false);
+        }
+      }
+
+      @Override
+      public void ingredientRemoved(Ingredient ingredient, boolean expired) {
+        recordChange(household, ingredient,
+            expired ? EventType.WASTED : EventType.DISCARDED,
+            ingredient.getIngredientAmount(), false);
+      }
+    };
+    foodStorage.addListener(listener);
+    return listener;
+  }
+
+  /**
+   * Appends an event.
+   *
+   * @param householdId the household the event happened in
+   * @param type what happened
+   * @param ingredientName the name of the ingredient
+   * @param amount the amount of the ingredient, cant be negative
+   * @param value the value of the amount
+   * @param day the day the event happened
+   * @throws IllegalArgumentException if any argument is null or blank, or the amount is
+   *                                  negative
+   */
+  public synchronized void record(String householdId, EventType type, String ingredientName,
+      double amount, double value, LocalDate day) {
+    if (type == null || day == null) {
+      throw new IllegalArgumentException("ERR: event type and day cant be null");
+    }
+    if (amount < 0) {
+      throw new IllegalArgumentException("ERR: amount cant be negative");
+    }
+    append((int) day.toEpochDay(), this.householdIds.idOf(householdId),
+        this.ingredientIds.idOf(ingredientName), type, amount, value);
+  }
+
+  /**
+   * Returns the number of events in the ledger.
+   *
+   * @return the event count
+   */
+  public synchronized long getEventCount() {
+    return this.eventCount;
+  }
+
+  /**
+   * Sums the value of one type of event per ingredient over a range of days.
+   *
+   * @param type the type of event to sum
+   * @param householdId the household to sum, or null for every household
+   * @param from the first day of the range
+   * @param to the last day of the range
+   * @return a map from ingredient name to summed value, sorted by name
+   * @throws IllegalArgumentException if the type or a day is null
+   */
+  public synchronized Map<String, Double> getValueByIngredient(
+      EventType type, String householdId, LocalDate from, LocalDate to) {
+    double[][] totals = sumRange(type, householdId, from, to);
+    Map<String, Double> valuesByIngredient = new TreeMap<>();
+    for (int ingredient = 0; ingredient < totals.length; ingredient++) {
+      if (totals[ingredient] != null) {
+        valuesByIngredient.put(this.ingredientIds.nameOf(ingredient), totals[ingredient][1]);
+      }
+    }
+    return valuesByIngredient;
+  }
+
+  /**
+   * Sums the amount of one type of event per ingredient over a range of days.
+   *
+   * @param type the type of event to sum
+   * @param householdId the household to sum, or null for every household
+   * @param from the first day of the range
+   * @param to the last day of the range
+   * @return a map from ingredient name to summed amount, sorted by name
+   * @throws IllegalArgumentException if the type or a day is null
+   */
+  public synchronized Map<String, Double> getAmountByIngredient(
+      EventType type, String householdId, LocalDate from, LocalDate to) {
+    double[][] totals = sumRange(type, householdId, from, to);
+    Map<String, Double> amountsByIngredient = new TreeMap<>();
+    for (int ingredient = 0; ingredient < totals.length; ingredient++) {
+      if (totals[ingredient] != null) {
+        amountsByIngredient.put(this.ingredientIds.nameOf(ingredient), totals[ingredient][0]);
+      }
+    }
+    return amountsByIngredient;
+  }
+
+  /**
+   * Sums the value of one type of event over a range of days.
+   *
+   * @param type the type of event to sum
+   * @param householdId the household to sum, or null for every household
+   * @param from the first day of the range
+   * @param to the last day of the range
+   * @return the summed value
+   * @throws IllegalArgumentException if the type or a day is null
+   */
+  public synchronized double getTotalValue(
+      EventType type, String householdId, LocalDate from, LocalDate to) {
+    double total = 0.0;
+    for (double[] ingredientTotal : sumRange(type, householdId, from, to)) {
+      if (ingredientTotal != null) {
+        total += ingredientTotal[1];
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Returns the value of one type of event per day, week or month.
+   *
+   * @param type the type of event to sum
+   * @param householdId the household to sum, or null for every household
+   * @param granularity the size of the buckets
+   * @param from a day in the first bucket
+   * @param to a day in the last bucket
+   * @return a map from the first day of each bucket with events to its value, by date
+   * @throws IllegalArgumentException if any argument but the household is null
+   */
+  public synchronized Map<LocalDate, Double> getValueSeries(EventType type,
+      String householdId, Granularity granularity, LocalDate from, LocalDate to) {
+    if (type == null || granularity == null || from == null || to == null) {
+      throw new IllegalArgumentException("ERR: type, granularity and days cant be null");
+    }
+    int household = householdFilter(householdId);
+    Map<LocalDate, Double> series = new TreeMap<>();
+    if (household == -2) {
+      return series;
+    }
+    Map<Integer, Map<Long, double[]>> buckets = bucketsOf(granularity);
+    int lastBucket = bucketOf(granularity, (int) to.toEpochDay());
+    for (int bucket = bucketOf(granularity, (int) from.toEpochDay());
+        bucket <= lastBucket; bucket++) {
+      Map<Long, double[]> totals = buckets.get(bucket);
+      if (totals == null) {
+        continue;
+      }
+      double value = 0.0;
+      boolean found = false;
+      for (Map.Entry<Long, double[]> entry : totals.entrySet()) {
+        if (matches(entry.getKey(), type, household)) {
+          value += entry.getValue()[1];
+          found = true;
+        }
+      }
+      if (found) {
+        series.put(firstDayOf(granularity, bucket), value);
+      }
+    }
+    return series;
+  }
+
+  /**
+   * Writes the whole ledger to a file: a header with the names, followed by every event
+   * record as it is held in memory.
+   *
+   * @param path the file to write
+   * @throws IOException if the file cant be written
+   */
+  public synchronized void exportTo(Path path) throws IOException {
+    try (TraceSpan span = Tracer.startSpan("ConsumptionLedger.exportTo");
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(path)))) {
+      out.writeInt(FILE_MAGIC);
+      out.writeByte(FILE_VERSION);
+      writeNames(out, this.householdIds);
+      writeNames(out, this.ingredientIds);
+      out.writeLong(this.eventCount);
+      for (ByteBuffer segment : this.segments) {
+        out.write(segment.array(), 0, segment.position());
+      }
+    }
+  }
+
+  /**
+   * Reads a ledger written by {@link #exportTo(Path)} and rebuilds its rollups.
+   *
+   * @param path the file to read
+   * @param clock the clock that dates events seen through an attached storage
+   * @return the read ledger
+   * @throws IOException if the file cant be read or isnt a ledger file
+   */
+  public static ConsumptionLedger importFrom(Path path, Clock clock) throws IOException {
+    ConsumptionLedger ledger = new ConsumptionLedger(clock);
+    try (TraceSpan span = Tracer.startSpan("ConsumptionLedger.importFrom");
+        DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != FILE_MAGIC || in.readByte() != FILE_VERSION) {
+        throw new IOException("ERR: not a ledger file of a known version");
+      }
+      int[] households = readNames(in, ledger.householdIds);
+      int[] ingredients = readNames(in, ledger.ingredientIds);
+      long count = in.readLong();
+      byte[] record = new byte[RECORD_BYTES];
+      ByteBuffer buffer = ByteBuffer.wrap(record);
+      EventType[] types = EventType.values();
+      synchronized (ledger) {
+        for (long i = 0; i < count; i++) {
+          in.readFully(record);
+          buffer.clear();
+          ledger.append(buffer.getInt(), households[buffer.getInt()],
+              ingredients[buffer.getInt()], types[buffer.get()],
+              buffer.getDouble(), buffer.getDouble());
+        }
+      }
+    }
+    return ledger;
+  }
+
+  private synchronized void recordChange(int household, Ingredient ingredient,
+      EventType type, double amount, boolean newLot) {
+    if (amount <= 0) {
+      return;
+    }
+    int ingredientId = this.ingredientIds.idOf(ingredient.getIngredientName());
+    long priceKey = ((long) household << 32) | ingredientId;
+    Double pricePerAmount = this.purchasePrices.get(priceKey);
+    if (newLot || pricePerAmount == null) {
+      pricePerAmount = ingredient.getIngredientPricePerAmount();
+      this.purchasePrices.put(priceKey, pricePerAmount);
+    }
+    append((int) LocalDate.now(this.clock).toEpochDay(), household, ingredientId, type,
+        amount, amount * pricePerAmount);
+  }
+
+  private void append(int epochDay, int household, int ingredient, EventType type,
+      double amount, double value) {
+    ByteBuffer segment = this.segments.isEmpty() ? null
+        : this.segments.get(this.segments.size() - 1);
+    if (segment == null || segment.remaining() < RECORD_BYTES) {
+      segment = ByteBuffer.allocate(SEGMENT_RECORDS * RECORD_BYTES);
+      this.segments.add(segment);
+    }
+    segment.putInt(epochDay)
+        .putInt(household)
+        .putInt(ingredient)
+        .put((byte) type.ordinal())
+        .putDouble(amount)
+        .putDouble(value);
+    this.eventCount++;
+
+    long key = keyOf(household, ingredient, type);
+    addToBucket(this.dailyBuckets, bucketOf(Granularity.DAY, epochDay), key, amount, value);
+    addToBucket(this.weeklyBuckets, bucketOf(Granularity.WEEK, epochDay), key, amount, value);
+    addToBucket(this.monthlyBuckets, bucketOf(Granularity.MONTH, epochDay), key, amount, value);
+  }
+
+  private static void addToBucket(Map<Integer, Map<Long, double[]>> buckets, int bucket,
+      long key, double amount, double value) {
+    double[] totals = buckets.computeIfAbsent(bucket, b -> new HashMap<>())
+        .computeIfAbsent(key, k -> new double[2]);
+    totals[0] += amount;
+    totals[1] += value;
+  }
+
+  /**
+   * Sums a range per ingredient id. Whole months are read from the monthly buckets and
+   * the days before and after them from the daily buckets.
+   */
+  private double[][] sumRange(EventType type, String householdId, LocalDate from,
+      LocalDate to) {
+    if (type == null || from == null || to == null) {
+      throw new IllegalArgumentException("ERR: event type and days cant be null");
+    }
+    double[][] totals = new double[this.ingredientIds.size()][];
+    int household = householdFilter(householdId);
+    if (household == -2) {
+      return totals;
+    }
+    LocalDate day = from;
+    while (!day.isAfter(to)) {
+      LocalDate monthEnd = day.withDayOfMonth(day.lengthOfMonth());
+      if (day.getDayOfMonth() == 1 && !monthEnd.isAfter(to)) {
+        sumBucket(this.monthlyBuckets.get(bucketOf(Granularity.MONTH, (int) day.toEpochDay())),
+            type, household, totals);
+        day = monthEnd.plusDays(1);
+      } else {
+        sumBucket(this.dailyBuckets.get((int) day.toEpochDay()), type, household, totals);
+        day = day.plusDays(1);
+      }
+    }
+    return totals;
+  }
+
+  private static void sumBucket(Map<Long, double[]> bucket, EventType type, int household,
+      double[][] totals) {
+    if (bucket == null) {
+      return;
+    }
+    for (Map.Entry<Long, double[]> entry : bucket.entrySet()) {
+      long key = entry.getKey();
+      if (matches(key, type, household)) {
+        int ingredient = (int) (key & 0xffffffffL) >>> 2;
+        if (totals[ingredient] == null) {
+          totals[ingredient] = new double[2];
+        }
+        totals[ingredient][0] += entry.getValue()[0];
+        totals[ingredient][1] += entry.getValue()[1];
+      }
+    }
+  }
+
+  /** Returns -1 for every household, -2 for an unknown household, else its id. */
+  private int householdFilter(String householdId) {
+    if (householdId == null) {
+      return -1;
+    }
+    int household = this.householdIds.findId(householdId);
+    return household < 0 ? -2 : household;
+  }
+
+  private static long keyOf(int household, int ingredient, EventType type) {
+    return ((long) household << 32) | ((long) ingredient << 2) | type.ordinal();
+  }
+
+  private static boolean matches(long key, EventType type, int household) {
+    return (key & 3L) == type.ordinal() && (household < 0 || (key >>> 32) == household);
+  }
+
+  private Map<Integer, Map<Long, double[]>> bucketsOf(Granularity granularity) {
+    return switch (granularity) {
+      case DAY -> this.dailyBuckets;
+      case WEEK -> this.weeklyBuckets;
+      case MONTH -> this.monthlyBuckets;
+    };
+  }
+
+  private static int bucketOf(Granularity granularity, int epochDay) {
+    return switch (granularity) {
+      case DAY -> epochDay;
+      // ! 1970-01-01 was a Thursday, shift by 3 so weeks start on Monday
+      case WEEK -> Math.floorDiv(epochDay + 3, 7);
+      case MONTH -> {
+        LocalDate day = LocalDate.ofEpochDay(epochDay);
+        yield day.getYear() * 12 + day.getMonthValue() - 1;
+      }
+    };
+  }
+
+  private static LocalDate firstDayOf(Granularity granularity, int bucket) {
+    return switch (granularity) {
+      case DAY -> LocalDate.ofEpochDay(bucket);
+      case WEEK -> LocalDate.ofEpochDay(bucket * 7L - 3);
+      case MONTH -> LocalDate.of(Math.floorDiv(bucket, 12), Math.floorMod(bucket, 12) + 1, 1);
+    };
+  }
+
+  private static void writeNames(DataOutputStream out, IngredientDictionary names)
+      throws IOException {
+    int count = names.size();
+    out.writeInt(count);
+    for (int id = 0; id < count; id++) {
+      out.writeUTF(names.nameOf(id));
+    }
+  }
+
+  private static int[] readNames(DataInputStream in, IngredientDictionary names)
+      throws IOException {
+    int[] ids = new int[in.readInt()];
+    for (int fileId = 0; fileId < ids.length; fileId++) {
+      ids[fileId] = names.idOf(in.readUTF());
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,338 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The CookabilityCache class remembers the answers of a {@link RecipeAdvisor}, so opening
+ * the same recipe again doesnt check it again while the storage is unchanged.
+ *
+ * <p>A cookability report is kept with the version of every ingredient it depends on:
+ * the ingredients of the recipe and every substitute for them. It is reused only while
+ * none of those versions moved, so using milk makes the reports of milk recipes stale
+ * but leaves the rest alone. The list of recipes to make depends on every ingredient and
+ * every recipe, so it is kept with the version of the whole storage and book. Both are
+ * also dropped when the day of the cache's clock changes, since ingredients expire, and
+ * when the substitutions change.
+ *
+ * <p>At most {@code capacity} reports are kept; the one used longest ago is evicted to
+ * make room. An answer is worked out without holding the cache lock, and is only kept
+ * if no version moved while it was worked out.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * CookabilityCache cache = new CookabilityCache(foodStorage, recipeBook);
+ * CookabilityReport report = cache.checkIfCookable(recipe);
+ * double hitRatio = cache.getHitRatio();
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class CookabilityCache {
+
+  /** Default number of cookability reports kept. */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private final FoodStorage foodStorage;
+  private final RecipeBook recipeBook;
+  private final SubstitutionGraph substitutionGraph;
+  private final RecipeAdvisor recipeAdvisor;
+  private final Clock clock;
+  private final int capacity;
+  private final Map<String, CachedReport> reports;
+  private CachedSuggestions suggestions;
+  private long hitCount;
+  private long missCount;
+  private long staleCount;
+  private long evictionCount;
+
+  /**
+   * Constructs a CookabilityCache without substitutes and with the default capacity.
+   *
+   * @param foodStorage the storage to check recipes against
+   * @param recipeBook the recipes to suggest from
+   * @throws IllegalArgumentException if the storage or book is null
+   */
+  public CookabilityCache(FoodStorage foodStorage, RecipeBook recipeBook) {
+    this(foodStorage, recipeBook, new SubstitutionGraph(), DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs a CookabilityCache that uses the system clock for the current date.
+   *
+   * @param foodStorage the storage to check recipes against
+   * @param recipeBook the recipes to suggest from
+   * @param substitutionGraph the substitutes allowed for missing ingredients
+   * @param capacity the most cookability reports kept, must be above 0
+   * @throws IllegalArgumentException if any argument is null or the capacity is below 1
+   */
+  public CookabilityCache(FoodStorage foodStorage, RecipeBook recipeBook,
+      SubstitutionGraph substitutionGraph, int capacity) {
+    this(foodStorage, recipeBook, substitutionGraph, capacity, Clock.systemDefaultZone());
+  }
+
+  /**
+   * Constructs a CookabilityCache.
+   *
+   * @param foodStorage the storage to check recipes against
+   * @param recipeBook the recipes to suggest from
+   * @param substitutionGraph the substitutes allowed for missing ingredients
+   * @param capacity the most cookability reports kept, must be above 0
+   * @param clock the clock that gives the current date
+   * @throws IllegalArgumentException if any argument is null or the capacity is below 1
+   */
+  public CookabilityCache(FoodStorage foodStorage, RecipeBook recipeBook,
+      SubstitutionGraph substitutionGraph, int capacity, Clock clock) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("ERR: capacity must be above 0");
+    }
+    if (clock == null) {
+      throw new IllegalArgumentException("ERR: clock cant be null");
+    }
+    this.recipeAdvisor = new RecipeAdvisor(foodStorage, recipeBook, substitutionGraph);
+    this.foodStorage = foodStorage;
+    this.recipeBook = recipeBook;
+    this.substitutionGraph = substitutionGraph;
+    this.clock = clock;
+    this.capacity = capacity;
+    this.reports = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedReport> eldest) {
+        if (size() > CookabilityCache.this.capacity) {
+          evictionCount++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Checks if all ingredients required for a recipe are available in the storage,
+   * reusing the last report for the recipe if it is still valid.
+   *
+   * @param recipe the recipe to check
+   * @return the report for the recipe
+   * @throws IllegalArgumentException if the recipe is null
+   */
+  public CookabilityReport checkIfCookable(Recipe recipe) {
+    if (recipe == null) {
+      throw new IllegalArgumentException("ERR: recipe cant be null");
+    }
+    try (TraceSpan span = Tracer.startSpan("CookabilityCache.checkIfCookable")) {
+      SubstitutionGraph.Closure substitutes = this.substitutionGraph.closure();
+      LocalDate today = LocalDate.now(this.clock);
+      CachedReport cached;
+      synchronized (this) {
+        cached = this.reports.get(recipe.getRecipeName());
+      }
+      // ? Versions are read outside the cache lock, a caller may hold the storage lock
+      boolean valid = cached != null && cached.recipe == recipe
+          && cached.substitutes == substitutes && cached.day.equals(today)
+          && Arrays.equals(cached.versions, versionsOf(cached.ingredientNames));
+      synchronized (this) {
+        if (valid) {
+          this.hitCount++;
+        } else {
+          countMiss(cached != null);
+        }
+      }
+      if (valid) {
+        return cached.report;
+      }
+      String[] ingredientNames = relevantIngredients(recipe, substitutes);
+      long[] versions = versionsOf(ingredientNames);
+      CookabilityReport report = this.recipeAdvisor.checkIfCookable(recipe);
+      if (Arrays.equals(versions, versionsOf(ingredientNames))
+          && today.equals(LocalDate.now(this.clock))
+          && substitutes == this.substitutionGraph.closure()) {
+        synchronized (this) {
+          this.reports.put(recipe.getRecipeName(), new CachedReport(
+              recipe, substitutes, today, ingredientNames, versions, report));
+        }
+      }
+      return report;
+    }
+  }
+
+  /**
+   * Returns the recipes whose ingredients, or substitutes for them, are all in the
+   * storage, reusing the last list if neither the storage nor the book changed since.
+   *
+   * @return an unmodifiable list of the names of the recipes, sorted by name
+   */
+  public List<String> suggestRecipesToMake() {
+    try (TraceSpan span = Tracer.startSpan("CookabilityCache.suggestRecipesToMake")) {
+      SubstitutionGraph.Closure substitutes = this.substitutionGraph.closure();
+      LocalDate today = LocalDate.now(this.clock);
+      long storageVersion = this.foodStorage.getVersion();
+      long bookVersion = this.recipeBook.getVersion();
+      synchronized (this) {
+        CachedSuggestions cached = this.suggestions;
+        if (cached != null && cached.storageVersion == storageVersion
+            && cached.bookVersion == bookVersion && cached.substitutes == substitutes
+            && cached.day.equals(today)) {
+          this.hitCount++;
+          return cached.recipeNames;
+        }
+        countMiss(cached != null);
+      }
+      List<String> recipeNames =
+          Collections.unmodifiableList(this.recipeAdvisor.suggestRecipesToMake());
+      if (storageVersion == this.foodStorage.getVersion()
+          && bookVersion == this.recipeBook.getVersion()
+          && today.equals(LocalDate.now(this.clock))
+          && substitutes == this.substitutionGraph.closure()) {
+        synchronized (this) {
+          this.suggestions = new CachedSuggestions(
+              storageVersion, bookVersion, substitutes, today, recipeNames);
+        }
+      }
+      return recipeNames;
+    }
+  }
+
+  /**
+   * Returns the number of answers that were reused.
+   *
+   * @return the hit count
+   */
+  public synchronized long getHitCount() {
+    return this.hitCount;
+  }
+
+  /**
+   * Returns the number of answers that had to be worked out, stale ones included.
+   *
+   * @return the miss count
+   */
+  public synchronized long getMissCount() {
+    return this.missCount;
+  }
+
+  /**
+   * Returns the number of misses where a kept answer was found but was stale.
+   *
+   * @return the stale count
+   */
+  public synchronized long getStaleCount() {
+    return this.staleCount;
+  }
+
+  /**
+   * Returns the number of reports evicted to make room.
+   *
+   * @return the eviction count
+   */
+  public synchronized long getEvictionCount() {
+    return this.evictionCount;
+  }
+
+  /**
+   * Returns the share of answers that were reused.
+   *
+   * @return the hit ratio, from 0 to 1, and 0 before the first answer
+   */
+  public synchronized double getHitRatio() {
+    long lookups = this.hitCount + this.missCount;
+    return lookups == 0 ? 0 : (double) this.hitCount / lookups;
+  }
+
+  /**
+   * Returns the number of cookability reports kept.
+   *
+   * @return the report count
+   */
+  public synchronized int size() {
+    return this.reports.size();
+  }
+
+  /**
+   * Drops every kept answer. The counts are kept.
+   */
+  public synchronized void clear() {
+    this.reports.clear();
+    this.suggestions = null;
+  }
+
+  private void countMiss(boolean stale) {
+    this.missCount++;
+    if (stale) {
+      this.staleCount++;
+    }
+  }
+
+  /** Returns the ingredients a report depends on: the recipe's and their substitutes. */
+  private String[] relevantIngredients(Recipe recipe, SubstitutionGraph.Closure substitutes) {
+    Set<String> ingredientNames = new LinkedHashSet<>();
+    for (int i = 0; i < recipe.getIngredientCount(); i++) {
+      String ingredientName = recipe.getIngredientName(i);
+      ingredientNames.add(ingredientName);
+      int requiredId = this.substitutionGraph.getDictionary().findId(ingredientName);
+      for (int substituteId : substitutes.substitutesOf(requiredId)) {
+        ingredientNames.add(this.substitutionGraph.getDictionary().nameOf(substituteId));
+      }
+    }
+    return ingredientNames.toArray(new String[0]);
+  }
+
+  private long[] versionsOf(String[] ingredientNames) {
+    long[] versions = new long[ingredientNames.length];
+    for (int i = 0; i < versions.length; i++) {
+      versions[i] = this.foodStorage.getIngredientVersion(ingredientNames[i]);
+    }
+    return versions;
+  }
+
+  /** A report with what it was worked out from. */
+  private static final class CachedReport {
+
+    final Recipe recipe;
+    final SubstitutionGraph.Closure substitutes;
+    final LocalDate day;
+    final String[] ingredientNames;
+    final long[] versions;
+    final CookabilityReport report;
+
+    CachedReport(Recipe recipe, SubstitutionGraph.Closure substitutes, LocalDate day,
+        String[] ingredientNames, long[] versions, CookabilityReport report) {
+      this.recipe = recipe;
+      this.substitutes = substitutes;
+      this.day = day;
+      this.ingredientNames = ingredientNames;
+      this.versions = versions;
+      this.report = report;
+    }
+  }
+
+  /** A list of recipes to make with what it was worked out from. */
+  private static final class CachedSuggestions {
+
+    final long storageVersion;
+    final long bookVersion;
+    final SubstitutionGraph.Closure substitutes;
+    final LocalDate day;
+    final List<String> recipeNames;
+
+    CachedSuggestions(long storageVersion, long bookVersion,
+        SubstitutionGraph.Closure substitutes, LocalDate day, List<String> recipeNames) {
+      this.storageVersion = storageVersion;
+      this.bookVersion = bookVersion;
+      this.substitutes = substitutes;
+      this.day = day;
+      this.recipeNames = recipeNames;
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package edu.ntnu.iir.bidata.logic;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The CookabilityReport class describes whether a recipe can be made with the
+ * ingredients in a food storage, and if not, what is in the way.
+ *
+ * <p>Every required ingredient ends up in exactly one group: ready, missing from the
+ * storage, stored with a lower amount than required, or expired.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class CookabilityReport {
+
+  private final String recipeName;
+  private final int readyIngredientCount;
+  private final List<String> missingIngredients;
+  private final Map<String, Double> lowAmountIngredients;
+  private final List<String> expiredIngredients;
+  private final Map<String, String> substitutions;
+
+  /**
+   * Constructs a CookabilityReport.
+   *
+   * @param recipeName the name of the checked recipe
+   * @param readyIngredientCount the number of required ingredients that are ready
+   * @param missingIngredients the required ingredients that arent in the storage
+   * @param lowAmountIngredients the required ingredients with too little stored, mapped
+   *                             to the amount still needed
+   * @param expiredIngredients the required ingredients that are expired in the storage
+   */
+  public CookabilityReport(
+      String recipeName,
+      int readyIngredientCount,
+      List<String> missingIngredients,
+      Map<String, Double> lowAmountIngredients,
+      List<String> expiredIngredients) {
+    this(recipeName, readyIngredientCount, missingIngredients, lowAmountIngredients,
+        expiredIngredients, Map.of());
+  }
+
+  /**
+   * Constructs a CookabilityReport where some ready ingredients are stood in for by
+   * substitutes.
+   *
+   * @param recipeName the name of the checked recipe
+   * @param readyIngredientCount the number of required ingredients that are ready, with
+   *                             or without a substitute
+   * @param missingIngredients the required ingredients that arent in the storage
+   * @param lowAmountIngredients the required ingredients with too little stored, mapped
+   *                             to the amount still needed
+   * @param expiredIngredients the required ingredients that are expired in the storage
+   * @param substitutions the required ingredients that are ready through a substitute,
+   *                      mapped to the substitute
+   */
+  public CookabilityReport(
+      String recipeName,
+      int readyIngredientCount,
+      List<String> missingIngredients,
+      Map<String, Double> lowAmountIngredients,
+      List<String> expiredIngredients,
+      Map<String, String> substitutions) {
+    this.recipeName = recipeName;
+    this.readyIngredientCount = readyIngredientCount;
+    this.missingIngredients = Collections.unmodifiableList(missingIngredients);
+    this.lowAmountIngredients = Collections.unmodifiableMap(lowAmountIngredients);
+    this.expiredIngredients = Collections.unmodifiableList(expiredIngredients);
+    this.substitutions = Collections.unmodifiableMap(substitutions);
+  }
+
+  /**
+   * Returns the name of the checked recipe.
+   *
+   * @return the recipe name
+   */
+  public String getRecipeName() {
+    return this.recipeName;
+  }
+
+  /**
+   * Returns whether every required ingredient is stored, fresh and in a high enough amount.
+   *
+   * @return true if the recipe can be made
+   */
+  public boolean isCookable() {
+    return this.missingIngredients.isEmpty()
+        && this.lowAmountIngredients.isEmpty()
+        && this.expiredIngredients.isEmpty();
+  }
+
+  /**
+   * Returns the number of required ingredients that are ready to use.
+   *
+   * @return the ready ingredient count
+   */
+  public int getReadyIngredientCount() {
+    return this.readyIngredientCount;
+  }
+
+  /**
+   * Returns the required ingredients that arent in the storage.
+   *
+   * @return an unmodifiable list of ingredient names
+   */
+  public List<String> getMissingIngredients() {
+    return this.missingIngredients;
+  }
+
+  /**
+   * Returns the required ingredients stored with a lower amount than required.
+   *
+   * @return an unmodifiable map from ingredient name to the amount still needed
+   */
+  public Map<String, Double> getLowAmountIngredients() {
+    return this.lowAmountIngredients;
+  }
+
+  /**
+   * Returns the required ingredients that are expired in the storage.
+   *
+   * @return an unmodifiable list of ingredient names
+   */
+  public List<String> getExpiredIngredients() {
+    return this.expiredIngredients;
+  }
+
+  /**
+   * Returns the required ingredients that are ready through a substitute.
+   *
+   * @return an unmodifiable map from ingredient name to the substitute used for it
+   */
+  public Map<String, String> getSubstitutions() {
+    return this.substitutions;
+  }
+}
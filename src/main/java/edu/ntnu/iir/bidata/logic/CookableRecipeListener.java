@@ -0,0 +1,19 @@
+package edu.ntnu.iir.bidata.logic;
+
+/**
+ * The CookableRecipeListener interface is notified by a {@link CookableRecipeTracker}
+ * when a recipe moves in or out of its set of cookable recipes.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public interface CookableRecipeListener {
+
+  /**
+   * Called after a recipe became cookable or stopped being cookable.
+   *
+   * @param recipeName the name of the recipe
+   * @param cookable true if the recipe can now be made
+   */
+  void cookabilityChanged(String recipeName, boolean cookable);
+}
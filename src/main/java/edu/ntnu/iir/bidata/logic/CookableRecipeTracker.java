@@ -0,0 +1,352 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The CookableRecipeTracker class keeps a live set of the recipes that can be made with
+ * the ingredients in a {@link FoodStorage}, so asking for them costs only the size of
+ * the answer.
+ *
+ * <p>Every recipe carries a counter of how many of its requirements are satisfied: the
+ * ingredient is stored, not expired and in a high enough amount. A change to one stored
+ * ingredient only re-checks the requirements that use that ingredient, and a recipe is
+ * cookable when its counter equals its number of requirements. Ingredients expiring are
+ * handled the same way: each stored ingredient is queued under the first day it is
+ * expired, and moving the date forward only re-checks the ingredients that expired.
+ *
+ * <p>The tracker registers itself as a listener on the storage and the book while
+ * holding their locks, storage first. Changes must go through their methods; changing
+ * an {@link Ingredient} directly with its setters isnt seen. Call {@link #close()} to
+ * stop tracking.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * CookableRecipeTracker tracker = new CookableRecipeTracker(foodStorage, recipeBook);
+ * foodStorage.addIngredient(milk);
+ * List<String> cookableRecipes = tracker.getCookableRecipes();
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public final class CookableRecipeTracker
+    implements FoodStorageListener, RecipeBookListener, AutoCloseable {
+
+  private final FoodStorage foodStorage;
+  private final RecipeBook recipeBook;
+  private final Clock clock;
+  private final Map<String, TrackedRecipe> recipesByName = new HashMap<>();
+  private final Map<String, List<Requirement>> requirementsByIngredient = new HashMap<>();
+  private final Set<String> cookableRecipes = new TreeSet<>();
+  private final TreeMap<LocalDate, Set<String>> expiryQueue = new TreeMap<>();
+  private final Map<String, LocalDate> queuedExpiryDays = new HashMap<>();
+  private final List<CookableRecipeListener> listeners = new CopyOnWriteArrayList<>();
+  private LocalDate today;
+
+  /**
+   * Constructs a CookableRecipeTracker that uses the system clock for the current date.
+   *
+   * @param foodStorage the storage to track
+   * @param recipeBook the recipes to track
+   * @throws IllegalArgumentException if the storage or book is null
+   */
+  public CookableRecipeTracker(FoodStorage foodStorage, RecipeBook recipeBook) {
+    this(foodStorage, recipeBook, Clock.systemDefaultZone());
+  }
+
+  /**
+   * Constructs a CookableRecipeTracker.
+   *
+   * @param foodStorage the storage to track
+   * @param recipeBook the recipes to track
+   * @param clock the clock that gives the current date
+   * @throws IllegalArgumentException if any argument is null
+   */
+  public CookableRecipeTracker(FoodStorage foodStorage, RecipeBook recipeBook, Clock clock) {
+    if (foodStorage == null || recipeBook == null || clock == null) {
+      throw new IllegalArgumentException("ERR: storage, recipe book and clock cant be null");
+    }
+    this.foodStorage = foodStorage;
+    this.recipeBook = recipeBook;
+    this.clock = clock;
+    this.today = LocalDate.now(clock);
+    // ? Registered under the source locks, so no change slips in between
+    synchronized (foodStorage) {
+      synchronized (recipeBook) {
+        synchronized (this) {
+          for (Recipe recipe : recipeBook.getRecipes().values()) {
+            track(recipe);
+          }
+        }
+        foodStorage.addListener(this);
+        recipeBook.addListener(this);
+      }
+    }
+  }
+
+  /**
+   * Returns the recipes that can be made right now, after moving the tracker to the
+   * current date of its clock.
+   *
+   * @return the names of the cookable recipes, sorted by name
+   */
+  public synchronized List<String> getCookableRecipes() {
+    refresh();
+    return new ArrayList<>(this.cookableRecipes);
+  }
+
+  /**
+   * Checks if a recipe can be made right now.
+   *
+   * @param recipeName the name of the recipe
+   * @return true if the recipe is tracked and cookable
+   */
+  public synchronized boolean isCookable(String recipeName) {
+    refresh();
+    return this.cookableRecipes.contains(recipeName);
+  }
+
+  /**
+   * Moves the tracker to the current date of its clock.
+   */
+  public synchronized void refresh() {
+    advanceTo(LocalDate.now(this.clock));
+  }
+
+  /**
+   * Moves the tracker to a later date. Only ingredients that expire on the way are
+   * checked again. Earlier dates are ignored.
+   *
+   * @param day the new current date
+   * @throws IllegalArgumentException if the date is null
+   */
+  public synchronized void advanceTo(LocalDate day) {
+    if (day == null) {
+      throw new IllegalArgumentException("ERR: date cant be null");
+    }
+    if (!day.isAfter(this.today)) {
+      return;
+    }
+    this.today = day;
+    Map<LocalDate, Set<String>> dueDays = this.expiryQueue.headMap(day, true);
+    if (dueDays.isEmpty()) {
+      return;
+    }
+    try (TraceSpan span = Tracer.startSpan("CookableRecipeTracker.advanceTo")) {
+      List<String> expiredNames = new ArrayList<>();
+      Iterator<Set<String>> iterator = dueDays.values().iterator();
+      while (iterator.hasNext()) {
+        expiredNames.addAll(iterator.next());
+        iterator.remove();
+      }
+      for (String ingredientName : expiredNames) {
+        this.queuedExpiryDays.remove(ingredientName);
+        update(ingredientName);
+      }
+    }
+  }
+
+  /**
+   * Registers a listener that is told when a recipe becomes cookable or stops being
+   * cookable. It is called while the tracker is locked.
+   *
+   * @param listener the listener to add
+   * @throws IllegalArgumentException if the listener is null
+   */
+  public void addListener(CookableRecipeListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("ERR: listener cant be null");
+    }
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Unregisters a listener.
+   *
+   * @param listener the listener to remove
+   */
+  public void removeListener(CookableRecipeListener listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Stops tracking the storage and the book.
+   */
+  @Override
+  public void close() {
+    this.foodStorage.removeListener(this);
+    this.recipeBook.removeListener(this);
+  }
+
+  @Override
+  public synchronized void ingredientAdded(Ingredient ingredient) {
+    update(ingredient.getIngredientName());
+  }
+
+  @Override
+  public synchronized void ingredientAmountChanged(Ingredient ingredient, double amountChange) {
+    update(ingredient.getIngredientName());
+  }
+
+  @Override
+  public synchronized void ingredientRemoved(Ingredient ingredient, boolean expired) {
+    update(ingredient.getIngredientName());
+  }
+
+  @Override
+  public synchronized void recipeAdded(Recipe recipe) {
+    track(recipe);
+  }
+
+  @Override
+  public synchronized void recipeRemoved(Recipe recipe) {
+    TrackedRecipe trackedRecipe = this.recipesByName.remove(recipe.getRecipeName());
+    if (trackedRecipe == null) {
+      return;
+    }
+    for (Requirement requirement : trackedRecipe.requirements) {
+      List<Requirement> fanOut = this.requirementsByIngredient.get(requirement.ingredientName);
+      fanOut.remove(requirement);
+      if (fanOut.isEmpty()) {
+        this.requirementsByIngredient.remove(requirement.ingredientName);
+      }
+    }
+    if (this.cookableRecipes.remove(recipe.getRecipeName())) {
+      notifyCookable(recipe.getRecipeName(), false);
+    }
+  }
+
+  private void track(Recipe recipe) {
+    TrackedRecipe trackedRecipe = new TrackedRecipe(recipe.getRecipeName());
+    Map<String, Ingredient> storedIngredients = this.foodStorage.getIngredients();
+    for (int i = 0; i < recipe.getIngredientCount(); i++) {
+      String ingredientName = recipe.getIngredientName(i);
+      Requirement requirement = new Requirement(
+          trackedRecipe, ingredientName, recipe.getIngredientAmount(i));
+      trackedRecipe.requirements.add(requirement);
+      this.requirementsByIngredient
+          .computeIfAbsent(ingredientName, name -> new ArrayList<>())
+          .add(requirement);
+      Ingredient storedIngredient = storedIngredients.get(ingredientName);
+      requirement.satisfied = isSatisfied(requirement, storedIngredient);
+      if (requirement.satisfied) {
+        trackedRecipe.satisfiedCount++;
+      }
+      queueExpiry(ingredientName, storedIngredient);
+    }
+    this.recipesByName.put(trackedRecipe.recipeName, trackedRecipe);
+    updateCookable(trackedRecipe);
+  }
+
+  /**
+   * Checks again every requirement on one ingredient and updates the counters of the
+   * recipes whose requirement changed.
+   */
+  private void update(String ingredientName) {
+    List<Requirement> fanOut = this.requirementsByIngredient.get(ingredientName);
+    if (fanOut == null) {
+      return;
+    }
+    Ingredient storedIngredient = this.foodStorage.getIngredients().get(ingredientName);
+    for (Requirement requirement : fanOut) {
+      boolean satisfied = isSatisfied(requirement, storedIngredient);
+      if (satisfied != requirement.satisfied) {
+        requirement.satisfied = satisfied;
+        requirement.recipe.satisfiedCount += satisfied ? 1 : -1;
+        updateCookable(requirement.recipe);
+      }
+    }
+    queueExpiry(ingredientName, storedIngredient);
+  }
+
+  private boolean isSatisfied(Requirement requirement, Ingredient storedIngredient) {
+    return storedIngredient != null
+        && !storedIngredient.isExpiredOn(this.today)
+        && storedIngredient.getIngredientAmount() >= requirement.amount;
+  }
+
+  private void updateCookable(TrackedRecipe trackedRecipe) {
+    boolean cookable = trackedRecipe.satisfiedCount == trackedRecipe.requirements.size();
+    boolean changed = cookable
+        ? this.cookableRecipes.add(trackedRecipe.recipeName)
+        : this.cookableRecipes.remove(trackedRecipe.recipeName);
+    if (changed) {
+      notifyCookable(trackedRecipe.recipeName, cookable);
+    }
+  }
+
+  private void notifyCookable(String recipeName, boolean cookable) {
+    for (CookableRecipeListener listener : this.listeners) {
+      listener.cookabilityChanged(recipeName, cookable);
+    }
+  }
+
+  /**
+   * Queues a stored ingredient under the first day it is expired, replacing an earlier
+   * entry for the same name.
+   */
+  private void queueExpiry(String ingredientName, Ingredient storedIngredient) {
+    LocalDate expiredDay = storedIngredient == null || storedIngredient.getExpireLocalDate() == null
+        || storedIngredient.isExpiredOn(this.today)
+        ? null : storedIngredient.getExpireLocalDate().plusDays(1);
+    LocalDate queuedDay = this.queuedExpiryDays.get(ingredientName);
+    if (expiredDay != null && expiredDay.equals(queuedDay)) {
+      return;
+    }
+    if (queuedDay != null) {
+      Set<String> names = this.expiryQueue.get(queuedDay);
+      names.remove(ingredientName);
+      if (names.isEmpty()) {
+        this.expiryQueue.remove(queuedDay);
+      }
+      this.queuedExpiryDays.remove(ingredientName);
+    }
+    if (expiredDay != null) {
+      this.expiryQueue.computeIfAbsent(expiredDay, day -> new HashSet<>()).add(ingredientName);
+      this.queuedExpiryDays.put(ingredientName, expiredDay);
+    }
+  }
+
+  /** A recipe with the number of its requirements that are satisfied. */
+  private static final class TrackedRecipe {
+
+    private final String recipeName;
+    private final List<Requirement> requirements = new ArrayList<>();
+    private int satisfiedCount;
+
+    TrackedRecipe(String recipeName) {
+      this.recipeName = recipeName;
+    }
+  }
+
+  /** One ingredient amount required by one recipe. */
+  private static final class Requirement {
+
+    private final TrackedRecipe recipe;
+    private final String ingredientName;
+    private final double amount;
+    private boolean satisfied;
+
+    Requirement(TrackedRecipe recipe, String ingredientName, double amount) {
+      this.recipe = recipe;
+      this.ingredientName = ingredientName;
+      this.amount = amount;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package edu.ntnu.iir.bidata.logic;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The CoverageMatch class describes how much of a recipe a set of ingredients covers,
+ * as found by a {@link RecipeCoverageIndex}.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class CoverageMatch {
+
+  private final String recipeName;
+  private final int requiredCount;
+  private final List<String> missingIngredients;
+
+  /**
+   * Constructs a CoverageMatch.
+   *
+   * @param recipeName the name of the recipe
+   * @param requiredCount the number of ingredients the recipe requires
+   * @param missingIngredients the required ingredients that arent covered
+   */
+  public CoverageMatch(String recipeName, int requiredCount, List<String> missingIngredients) {
+    this.recipeName = recipeName;
+    this.requiredCount = requiredCount;
+    this.missingIngredients = Collections.unmodifiableList(missingIngredients);
+  }
+
+  /**
+   * Returns the name of the recipe.
+   *
+   * @return the recipe name
+   */
+  public String getRecipeName() {
+    return this.recipeName;
+  }
+
+  /**
+   * Returns the number of ingredients the recipe requires.
+   *
+   * @return the required count
+   */
+  public int getRequiredCount() {
+    return this.requiredCount;
+  }
+
+  /**
+   * Returns the number of required ingredients that are covered.
+   *
+   * @return the covered count
+   */
+  public int getCoveredCount() {
+    return this.requiredCount - this.missingIngredients.size();
+  }
+
+  /**
+   * Returns the share of the required ingredients that are covered.
+   *
+   * @return the coverage, from 0 to 1
+   */
+  public double getCoverage() {
+    return (double) getCoveredCount() / this.requiredCount;
+  }
+
+  /**
+   * Returns the required ingredients that arent covered, sorted by name.
+   *
+   * @return an unmodifiable list of the missing ingredients
+   */
+  public List<String> getMissingIngredients() {
+    return this.missingIngredients;
+  }
+}
@@ -0,0 +1,309 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.entity.RecipeJson;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * The DatasetGenerator class makes up households and recipe catalogs of any size for
+ * benchmarks and load tests. The same seed always gives the same data, so every run of
+ * a benchmark works on the same storage and book.
+ *
+ * <p>The data is shaped like a real kitchen:
+ * <ul>
+ *   <li>Ingredient kinds are drawn with Zipf popularity: the kind of rank r is drawn in
+ *       proportion to 1 / (r + 1)^s, so a few staples like milk and eggs show up
+ *       everywhere and a long tail shows up rarely.</li>
+ *   <li>Every kind has its own unit (pieces, grams or liters), price and typical shelf
+ *       life, from days for fish to years for salt.</li>
+ *   <li>A stored lot was bought some random number of days ago, so most lots are fresh,
+ *       some expire soon and a few have already expired.</li>
+ *   <li>Recipes have 3 to 30 different ingredients, most of them fewer than 15.</li>
+ * </ul>
+ *
+ * <p>Generated values skip the checks and text parsing of the public constructors
+ * through {@link Ingredient#fromValidated} and {@link Recipe#fromValidated}, so millions
+ * of items take seconds. A generator isnt thread-safe; give every thread its own seed.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * DatasetGenerator generator = new DatasetGenerator(42L);
+ * generator.fillRecipeBook(recipeBook, 100_000);
+ * generator.fillStorage(foodStorage, 1_000_000);
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class DatasetGenerator {
+
+  /** Default number of ingredient kinds. */
+  public static final int DEFAULT_INGREDIENT_KINDS = 2000;
+
+  /** Default Zipf exponent of ingredient popularity. */
+  public static final double DEFAULT_ZIPF_EXPONENT = 1.0;
+
+  /** Fewest ingredients in a generated recipe. */
+  public static final int MIN_RECIPE_INGREDIENTS = 3;
+
+  /** Most ingredients in a generated recipe. */
+  public static final int MAX_RECIPE_INGREDIENTS = 30;
+
+  // ? Name, measurement type, typical shelf life in days and price per unit, gram or liter
+  private static final String[] BASE_NAMES = {
+    "Milk", "Egg", "Flour", "Butter", "Tomato", "Onion", "Garlic", "Chicken", "Rice", "Pasta",
+    "Cheese", "Potato", "Carrot", "Sugar", "Salt", "Yogurt", "Beef", "Apple", "Olive oil",
+    "Bread", "Lemon", "Spinach", "Mushroom", "Banana", "Salmon", "Cream", "Oats", "Beans",
+    "Lettuce", "Pork", "Orange juice", "Pepper"
+  };
+  private static final int[] BASE_MEASUREMENTS = {
+    2, 0, 1, 1, 0, 0, 0, 1, 1, 1,
+    1, 1, 0, 1, 1, 2, 1, 0, 2,
+    0, 0, 1, 1, 0, 1, 2, 1, 1,
+    0, 1, 2, 0
+  };
+  private static final int[] BASE_SHELF_LIVES = {
+    7, 28, 365, 60, 7, 30, 60, 3, 540, 540,
+    30, 45, 21, 720, 1800, 14, 4, 30, 540,
+    5, 21, 5, 6, 6, 2, 10, 365, 365,
+    6, 4, 10, 14
+  };
+  private static final double[] BASE_PRICES = {
+    20, 3, 0.015, 0.1, 4, 2, 3, 0.1, 0.03, 0.025,
+    0.12, 0.02, 1.5, 0.02, 0.01, 30, 0.15, 4, 90,
+    30, 5, 0.06, 0.08, 3, 0.25, 40, 0.02, 0.03,
+    15, 0.09, 25, 6
+  };
+  private static final String[] DISH_NAMES = {
+    "Stew", "Soup", "Salad", "Pie", "Curry", "Casserole", "Omelette", "Pasta bake", "Stir fry",
+    "Porridge", "Wrap", "Risotto", "Pancakes", "Gratin", "Chili", "Sandwich"
+  };
+
+  private final SplittableRandom random;
+  private final int ingredientKinds;
+  private final double[] cumulativeWeights;
+  private final long todayEpochDay;
+  private final String[] kindNames;
+  private long recipeCount;
+
+  /**
+   * Constructs a DatasetGenerator with the default kinds and exponent, dated 2024-01-01.
+   *
+   * @param seed the seed of the data
+   */
+  public DatasetGenerator(long seed) {
+    this(seed, DEFAULT_INGREDIENT_KINDS, DEFAULT_ZIPF_EXPONENT, LocalDate.of(2024, 1, 1));
+  }
+
+  /**
+   * Constructs a DatasetGenerator.
+   *
+   * @param seed the seed of the data
+   * @param ingredientKinds the number of different ingredients, at least
+   *                        {@link #MAX_RECIPE_INGREDIENTS}
+   * @param zipfExponent how steeply popularity falls with rank, 0 makes every kind equally
+   *                     popular; cant be negative
+   * @param today the date that expire dates are drawn around
+   * @throws IllegalArgumentException if there are too few kinds, the exponent is negative
+   *                                  or the date is null
+   */
+  public DatasetGenerator(long seed, int ingredientKinds, double zipfExponent,
+      LocalDate today) {
+    if (ingredientKinds < MAX_RECIPE_INGREDIENTS) {
+      throw new IllegalArgumentException(
+          "ERR: need at least " + MAX_RECIPE_INGREDIENTS + " ingredient kinds");
+    }
+    if (!(zipfExponent >= 0) || Double.isInfinite(zipfExponent)) {
+      throw new IllegalArgumentException("ERR: zipf exponent cant be negative");
+    }
+    if (today == null) {
+      throw new IllegalArgumentException("ERR: date cant be null");
+    }
+    this.random = new SplittableRandom(seed);
+    this.ingredientKinds = ingredientKinds;
+    this.todayEpochDay = today.toEpochDay();
+    this.cumulativeWeights = new double[ingredientKinds];
+    this.kindNames = new String[ingredientKinds];
+    double total = 0;
+    for (int rank = 0; rank < ingredientKinds; rank++) {
+      total += 1.0 / Math.pow(rank + 1, zipfExponent);
+      this.cumulativeWeights[rank] = total;
+      int variant = rank / BASE_NAMES.length;
+      String baseName = BASE_NAMES[rank % BASE_NAMES.length];
+      this.kindNames[rank] = variant == 0 ? baseName : baseName + " " + variant;
+    }
+  }
+
+  /**
+   * Returns the name of an ingredient kind. Rank 0 is the most popular.
+   *
+   * @param rank the popularity rank of the kind
+   * @return the ingredient name
+   * @throws IllegalArgumentException if the rank is outside the kinds
+   */
+  public String getIngredientName(int rank) {
+    if (rank < 0 || rank >= this.ingredientKinds) {
+      throw new IllegalArgumentException("ERR: no ingredient kind of rank " + rank);
+    }
+    return this.kindNames[rank];
+  }
+
+  /**
+   * Draws a stored ingredient lot of a popular kind.
+   *
+   * @return the ingredient, with an expire date around the date of the generator
+   */
+  public Ingredient nextIngredient() {
+    int rank = nextRank();
+    int base = rank % BASE_NAMES.length;
+    int measurement = BASE_MEASUREMENTS[base];
+    double amount = switch (measurement) {
+      case 0 -> 1 + this.random.nextInt(12);
+      case 1 -> 50 * (2 + this.random.nextInt(39));
+      default -> 0.25 * (1 + this.random.nextInt(8));
+    };
+    double price = Math.round(amount * BASE_PRICES[base]
+        * (0.8 + 0.4 * this.random.nextDouble()) * 100) / 100.0;
+    // ? Shelf lives spread around the typical one, and the lot was bought a while ago
+    long shelfLife = Math.max(1, Math.round(
+        BASE_SHELF_LIVES[base] * Math.exp(0.4 * this.random.nextGaussian())));
+    long age = (long) (this.random.nextDouble() * shelfLife * 1.1);
+    return Ingredient.fromValidated(this.kindNames[rank], amount, measurement, price,
+        this.todayEpochDay + shelfLife - age);
+  }
+
+  /**
+   * Draws a recipe of 3 to 30 different ingredients. Recipes are numbered, so every
+   * recipe from one generator has its own name.
+   *
+   * @return the recipe
+   */
+  public Recipe nextRecipe() {
+    long number = this.recipeCount++;
+    int ingredientCount = MIN_RECIPE_INGREDIENTS + Math.min(
+        this.random.nextInt(MAX_RECIPE_INGREDIENTS - MIN_RECIPE_INGREDIENTS + 1),
+        this.random.nextInt(MAX_RECIPE_INGREDIENTS - MIN_RECIPE_INGREDIENTS + 1));
+    int[] ranks = new int[ingredientCount];
+    String[] names = new String[ingredientCount];
+    double[] amounts = new double[ingredientCount];
+    int[] measurements = new int[ingredientCount];
+    for (int i = 0; i < ingredientCount; i++) {
+      ranks[i] = nextDistinctRank(ranks, i);
+      int base = ranks[i] % BASE_NAMES.length;
+      names[i] = this.kindNames[ranks[i]];
+      measurements[i] = BASE_MEASUREMENTS[base];
+      amounts[i] = switch (measurements[i]) {
+        case 0 -> 1 + this.random.nextInt(4);
+        case 1 -> 10 * (1 + this.random.nextInt(50));
+        default -> 0.05 * (1 + this.random.nextInt(20));
+      };
+    }
+    String dish = DISH_NAMES[this.random.nextInt(DISH_NAMES.length)];
+    return Recipe.fromValidated(dish + " " + number,
+        "Generated " + dish.toLowerCase(Locale.ROOT), "Prepare the ingredients and cook.",
+        1 + this.random.nextInt(8), names, amounts, measurements, ingredientCount);
+  }
+
+  /**
+   * Adds generated recipes to a book.
+   *
+   * @param recipeBook the book to fill
+   * @param count the number of recipes to add
+   * @throws IllegalArgumentException if the book is null or the count is negative
+   */
+  public void fillRecipeBook(RecipeBook recipeBook, int count) {
+    if (recipeBook == null || count < 0) {
+      throw new IllegalArgumentException("ERR: recipe book cant be null, count cant be negative");
+    }
+    try (TraceSpan span = Tracer.startSpan("DatasetGenerator.fillRecipeBook")) {
+      for (int i = 0; i < count; i++) {
+        recipeBook.addRecipe(nextRecipe());
+      }
+    }
+  }
+
+  /**
+   * Buys generated lots into a storage. The storage holds one lot per ingredient, so a
+   * lot of a kind that is already stored adds its amount to the stored lot.
+   *
+   * @param foodStorage the storage to fill
+   * @param purchaseCount the number of lots to buy
+   * @return the number of different ingredients that were added
+   * @throws IllegalArgumentException if the storage is null or the count is negative
+   */
+  public int fillStorage(FoodStorage foodStorage, int purchaseCount) {
+    if (foodStorage == null || purchaseCount < 0) {
+      throw new IllegalArgumentException("ERR: storage cant be null, count cant be negative");
+    }
+    try (TraceSpan span = Tracer.startSpan("DatasetGenerator.fillStorage")) {
+      int addedCount = 0;
+      for (int i = 0; i < purchaseCount; i++) {
+        Ingredient lot = nextIngredient();
+        if (foodStorage.getIngredient(lot.getIngredientName()) == null) {
+          foodStorage.addIngredient(lot);
+          addedCount++;
+        } else {
+          foodStorage.addIngredientAmount(lot.getIngredientName(), lot.getIngredientAmount());
+        }
+      }
+      return addedCount;
+    }
+  }
+
+  /**
+   * Writes generated recipes as a JSON lines catalog that {@link RecipeCatalog} imports.
+   *
+   * @param output where to write, it is flushed but not closed
+   * @param count the number of recipes to write
+   * @throws IOException if the catalog cant be written
+   * @throws IllegalArgumentException if the output is null or the count is negative
+   */
+  public void writeRecipeCatalog(Writer output, long count) throws IOException {
+    if (output == null || count < 0) {
+      throw new IllegalArgumentException("ERR: output cant be null, count cant be negative");
+    }
+    try (TraceSpan span = Tracer.startSpan("DatasetGenerator.writeRecipeCatalog")) {
+      Writer writer = output instanceof BufferedWriter ? output : new BufferedWriter(output);
+      StringBuilder line = new StringBuilder(512);
+      for (long i = 0; i < count; i++) {
+        line.setLength(0);
+        RecipeJson.appendTo(nextRecipe(), line);
+        line.append('\n');
+        writer.append(line);
+      }
+      writer.flush();
+    }
+  }
+
+  /** Draws a rank with Zipf popularity, by binary search of the cumulative weights. */
+  private int nextRank() {
+    double target = this.random.nextDouble() * this.cumulativeWeights[this.ingredientKinds - 1];
+    int index = Arrays.binarySearch(this.cumulativeWeights, target);
+    int rank = index >= 0 ? index + 1 : -index - 1;
+    return Math.min(rank, this.ingredientKinds - 1);
+  }
+
+  /** Draws a rank not among the first ranks; falls back to even odds for steep tails. */
+  private int nextDistinctRank(int[] ranks, int count) {
+    for (int attempt = 0; ; attempt++) {
+      int rank = attempt < 16 ? nextRank() : this.random.nextInt(this.ingredientKinds);
+      boolean taken = false;
+      for (int i = 0; i < count && !taken; i++) {
+        taken = ranks[i] == rank;
+      }
+      if (!taken) {
+        return rank;
+      }
+    }
+  }
+}
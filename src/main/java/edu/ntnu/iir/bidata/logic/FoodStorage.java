@@ -1,9 +1,20 @@
 package edu.ntnu.iir.bidata.logic;
 
 import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.untility.IngredientDictionary;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The FoodStorage class represents a storage for ingredients.
@@ -14,6 +25,15 @@ import java.util.Map;
  * <p>This class ensures that ingredients are validated 
  * before being added or retrieved from the storage.
  * It also provides an unmodifiable view of the ingredients in the storage.</p>
+ *
+ * <p>Changes are synchronized on the storage, and listeners are notified while the
+ * lock is held. A storage backed by a concurrent map can therefore be shared between
+ * threads; a caller that checks and then changes several ingredients can hold the
+ * lock of the storage to make both steps one.</p>
+ *
+ * <p>Every change made through the storage bumps its version by one, and stamps the
+ * changed ingredient with the new version, so a cache can tell exactly which results a
+ * change made stale. Changing an {@link Ingredient} directly bypasses the versions.</p>
  * 
  * <p>Usage example:</p>
  * <pre>{@code
@@ -41,10 +61,21 @@ import java.util.Map;
  */
 
 
+@SuppressWarnings("try")
 public class FoodStorage {
 
 
   private final Map<String, Ingredient> foodStorage;
+  private final List<FoodStorageListener> listeners = new CopyOnWriteArrayList<>();
+  // ? Only stored ingredients have an entry, removing one already bumps the version
+  private final Map<String, Long> ingredientVersions = new HashMap<>();
+  private long version;
+  // ? Availability bits of the last dictionary and day asked for, kept up by changed()
+  private IngredientDictionary bitsDictionary;
+  private LocalDate bitsDay;
+  private int bitsDictionarySize;
+  private long[] availableWords;
+  private final Set<String> namesWithoutId = new HashSet<>();
 
   /**
    * Constructs a new FoodStorage with the specified initial storage.
@@ -61,10 +92,16 @@ public class FoodStorage {
    * @param ingredient the ingredient to be added
    * @throws IllegalArgumentException if the ingredient is invalid
    */
-  public void addIngredient(Ingredient ingredient) {
-    validateIngredient(ingredient);
-    if (!this.foodStorage.containsKey(ingredient.getIngredientName())) {
-      this.foodStorage.put(ingredient.getIngredientName(), ingredient);
+  public synchronized void addIngredient(Ingredient ingredient) {
+    try (TraceSpan span = Tracer.startSpan("FoodStorage.addIngredient")) {
+      validateIngredient(ingredient);
+      if (!this.foodStorage.containsKey(ingredient.getIngredientName())) {
+        this.foodStorage.put(ingredient.getIngredientName(), ingredient);
+        changed(ingredient.getIngredientName());
+        for (FoodStorageListener listener : this.listeners) {
+          listener.ingredientAdded(ingredient);
+        }
+      }
     }
   }
 
@@ -76,21 +113,24 @@ public class FoodStorage {
    * @throws IllegalArgumentException if the ingredient name is blank, empty, or null
    */
   public Ingredient getIngredient(String ingredientName) {
-    validateIngredientName(ingredientName);
-    if (this.foodStorage.containsKey(ingredientName)) {
-      return this.foodStorage.get(ingredientName);
+    try (TraceSpan span = Tracer.startSpan("FoodStorage.getIngredient")) {
+      validateIngredientName(ingredientName);
+      if (this.foodStorage.containsKey(ingredientName)) {
+        return this.foodStorage.get(ingredientName);
+      }
+      return null;
     }
-    return null;
   }
 
 
   /**
-   * Returns an iterator over the ingredients in the storage.
+   * Returns an iterator over the ingredients in the storage. Ingredients cant be removed
+   * through it, use {@link #removeIngredient(String)} so the listeners are told.
    *
-   * @return an iterator over the ingredients
+   * @return an unmodifiable iterator over the ingredients
    */
   public Iterator<Ingredient> getIterator() {
-    return this.foodStorage.values().iterator();
+    return Collections.unmodifiableCollection(this.foodStorage.values()).iterator();
   }
 
   /**
@@ -109,9 +149,269 @@ public class FoodStorage {
    * @return the removed ingredient, or null if not found
    * @throws IllegalArgumentException if the ingredient name is blank, empty, or null
    */
-  public Ingredient removeIngredient(String ingredientName) {
+  public synchronized Ingredient removeIngredient(String ingredientName) {
+    try (TraceSpan span = Tracer.startSpan("FoodStorage.removeIngredient")) {
+      validateIngredientName(ingredientName);
+      Ingredient removedIngredient = this.foodStorage.remove(ingredientName);
+      if (removedIngredient != null) {
+        changed(ingredientName);
+        notifyRemoved(removedIngredient, false);
+      }
+      return removedIngredient;
+    }
+  }
+
+  /**
+   * Uses an amount of a stored ingredient. The ingredient is removed from the storage
+   * when nothing is left of it.
+   *
+   * @param ingredientName the name of the ingredient to use
+   * @param usedAmount the amount to use
+   * @return the amount left
+   * @throws IllegalArgumentException if the ingredient isnt stored, or the amount is 0,
+   *                                  negative or higher than the stored amount
+   */
+  public synchronized double useIngredientAmount(String ingredientName, double usedAmount) {
+    try (TraceSpan span = Tracer.startSpan("FoodStorage.useIngredientAmount")) {
+      Ingredient ingredient = getStoredIngredient(ingredientName);
+      ingredient.setUsedIngredientAmount(usedAmount);
+      changed(ingredientName);
+      for (FoodStorageListener listener : this.listeners) {
+        listener.ingredientAmountChanged(ingredient, -usedAmount);
+      }
+      double amountLeft = ingredient.getIngredientAmount();
+      if (amountLeft == 0) {
+        this.foodStorage.remove(ingredientName);
+        this.ingredientVersions.remove(ingredientName);
+        notifyRemoved(ingredient, false);
+      }
+      return amountLeft;
+    }
+  }
+
+  /**
+   * Adds an extra amount to a stored ingredient.
+   *
+   * @param ingredientName the name of the ingredient
+   * @param extraAmount the amount to add
+   * @return the new amount
+   * @throws IllegalArgumentException if the ingredient isnt stored or the amount is 0 or negative
+   */
+  public synchronized double addIngredientAmount(String ingredientName, double extraAmount) {
+    try (TraceSpan span = Tracer.startSpan("FoodStorage.addIngredientAmount")) {
+      Ingredient ingredient = getStoredIngredient(ingredientName);
+      ingredient.setExtraIngredientAmount(extraAmount);
+      changed(ingredientName);
+      for (FoodStorageListener listener : this.listeners) {
+        listener.ingredientAmountChanged(ingredient, extraAmount);
+      }
+      return ingredient.getIngredientAmount();
+    }
+  }
+
+  /**
+   * Returns the version of the storage, the number of changes made through it so far.
+   *
+   * @return the version, 0 for a storage that was never changed
+   */
+  public synchronized long getVersion() {
+    return this.version;
+  }
+
+  /**
+   * Returns the version of the storage at the last change to a stored ingredient,
+   * counting being added, used and topped up. An ingredient that isnt stored has version
+   * 0; removing one bumps the version of the storage, and adding it again gives it a new
+   * version.
+   *
+   * @param ingredientName the name of the ingredient
+   * @return the version of the last change, 0 if the ingredient isnt stored
+   * @throws IllegalArgumentException if the ingredient name is blank, empty, or null
+   */
+  public synchronized long getIngredientVersion(String ingredientName) {
     validateIngredientName(ingredientName);
-    return this.foodStorage.remove(ingredientName);
+    return this.ingredientVersions.getOrDefault(ingredientName, 0L);
+  }
+
+  /**
+   * Registers a listener that is notified after every change made through this storage.
+   *
+   * @param listener the listener to add
+   * @throws IllegalArgumentException if the listener is null
+   */
+  public void addListener(FoodStorageListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("ERR: listener cant be null");
+    }
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Unregisters a listener.
+   *
+   * @param listener the listener to remove
+   */
+  public void removeListener(FoodStorageListener listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Removes every expired ingredient from the storage.
+   *
+   * @return the removed ingredients, in the order they were found
+   */
+  public List<Ingredient> removeExpiredIngredients() {
+    return removeExpiredIngredients(LocalDate.now());
+  }
+
+  /**
+   * Removes every ingredient that is expired on a given day from the storage.
+   *
+   * @param day the day to check the expire dates against
+   * @return the removed ingredients, in the order they were found
+   * @throws IllegalArgumentException if the day is null
+   */
+  public synchronized List<Ingredient> removeExpiredIngredients(LocalDate day) {
+    if (day == null) {
+      throw new IllegalArgumentException("ERR: day cant be null");
+    }
+    try (TraceSpan span = Tracer.startSpan("FoodStorage.removeExpiredIngredients")) {
+      List<Ingredient> expiredIngredients = new ArrayList<>();
+      Iterator<Ingredient> iterator = this.foodStorage.values().iterator();
+      while (iterator.hasNext()) {
+        Ingredient ingredient = iterator.next();
+        if (ingredient.isExpiredOn(day)) {
+          expiredIngredients.add(ingredient);
+          iterator.remove();
+          changed(ingredient.getIngredientName());
+        }
+      }
+      for (Ingredient expiredIngredient : expiredIngredients) {
+        notifyRemoved(expiredIngredient, true);
+      }
+      return expiredIngredients;
+    }
+  }
+
+  /**
+   * Returns the total price of the ingredients in the storage.
+   *
+   * @return the sum of {@link Ingredient#getIngredientPrice()} over the storage
+   */
+  public double getTotalValue() {
+    double totalValue = 0.0;
+    for (Ingredient ingredient : this.foodStorage.values()) {
+      totalValue += ingredient.getIngredientPrice();
+    }
+    return totalValue;
+  }
+
+  /**
+   * Returns the ingredients that are stored, not expired today and not used up, as a
+   * bitset over the ids of a dictionary.
+   *
+   * @param dictionary the dictionary that gives ingredients their bit
+   * @return the availability bitset, wide enough for every id in the dictionary
+   * @throws IllegalArgumentException if the dictionary is null
+   * @see #getAvailabilityBits(IngredientDictionary, LocalDate)
+   */
+  public long[] getAvailabilityBits(IngredientDictionary dictionary) {
+    return getAvailabilityBits(dictionary, LocalDate.now());
+  }
+
+  /**
+   * Returns the ingredients that are stored, not expired on a given day and not used up,
+   * as a bitset over the ids of a dictionary. Bit {@code id} is set in word
+   * {@code id / 64}. Ingredients without an id in the dictionary are left out, since no
+   * indexed recipe can require them.
+   *
+   * <p>The bits of the last dictionary and day asked for are kept, and every change made
+   * through the storage updates the bit of the changed ingredient, so repeated calls dont
+   * scan the storage. The bits are built again when another dictionary or day is asked
+   * for. Names added to the dictionary later are looked up among the stored ingredients
+   * that had no id. Changing an {@link Ingredient} directly isnt seen until then.
+   *
+   * @param dictionary the dictionary that gives ingredients their bit
+   * @param day the day to check the expire dates against
+   * @return a copy of the availability bitset, wide enough for every id in the dictionary
+   * @throws IllegalArgumentException if the dictionary or day is null
+   */
+  public synchronized long[] getAvailabilityBits(IngredientDictionary dictionary,
+      LocalDate day) {
+    if (dictionary == null) {
+      throw new IllegalArgumentException("ERR: dictionary cant be null");
+    }
+    if (day == null) {
+      throw new IllegalArgumentException("ERR: day cant be null");
+    }
+    try (TraceSpan span = Tracer.startSpan("FoodStorage.getAvailabilityBits")) {
+      if (dictionary != this.bitsDictionary || !day.equals(this.bitsDay)) {
+        this.bitsDictionary = dictionary;
+        this.bitsDay = day;
+        this.bitsDictionarySize = dictionary.size();
+        this.availableWords = new long[(this.bitsDictionarySize + 63) >>> 6];
+        this.namesWithoutId.clear();
+        for (String ingredientName : this.foodStorage.keySet()) {
+          updateAvailabilityBit(ingredientName);
+        }
+      } else if (dictionary.size() != this.bitsDictionarySize) {
+        // ? Names only get ids, never lose them, so only the unknown names can change
+        this.bitsDictionarySize = dictionary.size();
+        this.availableWords = Arrays.copyOf(
+            this.availableWords, (this.bitsDictionarySize + 63) >>> 6);
+        for (String ingredientName : new ArrayList<>(this.namesWithoutId)) {
+          updateAvailabilityBit(ingredientName);
+        }
+      }
+      return this.availableWords.clone();
+    }
+  }
+
+  private Ingredient getStoredIngredient(String ingredientName) {
+    validateIngredientName(ingredientName);
+    Ingredient ingredient = this.foodStorage.get(ingredientName);
+    if (ingredient == null) {
+      throw new IllegalArgumentException("Ingredient not found: " + ingredientName);
+    }
+    return ingredient;
+  }
+
+  private void changed(String ingredientName) {
+    this.version++;
+    if (this.foodStorage.containsKey(ingredientName)) {
+      this.ingredientVersions.put(ingredientName, this.version);
+    } else {
+      this.ingredientVersions.remove(ingredientName);
+    }
+    if (this.bitsDictionary != null) {
+      updateAvailabilityBit(ingredientName);
+    }
+  }
+
+  /** Sets or clears the bit of an ingredient in the kept availability bits. */
+  private void updateAvailabilityBit(String ingredientName) {
+    Ingredient ingredient = this.foodStorage.get(ingredientName);
+    int ingredientId = this.bitsDictionary.findId(ingredientName);
+    if (ingredient != null && (ingredientId < 0 || ingredientId >= this.bitsDictionarySize)) {
+      this.namesWithoutId.add(ingredientName);
+      return;
+    }
+    this.namesWithoutId.remove(ingredientName);
+    if (ingredientId < 0 || ingredientId >= this.bitsDictionarySize) {
+      return;
+    }
+    if (ingredient != null && ingredient.getIngredientAmount() > 0
+        && !ingredient.isExpiredOn(this.bitsDay)) {
+      this.availableWords[ingredientId >>> 6] |= 1L << ingredientId;
+    } else {
+      this.availableWords[ingredientId >>> 6] &= ~(1L << ingredientId);
+    }
+  }
+
+  private void notifyRemoved(Ingredient ingredient, boolean expired) {
+    for (FoodStorageListener listener : this.listeners) {
+      listener.ingredientRemoved(ingredient, expired);
+    }
   }
 
   /**
@@ -0,0 +1,43 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+
+/**
+ * The FoodStorageListener interface is notified after a {@link FoodStorage} changes.
+ * Indexes and caches that are derived from a storage implement it to stay up to date
+ * without scanning the whole storage.
+ *
+ * <p>Listeners are called on the thread that changed the storage, after the change has
+ * been made. All methods do nothing by default.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public interface FoodStorageListener {
+
+  /**
+   * Called after an ingredient has been added to the storage.
+   *
+   * @param ingredient the added ingredient
+   */
+  default void ingredientAdded(Ingredient ingredient) {
+  }
+
+  /**
+   * Called after the amount of a stored ingredient has changed.
+   *
+   * @param ingredient the changed ingredient, with its new amount
+   * @param amountChange the change in amount, negative when an amount was used
+   */
+  default void ingredientAmountChanged(Ingredient ingredient, double amountChange) {
+  }
+
+  /**
+   * Called after an ingredient has been removed from the storage.
+   *
+   * @param ingredient the removed ingredient
+   * @param expired true if it was removed because it had expired
+   */
+  default void ingredientRemoved(Ingredient ingredient, boolean expired) {
+  }
+}
@@ -0,0 +1,291 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * The HouseholdRegistry class hosts the food storages of many households (tenants) in
+ * one process, so each household no longer needs its own application instance.
+ *
+ * <p>Every household gets its own {@link FoodStorage}, while all households share one
+ * read-only {@link RecipeBook} catalog. Households are pinned to a fixed worker shard by
+ * their id, and every task for a household runs on the single thread of its shard. This
+ * keeps one household's data on one core and means a storage is never touched by two
+ * threads at once, so the plain {@link FoodStorage} can be used without locks.
+ *
+ * <p>Cross-household jobs such as the nightly expiry sweep and the storage valuation
+ * run on all shards in parallel.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * try (HouseholdRegistry registry = new HouseholdRegistry(catalog, 8)) {
+ *   registry.registerHousehold("household-1");
+ *   registry.submit("household-1",
+ *       storage -> { storage.addIngredient(ingredient); return null; }).join();
+ *   double wasteValue = registry.sweepExpiredIngredients();
+ * }
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class HouseholdRegistry implements AutoCloseable {
+
+  // ? Rough heap sizes in bytes used by the memory accounting (64-bit JVM, compressed oops)
+  private static final long STORAGE_OVERHEAD_BYTES = 96;
+  private static final long INGREDIENT_BYTES = 48 + 24; // Ingredient + LocalDate
+  private static final long MAP_ENTRY_BYTES = 36;
+  private static final long STRING_OVERHEAD_BYTES = 40;
+
+  private final RecipeBook recipeCatalog;
+  private final List<Map<String, FoodStorage>> shardHouseholds;
+  private final ExecutorService[] shardExecutors;
+
+  /**
+   * Constructs a HouseholdRegistry with one shard per available processor.
+   *
+   * @param recipeCatalog the recipe book shared by all households
+   * @throws IllegalArgumentException if the recipe catalog is null
+   */
+  public HouseholdRegistry(RecipeBook recipeCatalog) {
+    this(recipeCatalog, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs a HouseholdRegistry with the given number of worker shards.
+   * The recipes of the catalog are copied into a read-only recipe book.
+   *
+   * @param recipeCatalog the recipe book shared by all households
+   * @param shardCount the number of worker shards, must be greater than 0
+   * @throws IllegalArgumentException if the recipe catalog is null or shardCount is below 1
+   */
+  public HouseholdRegistry(RecipeBook recipeCatalog, int shardCount) {
+    if (recipeCatalog == null) {
+      throw new IllegalArgumentException("ERR: recipe catalog cant be null");
+    }
+    if (shardCount <= 0) {
+      throw new IllegalArgumentException("ERR: shard count cant be 0 or negative");
+    }
+    this.recipeCatalog = new RecipeBook(
+        Collections.unmodifiableMap(new HashMap<String, Recipe>(recipeCatalog.getRecipes())));
+    this.shardHouseholds = new ArrayList<>(shardCount);
+    this.shardExecutors = new ExecutorService[shardCount];
+    for (int shard = 0; shard < shardCount; shard++) {
+      this.shardHouseholds.add(new ConcurrentHashMap<>());
+      String threadName = "household-shard-" + shard;
+      this.shardExecutors[shard] = Executors.newSingleThreadExecutor(
+          task -> Thread.ofPlatform().name(threadName).daemon().unstarted(task));
+    }
+  }
+
+  /**
+   * Returns the read-only recipe book shared by all households.
+   *
+   * @return the shared recipe catalog
+   */
+  public RecipeBook getRecipeCatalog() {
+    return this.recipeCatalog;
+  }
+
+  /**
+   * Returns the number of worker shards.
+   *
+   * @return the shard count
+   */
+  public int getShardCount() {
+    return this.shardExecutors.length;
+  }
+
+  /**
+   * Returns the shard a household is pinned to.
+   *
+   * @param householdId the id of the household
+   * @return the shard index, between 0 and the shard count
+   * @throws IllegalArgumentException if the household id is blank, empty or null
+   */
+  public int shardOf(String householdId) {
+    validateHouseholdId(householdId);
+    return Math.floorMod(householdId.hashCode(), this.shardExecutors.length);
+  }
+
+  /**
+   * Registers a household with an empty food storage.
+   * Registering an existing household returns its current storage.
+   *
+   * @param householdId the id of the household
+   * @return the food storage of the household
+   * @throws IllegalArgumentException if the household id is blank, empty or null
+   */
+  public FoodStorage registerHousehold(String householdId) {
+    return this.shardHouseholds.get(shardOf(householdId))
+        .computeIfAbsent(householdId, id -> new FoodStorage(new HashMap<>()));
+  }
+
+  /**
+   * Retrieves the food storage of a household. The storage should only be changed
+   * through {@link #submit(String, Function)}.
+   *
+   * @param householdId the id of the household
+   * @return the food storage of the household, or null if it isnt registered
+   * @throws IllegalArgumentException if the household id is blank, empty or null
+   */
+  public FoodStorage getHousehold(String householdId) {
+    return this.shardHouseholds.get(shardOf(householdId)).get(householdId);
+  }
+
+  /**
+   * Removes a household and its food storage.
+   *
+   * @param householdId the id of the household
+   * @return the removed food storage, or null if it wasnt registered
+   * @throws IllegalArgumentException if the household id is blank, empty or null
+   */
+  public FoodStorage removeHousehold(String householdId) {
+    return this.shardHouseholds.get(shardOf(householdId)).remove(householdId);
+  }
+
+  /**
+   * Returns the number of registered households.
+   *
+   * @return the household count
+   */
+  public int getHouseholdCount() {
+    int householdCount = 0;
+    for (Map<String, FoodStorage> households : this.shardHouseholds) {
+      householdCount += households.size();
+    }
+    return householdCount;
+  }
+
+  /**
+   * Runs a task against the food storage of a household on the shard it is pinned to.
+   * Tasks for the same household run one at a time in the order they were submitted.
+   *
+   * @param <T> the result type of the task
+   * @param householdId the id of the household
+   * @param task the task to run with the household's food storage
+   * @return a future completed with the result of the task
+   * @throws IllegalArgumentException if the household isnt registered or the task is null
+   */
+  public <T> CompletableFuture<T> submit(String householdId, Function<FoodStorage, T> task) {
+    if (task == null) {
+      throw new IllegalArgumentException("ERR: task cant be null");
+    }
+    int shard = shardOf(householdId);
+    FoodStorage foodStorage = this.shardHouseholds.get(shard).get(householdId);
+    if (foodStorage == null) {
+      throw new IllegalArgumentException("Household not found: " + householdId);
+    }
+    return CompletableFuture.supplyAsync(() -> task.apply(foodStorage),
+        this.shardExecutors[shard]);
+  }
+
+  /**
+   * Removes the expired ingredients of every household, running all shards in parallel.
+   *
+   * @return the total price of the removed ingredients
+   */
+  public double sweepExpiredIngredients() {
+    try (TraceSpan span = Tracer.startSpan("HouseholdRegistry.sweepExpiredIngredients")) {
+      double wasteValue = 0.0;
+      for (Map<String, Double> shardResult : runOnAllShards(foodStorage -> {
+        double removedValue = 0.0;
+        for (Ingredient ingredient : foodStorage.removeExpiredIngredients()) {
+          removedValue += ingredient.getIngredientPrice();
+        }
+        return removedValue;
+      })) {
+        for (double removedValue : shardResult.values()) {
+          wasteValue += removedValue;
+        }
+      }
+      return wasteValue;
+    }
+  }
+
+  /**
+   * Computes the total storage value of every household, running all shards in parallel.
+   *
+   * @return a map from household id to the value of its food storage
+   */
+  public Map<String, Double> valuateHouseholds() {
+    try (TraceSpan span = Tracer.startSpan("HouseholdRegistry.valuateHouseholds")) {
+      Map<String, Double> householdValues = new HashMap<>();
+      runOnAllShards(FoodStorage::getTotalValue).forEach(householdValues::putAll);
+      return householdValues;
+    }
+  }
+
+  /**
+   * Estimates the heap used by the food storage of every household.
+   * The estimate counts the storage, its map entries, ingredients and name strings.
+   *
+   * @return a map from household id to its estimated size in bytes
+   */
+  public Map<String, Long> estimateMemoryUsage() {
+    Map<String, Long> householdBytes = new HashMap<>();
+    runOnAllShards(HouseholdRegistry::estimateStorageBytes).forEach(householdBytes::putAll);
+    return householdBytes;
+  }
+
+  /**
+   * Estimates the heap used by one food storage.
+   *
+   * @param foodStorage the storage to measure
+   * @return the estimated size in bytes
+   */
+  static long estimateStorageBytes(FoodStorage foodStorage) {
+    long bytes = STORAGE_OVERHEAD_BYTES;
+    for (Ingredient ingredient : foodStorage.getIngredients().values()) {
+      bytes += MAP_ENTRY_BYTES + INGREDIENT_BYTES
+          + STRING_OVERHEAD_BYTES + ingredient.getIngredientName().length();
+    }
+    return bytes;
+  }
+
+  /**
+   * Stops the shard threads. Tasks already submitted are finished first.
+   */
+  @Override
+  public void close() {
+    for (ExecutorService executor : this.shardExecutors) {
+      executor.shutdown();
+    }
+  }
+
+  private <T> List<Map<String, T>> runOnAllShards(Function<FoodStorage, T> job) {
+    List<CompletableFuture<Map<String, T>>> futures = new ArrayList<>();
+    for (int shard = 0; shard < this.shardExecutors.length; shard++) {
+      Map<String, FoodStorage> households = this.shardHouseholds.get(shard);
+      Map<String, T> results = new HashMap<>();
+      Runnable shardJob = Tracer.wrap(() -> households.forEach((householdId, foodStorage) ->
+          results.put(householdId, job.apply(foodStorage))));
+      futures.add(CompletableFuture.runAsync(shardJob, this.shardExecutors[shard])
+          .thenApply(done -> results));
+    }
+    List<Map<String, T>> shardResults = new ArrayList<>();
+    for (CompletableFuture<Map<String, T>> future : futures) {
+      shardResults.add(future.join());
+    }
+    return shardResults;
+  }
+
+  private void validateHouseholdId(String householdId) {
+    if (householdId == null || householdId.isBlank()) {
+      throw new IllegalArgumentException("ERR: household id cant be blank, empty or null");
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package edu.ntnu.iir.bidata.logic;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ImportReport class holds the outcome of a {@link RecipeCatalog} import: how many
+ * recipes were added and which lines were rejected and why.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class ImportReport {
+
+  private final long importedCount;
+  private final long rejectedCount;
+  private final List<String> errors;
+
+  /**
+   * Constructs an ImportReport.
+   *
+   * @param importedCount the number of recipes added to the book
+   * @param rejectedCount the number of lines that werent valid recipes
+   * @param errors the first errors, as "line N: message"
+   */
+  public ImportReport(long importedCount, long rejectedCount, List<String> errors) {
+    this.importedCount = importedCount;
+    this.rejectedCount = rejectedCount;
+    this.errors = Collections.unmodifiableList(errors);
+  }
+
+  /**
+   * Returns the number of recipes added to the book. A recipe that replaced one with the
+   * same name is counted.
+   *
+   * @return the imported count
+   */
+  public long getImportedCount() {
+    return this.importedCount;
+  }
+
+  /**
+   * Returns the number of lines that werent valid recipes.
+   *
+   * @return the rejected count
+   */
+  public long getRejectedCount() {
+    return this.rejectedCount;
+  }
+
+  /**
+   * Returns the errors of the first rejected lines, at most
+   * {@link RecipeCatalog#MAX_REPORTED_ERRORS}, as "line N: message".
+   *
+   * @return an unmodifiable list of the errors, in line order
+   */
+  public List<String> getErrors() {
+    return this.errors;
+  }
+}
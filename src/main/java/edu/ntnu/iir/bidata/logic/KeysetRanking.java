@@ -0,0 +1,137 @@
+package edu.ntnu.iir.bidata.logic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Names sorted by a numeric key and then by name, paged with cursors. Used by the sorted
+ * indexes, which synchronize around it.
+ *
+ * <p>A cursor is the URL-safe Base64 of the listing, the key and the name of the last
+ * item on a page. The listing is checked so a cursor of one sort order cant be used for
+ * another.
+ */
+final class KeysetRanking {
+
+  private static final Comparator<Ranked> BY_KEY_THEN_NAME =
+      Comparator.<Ranked>comparingDouble(ranked -> ranked.key)
+          .thenComparing(ranked -> ranked.name);
+
+  private final String listing;
+  private final TreeSet<Ranked> ranking = new TreeSet<>(BY_KEY_THEN_NAME);
+  private final Map<String, Ranked> rankedByName = new HashMap<>();
+
+  /**
+   * Constructs an empty ranking.
+   *
+   * @param listing the name of the sort order, written into every cursor
+   */
+  KeysetRanking(String listing) {
+    this.listing = listing;
+  }
+
+  /** Ranks a name by a key, replacing its earlier key. */
+  void put(String name, double key) {
+    Ranked ranked = this.rankedByName.get(name);
+    if (ranked != null) {
+      if (Double.compare(ranked.key, key) == 0) {
+        return;
+      }
+      // ? Take the name out of the sorted set before its key changes
+      this.ranking.remove(ranked);
+    }
+    ranked = new Ranked(key, name);
+    this.rankedByName.put(name, ranked);
+    this.ranking.add(ranked);
+  }
+
+  /** Stops ranking a name. */
+  void remove(String name) {
+    Ranked ranked = this.rankedByName.remove(name);
+    if (ranked != null) {
+      this.ranking.remove(ranked);
+    }
+  }
+
+  /** Removes every name. */
+  void clear() {
+    this.ranking.clear();
+    this.rankedByName.clear();
+  }
+
+  /** Returns the number of ranked names. */
+  int size() {
+    return this.ranking.size();
+  }
+
+  /**
+   * Returns the names on the page after a cursor.
+   *
+   * @param pageSize the most names on the page
+   * @param cursor the cursor of the previous page, or null for the first page
+   * @return the page of names
+   * @throws IllegalArgumentException if the page size isnt above 0 or the cursor isnt a
+   *                                  cursor of this listing
+   */
+  Page<String> page(int pageSize, String cursor) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("ERR: page size must be above 0");
+    }
+    Iterator<Ranked> iterator = cursor == null
+        ? this.ranking.iterator()
+        : this.ranking.tailSet(decode(cursor), false).iterator();
+    List<String> names = new ArrayList<>(Math.min(pageSize, this.ranking.size()));
+    Ranked last = null;
+    while (names.size() < pageSize && iterator.hasNext()) {
+      last = iterator.next();
+      names.add(last.name);
+    }
+    String nextCursor = last != null && iterator.hasNext() ? encode(last) : null;
+    return new Page<>(names, nextCursor);
+  }
+
+  private String encode(Ranked ranked) {
+    String cursor = this.listing + ":" + Long.toHexString(Double.doubleToLongBits(ranked.key))
+        + ":" + ranked.name;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Ranked decode(String cursor) {
+    String[] parts;
+    try {
+      parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+          .split(":", 3);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("ERR: invalid cursor");
+    }
+    if (parts.length != 3 || !parts[0].equals(this.listing)) {
+      throw new IllegalArgumentException("ERR: cursor isnt from this listing");
+    }
+    try {
+      return new Ranked(Double.longBitsToDouble(Long.parseUnsignedLong(parts[1], 16)),
+          parts[2]);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("ERR: invalid cursor");
+    }
+  }
+
+  /** A name with its sort key. */
+  private static final class Ranked {
+
+    private final double key;
+    private final String name;
+
+    Ranked(double key, String name) {
+      this.key = key;
+      this.name = name;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Recipe;
+import java.time.LocalDate;
+
+/**
+ * The MealPlanEntry class is one meal in a plan: a recipe made for a number of servings
+ * on a given day. The required amounts of the recipe are scaled from its own number of
+ * servings to the planned servings.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class MealPlanEntry {
+
+  private final Recipe recipe;
+  private final double servings;
+  private final LocalDate day;
+
+  /**
+   * Constructs a MealPlanEntry.
+   *
+   * @param recipe the recipe to make
+   * @param servings the number of servings to make, must be above 0
+   * @param day the day the recipe is made
+   * @throws IllegalArgumentException if the recipe or day is null, or the servings are
+   *                                  0 or negative
+   */
+  public MealPlanEntry(Recipe recipe, double servings, LocalDate day) {
+    if (recipe == null || day == null) {
+      throw new IllegalArgumentException("ERR: recipe and day cant be null");
+    }
+    if (servings <= 0) {
+      throw new IllegalArgumentException("ERR: servings cant be 0 or negative");
+    }
+    this.recipe = recipe;
+    this.servings = servings;
+    this.day = day;
+  }
+
+  /**
+   * Returns the recipe to make.
+   *
+   * @return the recipe
+   */
+  public Recipe getRecipe() {
+    return this.recipe;
+  }
+
+  /**
+   * Returns the number of servings to make.
+   *
+   * @return the servings
+   */
+  public double getServings() {
+    return this.servings;
+  }
+
+  /**
+   * Returns the day the recipe is made.
+   *
+   * @return the day
+   */
+  public LocalDate getDay() {
+    return this.day;
+  }
+
+  /**
+   * Returns how much the amounts of the recipe are multiplied by for this entry.
+   *
+   * @return the planned servings divided by the servings of the recipe
+   */
+  public double getScale() {
+    return this.servings / this.recipe.getRecipeServing();
+  }
+}
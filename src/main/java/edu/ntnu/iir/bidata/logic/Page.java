@@ -0,0 +1,55 @@
+package edu.ntnu.iir.bidata.logic;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Page class is one page of a sorted listing, such as the recipes of a
+ * {@link SortedRecipeIndex}. It holds the items of the page and a cursor that asks for
+ * the next page.
+ *
+ * <p>A cursor remembers the sort key and name of the last item on its page, not a
+ * position. Fetching the next page is therefore O(log n + page size), and items added
+ * or removed before the cursor never make a page repeat or skip an item.
+ *
+ * @param <T> the type of the items
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public final class Page<T> {
+
+  private final List<T> items;
+  private final String nextCursor;
+
+  Page(List<T> items, String nextCursor) {
+    this.items = Collections.unmodifiableList(items);
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Returns the items of the page, in sort order.
+   *
+   * @return an unmodifiable list of the items
+   */
+  public List<T> getItems() {
+    return this.items;
+  }
+
+  /**
+   * Returns the cursor that asks for the next page.
+   *
+   * @return the cursor, or null if this is the last page
+   */
+  public String getNextCursor() {
+    return this.nextCursor;
+  }
+
+  /**
+   * Returns whether there is a page after this one.
+   *
+   * @return true if {@link #getNextCursor()} isnt null
+   */
+  public boolean hasNextPage() {
+    return this.nextCursor != null;
+  }
+}
@@ -0,0 +1,256 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The PantrySimulator class simulates weeks of running a kitchen to compare purchasing
+ * policies: standing purchases go into a {@link FoodStorage}, random meals from a
+ * {@link RecipeBook} are cooked from it, and ingredients expire day by day.
+ *
+ * <p>A scenario steps through the days on its own simulated date, so no real time
+ * passes and expiry doesnt depend on the wall clock. Each day:
+ * <ol>
+ *   <li>every {@link PurchaseRule} that is due buys its lot,</li>
+ *   <li>0 to {@code maxMealsPerDay} recipes are picked at random and cooked if the
+ *       storage has every ingredient fresh and in a high enough amount, otherwise the
+ *       meal counts as a stock-out,</li>
+ *   <li>the date moves to the next day and whatever expired is thrown away and counted
+ *       as waste, valued at the price per amount of its purchase rule.</li>
+ * </ol>
+ *
+ * <p>The storage holds one lot per ingredient, so buying an ingredient that is still
+ * stored adds to the lot and keeps its earlier expire date. Waste is therefore an upper
+ * estimate when lots overlap.
+ *
+ * <p>Every scenario has its own storage and its own {@link SplittableRandom}, so
+ * scenarios share nothing but the read-only recipes and run in parallel on a
+ * {@link ForkJoinPool}. The seed of each scenario is drawn from the seed of the run, so
+ * a run gives the same summary every time, on any number of cores.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * PantrySimulator simulator = new PantrySimulator(recipeBook, List.of(
+ *     new PurchaseRule("Milk", 2, 2, 40, 7, 3),
+ *     new PurchaseRule("Egg", 12, 0, 60, 21, 7)),
+ *     LocalDate.parse("2024-01-01"), 28, 2);
+ * SimulationSummary summary = simulator.run(10_000, 42L);
+ * double typicalWaste = summary.getWasteValuePercentile(50);
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class PantrySimulator {
+
+  // ? Scenarios per fork-join task below which a range isnt split further
+  private static final int SCENARIOS_PER_TASK = 8;
+
+  private final Recipe[] recipes;
+  private final PurchaseRule[] purchaseRules;
+  private final String[] purchaseNames;
+  private final Map<String, Double> pricesPerAmount = new HashMap<>();
+  private final LocalDate startDay;
+  private final int days;
+  private final int maxMealsPerDay;
+  private final ForkJoinPool forkJoinPool;
+
+  /**
+   * Constructs a PantrySimulator that runs scenarios on the common fork-join pool.
+   *
+   * @param recipeBook the recipes that meals are picked from
+   * @param purchaseRules the standing purchases
+   * @param startDay the first simulated day
+   * @param days the number of simulated days, must be above 0
+   * @param maxMealsPerDay the most meals cooked on one day, cant be negative
+   * @throws IllegalArgumentException if any argument is null or out of range
+   */
+  public PantrySimulator(
+      RecipeBook recipeBook,
+      List<PurchaseRule> purchaseRules,
+      LocalDate startDay,
+      int days,
+      int maxMealsPerDay) {
+    this(recipeBook, purchaseRules, startDay, days, maxMealsPerDay, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a PantrySimulator.
+   *
+   * @param recipeBook the recipes that meals are picked from
+   * @param purchaseRules the standing purchases
+   * @param startDay the first simulated day
+   * @param days the number of simulated days, must be above 0
+   * @param maxMealsPerDay the most meals cooked on one day, cant be negative
+   * @param forkJoinPool the pool that runs the scenarios
+   * @throws IllegalArgumentException if any argument is null or out of range
+   */
+  public PantrySimulator(
+      RecipeBook recipeBook,
+      List<PurchaseRule> purchaseRules,
+      LocalDate startDay,
+      int days,
+      int maxMealsPerDay,
+      ForkJoinPool forkJoinPool) {
+    if (recipeBook == null || purchaseRules == null || startDay == null
+        || forkJoinPool == null) {
+      throw new IllegalArgumentException(
+          "ERR: recipe book, purchase rules, start day and pool cant be null");
+    }
+    if (days <= 0 || maxMealsPerDay < 0) {
+      throw new IllegalArgumentException(
+          "ERR: days must be above 0 and meals per day cant be negative");
+    }
+    this.recipes = recipeBook.getRecipes().values().toArray(new Recipe[0]);
+    this.purchaseRules = purchaseRules.toArray(new PurchaseRule[0]);
+    this.purchaseNames = new String[this.purchaseRules.length];
+    for (int i = 0; i < this.purchaseRules.length; i++) {
+      // ? Build one lot up front to get the name the storage will use and its price
+      Ingredient lot = buyLot(this.purchaseRules[i], startDay);
+      this.purchaseNames[i] = lot.getIngredientName();
+      this.pricesPerAmount.put(lot.getIngredientName(), lot.getIngredientPricePerAmount());
+    }
+    this.startDay = startDay;
+    this.days = days;
+    this.maxMealsPerDay = maxMealsPerDay;
+    this.forkJoinPool = forkJoinPool;
+  }
+
+  /**
+   * Runs many scenarios in parallel and summarizes them.
+   *
+   * @param scenarioCount the number of scenarios, must be above 0
+   * @param seed the seed that every scenario seed is drawn from
+   * @return the summary of the scenarios
+   * @throws IllegalArgumentException if the scenario count is 0 or negative
+   */
+  public SimulationSummary run(int scenarioCount, long seed) {
+    if (scenarioCount <= 0) {
+      throw new IllegalArgumentException("ERR: scenario count cant be 0 or negative");
+    }
+    try (TraceSpan span = Tracer.startSpan("PantrySimulator.run")) {
+      SplittableRandom seeds = new SplittableRandom(seed);
+      long[] scenarioSeeds = new long[scenarioCount];
+      for (int i = 0; i < scenarioCount; i++) {
+        scenarioSeeds[i] = seeds.nextLong();
+      }
+      ScenarioResult[] results = new ScenarioResult[scenarioCount];
+      this.forkJoinPool.invoke(new ScenarioTask(scenarioSeeds, results, 0, scenarioCount));
+      return new SimulationSummary(Arrays.asList(results));
+    }
+  }
+
+  /**
+   * Runs one scenario on the calling thread.
+   *
+   * @param seed the seed of the scenario
+   * @return the result of the scenario
+   */
+  public ScenarioResult runScenario(long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    FoodStorage storage = new FoodStorage(new HashMap<>());
+    LocalDate day = this.startDay;
+    double wasteValue = 0.0;
+    double purchaseCost = 0.0;
+    int stockOuts = 0;
+    int mealsCooked = 0;
+    for (int dayNumber = 0; dayNumber < this.days; dayNumber++) {
+      for (int i = 0; i < this.purchaseRules.length; i++) {
+        PurchaseRule rule = this.purchaseRules[i];
+        if (dayNumber % rule.getIntervalDays() == 0) {
+          if (storage.getIngredient(this.purchaseNames[i]) == null) {
+            storage.addIngredient(buyLot(rule, day));
+          } else {
+            storage.addIngredientAmount(this.purchaseNames[i], rule.getAmount());
+          }
+          purchaseCost += rule.getPrice();
+        }
+      }
+
+      if (this.recipes.length > 0) {
+        int meals = random.nextInt(this.maxMealsPerDay + 1);
+        for (int meal = 0; meal < meals; meal++) {
+          Recipe recipe = this.recipes[random.nextInt(this.recipes.length)];
+          if (canCook(recipe, storage, day)) {
+            for (int i = 0; i < recipe.getIngredientCount(); i++) {
+              storage.useIngredientAmount(
+                  recipe.getIngredientName(i), recipe.getIngredientAmount(i));
+            }
+            mealsCooked++;
+          } else {
+            stockOuts++;
+          }
+        }
+      }
+
+      day = day.plusDays(1);
+      for (Ingredient expired : storage.removeExpiredIngredients(day)) {
+        Double pricePerAmount = this.pricesPerAmount.get(expired.getIngredientName());
+        if (pricePerAmount != null) {
+          wasteValue += pricePerAmount * expired.getIngredientAmount();
+        }
+      }
+    }
+    return new ScenarioResult(seed, wasteValue, purchaseCost, stockOuts, mealsCooked);
+  }
+
+  private static Ingredient buyLot(PurchaseRule rule, LocalDate day) {
+    return new Ingredient(rule.getIngredientName(), rule.getAmount(), rule.getMeasurement(),
+        rule.getPrice(), day.plusDays(rule.getShelfLifeDays()).toString());
+  }
+
+  private static boolean canCook(Recipe recipe, FoodStorage storage, LocalDate day) {
+    for (int i = 0; i < recipe.getIngredientCount(); i++) {
+      Ingredient stored = storage.getIngredient(recipe.getIngredientName(i));
+      if (stored == null
+          || stored.isExpiredOn(day)
+          || stored.getIngredientAmount() < recipe.getIngredientAmount(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Splits a range of scenarios in half until it is small enough to run in a row. */
+  private final class ScenarioTask extends RecursiveAction {
+
+    // ? Only ever forked within one run, never serialized
+    private static final long serialVersionUID = 1L;
+
+    private final long[] seeds;
+    private final transient ScenarioResult[] results;
+    private final int from;
+    private final int to;
+
+    ScenarioTask(long[] seeds, ScenarioResult[] results, int from, int to) {
+      this.seeds = seeds;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from <= SCENARIOS_PER_TASK) {
+        for (int i = this.from; i < this.to; i++) {
+          this.results[i] = runScenario(this.seeds[i]);
+        }
+        return;
+      }
+      int middle = (this.from + this.to) >>> 1;
+      invokeAll(new ScenarioTask(this.seeds, this.results, this.from, middle),
+          new ScenarioTask(this.seeds, this.results, middle, this.to));
+    }
+  }
+}
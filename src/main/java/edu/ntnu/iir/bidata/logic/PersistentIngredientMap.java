@@ -0,0 +1,402 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The PersistentIngredientMap class is an immutable map from ingredient name to
+ * {@link Ingredient}, stored as a hash array mapped trie (HAMT).
+ *
+ * <p>{@link #plus(String, Ingredient)} and {@link #minus(String)} never change the map
+ * they are called on. They return a new map that shares every untouched branch of the
+ * trie with the old one, so a change only copies the nodes on the path to the changed
+ * key (at most seven small arrays). Old versions stay valid and can be read from any
+ * thread without locking.
+ *
+ * <p>The map implements {@link Map} for reading; the mutating methods inherited from
+ * {@link AbstractMap} throw {@link UnsupportedOperationException}.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * PersistentIngredientMap empty = PersistentIngredientMap.empty();
+ * PersistentIngredientMap withTomato = empty.plus("Tomato", tomato);
+ * empty.size();       // 0
+ * withTomato.size();  // 1
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class PersistentIngredientMap extends AbstractMap<String, Ingredient> {
+
+  private static final int BITS_PER_LEVEL = 5;
+  private static final int LEVEL_MASK = 0x1f;
+  private static final PersistentIngredientMap EMPTY = new PersistentIngredientMap(null, 0);
+
+  private final TrieNode root;
+  private final int size;
+  private Set<Map.Entry<String, Ingredient>> entrySet;
+
+  private PersistentIngredientMap(TrieNode root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Returns the empty map.
+   *
+   * @return a map without ingredients
+   */
+  public static PersistentIngredientMap empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns a map with the ingredient added, or replaced if the name is already mapped.
+   *
+   * @param ingredientName the name to map the ingredient to
+   * @param ingredient the ingredient to add
+   * @return the new map; this map is unchanged
+   * @throws IllegalArgumentException if the name or ingredient is null
+   */
+  public PersistentIngredientMap plus(String ingredientName, Ingredient ingredient) {
+    if (ingredientName == null || ingredient == null) {
+      throw new IllegalArgumentException("ERR: ingredient name and ingredient cant be null");
+    }
+    boolean[] addedLeaf = new boolean[1];
+    int hash = spread(ingredientName.hashCode());
+    TrieNode newRoot = this.root == null
+        ? BitmapNode.EMPTY.put(hash, ingredientName, ingredient, 0, addedLeaf)
+        : this.root.put(hash, ingredientName, ingredient, 0, addedLeaf);
+    if (newRoot == this.root) {
+      return this;
+    }
+    return new PersistentIngredientMap(newRoot, addedLeaf[0] ? this.size + 1 : this.size);
+  }
+
+  /**
+   * Returns a map without the given name.
+   *
+   * @param ingredientName the name to remove
+   * @return the new map, or this map if the name isnt mapped
+   */
+  public PersistentIngredientMap minus(String ingredientName) {
+    if (ingredientName == null || this.root == null) {
+      return this;
+    }
+    TrieNode newRoot = this.root.remove(spread(ingredientName.hashCode()), ingredientName, 0);
+    if (newRoot == this.root) {
+      return this;
+    }
+    return newRoot == null ? EMPTY : new PersistentIngredientMap(newRoot, this.size - 1);
+  }
+
+  @Override
+  public Ingredient get(Object key) {
+    if (!(key instanceof String) || this.root == null) {
+      return null;
+    }
+    return this.root.get(spread(key.hashCode()), (String) key, 0);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Ingredient>> entrySet() {
+    if (this.entrySet == null) {
+      this.entrySet = new AbstractSet<>() {
+        @Override
+        public Iterator<Map.Entry<String, Ingredient>> iterator() {
+          return new TrieIterator(PersistentIngredientMap.this.root);
+        }
+
+        @Override
+        public int size() {
+          return PersistentIngredientMap.this.size;
+        }
+      };
+    }
+    return this.entrySet;
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int bitFor(int hash, int shift) {
+    return 1 << ((hash >>> shift) & LEVEL_MASK);
+  }
+
+  /**
+   * A node of the trie. Slots come in pairs: a key and its ingredient,
+   * or a null key and a child node.
+   */
+  private abstract static class TrieNode {
+
+    abstract Ingredient get(int hash, String key, int shift);
+
+    abstract TrieNode put(int hash, String key, Ingredient value, int shift, boolean[] addedLeaf);
+
+    abstract TrieNode remove(int hash, String key, int shift);
+
+    abstract Object[] slots();
+  }
+
+  /** A node indexed by a 32-bit bitmap of the hash fragments present at its level. */
+  private static final class BitmapNode extends TrieNode {
+
+    static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+    private final int bitmap;
+    private final Object[] slots;
+
+    BitmapNode(int bitmap, Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+
+    private int index(int bit) {
+      return Integer.bitCount(this.bitmap & (bit - 1));
+    }
+
+    @Override
+    Object[] slots() {
+      return this.slots;
+    }
+
+    @Override
+    Ingredient get(int hash, String key, int shift) {
+      int bit = bitFor(hash, shift);
+      if ((this.bitmap & bit) == 0) {
+        return null;
+      }
+      int slot = 2 * index(bit);
+      Object slotKey = this.slots[slot];
+      if (slotKey == null) {
+        return ((TrieNode) this.slots[slot + 1]).get(hash, key, shift + BITS_PER_LEVEL);
+      }
+      return key.equals(slotKey) ? (Ingredient) this.slots[slot + 1] : null;
+    }
+
+    @Override
+    TrieNode put(int hash, String key, Ingredient value, int shift, boolean[] addedLeaf) {
+      int bit = bitFor(hash, shift);
+      int slot = 2 * index(bit);
+      if ((this.bitmap & bit) == 0) {
+        Object[] newSlots = new Object[this.slots.length + 2];
+        System.arraycopy(this.slots, 0, newSlots, 0, slot);
+        newSlots[slot] = key;
+        newSlots[slot + 1] = value;
+        System.arraycopy(this.slots, slot, newSlots, slot + 2, this.slots.length - slot);
+        addedLeaf[0] = true;
+        return new BitmapNode(this.bitmap | bit, newSlots);
+      }
+
+      Object slotKey = this.slots[slot];
+      Object slotValue = this.slots[slot + 1];
+      if (slotKey == null) {
+        TrieNode child = (TrieNode) slotValue;
+        TrieNode newChild = child.put(hash, key, value, shift + BITS_PER_LEVEL, addedLeaf);
+        return newChild == child ? this : withSlot(slot + 1, null, newChild, slot);
+      }
+      if (key.equals(slotKey)) {
+        return slotValue == value ? this : withSlot(slot + 1, key, value, slot);
+      }
+      addedLeaf[0] = true;
+      TrieNode child = mergeLeaves(shift + BITS_PER_LEVEL,
+          (String) slotKey, (Ingredient) slotValue, hash, key, value);
+      return withSlot(slot + 1, null, child, slot);
+    }
+
+    @Override
+    TrieNode remove(int hash, String key, int shift) {
+      int bit = bitFor(hash, shift);
+      if ((this.bitmap & bit) == 0) {
+        return this;
+      }
+      int slot = 2 * index(bit);
+      Object slotKey = this.slots[slot];
+      if (slotKey == null) {
+        TrieNode child = (TrieNode) this.slots[slot + 1];
+        TrieNode newChild = child.remove(hash, key, shift + BITS_PER_LEVEL);
+        if (newChild == child) {
+          return this;
+        }
+        if (newChild != null) {
+          return withSlot(slot + 1, null, newChild, slot);
+        }
+      } else if (!key.equals(slotKey)) {
+        return this;
+      }
+      if (this.bitmap == bit) {
+        return null;
+      }
+      Object[] newSlots = new Object[this.slots.length - 2];
+      System.arraycopy(this.slots, 0, newSlots, 0, slot);
+      System.arraycopy(this.slots, slot + 2, newSlots, slot, this.slots.length - slot - 2);
+      return new BitmapNode(this.bitmap ^ bit, newSlots);
+    }
+
+    private BitmapNode withSlot(int valueSlot, Object key, Object value, int keySlot) {
+      Object[] newSlots = this.slots.clone();
+      newSlots[keySlot] = key;
+      newSlots[valueSlot] = value;
+      return new BitmapNode(this.bitmap, newSlots);
+    }
+
+    private static TrieNode mergeLeaves(int shift, String firstKey, Ingredient firstValue,
+        int secondHash, String secondKey, Ingredient secondValue) {
+      int firstHash = spread(firstKey.hashCode());
+      if (firstHash == secondHash) {
+        return new CollisionNode(firstHash,
+            new Object[] {firstKey, firstValue, secondKey, secondValue});
+      }
+      boolean[] ignored = new boolean[1];
+      return EMPTY.put(firstHash, firstKey, firstValue, shift, ignored)
+          .put(secondHash, secondKey, secondValue, shift, ignored);
+    }
+  }
+
+  /** A leaf holding keys whose full 32-bit hashes are equal. */
+  private static final class CollisionNode extends TrieNode {
+
+    private final int hash;
+    private final Object[] slots;
+
+    CollisionNode(int hash, Object[] slots) {
+      this.hash = hash;
+      this.slots = slots;
+    }
+
+    private int find(String key) {
+      for (int slot = 0; slot < this.slots.length; slot += 2) {
+        if (key.equals(this.slots[slot])) {
+          return slot;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    Object[] slots() {
+      return this.slots;
+    }
+
+    @Override
+    Ingredient get(int hash, String key, int shift) {
+      int slot = find(key);
+      return slot < 0 ? null : (Ingredient) this.slots[slot + 1];
+    }
+
+    @Override
+    TrieNode put(int hash, String key, Ingredient value, int shift, boolean[] addedLeaf) {
+      if (hash != this.hash) {
+        // ? Push this node one level down next to the new key
+        return new BitmapNode(bitFor(this.hash, shift), new Object[] {null, this})
+            .put(hash, key, value, shift, addedLeaf);
+      }
+      int slot = find(key);
+      if (slot >= 0) {
+        if (this.slots[slot + 1] == value) {
+          return this;
+        }
+        Object[] newSlots = this.slots.clone();
+        newSlots[slot + 1] = value;
+        return new CollisionNode(this.hash, newSlots);
+      }
+      Object[] newSlots = new Object[this.slots.length + 2];
+      System.arraycopy(this.slots, 0, newSlots, 0, this.slots.length);
+      newSlots[this.slots.length] = key;
+      newSlots[this.slots.length + 1] = value;
+      addedLeaf[0] = true;
+      return new CollisionNode(this.hash, newSlots);
+    }
+
+    @Override
+    TrieNode remove(int hash, String key, int shift) {
+      int slot = find(key);
+      if (slot < 0) {
+        return this;
+      }
+      if (this.slots.length == 2) {
+        return null;
+      }
+      Object[] newSlots = new Object[this.slots.length - 2];
+      System.arraycopy(this.slots, 0, newSlots, 0, slot);
+      System.arraycopy(this.slots, slot + 2, newSlots, slot, this.slots.length - slot - 2);
+      return new CollisionNode(this.hash, newSlots);
+    }
+  }
+
+  /** Depth-first iterator over the entries of a trie. */
+  private static final class TrieIterator implements Iterator<Map.Entry<String, Ingredient>> {
+
+    // ? The trie is at most 7 levels deep, plus one level of collision nodes
+    private final Object[][] slotStack = new Object[8][];
+    private final int[] positionStack = new int[8];
+    private int depth = -1;
+    private Map.Entry<String, Ingredient> nextEntry;
+
+    TrieIterator(TrieNode root) {
+      if (root != null) {
+        push(root);
+        advance();
+      }
+    }
+
+    private void push(TrieNode node) {
+      this.depth++;
+      this.slotStack[this.depth] = node.slots();
+      this.positionStack[this.depth] = 0;
+    }
+
+    private void advance() {
+      this.nextEntry = null;
+      while (this.depth >= 0) {
+        Object[] slots = this.slotStack[this.depth];
+        int position = this.positionStack[this.depth];
+        if (position >= slots.length) {
+          this.slotStack[this.depth] = null;
+          this.depth--;
+          continue;
+        }
+        this.positionStack[this.depth] = position + 2;
+        if (slots[position] == null) {
+          push((TrieNode) slots[position + 1]);
+        } else {
+          this.nextEntry = new AbstractMap.SimpleImmutableEntry<>(
+              (String) slots[position], (Ingredient) slots[position + 1]);
+          return;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.nextEntry != null;
+    }
+
+    @Override
+    public Map.Entry<String, Ingredient> next() {
+      if (this.nextEntry == null) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry<String, Ingredient> entry = this.nextEntry;
+      advance();
+      return entry;
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package edu.ntnu.iir.bidata.logic;
+
+/**
+ * The PurchaseRule class describes one standing purchase in a {@link PantrySimulator}:
+ * a lot of an ingredient bought on the first day and then every few days.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class PurchaseRule {
+
+  private final String ingredientName;
+  private final double amount;
+  private final int measurement;
+  private final double price;
+  private final int shelfLifeDays;
+  private final int intervalDays;
+
+  /**
+   * Constructs a PurchaseRule.
+   *
+   * @param ingredientName the name of the ingredient to buy
+   * @param amount the amount bought each time, must be above 0
+   * @param measurement the measurement type, 0 for units, 1 for grams and 2 for liters
+   * @param price the price of one lot, cant be negative
+   * @param shelfLifeDays the days a lot keeps after it is bought, cant be negative
+   * @param intervalDays the days between two purchases, must be above 0
+   * @throws IllegalArgumentException if any argument is invalid
+   */
+  public PurchaseRule(
+      String ingredientName,
+      double amount,
+      int measurement,
+      double price,
+      int shelfLifeDays,
+      int intervalDays) {
+    if (ingredientName == null || ingredientName.isBlank()) {
+      throw new IllegalArgumentException("ERR: ingredient name cant be blank, empty or null");
+    }
+    if (amount <= 0) {
+      throw new IllegalArgumentException("ERR: amount cant be 0 or negative");
+    }
+    if (measurement < 0 || measurement > 2) {
+      throw new IllegalArgumentException("ERR: wrong messurment");
+    }
+    if (price < 0) {
+      throw new IllegalArgumentException("ERR: price cant be negative");
+    }
+    if (shelfLifeDays < 0) {
+      throw new IllegalArgumentException("ERR: shelf life cant be negative");
+    }
+    if (intervalDays <= 0) {
+      throw new IllegalArgumentException("ERR: purchase interval cant be 0 or negative");
+    }
+    this.ingredientName = ingredientName;
+    this.amount = amount;
+    this.measurement = measurement;
+    this.price = price;
+    this.shelfLifeDays = shelfLifeDays;
+    this.intervalDays = intervalDays;
+  }
+
+  /**
+   * Returns the name of the ingredient to buy.
+   *
+   * @return the ingredient name
+   */
+  public String getIngredientName() {
+    return this.ingredientName;
+  }
+
+  /**
+   * Returns the amount bought each time.
+   *
+   * @return the amount
+   */
+  public double getAmount() {
+    return this.amount;
+  }
+
+  /**
+   * Returns the measurement type of the amount.
+   *
+   * @return 0 for units, 1 for grams and 2 for liters
+   */
+  public int getMeasurement() {
+    return this.measurement;
+  }
+
+  /**
+   * Returns the price of one lot.
+   *
+   * @return the price
+   */
+  public double getPrice() {
+    return this.price;
+  }
+
+  /**
+   * Returns the days a lot keeps after it is bought.
+   *
+   * @return the shelf life in days
+   */
+  public int getShelfLifeDays() {
+    return this.shelfLifeDays;
+  }
+
+  /**
+   * Returns the days between two purchases.
+   *
+   * @return the interval in days
+   */
+  public int getIntervalDays() {
+    return this.intervalDays;
+  }
+}
@@ -0,0 +1,522 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The RecipeAdvisor class answers which recipes in a {@link RecipeBook} can be made
+ * with the ingredients in a {@link FoodStorage}.
+ *
+ * <p>Checking the whole book is split into chunks that are evaluated on a
+ * {@link ForkJoinPool}. Books no bigger than the sequential cutoff are evaluated on the
+ * calling thread, so small books dont pay for the parallel overhead. Results are always
+ * returned sorted by recipe name, no matter how the work was split.
+ *
+ * <p>With a {@link SubstitutionGraph}, a required ingredient that is missing, expired
+ * or too low may be stood in for by a substitute in the storage. Of the substitutes
+ * that are fresh and stored in a high enough amount, the one that expires first is
+ * used. Substitutes only step in for what the exact ingredients dont cover, and one
+ * stored ingredient is never counted twice.
+ *
+ * <p>The stored ingredients are copied under the storage lock, and the recipes under the
+ * book lock, before a check fans out. Other sessions may keep changing the storage and
+ * book while it runs; the check answers for the moment it was asked.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * RecipeAdvisor advisor = new RecipeAdvisor(foodStorage, recipeBook);
+ * List<String> readyRecipes = advisor.suggestRecipesToMake();
+ * CookabilityReport report = advisor.checkIfCookable(recipe);
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class RecipeAdvisor {
+
+  /** Default number of recipes below which a book is checked on one thread. */
+  public static final int DEFAULT_SEQUENTIAL_CUTOFF = 2048;
+
+  private final FoodStorage foodStorage;
+  private final RecipeBook recipeBook;
+  private final SubstitutionGraph substitutionGraph;
+  private final ForkJoinPool forkJoinPool;
+  private final int sequentialCutoff;
+
+  /**
+   * Constructs a RecipeAdvisor using the common fork-join pool and the default cutoff.
+   *
+   * @param foodStorage the storage to check recipes against
+   * @param recipeBook the recipes to check
+   * @throws IllegalArgumentException if the storage or book is null
+   */
+  public RecipeAdvisor(FoodStorage foodStorage, RecipeBook recipeBook) {
+    this(foodStorage, recipeBook, new SubstitutionGraph());
+  }
+
+  /**
+   * Constructs a RecipeAdvisor that falls back to substitutes, using the common fork-join
+   * pool and the default cutoff.
+   *
+   * @param foodStorage the storage to check recipes against
+   * @param recipeBook the recipes to check
+   * @param substitutionGraph the substitutes allowed for missing ingredients
+   * @throws IllegalArgumentException if any argument is null
+   */
+  public RecipeAdvisor(
+      FoodStorage foodStorage, RecipeBook recipeBook, SubstitutionGraph substitutionGraph) {
+    this(foodStorage, recipeBook, substitutionGraph, ForkJoinPool.commonPool(),
+        DEFAULT_SEQUENTIAL_CUTOFF);
+  }
+
+  /**
+   * Constructs a RecipeAdvisor.
+   *
+   * @param foodStorage the storage to check recipes against
+   * @param recipeBook the recipes to check
+   * @param forkJoinPool the pool that evaluates chunks of big books
+   * @param sequentialCutoff the largest chunk evaluated without splitting, must be above 0
+   * @throws IllegalArgumentException if any argument is null or the cutoff is below 1
+   */
+  public RecipeAdvisor(
+      FoodStorage foodStorage,
+      RecipeBook recipeBook,
+      ForkJoinPool forkJoinPool,
+      int sequentialCutoff) {
+    this(foodStorage, recipeBook, new SubstitutionGraph(), forkJoinPool, sequentialCutoff);
+  }
+
+  /**
+   * Constructs a RecipeAdvisor that falls back to substitutes.
+   *
+   * @param foodStorage the storage to check recipes against
+   * @param recipeBook the recipes to check
+   * @param substitutionGraph the substitutes allowed for missing ingredients
+   * @param forkJoinPool the pool that evaluates chunks of big books
+   * @param sequentialCutoff the largest chunk evaluated without splitting, must be above 0
+   * @throws IllegalArgumentException if any argument is null or the cutoff is below 1
+   */
+  public RecipeAdvisor(
+      FoodStorage foodStorage,
+      RecipeBook recipeBook,
+      SubstitutionGraph substitutionGraph,
+      ForkJoinPool forkJoinPool,
+      int sequentialCutoff) {
+    if (foodStorage == null || recipeBook == null || substitutionGraph == null
+        || forkJoinPool == null) {
+      throw new IllegalArgumentException(
+          "ERR: storage, recipe book, substitutions and pool cant be null");
+    }
+    if (sequentialCutoff <= 0) {
+      throw new IllegalArgumentException("ERR: sequential cutoff cant be 0 or negative");
+    }
+    this.foodStorage = foodStorage;
+    this.recipeBook = recipeBook;
+    this.substitutionGraph = substitutionGraph;
+    this.forkJoinPool = forkJoinPool;
+    this.sequentialCutoff = sequentialCutoff;
+  }
+
+  /**
+   * Returns the recipes whose ingredients, or substitutes for them, are all in the storage.
+   *
+   * @return the names of the recipes, sorted by name
+   */
+  public List<String> suggestRecipesToMake() {
+    try (TraceSpan span = Tracer.startSpan("RecipeAdvisor.suggestRecipesToMake")) {
+      Map<String, Ingredient> storedIngredients = copyOfStorage();
+      SubstitutionGraph.Closure substitutes = this.substitutionGraph.closure();
+      Recipe[] recipes = recipesOfBook();
+      List<String> readyRecipes = evaluate(recipes, new ChunkEvaluator<List<String>>() {
+        @Override
+        public List<String> evaluate(Recipe[] recipes, int from, int to) {
+          List<String> chunkRecipes = new ArrayList<>();
+          for (int i = from; i < to; i++) {
+            if (allIngredientsStored(recipes[i], storedIngredients, substitutes)) {
+              chunkRecipes.add(recipes[i].getRecipeName());
+            }
+          }
+          return chunkRecipes;
+        }
+
+        @Override
+        public List<String> merge(List<String> left, List<String> right) {
+          left.addAll(right);
+          return left;
+        }
+      });
+      Collections.sort(readyRecipes);
+      return readyRecipes;
+    }
+  }
+
+  /**
+   * Returns the recipes that can be made right now: every ingredient stored, fresh and
+   * in a high enough amount. The bitset index prunes the book first, so the amounts are
+   * only checked for recipes whose ingredients are all available.
+   *
+   * @param bitsetIndex an index kept in step with the recipe book, over the same
+   *                    dictionary as the substitution graph
+   * @return the names of the cookable recipes, sorted by name
+   * @throws IllegalArgumentException if the index is null or uses another dictionary
+   */
+  public List<String> suggestCookableRecipes(RecipeBitsetIndex bitsetIndex) {
+    if (bitsetIndex == null) {
+      throw new IllegalArgumentException("ERR: bitset index cant be null");
+    }
+    SubstitutionGraph.Closure substitutes = this.substitutionGraph.closure();
+    if (substitutes.idLimit() > 0
+        && bitsetIndex.getDictionary() != this.substitutionGraph.getDictionary()) {
+      throw new IllegalArgumentException(
+          "ERR: bitset index and substitutions must share a dictionary");
+    }
+    try (TraceSpan span = Tracer.startSpan("RecipeAdvisor.suggestCookableRecipes")) {
+      Map<String, Ingredient> storedIngredients;
+      long[] availableBits;
+      synchronized (this.foodStorage) {
+        storedIngredients = copyOfStorage();
+        availableBits = this.foodStorage.getAvailabilityBits(bitsetIndex.getDictionary());
+      }
+      long[] availableWords = withSubstitutes(availableBits, substitutes);
+      List<String> cookableRecipes = new ArrayList<>();
+      for (Recipe candidate : bitsetIndex.findCandidates(availableWords)) {
+        if (check(candidate, storedIngredients, substitutes).isCookable()) {
+          cookableRecipes.add(candidate.getRecipeName());
+        }
+      }
+      Collections.sort(cookableRecipes);
+      return cookableRecipes;
+    }
+  }
+
+  /**
+   * Checks every recipe in the book against the storage.
+   *
+   * @return a map from recipe name to its report, sorted by recipe name
+   */
+  public Map<String, CookabilityReport> checkAllRecipes() {
+    try (TraceSpan span = Tracer.startSpan("RecipeAdvisor.checkAllRecipes")) {
+      Map<String, Ingredient> storedIngredients = copyOfStorage();
+      SubstitutionGraph.Closure substitutes = this.substitutionGraph.closure();
+      Recipe[] recipes = recipesOfBook();
+      return evaluate(recipes, new ChunkEvaluator<Map<String, CookabilityReport>>() {
+        @Override
+        public Map<String, CookabilityReport> evaluate(Recipe[] recipes, int from, int to) {
+          Map<String, CookabilityReport> reports = new TreeMap<>();
+          for (int i = from; i < to; i++) {
+            reports.put(recipes[i].getRecipeName(),
+                check(recipes[i], storedIngredients, substitutes));
+          }
+          return reports;
+        }
+
+        @Override
+        public Map<String, CookabilityReport> merge(
+            Map<String, CookabilityReport> left, Map<String, CookabilityReport> right) {
+          left.putAll(right);
+          return left;
+        }
+      });
+    }
+  }
+
+  /**
+   * Checks if all ingredients required for a recipe are available in the storage.
+   *
+   * @param recipe the recipe to check
+   * @return the report for the recipe
+   * @throws IllegalArgumentException if the recipe is null
+   */
+  public CookabilityReport checkIfCookable(Recipe recipe) {
+    if (recipe == null) {
+      throw new IllegalArgumentException("ERR: recipe cant be null");
+    }
+    try (TraceSpan span = Tracer.startSpan("RecipeAdvisor.checkIfCookable")) {
+      SubstitutionGraph.Closure substitutes = this.substitutionGraph.closure();
+      // ? One recipe is checked on this thread, so holding the lock is cheaper than a copy
+      synchronized (this.foodStorage) {
+        return check(recipe, this.foodStorage.getIngredients(), substitutes);
+      }
+    }
+  }
+
+  /**
+   * Cooks a recipe by using the required amount of every ingredient from the storage,
+   * or the matching amount of the substitute chosen for it. Ingredients that run out are
+   * removed from the storage.
+   *
+   * @param recipe the recipe to cook
+   * @return the names of the ingredients that ran out
+   * @throws IllegalArgumentException if the recipe is null, or an ingredient is missing
+   *                                  or stored with a lower amount than required
+   */
+  public List<String> cookRecipe(Recipe recipe) {
+    if (recipe == null) {
+      throw new IllegalArgumentException("ERR: recipe cant be null");
+    }
+    // ? One lock over check and use, so two cooks cant both take the last egg
+    synchronized (this.foodStorage) {
+      return cook(recipe);
+    }
+  }
+
+  private List<String> cook(Recipe recipe) {
+    try (TraceSpan span = Tracer.startSpan("RecipeAdvisor.cookRecipe")) {
+      SubstitutionGraph.Closure substitutes = this.substitutionGraph.closure();
+      CookabilityReport report = check(recipe, this.foodStorage.getIngredients(), substitutes);
+      // ? Check everything first, so a failed cook doesnt use half the ingredients
+      if (!report.getMissingIngredients().isEmpty()
+          || !report.getLowAmountIngredients().isEmpty()) {
+        throw new IllegalArgumentException("ERR: recipe missing ingredient");
+      }
+      List<String> ranOutIngredients = new ArrayList<>();
+      for (int i = 0; i < recipe.getIngredientCount(); i++) {
+        String ingredientName = recipe.getIngredientName(i);
+        double amount = recipe.getIngredientAmount(i);
+        String substituteName = report.getSubstitutions().get(ingredientName);
+        if (substituteName != null) {
+          amount *= ratioOf(substitutes, ingredientName, substituteName);
+          ingredientName = substituteName;
+        }
+        if (this.foodStorage.useIngredientAmount(ingredientName, amount) == 0) {
+          ranOutIngredients.add(ingredientName);
+        }
+      }
+      return ranOutIngredients;
+    }
+  }
+
+  private Recipe[] recipesOfBook() {
+    synchronized (this.recipeBook) {
+      return this.recipeBook.getRecipes().values().toArray(new Recipe[0]);
+    }
+  }
+
+  /**
+   * Copies the stored ingredients under the storage lock, so the chunks read names,
+   * amounts and expire dates that no session is changing.
+   */
+  private Map<String, Ingredient> copyOfStorage() {
+    synchronized (this.foodStorage) {
+      Map<String, Ingredient> storedIngredients = this.foodStorage.getIngredients();
+      Map<String, Ingredient> copy = new HashMap<>(storedIngredients.size() * 4 / 3 + 1);
+      for (Map.Entry<String, Ingredient> entry : storedIngredients.entrySet()) {
+        copy.put(entry.getKey(), new Ingredient(entry.getValue()));
+      }
+      return Collections.unmodifiableMap(copy);
+    }
+  }
+
+  private <T> T evaluate(Recipe[] recipes, ChunkEvaluator<T> evaluator) {
+    if (recipes.length <= this.sequentialCutoff) {
+      return evaluator.evaluate(recipes, 0, recipes.length);
+    }
+    return this.forkJoinPool.invoke(
+        new ChunkTask<>(recipes, 0, recipes.length, this.sequentialCutoff, evaluator));
+  }
+
+  private boolean allIngredientsStored(Recipe recipe,
+      Map<String, Ingredient> storedIngredients, SubstitutionGraph.Closure substitutes) {
+    for (int i = 0; i < recipe.getIngredientCount(); i++) {
+      String ingredientName = recipe.getIngredientName(i);
+      if (!storedIngredients.containsKey(ingredientName)
+          && !anySubstituteStored(ingredientName, storedIngredients, substitutes)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean anySubstituteStored(String ingredientName,
+      Map<String, Ingredient> storedIngredients, SubstitutionGraph.Closure substitutes) {
+    int requiredId = this.substitutionGraph.getDictionary().findId(ingredientName);
+    for (int substituteId : substitutes.substitutesOf(requiredId)) {
+      if (storedIngredients.containsKey(
+          this.substitutionGraph.getDictionary().nameOf(substituteId))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Sets the bit of every ingredient that has a substitute in the available words. */
+  private static long[] withSubstitutes(
+      long[] availableWords, SubstitutionGraph.Closure substitutes) {
+    long[] words = availableWords;
+    for (int requiredId = 0; requiredId < substitutes.idLimit(); requiredId++) {
+      for (int substituteId : substitutes.substitutesOf(requiredId)) {
+        if ((substituteId >>> 6) < availableWords.length
+            && (availableWords[substituteId >>> 6] & (1L << substituteId)) != 0) {
+          if (words == availableWords) {
+            words = Arrays.copyOf(availableWords,
+                Math.max(availableWords.length, (substitutes.idLimit() + 63) >>> 6));
+          }
+          words[requiredId >>> 6] |= 1L << requiredId;
+          break;
+        }
+      }
+    }
+    return words;
+  }
+
+  private CookabilityReport check(Recipe recipe, Map<String, Ingredient> storedIngredients,
+      SubstitutionGraph.Closure substitutes) {
+    List<String> missingIngredients = new ArrayList<>();
+    Map<String, Double> lowAmountIngredients = new LinkedHashMap<>();
+    List<String> expiredIngredients = new ArrayList<>();
+    Map<String, String> substitutions = new LinkedHashMap<>();
+    Map<String, Double> usedAmounts = new HashMap<>();
+    int[] unreadyIndexes = new int[recipe.getIngredientCount()];
+    int unreadyCount = 0;
+    int readyIngredientCount = 0;
+    for (int i = 0; i < recipe.getIngredientCount(); i++) {
+      String ingredientName = recipe.getIngredientName(i);
+      Ingredient storedIngredient = storedIngredients.get(ingredientName);
+      if (storedIngredient != null
+          && !storedIngredient.getIngredientExpireDate().equals("Expired")
+          && recipe.getIngredientAmount(i) <= storedIngredient.getIngredientAmount()) {
+        usedAmounts.put(ingredientName, recipe.getIngredientAmount(i));
+        readyIngredientCount++;
+      } else {
+        unreadyIndexes[unreadyCount++] = i;
+      }
+    }
+    // ? Substitutes only get what the exact ingredients left over
+    for (int u = 0; u < unreadyCount; u++) {
+      int i = unreadyIndexes[u];
+      String ingredientName = recipe.getIngredientName(i);
+      String substituteName = findSubstitute(ingredientName, recipe.getIngredientAmount(i),
+          storedIngredients, substitutes, usedAmounts);
+      Ingredient storedIngredient = storedIngredients.get(ingredientName);
+      if (substituteName != null) {
+        substitutions.put(ingredientName, substituteName);
+        readyIngredientCount++;
+      } else if (storedIngredient == null) {
+        missingIngredients.add(ingredientName);
+      } else if (storedIngredient.getIngredientExpireDate().equals("Expired")) {
+        expiredIngredients.add(ingredientName);
+      } else {
+        lowAmountIngredients.put(ingredientName,
+            recipe.getIngredientAmount(i) - storedIngredient.getIngredientAmount());
+      }
+    }
+    return new CookabilityReport(recipe.getRecipeName(), readyIngredientCount,
+        missingIngredients, lowAmountIngredients, expiredIngredients, substitutions);
+  }
+
+  /**
+   * Picks the fresh substitute with enough left that expires first, and books the amount
+   * it gives up.
+   */
+  private String findSubstitute(String ingredientName, double requiredAmount,
+      Map<String, Ingredient> storedIngredients, SubstitutionGraph.Closure substitutes,
+      Map<String, Double> usedAmounts) {
+    int requiredId = this.substitutionGraph.getDictionary().findId(ingredientName);
+    int[] substituteIds = substitutes.substitutesOf(requiredId);
+    double[] ratios = substitutes.ratiosOf(requiredId);
+    Ingredient bestSubstitute = null;
+    double bestAmount = 0;
+    for (int i = 0; i < substituteIds.length; i++) {
+      Ingredient storedIngredient = storedIngredients.get(
+          this.substitutionGraph.getDictionary().nameOf(substituteIds[i]));
+      if (storedIngredient == null
+          || storedIngredient.getIngredientExpireDate().equals("Expired")) {
+        continue;
+      }
+      double neededAmount = requiredAmount * ratios[i];
+      double leftAmount = storedIngredient.getIngredientAmount()
+          - usedAmounts.getOrDefault(storedIngredient.getIngredientName(), 0.0);
+      if (neededAmount <= leftAmount
+          && (bestSubstitute == null || expiresBefore(storedIngredient, bestSubstitute))) {
+        bestSubstitute = storedIngredient;
+        bestAmount = neededAmount;
+      }
+    }
+    if (bestSubstitute == null) {
+      return null;
+    }
+    usedAmounts.merge(bestSubstitute.getIngredientName(), bestAmount, Double::sum);
+    return bestSubstitute.getIngredientName();
+  }
+
+  private double ratioOf(
+      SubstitutionGraph.Closure substitutes, String ingredientName, String substituteName) {
+    int requiredId = this.substitutionGraph.getDictionary().findId(ingredientName);
+    int substituteId = this.substitutionGraph.getDictionary().findId(substituteName);
+    int[] substituteIds = substitutes.substitutesOf(requiredId);
+    for (int i = 0; i < substituteIds.length; i++) {
+      if (substituteIds[i] == substituteId) {
+        return substitutes.ratiosOf(requiredId)[i];
+      }
+    }
+    throw new IllegalStateException("ERR: " + substituteName + " doesnt substitute "
+        + ingredientName);
+  }
+
+  /** Returns whether one ingredient expires before another; no date expires last. */
+  private static boolean expiresBefore(Ingredient ingredient, Ingredient other) {
+    LocalDate expireDate = ingredient.getExpireLocalDate();
+    LocalDate otherExpireDate = other.getExpireLocalDate();
+    return expireDate != null
+        && (otherExpireDate == null || expireDate.isBefore(otherExpireDate));
+  }
+
+  /** Evaluates one chunk of recipes and merges the results of neighbouring chunks. */
+  private interface ChunkEvaluator<T> {
+
+    T evaluate(Recipe[] recipes, int from, int to);
+
+    T merge(T left, T right);
+  }
+
+  /** Splits a range of recipes in half until it is no bigger than the cutoff. */
+  private static final class ChunkTask<T> extends RecursiveTask<T> {
+
+    // ? Fork-join tasks are never serialized, the fields only live in one pool
+    private static final long serialVersionUID = 1L;
+
+    private final transient Recipe[] recipes;
+    private final int from;
+    private final int to;
+    private final int sequentialCutoff;
+    private final transient ChunkEvaluator<T> evaluator;
+
+    ChunkTask(Recipe[] recipes, int from, int to, int sequentialCutoff,
+        ChunkEvaluator<T> evaluator) {
+      this.recipes = recipes;
+      this.from = from;
+      this.to = to;
+      this.sequentialCutoff = sequentialCutoff;
+      this.evaluator = evaluator;
+    }
+
+    @Override
+    protected T compute() {
+      if (this.to - this.from <= this.sequentialCutoff) {
+        return this.evaluator.evaluate(this.recipes, this.from, this.to);
+      }
+      int middle = (this.from + this.to) >>> 1;
+      ChunkTask<T> left = new ChunkTask<>(this.recipes, this.from, middle,
+          this.sequentialCutoff, this.evaluator);
+      ChunkTask<T> right = new ChunkTask<>(this.recipes, middle, this.to,
+          this.sequentialCutoff, this.evaluator);
+      left.fork();
+      T rightResult = right.compute();
+      return this.evaluator.merge(left.join(), rightResult);
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.IngredientDictionary;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The RecipeBitsetIndex class precompiles the required ingredients of every recipe into
+ * a bitset over an {@link IngredientDictionary}, so a whole {@link RecipeBook} can be
+ * filtered against a storage with word-wise AND operations before any amount is checked.
+ *
+ * <p>All bitsets live in one flat {@code long[]}, one fixed-width row of words per
+ * recipe, so a filter pass reads memory strictly in order. A recipe is a candidate when
+ * {@code required & ~available} is zero in every word of its row.
+ *
+ * <p>The index is not thread-safe; it must be changed from one thread, and it must be
+ * kept in step with the book through {@link #addRecipe(Recipe)} and
+ * {@link #removeRecipe(String)}.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * RecipeBitsetIndex index = RecipeBitsetIndex.build(recipeBook, dictionary);
+ * long[] available = foodStorage.getAvailabilityBits(dictionary);
+ * List<Recipe> candidates = index.findCandidates(available);
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class RecipeBitsetIndex {
+
+  private final IngredientDictionary dictionary;
+  private final Map<String, Integer> rowsByRecipeName = new HashMap<>();
+  private Recipe[] recipes = new Recipe[16];
+  private long[] requirementWords;
+  private int wordsPerRecipe;
+  private int recipeCount;
+
+  /**
+   * Constructs an empty RecipeBitsetIndex.
+   *
+   * @param dictionary the dictionary that gives ingredients their bit
+   * @throws IllegalArgumentException if the dictionary is null
+   */
+  public RecipeBitsetIndex(IngredientDictionary dictionary) {
+    if (dictionary == null) {
+      throw new IllegalArgumentException("ERR: dictionary cant be null");
+    }
+    this.dictionary = dictionary;
+    this.wordsPerRecipe = Math.max(1, wordsFor(dictionary.size()));
+    this.requirementWords = new long[this.recipes.length * this.wordsPerRecipe];
+  }
+
+  /**
+   * Builds an index of every recipe in a book.
+   *
+   * @param recipeBook the book to index
+   * @param dictionary the dictionary that gives ingredients their bit
+   * @return the built index
+   */
+  public static RecipeBitsetIndex build(RecipeBook recipeBook, IngredientDictionary dictionary) {
+    RecipeBitsetIndex index = new RecipeBitsetIndex(dictionary);
+    for (Recipe recipe : recipeBook.getRecipes().values()) {
+      index.addRecipe(recipe);
+    }
+    return index;
+  }
+
+  /**
+   * Adds a recipe to the index, replacing a recipe with the same name.
+   *
+   * @param recipe the recipe to add
+   * @throws IllegalArgumentException if the recipe is null
+   */
+  public void addRecipe(Recipe recipe) {
+    if (recipe == null) {
+      throw new IllegalArgumentException("Invalid recipe cant be added");
+    }
+    int[] ingredientIds = new int[recipe.getIngredientCount()];
+    int highestId = 0;
+    boolean globalIds = this.dictionary == IngredientDictionary.global();
+    for (int i = 0; i < ingredientIds.length; i++) {
+      ingredientIds[i] = globalIds
+          ? recipe.getIngredientId(i) : this.dictionary.idOf(recipe.getIngredientName(i));
+      highestId = Math.max(highestId, ingredientIds[i]);
+    }
+    ensureWordsPerRecipe(wordsFor(highestId + 1));
+
+    Integer row = this.rowsByRecipeName.get(recipe.getRecipeName());
+    if (row == null) {
+      row = this.recipeCount++;
+      ensureRows(this.recipeCount);
+      this.rowsByRecipeName.put(recipe.getRecipeName(), row);
+    }
+    int offset = row * this.wordsPerRecipe;
+    Arrays.fill(this.requirementWords, offset, offset + this.wordsPerRecipe, 0L);
+    for (int ingredientId : ingredientIds) {
+      this.requirementWords[offset + (ingredientId >>> 6)] |= 1L << ingredientId;
+    }
+    this.recipes[row] = recipe;
+  }
+
+  /**
+   * Removes a recipe from the index.
+   *
+   * @param recipeName the name of the recipe to remove
+   * @return true if the recipe was in the index
+   */
+  public boolean removeRecipe(String recipeName) {
+    Integer row = this.rowsByRecipeName.remove(recipeName);
+    if (row == null) {
+      return false;
+    }
+    // ? Move the last row into the hole to keep the rows packed
+    int lastRow = --this.recipeCount;
+    if (row != lastRow) {
+      System.arraycopy(this.requirementWords, lastRow * this.wordsPerRecipe,
+          this.requirementWords, row * this.wordsPerRecipe, this.wordsPerRecipe);
+      this.recipes[row] = this.recipes[lastRow];
+      this.rowsByRecipeName.put(this.recipes[row].getRecipeName(), row);
+    }
+    this.recipes[lastRow] = null;
+    return true;
+  }
+
+  /**
+   * Returns the number of indexed recipes.
+   *
+   * @return the recipe count
+   */
+  public int size() {
+    return this.recipeCount;
+  }
+
+  /**
+   * Returns the dictionary that gives ingredients their bit.
+   *
+   * @return the dictionary
+   */
+  public IngredientDictionary getDictionary() {
+    return this.dictionary;
+  }
+
+  /**
+   * Returns the recipes whose required ingredients are all set in the available bitset.
+   * Amounts arent checked.
+   *
+   * @param availableWords the available ingredients as a bitset over the dictionary
+   * @return the candidate recipes, in index order
+   * @throws IllegalArgumentException if the bitset is null
+   */
+  public List<Recipe> findCandidates(long[] availableWords) {
+    if (availableWords == null) {
+      throw new IllegalArgumentException("ERR: available bitset cant be null");
+    }
+    try (TraceSpan span = Tracer.startSpan("RecipeBitsetIndex.findCandidates")) {
+      int stride = this.wordsPerRecipe;
+      // ? Pad the available bitset to the row width, missing words mean nothing available
+      long[] available = availableWords.length >= stride
+          ? availableWords : Arrays.copyOf(availableWords, stride);
+      long[] words = this.requirementWords;
+      List<Recipe> candidates = new ArrayList<>();
+      for (int row = 0, offset = 0; row < this.recipeCount; row++, offset += stride) {
+        long missing = 0L;
+        for (int word = 0; word < stride; word++) {
+          missing |= words[offset + word] & ~available[word];
+        }
+        if (missing == 0L) {
+          candidates.add(this.recipes[row]);
+        }
+      }
+      return candidates;
+    }
+  }
+
+  private static int wordsFor(int bitCount) {
+    return (bitCount + 63) >>> 6;
+  }
+
+  private void ensureRows(int rowCount) {
+    if (rowCount > this.recipes.length) {
+      int capacity = Math.max(rowCount, this.recipes.length * 2);
+      this.recipes = Arrays.copyOf(this.recipes, capacity);
+      this.requirementWords = Arrays.copyOf(this.requirementWords,
+          capacity * this.wordsPerRecipe);
+    }
+  }
+
+  private void ensureWordsPerRecipe(int neededWords) {
+    if (neededWords <= this.wordsPerRecipe) {
+      return;
+    }
+    // ? Widen every row; grow by doubling so a growing dictionary is cheap over time
+    int newStride = Math.max(neededWords, this.wordsPerRecipe * 2);
+    long[] widened = new long[this.recipes.length * newStride];
+    for (int row = 0; row < this.recipeCount; row++) {
+      System.arraycopy(this.requirementWords, row * this.wordsPerRecipe,
+          widened, row * newStride, this.wordsPerRecipe);
+    }
+    this.requirementWords = widened;
+    this.wordsPerRecipe = newStride;
+  }
+}
@@ -1,9 +1,13 @@
 package edu.ntnu.iir.bidata.logic;
 
 import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The RecipeBook class represents a collection of recipes. It provides methods
@@ -21,15 +25,21 @@ import java.util.Map;
  * recipeBook.displayRecipeBook();
  * }</pre>
  *
+ * <p>Changes are synchronized on the book, so a book backed by a concurrent map can be
+ * shared between threads.
+ *
  * <p>Note: This class depends on the FoodWasteApplicationRespond and Recipe classes.
  *
  * @version 22.0.2
  * @author (Mahmoud Said Madhun Madhun)
  */
+@SuppressWarnings("try")
 public class RecipeBook {
 
   // Creating Map for Ingredients
   private final Map<String, Recipe> recipeBook;
+  private final List<RecipeBookListener> listeners = new CopyOnWriteArrayList<>();
+  private long version;
 
   /**
    * Constructs a RecipeBook with the specified map of recipes.
@@ -45,10 +55,19 @@ public class RecipeBook {
    *
    * @param recipe the Recipe object to be added to the recipe book
    */
-  public void addRecipe(Recipe recipe) {
-    validateRecipe(recipe);
-    String recipeName = recipe.getRecipeName();
-    recipeBook.put(recipeName, recipe);
+  public synchronized void addRecipe(Recipe recipe) {
+    try (TraceSpan span = Tracer.startSpan("RecipeBook.addRecipe")) {
+      validateRecipe(recipe);
+      String recipeName = recipe.getRecipeName();
+      Recipe replacedRecipe = recipeBook.put(recipeName, recipe);
+      this.version++;
+      for (RecipeBookListener listener : this.listeners) {
+        if (replacedRecipe != null) {
+          listener.recipeRemoved(replacedRecipe);
+        }
+        listener.recipeAdded(recipe);
+      }
+    }
   }
 
   /**
@@ -62,7 +81,7 @@ public class RecipeBook {
    * the recipe.
    */
   public Iterator<Recipe> getIterator() {
-    return recipeBook.values().iterator();
+    return Collections.unmodifiableCollection(this.recipeBook.values()).iterator();
   }
 
   public Map<String, Recipe> getRecipes() {
@@ -79,12 +98,50 @@ public class RecipeBook {
    * @param recipeName the name of the recipe to remove
    * @throws IllegalArgumentException if the recipe name is blank or empty
    */
-  public void removeRecipe(String recipeName) {
-    validateRecipeName(recipeName);
-    if (!recipeBook.containsKey(recipeName)) {
-      throw new IllegalArgumentException("Recipe not found: " + recipeName);
+  public synchronized void removeRecipe(String recipeName) {
+    try (TraceSpan span = Tracer.startSpan("RecipeBook.removeRecipe")) {
+      validateRecipeName(recipeName);
+      if (!recipeBook.containsKey(recipeName)) {
+        throw new IllegalArgumentException("Recipe not found: " + recipeName);
+      }
+      Recipe removedRecipe = recipeBook.remove(recipeName);
+      this.version++;
+      for (RecipeBookListener listener : this.listeners) {
+        listener.recipeRemoved(removedRecipe);
+      }
+    }
+  }
+
+  /**
+   * Returns the version of the book, the number of recipes added, replaced and removed
+   * through it so far.
+   *
+   * @return the version, 0 for a book that was never changed
+   */
+  public synchronized long getVersion() {
+    return this.version;
+  }
+
+  /**
+   * Registers a listener that is notified after every change made through this book.
+   *
+   * @param listener the listener to add
+   * @throws IllegalArgumentException if the listener is null
+   */
+  public void addListener(RecipeBookListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("ERR: listener cant be null");
     }
-    recipeBook.remove(recipeName);
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Unregisters a listener.
+   *
+   * @param listener the listener to remove
+   */
+  public void removeListener(RecipeBookListener listener) {
+    this.listeners.remove(listener);
   }
 
   /**
@@ -94,11 +151,13 @@ public class RecipeBook {
    * @return the Recipe object if found, or null if not found
   */
   public Recipe getRecipe(String recipeName) {
-    validateRecipeName(recipeName);
-    if (!recipeBook.containsKey(recipeName)) {
-      throw new IllegalArgumentException("Recipe not found: " + recipeName);
+    try (TraceSpan span = Tracer.startSpan("RecipeBook.getRecipe")) {
+      validateRecipeName(recipeName);
+      if (!recipeBook.containsKey(recipeName)) {
+        throw new IllegalArgumentException("Recipe not found: " + recipeName);
+      }
+      return recipeBook.get(recipeName);
     }
-    return recipeBook.get(recipeName);
   }
 
 
@@ -0,0 +1,33 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Recipe;
+
+/**
+ * The RecipeBookListener interface is notified after a {@link RecipeBook} changes.
+ * Replacing a recipe is reported as a removal of the old recipe followed by an
+ * addition of the new one.
+ *
+ * <p>Listeners are called on the thread that changed the book, after the change has
+ * been made. All methods do nothing by default.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public interface RecipeBookListener {
+
+  /**
+   * Called after a recipe has been added to the book.
+   *
+   * @param recipe the added recipe
+   */
+  default void recipeAdded(Recipe recipe) {
+  }
+
+  /**
+   * Called after a recipe has been removed from the book.
+   *
+   * @param recipe the removed recipe
+   */
+  default void recipeRemoved(Recipe recipe) {
+  }
+}
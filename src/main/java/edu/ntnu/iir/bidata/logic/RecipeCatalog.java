@@ -0,0 +1,231 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.entity.RecipeJson;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The RecipeCatalog class imports recipes into a {@link RecipeBook} from a JSON lines
+ * catalog, one recipe per line in the format of {@link RecipeJson}, and exports a book
+ * the same way.
+ *
+ * <p>An import streams the catalog in batches of lines. While the recipes of one batch
+ * are added to the book, the next batch is parsed and validated in parallel on a
+ * {@link ForkJoinPool}, with the same rules as the {@link Recipe} constructor. Only two
+ * batches are held at a time, so a catalog of any size loads with the same memory on
+ * top of the book itself. Ingredient names resolve to ids in the global
+ * {@link edu.ntnu.iir.bidata.untility.IngredientDictionary}.
+ *
+ * <p>Invalid lines are skipped and reported; blank lines are ignored. Recipes are added
+ * in the order of the catalog, so a later recipe with the same name replaces an
+ * earlier one.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * RecipeCatalog catalog = new RecipeCatalog();
+ * try (Reader input = Files.newBufferedReader(Path.of("recipes.jsonl"))) {
+ *   ImportReport report = catalog.importInto(recipeBook, input);
+ * }
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class RecipeCatalog {
+
+  /** Default number of lines read and validated together. */
+  public static final int DEFAULT_BATCH_SIZE = 4096;
+
+  /** Most errors kept in an {@link ImportReport}; later errors are only counted. */
+  public static final int MAX_REPORTED_ERRORS = 100;
+
+  // ? Lines parsed on one thread before a batch is split further
+  private static final int SEQUENTIAL_CUTOFF = 256;
+
+  private final ForkJoinPool forkJoinPool;
+  private final int batchSize;
+
+  /**
+   * Constructs a RecipeCatalog using the common fork-join pool and the default batch size.
+   */
+  public RecipeCatalog() {
+    this(ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Constructs a RecipeCatalog.
+   *
+   * @param forkJoinPool the pool that validates the lines of a batch
+   * @param batchSize the number of lines read and validated together, must be above 0
+   * @throws IllegalArgumentException if the pool is null or the batch size is below 1
+   */
+  public RecipeCatalog(ForkJoinPool forkJoinPool, int batchSize) {
+    if (forkJoinPool == null) {
+      throw new IllegalArgumentException("ERR: pool cant be null");
+    }
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("ERR: batch size must be above 0");
+    }
+    this.forkJoinPool = forkJoinPool;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Imports the recipes of a catalog into a book.
+   *
+   * @param recipeBook the book to add the recipes to
+   * @param input the catalog, it is read to the end but not closed
+   * @return the number of imported and rejected recipes, with the first errors
+   * @throws IOException if the catalog cant be read
+   * @throws IllegalArgumentException if the book or input is null
+   */
+  public ImportReport importInto(RecipeBook recipeBook, Reader input) throws IOException {
+    if (recipeBook == null || input == null) {
+      throw new IllegalArgumentException("ERR: recipe book and input cant be null");
+    }
+    try (TraceSpan span = Tracer.startSpan("RecipeCatalog.importInto")) {
+      BufferedReader reader = input instanceof BufferedReader buffered
+          ? buffered : new BufferedReader(input);
+      Batch parsing = readBatch(reader, 0);
+      ForkJoinTask<Void> parseTask = parsing.size == 0 ? null
+          : this.forkJoinPool.submit(new ParseTask(parsing, 0, parsing.size));
+      Batch parsed = null;
+      long importedCount = 0;
+      long rejectedCount = 0;
+      List<String> errors = new ArrayList<>();
+      while (parseTask != null) {
+        parseTask.join();
+        parsed = parsing;
+        // ? Read and validate the next batch while this one is added to the book
+        parsing = readBatch(reader, parsed.lastLineNumber);
+        parseTask = parsing.size == 0 ? null
+            : this.forkJoinPool.submit(new ParseTask(parsing, 0, parsing.size));
+        for (int i = 0; i < parsed.size; i++) {
+          if (parsed.recipes[i] != null) {
+            recipeBook.addRecipe(parsed.recipes[i]);
+            importedCount++;
+          } else {
+            rejectedCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+              errors.add("line " + parsed.lineNumbers[i] + ": " + parsed.errors[i]);
+            }
+          }
+        }
+      }
+      return new ImportReport(importedCount, rejectedCount, errors);
+    }
+  }
+
+  /**
+   * Exports every recipe in a book, one line each. The book is locked while it is
+   * written, so it doesnt change half way.
+   *
+   * @param recipeBook the book to export
+   * @param output where to write the catalog, it is flushed but not closed
+   * @return the number of exported recipes
+   * @throws IOException if the catalog cant be written
+   * @throws IllegalArgumentException if the book or output is null
+   */
+  public long exportTo(RecipeBook recipeBook, Writer output) throws IOException {
+    if (recipeBook == null || output == null) {
+      throw new IllegalArgumentException("ERR: recipe book and output cant be null");
+    }
+    try (TraceSpan span = Tracer.startSpan("RecipeCatalog.exportTo")) {
+      Writer writer = output instanceof BufferedWriter ? output : new BufferedWriter(output);
+      StringBuilder line = new StringBuilder(256);
+      long exportedCount = 0;
+      synchronized (recipeBook) {
+        for (Recipe recipe : recipeBook.getRecipes().values()) {
+          line.setLength(0);
+          RecipeJson.appendTo(recipe, line);
+          line.append('\n');
+          writer.append(line);
+          exportedCount++;
+        }
+      }
+      writer.flush();
+      return exportedCount;
+    }
+  }
+
+  private Batch readBatch(BufferedReader reader, long lineNumber) throws IOException {
+    Batch batch = new Batch(this.batchSize);
+    String line;
+    while (batch.size < this.batchSize && (line = reader.readLine()) != null) {
+      lineNumber++;
+      if (!line.isBlank()) {
+        batch.lines[batch.size] = line;
+        batch.lineNumbers[batch.size] = lineNumber;
+        batch.size++;
+      }
+    }
+    batch.lastLineNumber = lineNumber;
+    return batch;
+  }
+
+  /** Lines of the catalog with what they were parsed into. */
+  private static final class Batch {
+
+    private final String[] lines;
+    private final long[] lineNumbers;
+    private final Recipe[] recipes;
+    private final String[] errors;
+    private int size;
+    private long lastLineNumber;
+
+    Batch(int capacity) {
+      this.lines = new String[capacity];
+      this.lineNumbers = new long[capacity];
+      this.recipes = new Recipe[capacity];
+      this.errors = new String[capacity];
+    }
+  }
+
+  /** Splits a range of a batch in half until it is small enough to parse in a row. */
+  private static final class ParseTask extends RecursiveAction {
+
+    // ? The batch stays in this JVM, the task is never serialized
+    private static final long serialVersionUID = 1L;
+
+    private final transient Batch batch;
+    private final int from;
+    private final int to;
+
+    ParseTask(Batch batch, int from, int to) {
+      this.batch = batch;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from <= SEQUENTIAL_CUTOFF) {
+        for (int i = this.from; i < this.to; i++) {
+          try {
+            this.batch.recipes[i] = RecipeJson.parse(this.batch.lines[i]);
+          } catch (RuntimeException e) {
+            // ? Any bug a line trips is that line's error, the rest still import
+            this.batch.errors[i] = e.getMessage() != null ? e.getMessage() : e.toString();
+          }
+          this.batch.lines[i] = null;
+        }
+        return;
+      }
+      int middle = (this.from + this.to) >>> 1;
+      invokeAll(new ParseTask(this.batch, this.from, middle),
+          new ParseTask(this.batch, middle, this.to));
+    }
+  }
+}
@@ -0,0 +1,361 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The RecipeCostIndex class keeps the cost of every recipe in a {@link RecipeBook},
+ * priced with the ingredients in a {@link FoodStorage}, and ranks the recipes from
+ * cheapest to most expensive.
+ *
+ * <p>The cost of a recipe is the sum over its ingredients of the required amount times
+ * the price per amount of the stored ingredient
+ * ({@link Ingredient#getIngredientPricePerAmount()}). A recipe with an ingredient that
+ * isnt stored has no known cost and isnt ranked.
+ *
+ * <p>When a stored ingredient changes, only the recipes that use it are priced again.
+ * Ranked recipes are kept in sorted sets by cost, by cost per serving, and by cost for
+ * the recipes that are cookable according to a {@link CookableRecipeTracker}. Asking for
+ * the K cheapest recipes therefore costs O(log n + K) and never a cross join of the
+ * book with the storage. {@link #getRecipePageByCost} lists all priced recipes a page at
+ * a time, like a {@link SortedRecipeIndex}.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * RecipeCostIndex costIndex = new RecipeCostIndex(foodStorage, recipeBook);
+ * List<String> cheapest = costIndex.getCheapestCookableRecipes(5);
+ * Double perServing = costIndex.getCostPerServing("Omelette");
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public final class RecipeCostIndex
+    implements FoodStorageListener, RecipeBookListener, CookableRecipeListener, AutoCloseable {
+
+  private static final Comparator<PricedRecipe> BY_COST =
+      Comparator.<PricedRecipe>comparingDouble(priced -> priced.cost)
+          .thenComparing(priced -> priced.recipeName);
+  private static final Comparator<PricedRecipe> BY_COST_PER_SERVING =
+      Comparator.<PricedRecipe>comparingDouble(priced -> priced.cost / priced.servings)
+          .thenComparing(priced -> priced.recipeName);
+
+  private final FoodStorage foodStorage;
+  private final RecipeBook recipeBook;
+  private final CookableRecipeTracker tracker;
+  private final boolean ownsTracker;
+  private final Map<String, PricedRecipe> recipesByName = new HashMap<>();
+  private final Map<String, List<Requirement>> requirementsByIngredient = new HashMap<>();
+  private final Set<String> cookableRecipeNames = new HashSet<>();
+  private final TreeSet<PricedRecipe> byCost = new TreeSet<>(BY_COST);
+  private final TreeSet<PricedRecipe> byCostPerServing = new TreeSet<>(BY_COST_PER_SERVING);
+  private final TreeSet<PricedRecipe> cookableByCost = new TreeSet<>(BY_COST);
+  private final KeysetRanking costPages = new KeysetRanking("recipe-COST");
+
+  /**
+   * Constructs a RecipeCostIndex with its own cookable recipe tracker.
+   *
+   * @param foodStorage the storage whose prices are used
+   * @param recipeBook the recipes to price
+   * @throws IllegalArgumentException if the storage or book is null
+   */
+  public RecipeCostIndex(FoodStorage foodStorage, RecipeBook recipeBook) {
+    this(foodStorage, recipeBook, new CookableRecipeTracker(foodStorage, recipeBook), true);
+  }
+
+  /**
+   * Constructs a RecipeCostIndex that shares a cookable recipe tracker.
+   *
+   * @param foodStorage the storage whose prices are used
+   * @param recipeBook the recipes to price
+   * @param tracker a tracker of the same storage and book
+   * @throws IllegalArgumentException if any argument is null
+   */
+  public RecipeCostIndex(
+      FoodStorage foodStorage, RecipeBook recipeBook, CookableRecipeTracker tracker) {
+    this(foodStorage, recipeBook, tracker, false);
+  }
+
+  private RecipeCostIndex(FoodStorage foodStorage, RecipeBook recipeBook,
+      CookableRecipeTracker tracker, boolean ownsTracker) {
+    if (foodStorage == null || recipeBook == null || tracker == null) {
+      throw new IllegalArgumentException("ERR: storage, recipe book and tracker cant be null");
+    }
+    this.foodStorage = foodStorage;
+    this.recipeBook = recipeBook;
+    this.tracker = tracker;
+    this.ownsTracker = ownsTracker;
+    // ? Same lock order as the callbacks: storage, book, tracker and then this index
+    synchronized (foodStorage) {
+      synchronized (recipeBook) {
+        synchronized (tracker) {
+          synchronized (this) {
+            for (Recipe recipe : recipeBook.getRecipes().values()) {
+              track(recipe);
+            }
+            for (String recipeName : tracker.getCookableRecipes()) {
+              cookabilityChanged(recipeName, true);
+            }
+          }
+          foodStorage.addListener(this);
+          recipeBook.addListener(this);
+          tracker.addListener(this);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the cost of a recipe.
+   *
+   * @param recipeName the name of the recipe
+   * @return the cost, or null if the recipe isnt in the book or an ingredient isnt stored
+   */
+  public synchronized Double getRecipeCost(String recipeName) {
+    PricedRecipe priced = this.recipesByName.get(recipeName);
+    return priced == null || priced.unpricedCount > 0 ? null : priced.cost;
+  }
+
+  /**
+   * Returns the cost of one serving of a recipe.
+   *
+   * @param recipeName the name of the recipe
+   * @return the cost per serving, or null if the recipe has no known cost
+   */
+  public synchronized Double getCostPerServing(String recipeName) {
+    PricedRecipe priced = this.recipesByName.get(recipeName);
+    return priced == null || priced.unpricedCount > 0 ? null : priced.cost / priced.servings;
+  }
+
+  /**
+   * Returns a page of the recipes with a known cost, cheapest first. Recipes with the
+   * same cost are listed by name.
+   *
+   * @param pageSize the most recipes on the page
+   * @param cursor the next cursor of the previous page, or null for the first page
+   * @return the page of recipe names
+   * @throws IllegalArgumentException if the page size isnt above 0 or the cursor isnt
+   *                                  from this listing
+   */
+  public synchronized Page<String> getRecipePageByCost(int pageSize, String cursor) {
+    return this.costPages.page(pageSize, cursor);
+  }
+
+  /**
+   * Returns the cheapest recipes with a known cost.
+   *
+   * @param count the most recipes to return
+   * @return the names of the recipes, cheapest first
+   * @throws IllegalArgumentException if the count is negative
+   */
+  public synchronized List<String> getCheapestRecipes(int count) {
+    return firstNames(this.byCost, count);
+  }
+
+  /**
+   * Returns the recipes with the cheapest serving.
+   *
+   * @param count the most recipes to return
+   * @return the names of the recipes, cheapest serving first
+   * @throws IllegalArgumentException if the count is negative
+   */
+  public synchronized List<String> getCheapestRecipesPerServing(int count) {
+    return firstNames(this.byCostPerServing, count);
+  }
+
+  /**
+   * Returns the cheapest recipes that can be made right now.
+   *
+   * @param count the most recipes to return
+   * @return the names of the recipes, cheapest first
+   * @throws IllegalArgumentException if the count is negative
+   */
+  public List<String> getCheapestCookableRecipes(int count) {
+    // ! Refresh before locking this index, the tracker calls back into it
+    this.tracker.refresh();
+    synchronized (this) {
+      return firstNames(this.cookableByCost, count);
+    }
+  }
+
+  /**
+   * Stops following the storage, the book and the tracker. A tracker made by this index
+   * is closed as well.
+   */
+  @Override
+  public void close() {
+    this.foodStorage.removeListener(this);
+    this.recipeBook.removeListener(this);
+    this.tracker.removeListener(this);
+    if (this.ownsTracker) {
+      this.tracker.close();
+    }
+  }
+
+  @Override
+  public synchronized void ingredientAdded(Ingredient ingredient) {
+    reprice(ingredient.getIngredientName());
+  }
+
+  @Override
+  public synchronized void ingredientAmountChanged(Ingredient ingredient, double amountChange) {
+    reprice(ingredient.getIngredientName());
+  }
+
+  @Override
+  public synchronized void ingredientRemoved(Ingredient ingredient, boolean expired) {
+    reprice(ingredient.getIngredientName());
+  }
+
+  @Override
+  public synchronized void recipeAdded(Recipe recipe) {
+    track(recipe);
+  }
+
+  @Override
+  public synchronized void recipeRemoved(Recipe recipe) {
+    PricedRecipe priced = this.recipesByName.remove(recipe.getRecipeName());
+    if (priced == null) {
+      return;
+    }
+    unrank(priced);
+    for (Requirement requirement : priced.requirements) {
+      List<Requirement> fanOut = this.requirementsByIngredient.get(requirement.ingredientName);
+      fanOut.remove(requirement);
+      if (fanOut.isEmpty()) {
+        this.requirementsByIngredient.remove(requirement.ingredientName);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void cookabilityChanged(String recipeName, boolean cookable) {
+    PricedRecipe priced = this.recipesByName.get(recipeName);
+    if (cookable) {
+      this.cookableRecipeNames.add(recipeName);
+      if (priced != null && priced.unpricedCount == 0) {
+        this.cookableByCost.add(priced);
+      }
+    } else {
+      this.cookableRecipeNames.remove(recipeName);
+      if (priced != null) {
+        this.cookableByCost.remove(priced);
+      }
+    }
+  }
+
+  private void track(Recipe recipe) {
+    PricedRecipe priced = new PricedRecipe(recipe.getRecipeName(), recipe.getRecipeServing());
+    for (int i = 0; i < recipe.getIngredientCount(); i++) {
+      Requirement requirement = new Requirement(priced,
+          recipe.getIngredientName(i), recipe.getIngredientAmount(i));
+      priced.requirements.add(requirement);
+      this.requirementsByIngredient
+          .computeIfAbsent(requirement.ingredientName, name -> new ArrayList<>())
+          .add(requirement);
+    }
+    this.recipesByName.put(priced.recipeName, priced);
+    price(priced);
+    rank(priced);
+  }
+
+  /** Prices again only the recipes that use one ingredient. */
+  private void reprice(String ingredientName) {
+    List<Requirement> fanOut = this.requirementsByIngredient.get(ingredientName);
+    if (fanOut == null) {
+      return;
+    }
+    for (Requirement requirement : fanOut) {
+      PricedRecipe priced = requirement.recipe;
+      // ? Take the recipe out of the sorted sets before its sort key changes
+      unrank(priced);
+      price(priced);
+      rank(priced);
+    }
+  }
+
+  private void price(PricedRecipe priced) {
+    Map<String, Ingredient> storedIngredients = this.foodStorage.getIngredients();
+    double cost = 0.0;
+    int unpricedCount = 0;
+    for (Requirement requirement : priced.requirements) {
+      Ingredient stored = storedIngredients.get(requirement.ingredientName);
+      if (stored == null) {
+        unpricedCount++;
+      } else {
+        cost += requirement.amount * stored.getIngredientPricePerAmount();
+      }
+    }
+    priced.cost = cost;
+    priced.unpricedCount = unpricedCount;
+  }
+
+  private void rank(PricedRecipe priced) {
+    if (priced.unpricedCount > 0) {
+      return;
+    }
+    this.byCost.add(priced);
+    this.byCostPerServing.add(priced);
+    this.costPages.put(priced.recipeName, priced.cost);
+    if (this.cookableRecipeNames.contains(priced.recipeName)) {
+      this.cookableByCost.add(priced);
+    }
+  }
+
+  private void unrank(PricedRecipe priced) {
+    this.byCost.remove(priced);
+    this.byCostPerServing.remove(priced);
+    this.costPages.remove(priced.recipeName);
+    this.cookableByCost.remove(priced);
+  }
+
+  private static List<String> firstNames(TreeSet<PricedRecipe> ranking, int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("ERR: count cant be negative");
+    }
+    List<String> names = new ArrayList<>(Math.min(count, ranking.size()));
+    Iterator<PricedRecipe> iterator = ranking.iterator();
+    while (names.size() < count && iterator.hasNext()) {
+      names.add(iterator.next().recipeName);
+    }
+    return names;
+  }
+
+  /** A recipe with its current cost. */
+  private static final class PricedRecipe {
+
+    private final String recipeName;
+    private final int servings;
+    private final List<Requirement> requirements = new ArrayList<>();
+    private double cost;
+    private int unpricedCount;
+
+    PricedRecipe(String recipeName, int servings) {
+      this.recipeName = recipeName;
+      this.servings = servings;
+    }
+  }
+
+  /** One ingredient amount required by one recipe. */
+  private static final class Requirement {
+
+    private final PricedRecipe recipe;
+    private final String ingredientName;
+    private final double amount;
+
+    Requirement(PricedRecipe recipe, String ingredientName, double amount) {
+      this.recipe = recipe;
+      this.ingredientName = ingredientName;
+      this.amount = amount;
+    }
+  }
+}
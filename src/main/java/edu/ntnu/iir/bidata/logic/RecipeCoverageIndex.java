@@ -0,0 +1,262 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The RecipeCoverageIndex class answers "what can I make with these": it ranks the
+ * recipes of a {@link RecipeBook} by how many of their required ingredients a given set
+ * of ingredients covers, and lists what is missing.
+ *
+ * <p>Every ingredient has a posting list of the recipes that require it. A query walks
+ * only the lists of the given ingredients and counts the hits of every recipe it meets,
+ * so recipes that share nothing with the set are never looked at. The best recipes are
+ * kept in a heap of the requested size: the highest coverage first, then the fewest
+ * missing ingredients, then by name. Amounts are not compared, an ingredient counts as
+ * covered when it is in the set.
+ *
+ * <p>Recipe ids come from a {@link RecipeDocTable}, like those of
+ * {@link RecipeSearchIndex}. The index follows the book through its listener and is
+ * thread-safe.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * RecipeCoverageIndex coverageIndex = new RecipeCoverageIndex(recipeBook);
+ * List<CoverageMatch> matches = coverageIndex.findBestMatches(Set.of("Egg", "Milk"), 5);
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public final class RecipeCoverageIndex implements RecipeBookListener, AutoCloseable {
+
+  private final RecipeBook recipeBook;
+  private final Clock clock;
+  private final Map<String, Postings> postingsByIngredient = new HashMap<>();
+  private final RecipeDocTable docs = new RecipeDocTable();
+  private int[] hitCounts = new int[64];
+
+  /**
+   * Constructs a RecipeCoverageIndex over every recipe in a book and starts following it.
+   *
+   * @param recipeBook the book to index
+   * @throws IllegalArgumentException if the book is null
+   */
+  public RecipeCoverageIndex(RecipeBook recipeBook) {
+    this(recipeBook, Clock.systemDefaultZone());
+  }
+
+  /**
+   * Constructs a RecipeCoverageIndex that reads today from a clock when it is asked
+   * about a food storage.
+   *
+   * @param recipeBook the book to index
+   * @param clock the clock that gives the current day
+   * @throws IllegalArgumentException if the book or clock is null
+   */
+  public RecipeCoverageIndex(RecipeBook recipeBook, Clock clock) {
+    if (recipeBook == null || clock == null) {
+      throw new IllegalArgumentException("ERR: recipe book and clock cant be null");
+    }
+    this.recipeBook = recipeBook;
+    this.clock = clock;
+    synchronized (recipeBook) {
+      synchronized (this) {
+        for (Recipe recipe : recipeBook.getRecipes().values()) {
+          index(recipe);
+        }
+      }
+      recipeBook.addListener(this);
+    }
+  }
+
+  /**
+   * Finds the recipes best covered by a set of ingredients.
+   *
+   * @param ingredientNames the names of the ingredients at hand
+   * @param count the most recipes to return
+   * @return the best covered recipes, best first; recipes with nothing covered are left out
+   * @throws IllegalArgumentException if the names are null or the count is negative
+   */
+  public synchronized List<CoverageMatch> findBestMatches(
+      Collection<String> ingredientNames, int count) {
+    if (ingredientNames == null) {
+      throw new IllegalArgumentException("ERR: ingredient names cant be null");
+    }
+    if (count < 0) {
+      throw new IllegalArgumentException("ERR: count cant be negative");
+    }
+    try (TraceSpan span = Tracer.startSpan("RecipeCoverageIndex.findBestMatches")) {
+      Set<String> available = ingredientNames instanceof Set<String> names
+          ? names : new HashSet<>(ingredientNames);
+      int[] touchedDocs = new int[16];
+      int touchedCount = 0;
+      for (String ingredientName : available) {
+        Postings postings = this.postingsByIngredient.get(ingredientName);
+        if (postings == null) {
+          continue;
+        }
+        for (int i = 0; i < postings.length; i++) {
+          int docId = postings.docIds[i];
+          if (this.docs.isDeleted(docId)) {
+            continue;
+          }
+          if (this.hitCounts[docId]++ == 0) {
+            if (touchedCount == touchedDocs.length) {
+              touchedDocs = Arrays.copyOf(touchedDocs, touchedCount * 2);
+            }
+            touchedDocs[touchedCount++] = docId;
+          }
+        }
+      }
+      return topMatches(touchedDocs, touchedCount, count, available);
+    }
+  }
+
+  /**
+   * Finds the recipes best covered by the ingredients in a food storage. Expired
+   * ingredients dont count.
+   *
+   * @param foodStorage the storage with the ingredients at hand
+   * @param count the most recipes to return
+   * @return the best covered recipes, best first; recipes with nothing covered are left out
+   * @throws IllegalArgumentException if the storage is null or the count is negative
+   */
+  public List<CoverageMatch> findBestMatches(FoodStorage foodStorage, int count) {
+    if (foodStorage == null) {
+      throw new IllegalArgumentException("ERR: food storage cant be null");
+    }
+    LocalDate today = LocalDate.now(this.clock);
+    Set<String> available = new HashSet<>();
+    for (Ingredient ingredient : foodStorage.getIngredients().values()) {
+      if (!ingredient.isExpiredOn(today)) {
+        available.add(ingredient.getIngredientName());
+      }
+    }
+    return findBestMatches(available, count);
+  }
+
+  /**
+   * Returns the number of recipes in the index.
+   *
+   * @return the recipe count
+   */
+  public synchronized int size() {
+    return this.docs.liveCount();
+  }
+
+  /**
+   * Stops following the book.
+   */
+  @Override
+  public void close() {
+    this.recipeBook.removeListener(this);
+  }
+
+  @Override
+  public synchronized void recipeAdded(Recipe recipe) {
+    this.docs.remove(recipe.getRecipeName());
+    index(recipe);
+  }
+
+  @Override
+  public synchronized void recipeRemoved(Recipe recipe) {
+    this.docs.remove(recipe.getRecipeName());
+    if (this.docs.needsCompaction()) {
+      compact();
+    }
+  }
+
+  private List<CoverageMatch> topMatches(
+      int[] touchedDocs, int touchedCount, int count, Set<String> available) {
+    int[] bestDocs = RecipeDocTable.bestDocs(touchedDocs, touchedCount, count,
+        (left, right) -> compareMatches(left, right));
+    List<CoverageMatch> matches = new ArrayList<>(bestDocs.length);
+    for (int docId : bestDocs) {
+      Recipe recipe = this.docs.get(docId);
+      List<String> missing = new ArrayList<>();
+      for (int i = 0; i < recipe.getIngredientCount(); i++) {
+        String ingredientName = recipe.getIngredientName(i);
+        if (!available.contains(ingredientName)) {
+          missing.add(ingredientName);
+        }
+      }
+      Collections.sort(missing);
+      matches.add(new CoverageMatch(
+          recipe.getRecipeName(), recipe.getIngredientCount(), missing));
+    }
+    for (int i = 0; i < touchedCount; i++) {
+      this.hitCounts[touchedDocs[i]] = 0;
+    }
+    return matches;
+  }
+
+  /** Orders a weaker match first: lower coverage, more missing, or the later name. */
+  private int compareMatches(int leftDoc, int rightDoc) {
+    int leftRequired = this.docs.get(leftDoc).getIngredientCount();
+    int rightRequired = this.docs.get(rightDoc).getIngredientCount();
+    // ? Compares hits / required without dividing
+    int byCoverage = Long.compare((long) this.hitCounts[leftDoc] * rightRequired,
+        (long) this.hitCounts[rightDoc] * leftRequired);
+    if (byCoverage != 0) {
+      return byCoverage;
+    }
+    int byMissing = Integer.compare(rightRequired - this.hitCounts[rightDoc],
+        leftRequired - this.hitCounts[leftDoc]);
+    if (byMissing != 0) {
+      return byMissing;
+    }
+    return this.docs.get(rightDoc).getRecipeName()
+        .compareTo(this.docs.get(leftDoc).getRecipeName());
+  }
+
+  private void index(Recipe recipe) {
+    int docId = this.docs.add(recipe);
+    if (docId == this.hitCounts.length) {
+      this.hitCounts = Arrays.copyOf(this.hitCounts, this.hitCounts.length * 2);
+    }
+    for (int i = 0; i < recipe.getIngredientCount(); i++) {
+      this.postingsByIngredient.computeIfAbsent(recipe.getIngredientName(i),
+          name -> new Postings()).append(docId);
+    }
+  }
+
+  /** Builds every posting list again from the live recipes, giving them new ids. */
+  private void compact() {
+    try (TraceSpan span = Tracer.startSpan("RecipeCoverageIndex.compact")) {
+      Recipe[] liveDocs = this.docs.takeLiveRecipes();
+      this.postingsByIngredient.clear();
+      for (Recipe recipe : liveDocs) {
+        index(recipe);
+      }
+    }
+  }
+
+  /** The ids of the recipes that require one ingredient, in increasing order. */
+  private static final class Postings {
+
+    private int[] docIds = new int[4];
+    private int length;
+
+    void append(int docId) {
+      if (this.length == this.docIds.length) {
+        this.docIds = Arrays.copyOf(this.docIds, this.length * 2);
+      }
+      this.docIds[this.length++] = docId;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Recipe;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The RecipeDocTable class hands out the recipe ids of an index with posting lists, such
+ * as {@link RecipeSearchIndex} and {@link RecipeCoverageIndex}.
+ *
+ * <p>Ids only grow, so an index can append to its posting lists in id order. Removing a
+ * recipe only marks its id as deleted. Once deleted ids outnumber the live ones the
+ * index calls {@link #takeLiveRecipes()} and indexes what it gets back again under new
+ * ids.
+ *
+ * <p>A table belongs to one index and is guarded by that index's lock.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+final class RecipeDocTable {
+
+  // ? Dont rebuild tiny indexes, a few deleted ids cost nothing
+  private static final int MIN_DELETED_FOR_COMPACTION = 1024;
+
+  private final Map<String, Integer> docIdsByName = new HashMap<>();
+  private final BitSet deletedDocs = new BitSet();
+  private Recipe[] docs = new Recipe[64];
+  private int docCount;
+  private int liveDocCount;
+
+  /**
+   * Gives a recipe the next id.
+   *
+   * @param recipe the recipe, whose name isnt in the table
+   * @return the id of the recipe
+   */
+  int add(Recipe recipe) {
+    int docId = this.docCount++;
+    if (docId == this.docs.length) {
+      this.docs = Arrays.copyOf(this.docs, this.docs.length * 2);
+    }
+    this.docs[docId] = recipe;
+    this.docIdsByName.put(recipe.getRecipeName(), docId);
+    this.liveDocCount++;
+    return docId;
+  }
+
+  /**
+   * Marks the id of a recipe as deleted.
+   *
+   * @param recipeName the name of the recipe
+   * @return the id the recipe had, or -1 if it wasnt in the table
+   */
+  int remove(String recipeName) {
+    Integer docId = this.docIdsByName.remove(recipeName);
+    if (docId == null) {
+      return -1;
+    }
+    this.deletedDocs.set(docId);
+    this.liveDocCount--;
+    return docId;
+  }
+
+  Recipe get(int docId) {
+    return this.docs[docId];
+  }
+
+  boolean isDeleted(int docId) {
+    return this.deletedDocs.get(docId);
+  }
+
+  int liveCount() {
+    return this.liveDocCount;
+  }
+
+  /**
+   * Checks if deleted ids outnumber the live ones by enough to be worth a rebuild.
+   *
+   * @return true if the index should call {@link #takeLiveRecipes()}
+   */
+  boolean needsCompaction() {
+    int deletedCount = this.docCount - this.liveDocCount;
+    return deletedCount >= MIN_DELETED_FOR_COMPACTION && deletedCount > this.liveDocCount;
+  }
+
+  /**
+   * Empties the table so ids start from 0 again.
+   *
+   * @return the live recipes, in the order of their old ids
+   */
+  Recipe[] takeLiveRecipes() {
+    Recipe[] liveDocs = new Recipe[this.liveDocCount];
+    int position = 0;
+    for (int docId = 0; docId < this.docCount; docId++) {
+      if (!this.deletedDocs.get(docId)) {
+        liveDocs[position++] = this.docs[docId];
+      }
+    }
+    this.docIdsByName.clear();
+    this.deletedDocs.clear();
+    Arrays.fill(this.docs, null);
+    this.docCount = 0;
+    this.liveDocCount = 0;
+    return liveDocs;
+  }
+
+  /**
+   * Picks the best of the ids a query touched with a heap of the requested size.
+   *
+   * @param touchedDocs the ids the query touched, each once
+   * @param touchedCount the number of ids in use at the start of the array
+   * @param count the most ids to pick
+   * @param weakerFirst orders a weaker id before a stronger one
+   * @return the best ids, best first
+   */
+  static int[] bestDocs(int[] touchedDocs, int touchedCount, int count,
+      Comparator<Integer> weakerFirst) {
+    // ? Min-heap of the best docs so far, the weakest on top
+    PriorityQueue<Integer> best =
+        new PriorityQueue<>(Math.min(count, touchedCount) + 1, weakerFirst);
+    for (int i = 0; i < touchedCount; i++) {
+      best.add(touchedDocs[i]);
+      if (best.size() > count) {
+        best.poll();
+      }
+    }
+    int[] bestDocs = new int[best.size()];
+    for (int i = bestDocs.length - 1; i >= 0; i--) {
+      bestDocs[i] = best.poll();
+    }
+    return bestDocs;
+  }
+}
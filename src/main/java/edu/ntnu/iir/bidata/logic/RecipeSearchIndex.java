@@ -0,0 +1,379 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The RecipeSearchIndex class finds recipes in a {@link RecipeBook} by the words in
+ * their name, description and instructions, ranked with BM25.
+ *
+ * <p>Text is split into lower-case words at every character that isnt a letter or a
+ * digit. Words in the name count {@value #NAME_WEIGHT} times, so a recipe called
+ * "Griddle cakes" ranks above one that only mentions a griddle. A query matches recipes
+ * with any of its words; recipes with more and rarer words rank higher.
+ *
+ * <p>Every word has a posting list of the recipes that contain it, stored as one byte
+ * array of variable-length integers: the gap to the previous recipe id, then the word
+ * count. Recipe ids only grow, so adding a recipe appends to the end of its lists.
+ * Removing a recipe only marks its id as deleted; a {@link RecipeDocTable} keeps track
+ * of the ids and tells when the lists should be built again without the deleted ones.
+ *
+ * <p>The index follows the book through its listener and is thread-safe.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * RecipeSearchIndex searchIndex = new RecipeSearchIndex(recipeBook);
+ * List<String> hits = searchIndex.search("slow cooked", 10);
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public final class RecipeSearchIndex implements RecipeBookListener, AutoCloseable {
+
+  /** How many times a word in the recipe name counts. */
+  public static final int NAME_WEIGHT = 3;
+
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+
+  private final RecipeBook recipeBook;
+  private final Map<String, Postings> postingsByTerm = new HashMap<>();
+  private final RecipeDocTable docs = new RecipeDocTable();
+  private int[] docLengths = new int[64];
+  private float[] scores = new float[64];
+  private long liveTermCount;
+
+  /**
+   * Constructs a RecipeSearchIndex over every recipe in a book and starts following it.
+   *
+   * @param recipeBook the book to index
+   * @throws IllegalArgumentException if the book is null
+   */
+  public RecipeSearchIndex(RecipeBook recipeBook) {
+    if (recipeBook == null) {
+      throw new IllegalArgumentException("ERR: recipe book cant be null");
+    }
+    this.recipeBook = recipeBook;
+    synchronized (recipeBook) {
+      synchronized (this) {
+        for (Recipe recipe : recipeBook.getRecipes().values()) {
+          index(recipe);
+        }
+      }
+      recipeBook.addListener(this);
+    }
+  }
+
+  /**
+   * Finds the recipes that best match a query.
+   *
+   * @param query the words to search for
+   * @param count the most recipes to return
+   * @return the names of the matching recipes, best match first
+   * @throws IllegalArgumentException if the query is null or the count is negative
+   */
+  public List<String> search(String query, int count) {
+    return new ArrayList<>(scoredSearch(query, count).keySet());
+  }
+
+  /**
+   * Finds the recipes that best match a query, with their scores. The scores only
+   * compare within one index, since the word rarity behind them is that of this book.
+   *
+   * @param query the words to search for
+   * @param count the most recipes to return
+   * @return the names of the matching recipes mapped to their scores, best match first
+   * @throws IllegalArgumentException if the query is null or the count is negative
+   */
+  synchronized Map<String, Float> scoredSearch(String query, int count) {
+    return scoredSearch(query, count, termStatistics(query));
+  }
+
+  /**
+   * Finds the recipes that best match a query, with their scores, ranking by the word
+   * rarity of a bigger collection this index is part of. With the summed
+   * {@link #termStatistics} of every part, the scores of the parts compare with each
+   * other as if all recipes were in one index.
+   *
+   * @param query the words to search for
+   * @param count the most recipes to return
+   * @param statistics the statistics of the whole collection for the words of the query
+   * @return the names of the matching recipes mapped to their scores, best match first
+   * @throws IllegalArgumentException if the query or statistics are null or the count is
+   *                                  negative
+   */
+  synchronized Map<String, Float> scoredSearch(
+      String query, int count, TermStatistics statistics) {
+    if (query == null || statistics == null) {
+      throw new IllegalArgumentException("ERR: query and statistics cant be null");
+    }
+    if (count < 0) {
+      throw new IllegalArgumentException("ERR: count cant be negative");
+    }
+    try (TraceSpan span = Tracer.startSpan("RecipeSearchIndex.search")) {
+      if (this.docs.liveCount() == 0 || count == 0) {
+        return new LinkedHashMap<>();
+      }
+      Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+      long collectionDocCount = Math.max(statistics.docCount, this.docs.liveCount());
+      double averageLength = (double) Math.max(statistics.termCount, this.liveTermCount)
+          / collectionDocCount;
+      int[] touchedDocs = new int[16];
+      int touchedCount = 0;
+      for (String term : queryTerms) {
+        Postings postings = this.postingsByTerm.get(term);
+        if (postings == null || postings.documentFrequency == 0) {
+          continue;
+        }
+        // ? Never below the local count, a recipe may be added after the statistics
+        long documentFrequency = Math.max(postings.documentFrequency,
+            statistics.documentFrequencies.getOrDefault(term, 0L));
+        double idf = Math.log(1 + (collectionDocCount - documentFrequency + 0.5)
+            / (documentFrequency + 0.5));
+        int position = 0;
+        int docId = 0;
+        while (position < postings.length) {
+          int gap = 0;
+          for (int shift = 0; ; shift += 7) {
+            byte next = postings.data[position++];
+            gap |= (next & 0x7f) << shift;
+            if (next >= 0) {
+              break;
+            }
+          }
+          int termFrequency = 0;
+          for (int shift = 0; ; shift += 7) {
+            byte next = postings.data[position++];
+            termFrequency |= (next & 0x7f) << shift;
+            if (next >= 0) {
+              break;
+            }
+          }
+          docId += gap;
+          if (this.docs.isDeleted(docId)) {
+            continue;
+          }
+          double norm = K1 * (1 - B + B * this.docLengths[docId] / averageLength);
+          float score = (float) (idf * termFrequency * (K1 + 1) / (termFrequency + norm));
+          if (this.scores[docId] == 0f) {
+            if (touchedCount == touchedDocs.length) {
+              touchedDocs = Arrays.copyOf(touchedDocs, touchedCount * 2);
+            }
+            touchedDocs[touchedCount++] = docId;
+          }
+          this.scores[docId] += score;
+        }
+      }
+      return topDocs(touchedDocs, touchedCount, count);
+    }
+  }
+
+  /**
+   * Returns what BM25 needs to know about this index to rank a query: the number of
+   * recipes and words, and for every word of the query the number of recipes with it.
+   *
+   * @param query the words to search for
+   * @return the statistics of the index for the words of the query
+   * @throws IllegalArgumentException if the query is null
+   */
+  synchronized TermStatistics termStatistics(String query) {
+    if (query == null) {
+      throw new IllegalArgumentException("ERR: query cant be null");
+    }
+    TermStatistics statistics = new TermStatistics();
+    statistics.docCount = this.docs.liveCount();
+    statistics.termCount = this.liveTermCount;
+    for (String term : tokenize(query)) {
+      Postings postings = this.postingsByTerm.get(term);
+      statistics.documentFrequencies.put(term,
+          postings == null ? 0L : (long) postings.documentFrequency);
+    }
+    return statistics;
+  }
+
+  /**
+   * Returns the number of recipes in the index.
+   *
+   * @return the recipe count
+   */
+  public synchronized int size() {
+    return this.docs.liveCount();
+  }
+
+  /**
+   * Stops following the book.
+   */
+  @Override
+  public void close() {
+    this.recipeBook.removeListener(this);
+  }
+
+  @Override
+  public synchronized void recipeAdded(Recipe recipe) {
+    unindex(recipe.getRecipeName());
+    index(recipe);
+  }
+
+  @Override
+  public synchronized void recipeRemoved(Recipe recipe) {
+    unindex(recipe.getRecipeName());
+    if (this.docs.needsCompaction()) {
+      compact();
+    }
+  }
+
+  /**
+   * Splits text into lower-case words.
+   *
+   * @param text the text to split
+   * @return the words, in order, with repeats
+   */
+  static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean wordCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (wordCharacter && start < 0) {
+        start = i;
+      } else if (!wordCharacter && start >= 0) {
+        tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+        start = -1;
+      }
+    }
+    return tokens;
+  }
+
+  private Map<String, Float> topDocs(int[] touchedDocs, int touchedCount, int count) {
+    int[] bestDocs = RecipeDocTable.bestDocs(touchedDocs, touchedCount, count,
+        (left, right) -> compareHits(left, right));
+    Map<String, Float> hits = new LinkedHashMap<>();
+    for (int docId : bestDocs) {
+      hits.put(this.docs.get(docId).getRecipeName(), this.scores[docId]);
+    }
+    for (int i = 0; i < touchedCount; i++) {
+      this.scores[touchedDocs[i]] = 0f;
+    }
+    return hits;
+  }
+
+  /** Orders a weaker hit first: a lower score, or on a tie the later name. */
+  private int compareHits(int leftDoc, int rightDoc) {
+    int byScore = Float.compare(this.scores[leftDoc], this.scores[rightDoc]);
+    if (byScore != 0) {
+      return byScore;
+    }
+    return this.docs.get(rightDoc).getRecipeName()
+        .compareTo(this.docs.get(leftDoc).getRecipeName());
+  }
+
+  private void index(Recipe recipe) {
+    Map<String, Integer> termFrequencies = termFrequencies(recipe);
+    int docId = this.docs.add(recipe);
+    if (docId == this.docLengths.length) {
+      int capacity = this.docLengths.length * 2;
+      this.docLengths = Arrays.copyOf(this.docLengths, capacity);
+      this.scores = Arrays.copyOf(this.scores, capacity);
+    }
+    int docLength = 0;
+    for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+      this.postingsByTerm.computeIfAbsent(entry.getKey(), term -> new Postings())
+          .append(docId, entry.getValue());
+      docLength += entry.getValue();
+    }
+    this.docLengths[docId] = docLength;
+    this.liveTermCount += docLength;
+  }
+
+  private void unindex(String recipeName) {
+    int docId = this.docs.remove(recipeName);
+    if (docId < 0) {
+      return;
+    }
+    for (String term : termFrequencies(this.docs.get(docId)).keySet()) {
+      this.postingsByTerm.get(term).documentFrequency--;
+    }
+    this.liveTermCount -= this.docLengths[docId];
+  }
+
+  /** Builds every posting list again from the live recipes, giving them new ids. */
+  private void compact() {
+    try (TraceSpan span = Tracer.startSpan("RecipeSearchIndex.compact")) {
+      Recipe[] liveDocs = this.docs.takeLiveRecipes();
+      this.postingsByTerm.clear();
+      this.liveTermCount = 0;
+      for (Recipe recipe : liveDocs) {
+        index(recipe);
+      }
+    }
+  }
+
+  private static Map<String, Integer> termFrequencies(Recipe recipe) {
+    Map<String, Integer> termFrequencies = new HashMap<>();
+    for (String token : tokenize(recipe.getRecipeName())) {
+      termFrequencies.merge(token, NAME_WEIGHT, Integer::sum);
+    }
+    for (String token : tokenize(recipe.getRecipeDescription())) {
+      termFrequencies.merge(token, 1, Integer::sum);
+    }
+    for (String token : tokenize(recipe.getRecipeInstructions())) {
+      termFrequencies.merge(token, 1, Integer::sum);
+    }
+    return termFrequencies;
+  }
+
+  /** The recipe and word counts BM25 ranks with, for the words of one query. */
+  static final class TermStatistics {
+
+    long docCount;
+    long termCount;
+    final Map<String, Long> documentFrequencies = new LinkedHashMap<>();
+
+    /** Adds the counts of another part of the collection. */
+    void add(TermStatistics other) {
+      this.docCount += other.docCount;
+      this.termCount += other.termCount;
+      for (Map.Entry<String, Long> entry : other.documentFrequencies.entrySet()) {
+        this.documentFrequencies.merge(entry.getKey(), entry.getValue(), Long::sum);
+      }
+    }
+  }
+
+  /** The posting list of one word, as varint gaps and counts. */
+  private static final class Postings {
+
+    private byte[] data = new byte[8];
+    private int length;
+    private int lastDocId;
+    private int documentFrequency;
+
+    void append(int docId, int termFrequency) {
+      if (this.length + 10 > this.data.length) {
+        this.data = Arrays.copyOf(this.data, Math.max(this.data.length * 2, this.length + 10));
+      }
+      putVarint(docId - this.lastDocId);
+      putVarint(termFrequency);
+      this.lastDocId = docId;
+      this.documentFrequency++;
+    }
+
+    private void putVarint(int value) {
+      while ((value & ~0x7f) != 0) {
+        this.data[this.length++] = (byte) ((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      this.data[this.length++] = (byte) value;
+    }
+  }
+}
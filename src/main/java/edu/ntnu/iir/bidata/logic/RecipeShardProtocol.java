@@ -0,0 +1,229 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.EntityReader;
+import edu.ntnu.iir.bidata.entity.EntityWriter;
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The RecipeShardProtocol class holds the wire format shared by {@link ShardedRecipeBook}
+ * and {@link RecipeShardServer}.
+ *
+ * <p>A client opens the connection with the int {@link #MAGIC} and then sends requests
+ * one at a time, each a byte request type followed by its arguments. The shard answers
+ * every request with a byte status: {@link #OK} followed by the result, or
+ * {@link #FAILED} followed by the message of the exception the request threw.
+ * <pre>
+ *   ADD_RECIPE         entities with the recipe      nothing
+ *   REMOVE_RECIPE      name                          nothing
+ *   FIND_BEST_MATCHES  int count, entities           int n, n coverage matches
+ *   TERM_STATISTICS    query                         term statistics
+ *   SEARCH             int count, query, statistics  int n, n times name and float score
+ *   SUGGEST            int count, entities           int n, n names
+ *   CHECK              name, entities                a cookability report
+ *   RECIPE_COUNT       nothing                       int count
+ * </pre>
+ * Strings are an int byte length and UTF-8 bytes. Entities are an int byte length and an
+ * entity stream; for queries it holds every ingredient of the caller's storage, encoded
+ * once and sent the same to every shard. Term statistics are a long recipe count, a long
+ * word count, an int n and n times a word and its long recipe count; a search sends the
+ * statistics summed over every shard, so all shards rank with the same word rarity.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+final class RecipeShardProtocol {
+
+  /** The first int a client sends, "FWRS" in ASCII. */
+  static final int MAGIC = 0x46575253;
+
+  static final byte ADD_RECIPE = 1;
+  static final byte REMOVE_RECIPE = 2;
+  static final byte FIND_BEST_MATCHES = 3;
+  static final byte SEARCH = 4;
+  static final byte SUGGEST = 5;
+  static final byte CHECK = 6;
+  static final byte RECIPE_COUNT = 7;
+  static final byte TERM_STATISTICS = 8;
+
+  static final byte OK = 0;
+  static final byte FAILED = 1;
+
+  /** Largest string or entity stream either side accepts. */
+  static final int MAX_FIELD_BYTES = 16 * 1024 * 1024;
+
+  private RecipeShardProtocol() {
+  }
+
+  /** Encodes ingredients and recipes as one entity stream. */
+  static byte[] encodeEntities(Collection<?> entities) {
+    for (int capacity = 256 + 64 * entities.size(); ; capacity *= 2) {
+      ByteBuffer buffer = ByteBuffer.allocate(capacity);
+      EntityWriter writer = new EntityWriter(buffer);
+      try {
+        for (Object entity : entities) {
+          if (entity instanceof Ingredient ingredient) {
+            writer.writeIngredient(ingredient);
+          } else {
+            writer.writeRecipe((Recipe) entity);
+          }
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+      } catch (BufferOverflowException e) {
+        // ? Start over with a bigger buffer, the name table of the writer is per stream
+      }
+    }
+  }
+
+  /** Decodes the ingredients of an entity stream into a new storage. */
+  static FoodStorage decodeStorage(byte[] entities) {
+    FoodStorage foodStorage = new FoodStorage(new LinkedHashMap<>());
+    EntityReader reader = new EntityReader(ByteBuffer.wrap(entities));
+    while (reader.next()) {
+      if (reader.isIngredient()) {
+        foodStorage.addIngredient(reader.readIngredient());
+      }
+    }
+    return foodStorage;
+  }
+
+  /** Decodes the first recipe of an entity stream. */
+  static Recipe decodeRecipe(byte[] entities) {
+    EntityReader reader = new EntityReader(ByteBuffer.wrap(entities));
+    while (reader.next()) {
+      if (reader.isRecipe()) {
+        return reader.readRecipe();
+      }
+    }
+    throw new IllegalArgumentException("ERR: request holds no recipe");
+  }
+
+  static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  static byte[] readBytes(DataInputStream input) throws IOException {
+    int length = input.readInt();
+    if (length < 0 || length > MAX_FIELD_BYTES) {
+      throw new IOException("ERR: shard field of " + length + " bytes");
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  static void writeString(DataOutputStream output, String value) throws IOException {
+    writeBytes(output, value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static String readString(DataInputStream input) throws IOException {
+    return new String(readBytes(input), StandardCharsets.UTF_8);
+  }
+
+  static void writeStrings(DataOutputStream output, Collection<String> values)
+      throws IOException {
+    output.writeInt(values.size());
+    for (String value : values) {
+      writeString(output, value);
+    }
+  }
+
+  static List<String> readStrings(DataInputStream input) throws IOException {
+    int count = readCount(input);
+    List<String> values = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      values.add(readString(input));
+    }
+    return values;
+  }
+
+  static int readCount(DataInputStream input) throws IOException {
+    int count = input.readInt();
+    if (count < 0 || count > MAX_FIELD_BYTES) {
+      throw new IOException("ERR: shard list of " + count + " items");
+    }
+    return count;
+  }
+
+  static void writeMatch(DataOutputStream output, CoverageMatch match) throws IOException {
+    writeString(output, match.getRecipeName());
+    output.writeInt(match.getRequiredCount());
+    writeStrings(output, match.getMissingIngredients());
+  }
+
+  static CoverageMatch readMatch(DataInputStream input) throws IOException {
+    String recipeName = readString(input);
+    int requiredCount = input.readInt();
+    return new CoverageMatch(recipeName, requiredCount, readStrings(input));
+  }
+
+  static void writeStatistics(DataOutputStream output,
+      RecipeSearchIndex.TermStatistics statistics) throws IOException {
+    output.writeLong(statistics.docCount);
+    output.writeLong(statistics.termCount);
+    output.writeInt(statistics.documentFrequencies.size());
+    for (Map.Entry<String, Long> entry : statistics.documentFrequencies.entrySet()) {
+      writeString(output, entry.getKey());
+      output.writeLong(entry.getValue());
+    }
+  }
+
+  static RecipeSearchIndex.TermStatistics readStatistics(DataInputStream input)
+      throws IOException {
+    RecipeSearchIndex.TermStatistics statistics = new RecipeSearchIndex.TermStatistics();
+    statistics.docCount = input.readLong();
+    statistics.termCount = input.readLong();
+    for (int i = readCount(input); i > 0; i--) {
+      statistics.documentFrequencies.put(readString(input), input.readLong());
+    }
+    return statistics;
+  }
+
+  static void writeReport(DataOutputStream output, CookabilityReport report)
+      throws IOException {
+    writeString(output, report.getRecipeName());
+    output.writeInt(report.getReadyIngredientCount());
+    writeStrings(output, report.getMissingIngredients());
+    output.writeInt(report.getLowAmountIngredients().size());
+    for (Map.Entry<String, Double> entry : report.getLowAmountIngredients().entrySet()) {
+      writeString(output, entry.getKey());
+      output.writeDouble(entry.getValue());
+    }
+    writeStrings(output, report.getExpiredIngredients());
+    output.writeInt(report.getSubstitutions().size());
+    for (Map.Entry<String, String> entry : report.getSubstitutions().entrySet()) {
+      writeString(output, entry.getKey());
+      writeString(output, entry.getValue());
+    }
+  }
+
+  static CookabilityReport readReport(DataInputStream input) throws IOException {
+    String recipeName = readString(input);
+    int readyIngredientCount = input.readInt();
+    List<String> missingIngredients = readStrings(input);
+    Map<String, Double> lowAmountIngredients = new LinkedHashMap<>();
+    for (int i = readCount(input); i > 0; i--) {
+      lowAmountIngredients.put(readString(input), input.readDouble());
+    }
+    List<String> expiredIngredients = readStrings(input);
+    Map<String, String> substitutions = new LinkedHashMap<>();
+    for (int i = readCount(input); i > 0; i--) {
+      substitutions.put(readString(input), readString(input));
+    }
+    return new CookabilityReport(recipeName, readyIngredientCount, missingIngredients,
+        lowAmountIngredients, expiredIngredients, substitutions);
+  }
+}
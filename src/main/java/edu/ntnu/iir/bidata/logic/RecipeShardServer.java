@@ -0,0 +1,283 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The RecipeShardServer class holds one partition of a recipe book for a
+ * {@link ShardedRecipeBook} and answers its queries over TCP.
+ *
+ * <p>The shard keeps a {@link RecipeCoverageIndex} and a {@link RecipeSearchIndex} over
+ * its book. Queries that depend on a food storage carry the ingredients of that storage,
+ * and the shard answers them against its own recipes only; merging the answers of all
+ * shards is up to the client. Every connection runs on its own virtual thread and its
+ * requests are answered in order.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * try (RecipeShardServer shard = new RecipeShardServer(4050)) {
+ *   shard.start();
+ *   shard.awaitClose();
+ * }
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class RecipeShardServer implements AutoCloseable {
+
+  private final RecipeBook recipeBook;
+  private final InetSocketAddress bindAddress;
+  private final RecipeCoverageIndex coverageIndex;
+  private final RecipeSearchIndex searchIndex;
+  private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+  private final ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+  private ServerSocket serverSocket;
+  private Thread acceptThread;
+
+  /**
+   * Constructs a RecipeShardServer with an empty book that listens on a port of the
+   * loopback address.
+   *
+   * @param port the port to listen on, 0 picks a free port
+   * @throws IllegalArgumentException if the port is outside 0 to 65535
+   */
+  public RecipeShardServer(int port) {
+    this(new RecipeBook(new ConcurrentHashMap<>()),
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+  }
+
+  /**
+   * Constructs a RecipeShardServer.
+   *
+   * @param recipeBook the partition of recipes to serve
+   * @param bindAddress the address to listen on
+   * @throws IllegalArgumentException if the book or address is null
+   */
+  public RecipeShardServer(RecipeBook recipeBook, InetSocketAddress bindAddress) {
+    if (recipeBook == null || bindAddress == null) {
+      throw new IllegalArgumentException("ERR: recipe book and address cant be null");
+    }
+    this.recipeBook = recipeBook;
+    this.bindAddress = bindAddress;
+    this.coverageIndex = new RecipeCoverageIndex(recipeBook);
+    this.searchIndex = new RecipeSearchIndex(recipeBook);
+  }
+
+  /**
+   * Starts accepting clients in the background.
+   *
+   * @throws IOException if the address cant be bound
+   * @throws IllegalStateException if the shard was already started
+   */
+  public synchronized void start() throws IOException {
+    if (this.serverSocket != null) {
+      throw new IllegalStateException("ERR: shard already started");
+    }
+    this.serverSocket = new ServerSocket();
+    this.serverSocket.bind(this.bindAddress);
+    this.acceptThread = Thread.ofVirtual().name("shard-accept").start(this::acceptClients);
+  }
+
+  /**
+   * Returns the port the shard listens on.
+   *
+   * @return the port
+   * @throws IllegalStateException if the shard isnt started
+   */
+  public synchronized int getPort() {
+    if (this.serverSocket == null) {
+      throw new IllegalStateException("ERR: shard isnt started");
+    }
+    return this.serverSocket.getLocalPort();
+  }
+
+  /**
+   * Returns the partition of recipes the shard serves.
+   *
+   * @return the recipe book
+   */
+  public RecipeBook getRecipeBook() {
+    return this.recipeBook;
+  }
+
+  /**
+   * Waits until the shard is closed.
+   *
+   * @throws InterruptedException if the waiting thread is interrupted
+   */
+  public void awaitClose() throws InterruptedException {
+    Thread thread;
+    synchronized (this) {
+      thread = this.acceptThread;
+    }
+    if (thread != null) {
+      thread.join();
+    }
+  }
+
+  /**
+   * Stops accepting clients and closes every open connection. The book keeps its
+   * recipes.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (this.serverSocket != null) {
+        closeQuietly(this.serverSocket);
+      }
+    }
+    for (Socket socket : this.openSockets) {
+      closeQuietly(socket);
+    }
+    this.clientExecutor.close();
+    this.coverageIndex.close();
+    this.searchIndex.close();
+  }
+
+  private void acceptClients() {
+    while (!this.serverSocket.isClosed()) {
+      try {
+        Socket socket = this.serverSocket.accept();
+        this.openSockets.add(socket);
+        try {
+          this.clientExecutor.execute(() -> serveClient(socket));
+        } catch (RejectedExecutionException e) {
+          // ? The shard closed while the connection was accepted
+          this.openSockets.remove(socket);
+          closeQuietly(socket);
+          return;
+        }
+      } catch (SocketException e) {
+        // ? The server socket was closed
+        return;
+      } catch (IOException e) {
+        // ? A failed accept only loses that connection
+      }
+    }
+  }
+
+  private void serveClient(Socket socket) {
+    try (socket) {
+      socket.setTcpNoDelay(true);
+      DataInputStream input =
+          new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      if (input.readInt() != RecipeShardProtocol.MAGIC) {
+        return;
+      }
+      while (true) {
+        byte type;
+        try {
+          type = input.readByte();
+        } catch (EOFException e) {
+          // ? The client hung up between requests
+          return;
+        }
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try {
+          answer(type, input, new DataOutputStream(result));
+          output.writeByte(RecipeShardProtocol.OK);
+          result.writeTo(output);
+        } catch (IllegalArgumentException e) {
+          output.writeByte(RecipeShardProtocol.FAILED);
+          RecipeShardProtocol.writeString(output, String.valueOf(e.getMessage()));
+        }
+        output.flush();
+      }
+    } catch (IOException e) {
+      // ? A broken connection only ends that client
+    } finally {
+      this.openSockets.remove(socket);
+    }
+  }
+
+  private void answer(byte type, DataInputStream input, DataOutputStream output)
+      throws IOException {
+    try (TraceSpan span = Tracer.startSpan("RecipeShardServer.answer")) {
+      switch (type) {
+        case RecipeShardProtocol.ADD_RECIPE -> this.recipeBook.addRecipe(
+            RecipeShardProtocol.decodeRecipe(RecipeShardProtocol.readBytes(input)));
+        case RecipeShardProtocol.REMOVE_RECIPE ->
+            this.recipeBook.removeRecipe(RecipeShardProtocol.readString(input));
+        case RecipeShardProtocol.FIND_BEST_MATCHES -> {
+          int count = input.readInt();
+          FoodStorage foodStorage =
+              RecipeShardProtocol.decodeStorage(RecipeShardProtocol.readBytes(input));
+          List<CoverageMatch> matches = this.coverageIndex.findBestMatches(foodStorage, count);
+          output.writeInt(matches.size());
+          for (CoverageMatch match : matches) {
+            RecipeShardProtocol.writeMatch(output, match);
+          }
+        }
+        case RecipeShardProtocol.TERM_STATISTICS -> RecipeShardProtocol.writeStatistics(
+            output, this.searchIndex.termStatistics(RecipeShardProtocol.readString(input)));
+        case RecipeShardProtocol.SEARCH -> {
+          int count = input.readInt();
+          String query = RecipeShardProtocol.readString(input);
+          Map<String, Float> hits = this.searchIndex.scoredSearch(
+              query, count, RecipeShardProtocol.readStatistics(input));
+          output.writeInt(hits.size());
+          for (Map.Entry<String, Float> hit : hits.entrySet()) {
+            RecipeShardProtocol.writeString(output, hit.getKey());
+            output.writeFloat(hit.getValue());
+          }
+        }
+        case RecipeShardProtocol.SUGGEST -> {
+          int count = input.readInt();
+          FoodStorage foodStorage =
+              RecipeShardProtocol.decodeStorage(RecipeShardProtocol.readBytes(input));
+          if (count < 0) {
+            throw new IllegalArgumentException("ERR: count cant be negative");
+          }
+          List<String> readyRecipes = new ArrayList<>(
+              new RecipeAdvisor(foodStorage, this.recipeBook).suggestRecipesToMake());
+          Collections.sort(readyRecipes);
+          RecipeShardProtocol.writeStrings(output,
+              readyRecipes.subList(0, Math.min(count, readyRecipes.size())));
+        }
+        case RecipeShardProtocol.CHECK -> {
+          String recipeName = RecipeShardProtocol.readString(input);
+          FoodStorage foodStorage =
+              RecipeShardProtocol.decodeStorage(RecipeShardProtocol.readBytes(input));
+          RecipeShardProtocol.writeReport(output, new RecipeAdvisor(foodStorage,
+              this.recipeBook).checkIfCookable(this.recipeBook.getRecipe(recipeName)));
+        }
+        case RecipeShardProtocol.RECIPE_COUNT ->
+            output.writeInt(this.recipeBook.getRecipeBookSize());
+        default -> throw new IOException("ERR: unknown shard request " + type);
+      }
+    }
+  }
+
+  private static void closeQuietly(AutoCloseable closeable) {
+    try {
+      closeable.close();
+    } catch (Exception e) {
+      // ? Nothing left to do with a connection that fails to close
+    }
+  }
+}
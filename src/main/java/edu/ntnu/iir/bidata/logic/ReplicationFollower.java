@@ -0,0 +1,411 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.EntityReader;
+import edu.ntnu.iir.bidata.logic.ReplicationProtocol.Message;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ReplicationFollower class keeps a {@link FoodStorage} and a {@link RecipeBook} up
+ * to date with a {@link ReplicationLeader} in another process, as a hot standby that
+ * serves reads.
+ *
+ * <p>The follower replays every log entry with the same call the leader made, so its
+ * storage and book go through the same states in the same order. When it connects it
+ * tells the leader the last sequence it applied and gets the entries after it, or a
+ * snapshot if the leader no longer has them. When the connection breaks, or no message
+ * comes for {@value #LEADER_TIMEOUT_MILLIS} ms, it connects again, every
+ * {@value #RECONNECT_MILLIS} ms until it gets through.
+ *
+ * <p>Changes should only reach the storage and book of a follower through the leader.
+ * Reads can happen any time, and see the leader as it was a moment ago; how far behind
+ * is told by {@link #getLagEntries()} and {@link #getMillisSinceLeaderContact()}.
+ *
+ * <p>If the leader is lost, {@link #promote(InetSocketAddress)} turns the follower into
+ * a leader that carries on from what it has applied, and
+ * {@link #followLeader(InetSocketAddress)} points the other followers to it.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * ReplicationFollower follower = new ReplicationFollower(
+ *     foodStorage, recipeBook, new InetSocketAddress("kitchen-1", 4041));
+ * follower.start();
+ * ...
+ * ReplicationLeader leader = follower.promote(new InetSocketAddress(4041));
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class ReplicationFollower implements AutoCloseable {
+
+  /** Milliseconds without a message before the leader is taken as lost. */
+  public static final long LEADER_TIMEOUT_MILLIS = 2000;
+
+  /** Milliseconds between attempts to connect to the leader. */
+  public static final long RECONNECT_MILLIS = 200;
+
+  private final FoodStorage foodStorage;
+  private final RecipeBook recipeBook;
+  private volatile InetSocketAddress leaderAddress;
+  private volatile boolean closed;
+  private volatile Socket socket;
+  private volatile long appliedSequence;
+  private volatile long leaderSequence;
+  private volatile long lastContactNanos;
+  private volatile long snapshotCount;
+  // ? Only the follow thread reads and writes the log id
+  private long logId;
+  private Thread followThread;
+
+  /**
+   * Constructs a ReplicationFollower.
+   *
+   * @param foodStorage the storage to keep up to date, normally empty
+   * @param recipeBook the recipe book to keep up to date, normally empty
+   * @param leaderAddress the address of the leader
+   * @throws IllegalArgumentException if any argument is null
+   */
+  public ReplicationFollower(FoodStorage foodStorage, RecipeBook recipeBook,
+      InetSocketAddress leaderAddress) {
+    if (foodStorage == null || recipeBook == null || leaderAddress == null) {
+      throw new IllegalArgumentException("ERR: storage, recipe book and address cant be null");
+    }
+    this.foodStorage = foodStorage;
+    this.recipeBook = recipeBook;
+    this.leaderAddress = leaderAddress;
+  }
+
+  /**
+   * Starts following the leader in the background.
+   *
+   * @throws IllegalStateException if the follower was already started or is closed
+   */
+  public synchronized void start() {
+    if (this.followThread != null || this.closed) {
+      throw new IllegalStateException("ERR: follower already started");
+    }
+    this.followThread = Thread.ofVirtual().name("replication-follower").start(this::follow);
+  }
+
+  /**
+   * Returns the storage the follower keeps up to date.
+   *
+   * @return the storage
+   */
+  public FoodStorage getFoodStorage() {
+    return this.foodStorage;
+  }
+
+  /**
+   * Returns the recipe book the follower keeps up to date.
+   *
+   * @return the recipe book
+   */
+  public RecipeBook getRecipeBook() {
+    return this.recipeBook;
+  }
+
+  /**
+   * Returns the sequence of the last applied change.
+   *
+   * @return the applied sequence
+   */
+  public long getAppliedSequence() {
+    return this.appliedSequence;
+  }
+
+  /**
+   * Returns the last sequence the leader was known to have.
+   *
+   * @return the leader sequence
+   */
+  public long getLeaderSequence() {
+    return this.leaderSequence;
+  }
+
+  /**
+   * Returns how many changes the leader had that arent applied here yet.
+   *
+   * @return the lag in log entries
+   */
+  public long getLagEntries() {
+    return Math.max(0, this.leaderSequence - this.appliedSequence);
+  }
+
+  /**
+   * Returns how long ago the last message from the leader came. A leader that is up
+   * sends a heartbeat at least every {@link ReplicationLeader#HEARTBEAT_MILLIS} ms.
+   *
+   * @return the milliseconds since the last message, or -1 if none came yet
+   */
+  public long getMillisSinceLeaderContact() {
+    long contact = this.lastContactNanos;
+    return contact == 0 ? -1 : (System.nanoTime() - contact) / 1_000_000;
+  }
+
+  /**
+   * Returns the number of snapshots applied, one for every catch-up that couldnt be
+   * done with log entries.
+   *
+   * @return the snapshot count
+   */
+  public long getSnapshotCount() {
+    return this.snapshotCount;
+  }
+
+  /**
+   * Waits until a sequence has been applied.
+   *
+   * @param sequence the sequence to wait for
+   * @param timeoutMillis the longest time to wait
+   * @return true if it was applied in time
+   * @throws InterruptedException if the waiting thread is interrupted
+   */
+  public synchronized boolean awaitSequence(long sequence, long timeoutMillis)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+    while (this.appliedSequence < sequence) {
+      long leftMillis = (deadline - System.nanoTime()) / 1_000_000;
+      if (leftMillis <= 0) {
+        return false;
+      }
+      wait(leftMillis);
+    }
+    return true;
+  }
+
+  /**
+   * Switches to another leader, for example one that was just promoted.
+   *
+   * @param newLeaderAddress the address of the new leader
+   * @throws IllegalArgumentException if the address is null
+   */
+  public void followLeader(InetSocketAddress newLeaderAddress) {
+    if (newLeaderAddress == null) {
+      throw new IllegalArgumentException("ERR: address cant be null");
+    }
+    this.leaderAddress = newLeaderAddress;
+    Socket current = this.socket;
+    if (current != null) {
+      closeQuietly(current);
+    }
+  }
+
+  /**
+   * Stops following and starts a leader over the storage and book, that carries on from
+   * the applied sequence under a new log id.
+   *
+   * @param bindAddress the address the new leader listens on
+   * @return the started leader
+   * @throws IOException if the address cant be bound
+   * @throws IllegalArgumentException if the address is null
+   */
+  public ReplicationLeader promote(InetSocketAddress bindAddress) throws IOException {
+    if (bindAddress == null) {
+      throw new IllegalArgumentException("ERR: address cant be null");
+    }
+    close();
+    ReplicationLeader leader = new ReplicationLeader(this.foodStorage, this.recipeBook,
+        bindAddress, this.appliedSequence, ReplicationLeader.DEFAULT_BACKLOG);
+    leader.start();
+    return leader;
+  }
+
+  /**
+   * Stops following the leader. The storage and book keep what was applied.
+   */
+  @Override
+  public void close() {
+    Thread thread;
+    synchronized (this) {
+      this.closed = true;
+      thread = this.followThread;
+    }
+    Socket current = this.socket;
+    if (current != null) {
+      closeQuietly(current);
+    }
+    if (thread != null) {
+      boolean interrupted = false;
+      while (thread.isAlive()) {
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void follow() {
+    while (!this.closed) {
+      try (Socket connection = new Socket()) {
+        this.socket = connection;
+        if (this.closed) {
+          return;
+        }
+        connection.connect(this.leaderAddress, (int) LEADER_TIMEOUT_MILLIS);
+        connection.setSoTimeout((int) LEADER_TIMEOUT_MILLIS);
+        connection.setTcpNoDelay(true);
+        followConnection(connection);
+      } catch (IOException e) {
+        // ? The leader is down or unreachable, try again shortly
+      } catch (IllegalArgumentException e) {
+        // ? A change didnt apply, so start over from a snapshot
+        this.logId = 0;
+      }
+      if (!this.closed) {
+        try {
+          Thread.sleep(RECONNECT_MILLIS);
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+    }
+  }
+
+  private void followConnection(Socket connection) throws IOException {
+    DataInputStream input =
+        new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+    DataOutputStream output =
+        new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+    output.writeInt(ReplicationProtocol.MAGIC);
+    output.writeLong(this.logId);
+    output.writeLong(this.appliedSequence);
+    output.flush();
+
+    Message hello = ReplicationProtocol.read(input);
+    if (hello.type != ReplicationProtocol.HELLO) {
+      throw new IOException("ERR: leader didnt say hello");
+    }
+    long leaderLogId = ByteBuffer.wrap(hello.payload).getLong();
+    List<byte[]> snapshotChunks = null;
+    while (true) {
+      Message message = ReplicationProtocol.read(input);
+      this.lastContactNanos = System.nanoTime();
+      this.leaderSequence = Math.max(this.leaderSequence, message.sequence);
+      switch (message.type) {
+        case ReplicationProtocol.HEARTBEAT -> {
+          // ? Only the sequence and contact time matter
+        }
+        case ReplicationProtocol.SNAPSHOT_BEGIN -> snapshotChunks = new ArrayList<>();
+        case ReplicationProtocol.SNAPSHOT_CHUNK -> {
+          if (snapshotChunks == null) {
+            throw new IOException("ERR: snapshot chunk outside a snapshot");
+          }
+          snapshotChunks.add(message.payload);
+        }
+        case ReplicationProtocol.SNAPSHOT_END -> {
+          if (snapshotChunks == null) {
+            throw new IOException("ERR: snapshot end outside a snapshot");
+          }
+          applySnapshot(snapshotChunks);
+          snapshotChunks = null;
+          this.logId = leaderLogId;
+          this.leaderSequence = message.sequence;
+          this.snapshotCount++;
+          applied(message.sequence);
+        }
+        default -> {
+          if (this.logId != leaderLogId || message.sequence != this.appliedSequence + 1) {
+            throw new IOException("ERR: log entry " + message.sequence + " out of order");
+          }
+          applyEntry(message);
+          applied(message.sequence);
+        }
+      }
+      if (input.available() == 0) {
+        output.writeLong(this.appliedSequence);
+        output.flush();
+      }
+    }
+  }
+
+  private synchronized void applied(long sequence) {
+    this.appliedSequence = sequence;
+    notifyAll();
+  }
+
+  private void applyEntry(Message entry) {
+    switch (entry.type) {
+      case ReplicationProtocol.INGREDIENT_ADDED -> {
+        EntityReader reader = ReplicationProtocol.entityReaderOf(entry.payload);
+        if (reader.next()) {
+          this.foodStorage.addIngredient(reader.readIngredient());
+        }
+      }
+      case ReplicationProtocol.INGREDIENT_CHANGED -> {
+        double change = ByteBuffer.wrap(entry.payload).getDouble();
+        String ingredientName = ReplicationProtocol.nameOf(entry.payload, Double.BYTES);
+        if (change > 0) {
+          this.foodStorage.addIngredientAmount(ingredientName, change);
+        } else {
+          this.foodStorage.useIngredientAmount(ingredientName, -change);
+        }
+      }
+      case ReplicationProtocol.INGREDIENT_REMOVED ->
+          this.foodStorage.removeIngredient(ReplicationProtocol.nameOf(entry.payload, 0));
+      case ReplicationProtocol.RECIPE_ADDED -> {
+        EntityReader reader = ReplicationProtocol.entityReaderOf(entry.payload);
+        if (reader.next()) {
+          this.recipeBook.addRecipe(reader.readRecipe());
+        }
+      }
+      case ReplicationProtocol.RECIPE_REMOVED -> {
+        String recipeName = ReplicationProtocol.nameOf(entry.payload, 0);
+        // ? Removing a missing recipe throws, and it may be gone already after a snapshot
+        if (this.recipeBook.getRecipes().containsKey(recipeName)) {
+          this.recipeBook.removeRecipe(recipeName);
+        }
+      }
+      default -> {
+        // ? An entry type from a newer leader, skipped like unknown entity records
+      }
+    }
+  }
+
+  /** Replaces the storage and book with a snapshot, with both locked so reads see one. */
+  private void applySnapshot(List<byte[]> chunks) {
+    synchronized (this.foodStorage) {
+      synchronized (this.recipeBook) {
+        for (String ingredientName
+            : new ArrayList<>(this.foodStorage.getIngredients().keySet())) {
+          this.foodStorage.removeIngredient(ingredientName);
+        }
+        for (String recipeName : new ArrayList<>(this.recipeBook.getRecipes().keySet())) {
+          this.recipeBook.removeRecipe(recipeName);
+        }
+        for (byte[] chunk : chunks) {
+          EntityReader reader = ReplicationProtocol.entityReaderOf(chunk);
+          while (reader.next()) {
+            if (reader.isIngredient()) {
+              this.foodStorage.addIngredient(reader.readIngredient());
+            } else {
+              this.recipeBook.addRecipe(reader.readRecipe());
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static void closeQuietly(AutoCloseable closeable) {
+    try {
+      closeable.close();
+    } catch (Exception e) {
+      // ? Nothing left to do with a connection that fails to close
+    }
+  }
+}
@@ -0,0 +1,442 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.ReplicationProtocol.Message;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The ReplicationLeader class streams every change of a {@link FoodStorage} and a
+ * {@link RecipeBook} over TCP to {@link ReplicationFollower} processes, so a follower
+ * can take over when the leader is lost.
+ *
+ * <p>The leader listens to the storage and book. Each change becomes the next entry of
+ * an ordered log, numbered by a sequence that starts after the one given to the
+ * constructor. The last entries are kept in a ring of a fixed size. A follower that
+ * connects with a sequence still in the ring gets the entries after it; any other
+ * follower, and one that falls so far behind that the ring has moved past it, first
+ * gets a snapshot of the whole storage and book. The snapshot is taken with the storage
+ * and book locked, so it matches one sequence exactly.
+ *
+ * <p>Every follower runs on its own virtual threads, one sending and one reading the
+ * sequence the follower has applied. When there is nothing to send, a heartbeat with
+ * the last sequence goes out every {@value #HEARTBEAT_MILLIS} ms, so followers know how
+ * far behind they are and can tell a quiet leader from a dead one.
+ *
+ * <p>Every leader has its own log id. A follower that was promoted to leader carries
+ * on from the sequence it had applied, under a new log id, so followers that switch to
+ * it start over from a snapshot and never mix two logs.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * try (ReplicationLeader leader = new ReplicationLeader(foodStorage, recipeBook, 4041)) {
+ *   leader.start();
+ *   foodStorage.addIngredient(milk);
+ *   leader.awaitReplicated(leader.getLastSequence(), 1, 1000);
+ * }
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class ReplicationLeader implements FoodStorageListener, RecipeBookListener,
+    AutoCloseable {
+
+  /** Default number of log entries kept for followers that reconnect. */
+  public static final int DEFAULT_BACKLOG = 100_000;
+
+  /** Milliseconds between heartbeats to a follower that is up to date. */
+  public static final long HEARTBEAT_MILLIS = 100;
+
+  // ? Entries sent before the stream is flushed
+  private static final int SEND_BATCH = 1024;
+
+  private final FoodStorage foodStorage;
+  private final RecipeBook recipeBook;
+  private final InetSocketAddress bindAddress;
+  private final long logId;
+  private final Message[] log;
+  private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+  private final Map<String, Long> ackedSequences = new ConcurrentHashMap<>();
+  private final Object ackLock = new Object();
+  private final ExecutorService followerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+  private long lastSequence;
+  private boolean closed;
+  private ServerSocket serverSocket;
+  private Thread acceptThread;
+
+  /**
+   * Constructs a ReplicationLeader that listens on a port of the loopback address,
+   * starting a new log at sequence 1.
+   *
+   * @param foodStorage the storage to replicate
+   * @param recipeBook the recipe book to replicate
+   * @param port the port to listen on, 0 picks a free port
+   * @throws IllegalArgumentException if the storage or book is null, or the port is
+   *                                  outside 0 to 65535
+   */
+  public ReplicationLeader(FoodStorage foodStorage, RecipeBook recipeBook, int port) {
+    this(foodStorage, recipeBook, new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+        0, DEFAULT_BACKLOG);
+  }
+
+  /**
+   * Constructs a ReplicationLeader.
+   *
+   * @param foodStorage the storage to replicate
+   * @param recipeBook the recipe book to replicate
+   * @param bindAddress the address to listen on
+   * @param lastSequence the sequence of the last change already in the storage and book,
+   *                     the log carries on after it
+   * @param backlog the number of log entries kept for followers that reconnect, must be
+   *                above 0
+   * @throws IllegalArgumentException if any argument is null, the sequence is negative or
+   *                                  the backlog is below 1
+   */
+  public ReplicationLeader(FoodStorage foodStorage, RecipeBook recipeBook,
+      InetSocketAddress bindAddress, long lastSequence, int backlog) {
+    if (foodStorage == null || recipeBook == null || bindAddress == null) {
+      throw new IllegalArgumentException("ERR: storage, recipe book and address cant be null");
+    }
+    if (lastSequence < 0 || backlog < 1) {
+      throw new IllegalArgumentException(
+          "ERR: sequence cant be negative and backlog must be above 0");
+    }
+    this.foodStorage = foodStorage;
+    this.recipeBook = recipeBook;
+    this.bindAddress = bindAddress;
+    this.lastSequence = lastSequence;
+    this.log = new Message[backlog];
+    long id = 0;
+    while (id == 0) {
+      id = ThreadLocalRandom.current().nextLong();
+    }
+    this.logId = id;
+  }
+
+  /**
+   * Starts logging changes and accepting followers in the background.
+   *
+   * @throws IOException if the address cant be bound
+   * @throws IllegalStateException if the leader was already started
+   */
+  public synchronized void start() throws IOException {
+    if (this.serverSocket != null) {
+      throw new IllegalStateException("ERR: leader already started");
+    }
+    this.serverSocket = new ServerSocket();
+    this.serverSocket.bind(this.bindAddress);
+    this.foodStorage.addListener(this);
+    this.recipeBook.addListener(this);
+    this.acceptThread =
+        Thread.ofVirtual().name("replication-accept").start(this::acceptFollowers);
+  }
+
+  /**
+   * Returns the port the leader listens on.
+   *
+   * @return the port
+   * @throws IllegalStateException if the leader isnt started
+   */
+  public synchronized int getPort() {
+    if (this.serverSocket == null) {
+      throw new IllegalStateException("ERR: leader isnt started");
+    }
+    return this.serverSocket.getLocalPort();
+  }
+
+  /**
+   * Returns the id of the log of this leader.
+   *
+   * @return the log id, never 0
+   */
+  public long getLogId() {
+    return this.logId;
+  }
+
+  /**
+   * Returns the sequence of the last logged change.
+   *
+   * @return the last sequence
+   */
+  public synchronized long getLastSequence() {
+    return this.lastSequence;
+  }
+
+  /**
+   * Returns the number of connected followers.
+   *
+   * @return the follower count
+   */
+  public int getFollowerCount() {
+    return this.ackedSequences.size();
+  }
+
+  /**
+   * Returns how many log entries each connected follower has yet to apply, by the
+   * address of the follower.
+   *
+   * @return a map from follower address to lag in entries
+   */
+  public Map<String, Long> getFollowerLags() {
+    long last = getLastSequence();
+    Map<String, Long> lags = new HashMap<>();
+    for (Map.Entry<String, Long> entry : this.ackedSequences.entrySet()) {
+      lags.put(entry.getKey(), Math.max(0, last - entry.getValue()));
+    }
+    return lags;
+  }
+
+  /**
+   * Waits until enough followers have applied a sequence.
+   *
+   * @param sequence the sequence to wait for
+   * @param followerCount the number of followers that must have applied it
+   * @param timeoutMillis the longest time to wait
+   * @return true if enough followers applied it in time
+   * @throws InterruptedException if the waiting thread is interrupted
+   */
+  public boolean awaitReplicated(long sequence, int followerCount, long timeoutMillis)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+    synchronized (this.ackLock) {
+      while (countApplied(sequence) < followerCount) {
+        long leftMillis = (deadline - System.nanoTime()) / 1_000_000;
+        if (leftMillis <= 0) {
+          return false;
+        }
+        this.ackLock.wait(leftMillis);
+      }
+      return true;
+    }
+  }
+
+  @Override
+  public synchronized void ingredientAdded(Ingredient ingredient) {
+    append(ReplicationProtocol.ingredientAdded(this.lastSequence + 1, ingredient));
+  }
+
+  @Override
+  public synchronized void ingredientAmountChanged(Ingredient ingredient, double amountChange) {
+    append(ReplicationProtocol.ingredientChanged(
+        this.lastSequence + 1, ingredient.getIngredientName(), amountChange));
+  }
+
+  @Override
+  public synchronized void ingredientRemoved(Ingredient ingredient, boolean expired) {
+    append(ReplicationProtocol.named(ReplicationProtocol.INGREDIENT_REMOVED,
+        this.lastSequence + 1, ingredient.getIngredientName()));
+  }
+
+  @Override
+  public synchronized void recipeAdded(Recipe recipe) {
+    append(ReplicationProtocol.recipeAdded(this.lastSequence + 1, recipe));
+  }
+
+  @Override
+  public synchronized void recipeRemoved(Recipe recipe) {
+    append(ReplicationProtocol.named(ReplicationProtocol.RECIPE_REMOVED,
+        this.lastSequence + 1, recipe.getRecipeName()));
+  }
+
+  /**
+   * Stops logging changes and closes every follower connection. Followers keep what
+   * they have applied.
+   */
+  @Override
+  public void close() {
+    this.foodStorage.removeListener(this);
+    this.recipeBook.removeListener(this);
+    synchronized (this) {
+      this.closed = true;
+      notifyAll();
+      if (this.serverSocket != null) {
+        closeQuietly(this.serverSocket);
+      }
+    }
+    for (Socket socket : this.openSockets) {
+      closeQuietly(socket);
+    }
+    this.followerExecutor.close();
+  }
+
+  private void append(Message entry) {
+    this.lastSequence = entry.sequence;
+    this.log[ringIndex(entry.sequence)] = entry;
+    notifyAll();
+  }
+
+  private int ringIndex(long sequence) {
+    return (int) (sequence % this.log.length);
+  }
+
+  private int countApplied(long sequence) {
+    int count = 0;
+    for (long acked : this.ackedSequences.values()) {
+      count += acked >= sequence ? 1 : 0;
+    }
+    return count;
+  }
+
+  private void acceptFollowers() {
+    while (!this.serverSocket.isClosed()) {
+      try {
+        Socket socket = this.serverSocket.accept();
+        this.openSockets.add(socket);
+        try {
+          this.followerExecutor.execute(() -> serveFollower(socket));
+        } catch (RejectedExecutionException e) {
+          // ? The leader closed while the connection was accepted
+          this.openSockets.remove(socket);
+          closeQuietly(socket);
+          return;
+        }
+      } catch (SocketException e) {
+        // ? The server socket was closed
+        return;
+      } catch (IOException e) {
+        // ? A failed accept only loses that connection
+      }
+    }
+  }
+
+  private void serveFollower(Socket socket) {
+    String follower = socket.getRemoteSocketAddress().toString();
+    try (socket) {
+      socket.setTcpNoDelay(true);
+      DataInputStream input =
+          new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      if (input.readInt() != ReplicationProtocol.MAGIC) {
+        return;
+      }
+      long followerLogId = input.readLong();
+      long followerSequence = input.readLong();
+      long cursor;
+      boolean resume;
+      synchronized (this) {
+        cursor = this.lastSequence;
+        resume = followerLogId == this.logId && followerSequence <= this.lastSequence
+            && followerSequence >= this.lastSequence - this.log.length;
+      }
+      ReplicationProtocol.write(output, ReplicationProtocol.hello(this.logId, cursor));
+      cursor = resume ? followerSequence : sendSnapshot(output);
+      output.flush();
+      this.ackedSequences.put(follower, resume ? followerSequence : 0);
+      this.followerExecutor.execute(() -> readAcknowledgements(input, follower));
+      streamEntries(output, cursor);
+    } catch (IOException | RejectedExecutionException e) {
+      // ? The follower went away or the leader closed
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      this.openSockets.remove(socket);
+      this.ackedSequences.remove(follower);
+    }
+  }
+
+  private void streamEntries(DataOutputStream output, long cursor)
+      throws IOException, InterruptedException {
+    Message[] batch = new Message[SEND_BATCH];
+    while (true) {
+      int count = 0;
+      long last;
+      boolean behindRing = false;
+      synchronized (this) {
+        if (!this.closed && cursor == this.lastSequence) {
+          wait(HEARTBEAT_MILLIS);
+        }
+        if (this.closed) {
+          return;
+        }
+        last = this.lastSequence;
+        if (cursor < last - this.log.length) {
+          behindRing = true;
+        } else {
+          count = (int) Math.min(batch.length, last - cursor);
+          for (int i = 0; i < count; i++) {
+            batch[i] = this.log[ringIndex(cursor + 1 + i)];
+          }
+        }
+      }
+      if (behindRing) {
+        cursor = sendSnapshot(output);
+      } else if (count == 0) {
+        ReplicationProtocol.write(output, ReplicationProtocol.heartbeat(last));
+      }
+      for (int i = 0; i < count; i++) {
+        ReplicationProtocol.write(output, batch[i]);
+        batch[i] = null;
+      }
+      cursor += count;
+      output.flush();
+    }
+  }
+
+  /** Sends the whole storage and book as they are at one sequence, and returns it. */
+  private long sendSnapshot(DataOutputStream output) throws IOException {
+    long sequence;
+    List<Message> chunks;
+    // ? Changes are logged with the storage or book locked, so none can slip in here
+    synchronized (this.foodStorage) {
+      synchronized (this.recipeBook) {
+        synchronized (this) {
+          sequence = this.lastSequence;
+        }
+        chunks = ReplicationProtocol.snapshotChunks(sequence,
+            new ArrayList<>(this.foodStorage.getIngredients().values()),
+            new ArrayList<>(this.recipeBook.getRecipes().values()));
+      }
+    }
+    ReplicationProtocol.write(output,
+        ReplicationProtocol.snapshotMarker(ReplicationProtocol.SNAPSHOT_BEGIN, sequence));
+    for (Message chunk : chunks) {
+      ReplicationProtocol.write(output, chunk);
+    }
+    ReplicationProtocol.write(output,
+        ReplicationProtocol.snapshotMarker(ReplicationProtocol.SNAPSHOT_END, sequence));
+    return sequence;
+  }
+
+  private void readAcknowledgements(DataInputStream input, String follower) {
+    try {
+      while (true) {
+        long applied = input.readLong();
+        synchronized (this.ackLock) {
+          this.ackedSequences.computeIfPresent(follower, (key, acked) -> applied);
+          this.ackLock.notifyAll();
+        }
+      }
+    } catch (IOException e) {
+      // ? The connection closed, the sending side cleans up
+    }
+  }
+
+  private static void closeQuietly(AutoCloseable closeable) {
+    try {
+      closeable.close();
+    } catch (Exception e) {
+      // ? Nothing left to do with a connection that fails to close
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.EntityReader;
+import edu.ntnu.iir.bidata.entity.EntityWriter;
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The ReplicationProtocol class holds the wire format shared by {@link ReplicationLeader}
+ * and {@link ReplicationFollower}.
+ *
+ * <p>A follower opens the connection with the int {@link #MAGIC}, the log id it last
+ * followed (0 for none) and the last sequence it applied. After that it only sends its
+ * applied sequence as a long, as an acknowledgement. The leader sends messages framed as
+ * <pre>
+ *   byte  message type
+ *   long  sequence
+ *   int   payload length in bytes
+ *   ...   payload
+ * </pre>
+ * The first message is always HELLO, with the log id as payload. Log entries replay one
+ * change of the leader each, with the same call on the follower, so both end up with
+ * bit for bit the same amounts:
+ * <pre>
+ *   INGREDIENT_ADDED    an entity stream with the added ingredient
+ *   INGREDIENT_CHANGED  double amount change, UTF-8 name
+ *   INGREDIENT_REMOVED  UTF-8 name
+ *   RECIPE_ADDED        an entity stream with the added recipe
+ *   RECIPE_REMOVED      UTF-8 name
+ * </pre>
+ * A snapshot is SNAPSHOT_BEGIN, chunks of entity streams with every ingredient and
+ * recipe, and SNAPSHOT_END, all with the sequence the snapshot was taken at. HEARTBEAT
+ * carries the last sequence of the leader when there is nothing else to send.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+final class ReplicationProtocol {
+
+  /** The first int a follower sends, "FWRP" in ASCII. */
+  static final int MAGIC = 0x46575250;
+
+  static final byte HELLO = 1;
+  static final byte HEARTBEAT = 2;
+  static final byte SNAPSHOT_BEGIN = 3;
+  static final byte SNAPSHOT_CHUNK = 4;
+  static final byte SNAPSHOT_END = 5;
+  static final byte INGREDIENT_ADDED = 10;
+  static final byte INGREDIENT_CHANGED = 11;
+  static final byte INGREDIENT_REMOVED = 12;
+  static final byte RECIPE_ADDED = 13;
+  static final byte RECIPE_REMOVED = 14;
+
+  /** Bytes of entity records gathered before a snapshot chunk is cut. */
+  static final int SNAPSHOT_CHUNK_BYTES = 256 * 1024;
+
+  /** Largest payload a follower accepts. */
+  static final int MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+
+  private static final byte[] NO_PAYLOAD = new byte[0];
+
+  private ReplicationProtocol() {
+  }
+
+  /** One message from the leader. */
+  static final class Message {
+
+    final byte type;
+    final long sequence;
+    final byte[] payload;
+
+    Message(byte type, long sequence, byte[] payload) {
+      this.type = type;
+      this.sequence = sequence;
+      this.payload = payload;
+    }
+  }
+
+  static Message hello(long logId, long lastSequence) {
+    return new Message(HELLO, lastSequence, ByteBuffer.allocate(Long.BYTES).putLong(logId)
+        .array());
+  }
+
+  static Message heartbeat(long lastSequence) {
+    return new Message(HEARTBEAT, lastSequence, NO_PAYLOAD);
+  }
+
+  static Message snapshotMarker(byte type, long sequence) {
+    return new Message(type, sequence, NO_PAYLOAD);
+  }
+
+  static Message ingredientAdded(long sequence, Ingredient ingredient) {
+    for (int capacity = 256; ; capacity *= 2) {
+      ByteBuffer buffer = ByteBuffer.allocate(capacity);
+      try {
+        new EntityWriter(buffer).writeIngredient(ingredient);
+        return new Message(INGREDIENT_ADDED, sequence, bytesOf(buffer));
+      } catch (BufferOverflowException e) {
+        // ? A long name, try again with a bigger buffer
+      }
+    }
+  }
+
+  static Message ingredientChanged(long sequence, String ingredientName, double change) {
+    byte[] name = ingredientName.getBytes(StandardCharsets.UTF_8);
+    return new Message(INGREDIENT_CHANGED, sequence,
+        ByteBuffer.allocate(Double.BYTES + name.length).putDouble(change).put(name).array());
+  }
+
+  static Message named(byte type, long sequence, String name) {
+    return new Message(type, sequence, name.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static Message recipeAdded(long sequence, Recipe recipe) {
+    for (int capacity = 512; ; capacity *= 2) {
+      ByteBuffer buffer = ByteBuffer.allocate(capacity);
+      try {
+        new EntityWriter(buffer).writeRecipe(recipe);
+        return new Message(RECIPE_ADDED, sequence, bytesOf(buffer));
+      } catch (BufferOverflowException e) {
+        // ? A long recipe, try again with a bigger buffer
+      }
+    }
+  }
+
+  /**
+   * Encodes ingredients and recipes as snapshot chunks of about
+   * {@link #SNAPSHOT_CHUNK_BYTES} each.
+   */
+  static List<Message> snapshotChunks(long sequence, Collection<Ingredient> ingredients,
+      Collection<Recipe> recipes) {
+    List<Message> chunks = new ArrayList<>();
+    ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_CHUNK_BYTES);
+    EntityWriter writer = new EntityWriter(buffer);
+    int chunkEntityCount = 0;
+    List<Object> entities = new ArrayList<>(ingredients.size() + recipes.size());
+    entities.addAll(ingredients);
+    entities.addAll(recipes);
+    for (Object entity : entities) {
+      while (true) {
+        try {
+          if (entity instanceof Ingredient ingredient) {
+            writer.writeIngredient(ingredient);
+          } else {
+            writer.writeRecipe((Recipe) entity);
+          }
+          chunkEntityCount++;
+          break;
+        } catch (BufferOverflowException e) {
+          // ? Cut the chunk, or grow it if even an empty chunk is too small
+          int capacity = chunkEntityCount > 0 ? SNAPSHOT_CHUNK_BYTES : buffer.capacity() * 2;
+          if (chunkEntityCount > 0) {
+            chunks.add(new Message(SNAPSHOT_CHUNK, sequence, bytesOf(buffer)));
+          }
+          buffer = ByteBuffer.allocate(capacity);
+          writer = new EntityWriter(buffer);
+          chunkEntityCount = 0;
+        }
+      }
+    }
+    if (chunkEntityCount > 0) {
+      chunks.add(new Message(SNAPSHOT_CHUNK, sequence, bytesOf(buffer)));
+    }
+    return chunks;
+  }
+
+  static byte[] bytesOf(ByteBuffer buffer) {
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+
+  static EntityReader entityReaderOf(byte[] payload) {
+    return new EntityReader(ByteBuffer.wrap(payload));
+  }
+
+  static String nameOf(byte[] payload, int offset) {
+    return new String(payload, offset, payload.length - offset, StandardCharsets.UTF_8);
+  }
+
+  static void write(DataOutputStream output, Message message) throws IOException {
+    output.writeByte(message.type);
+    output.writeLong(message.sequence);
+    output.writeInt(message.payload.length);
+    output.write(message.payload);
+  }
+
+  static Message read(DataInputStream input) throws IOException {
+    byte type = input.readByte();
+    long sequence = input.readLong();
+    int length = input.readInt();
+    if (length < 0 || length > MAX_PAYLOAD_BYTES) {
+      throw new IOException("ERR: replication message of " + length + " bytes");
+    }
+    byte[] payload = new byte[length];
+    input.readFully(payload);
+    return new Message(type, sequence, payload);
+  }
+}
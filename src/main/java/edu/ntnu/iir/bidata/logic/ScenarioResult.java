@@ -0,0 +1,81 @@
+package edu.ntnu.iir.bidata.logic;
+
+/**
+ * The ScenarioResult class holds the outcome of one simulated scenario of a
+ * {@link PantrySimulator}.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class ScenarioResult {
+
+  private final long seed;
+  private final double wasteValue;
+  private final double purchaseCost;
+  private final int stockOuts;
+  private final int mealsCooked;
+
+  /**
+   * Constructs a ScenarioResult.
+   *
+   * @param seed the seed the scenario was run with
+   * @param wasteValue the value of every ingredient that expired
+   * @param purchaseCost the price of every lot that was bought
+   * @param stockOuts the number of meals that couldnt be cooked
+   * @param mealsCooked the number of meals that were cooked
+   */
+  public ScenarioResult(
+      long seed, double wasteValue, double purchaseCost, int stockOuts, int mealsCooked) {
+    this.seed = seed;
+    this.wasteValue = wasteValue;
+    this.purchaseCost = purchaseCost;
+    this.stockOuts = stockOuts;
+    this.mealsCooked = mealsCooked;
+  }
+
+  /**
+   * Returns the seed the scenario was run with. Running it again with the same seed
+   * gives the same result.
+   *
+   * @return the seed
+   */
+  public long getSeed() {
+    return this.seed;
+  }
+
+  /**
+   * Returns the value of every ingredient that expired.
+   *
+   * @return the waste value
+   */
+  public double getWasteValue() {
+    return this.wasteValue;
+  }
+
+  /**
+   * Returns the price of every lot that was bought.
+   *
+   * @return the purchase cost
+   */
+  public double getPurchaseCost() {
+    return this.purchaseCost;
+  }
+
+  /**
+   * Returns the number of meals that couldnt be cooked for lack of ingredients.
+   *
+   * @return the stock-out count
+   */
+  public int getStockOuts() {
+    return this.stockOuts;
+  }
+
+  /**
+   * Returns the number of meals that were cooked.
+   *
+   * @return the cooked meal count
+   */
+  public int getMealsCooked() {
+    return this.mealsCooked;
+  }
+}
@@ -0,0 +1,487 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The ShardedRecipeBook class spreads a recipe book over several
+ * {@link RecipeShardServer} processes, so no single process has to hold and scan every
+ * recipe.
+ *
+ * <p>Every recipe lives on the shard picked by the hash of its name, which is the same in
+ * every JVM. Adding, removing and checking one recipe goes to that shard only. Queries
+ * over all recipes are scattered to every shard at once, each on its own virtual thread,
+ * and the answers are gathered and merged into one top list. Food storage queries send
+ * the ingredients of the storage along, encoded once for all shards.
+ *
+ * <p>Every call has one deadline, {@code timeoutMillis} after it starts, shared by all
+ * its shards. A shard that hasnt answered by then is given up on and its connection is
+ * closed, so no request outlives the call. A query then returns the merged answer of the
+ * other shards, marked as partial with the shards that failed; single-shard calls throw
+ * instead. Connections are kept open between calls and reused.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * try (ShardedRecipeBook recipes = new ShardedRecipeBook(shardAddresses)) {
+ *   recipes.addRecipe(pancakes);
+ *   ShardedResult<CoverageMatch> matches = recipes.findBestMatches(foodStorage, 10);
+ * }
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class ShardedRecipeBook implements AutoCloseable {
+
+  /** Default milliseconds a call waits for the shards. */
+  public static final long DEFAULT_TIMEOUT_MILLIS = 1000;
+
+  private static final Comparator<CoverageMatch> BEST_COVERAGE_FIRST = (left, right) -> {
+    // ? Compares covered / required without dividing, like RecipeCoverageIndex
+    int byCoverage = Long.compare((long) right.getCoveredCount() * left.getRequiredCount(),
+        (long) left.getCoveredCount() * right.getRequiredCount());
+    if (byCoverage != 0) {
+      return byCoverage;
+    }
+    int byMissing = Integer.compare(left.getMissingIngredients().size(),
+        right.getMissingIngredients().size());
+    if (byMissing != 0) {
+      return byMissing;
+    }
+    return left.getRecipeName().compareTo(right.getRecipeName());
+  };
+
+  private static final Comparator<Map.Entry<String, Float>> BEST_SCORE_FIRST =
+      Map.Entry.<String, Float>comparingByValue().reversed()
+          .thenComparing(Map.Entry.comparingByKey());
+
+  private final List<InetSocketAddress> shardAddresses;
+  private final long timeoutNanos;
+  private final List<Queue<ShardConnection>> idleConnections = new ArrayList<>();
+  private volatile boolean closed;
+
+  /**
+   * Constructs a ShardedRecipeBook with the default timeout.
+   *
+   * @param shardAddresses the address of every shard, in the same order for every client
+   * @throws IllegalArgumentException if the list is null or empty or holds null
+   */
+  public ShardedRecipeBook(List<InetSocketAddress> shardAddresses) {
+    this(shardAddresses, DEFAULT_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Constructs a ShardedRecipeBook.
+   *
+   * @param shardAddresses the address of every shard, in the same order for every client
+   * @param timeoutMillis the milliseconds a call waits for the shards, must be above 0
+   * @throws IllegalArgumentException if the list is null or empty or holds null, or the
+   *                                  timeout is below 1
+   */
+  public ShardedRecipeBook(List<InetSocketAddress> shardAddresses, long timeoutMillis) {
+    if (shardAddresses == null || shardAddresses.isEmpty()) {
+      throw new IllegalArgumentException("ERR: shard addresses cant be null or empty");
+    }
+    for (InetSocketAddress shardAddress : shardAddresses) {
+      if (shardAddress == null) {
+        throw new IllegalArgumentException("ERR: shard address cant be null");
+      }
+    }
+    if (timeoutMillis < 1) {
+      throw new IllegalArgumentException("ERR: timeout must be above 0");
+    }
+    this.shardAddresses = List.copyOf(shardAddresses);
+    this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    for (int i = 0; i < shardAddresses.size(); i++) {
+      this.idleConnections.add(new ConcurrentLinkedQueue<>());
+    }
+  }
+
+  /**
+   * Returns the number of shards.
+   *
+   * @return the shard count
+   */
+  public int getShardCount() {
+    return this.shardAddresses.size();
+  }
+
+  /**
+   * Returns the index of the shard that holds a recipe.
+   *
+   * @param recipeName the name of the recipe
+   * @return the shard index
+   * @throws IllegalArgumentException if the name is null
+   */
+  public int shardOf(String recipeName) {
+    if (recipeName == null) {
+      throw new IllegalArgumentException("ERR: recipe name cant be null");
+    }
+    return Math.floorMod(recipeName.hashCode(), this.shardAddresses.size());
+  }
+
+  /**
+   * Adds a recipe to its shard, replacing a recipe with the same name.
+   *
+   * @param recipe the recipe to add
+   * @throws IOException if the shard cant be reached or doesnt answer in time
+   * @throws IllegalArgumentException if the recipe is null
+   */
+  public void addRecipe(Recipe recipe) throws IOException {
+    if (recipe == null) {
+      throw new IllegalArgumentException("ERR: recipe cant be null");
+    }
+    byte[] entities = RecipeShardProtocol.encodeEntities(List.of(recipe));
+    try (TraceSpan span = Tracer.startSpan("ShardedRecipeBook.addRecipe")) {
+      call(shardOf(recipe.getRecipeName()), RecipeShardProtocol.ADD_RECIPE,
+          output -> RecipeShardProtocol.writeBytes(output, entities), input -> null,
+          deadline());
+    }
+  }
+
+  /**
+   * Removes a recipe from its shard.
+   *
+   * @param recipeName the name of the recipe to remove
+   * @throws IOException if the shard cant be reached or doesnt answer in time
+   * @throws IllegalArgumentException if the name is null or the shard has no such recipe
+   */
+  public void removeRecipe(String recipeName) throws IOException {
+    try (TraceSpan span = Tracer.startSpan("ShardedRecipeBook.removeRecipe")) {
+      call(shardOf(recipeName), RecipeShardProtocol.REMOVE_RECIPE,
+          output -> RecipeShardProtocol.writeString(output, recipeName), input -> null,
+          deadline());
+    }
+  }
+
+  /**
+   * Checks if a recipe can be made with the ingredients in a food storage, on the shard
+   * that holds the recipe.
+   *
+   * @param recipeName the name of the recipe to check
+   * @param foodStorage the storage to check it against
+   * @return the report for the recipe
+   * @throws IOException if the shard cant be reached or doesnt answer in time
+   * @throws IllegalArgumentException if the name or storage is null, or the shard has no
+   *                                  such recipe
+   */
+  public CookabilityReport checkIfCookable(String recipeName, FoodStorage foodStorage)
+      throws IOException {
+    byte[] ingredients = encodeStorage(foodStorage);
+    try (TraceSpan span = Tracer.startSpan("ShardedRecipeBook.checkIfCookable")) {
+      return call(shardOf(recipeName), RecipeShardProtocol.CHECK, output -> {
+        RecipeShardProtocol.writeString(output, recipeName);
+        RecipeShardProtocol.writeBytes(output, ingredients);
+      }, RecipeShardProtocol::readReport, deadline());
+    }
+  }
+
+  /**
+   * Finds the recipes best covered by the ingredients in a food storage, over every
+   * shard. Expired ingredients dont count.
+   *
+   * @param foodStorage the storage with the ingredients at hand
+   * @param count the most recipes to return
+   * @return the best covered recipes of the shards that answered, best first
+   * @throws IllegalArgumentException if the storage is null or the count is negative
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public ShardedResult<CoverageMatch> findBestMatches(FoodStorage foodStorage, int count)
+      throws InterruptedException {
+    byte[] ingredients = encodeStorage(foodStorage);
+    validateCount(count);
+    try (TraceSpan span = Tracer.startSpan("ShardedRecipeBook.findBestMatches")) {
+      return scatter(RecipeShardProtocol.FIND_BEST_MATCHES, output -> {
+        output.writeInt(count);
+        RecipeShardProtocol.writeBytes(output, ingredients);
+      }, input -> {
+        int matchCount = RecipeShardProtocol.readCount(input);
+        List<CoverageMatch> matches = new ArrayList<>(matchCount);
+        for (int i = 0; i < matchCount; i++) {
+          matches.add(RecipeShardProtocol.readMatch(input));
+        }
+        return matches;
+      }, BEST_COVERAGE_FIRST, count);
+    }
+  }
+
+  /**
+   * Finds the recipes that best match a query, over every shard. The shards are asked
+   * for their word counts first, and then all rank with the sums, so the merged list is
+   * the one a single book would give. Both rounds share the deadline of the call, and
+   * the first may take at most half of it.
+   *
+   * @param query the words to search for
+   * @param count the most recipes to return
+   * @return the names of the matching recipes of the shards that answered, best first
+   * @throws IllegalArgumentException if the query is null or the count is negative
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public ShardedResult<String> search(String query, int count) throws InterruptedException {
+    if (query == null) {
+      throw new IllegalArgumentException("ERR: query cant be null");
+    }
+    validateCount(count);
+    try (TraceSpan span = Tracer.startSpan("ShardedRecipeBook.search")) {
+      long deadline = deadline();
+      // ? A silent shard may only use up half the time, the ranking round needs the rest
+      ShardedResult<RecipeSearchIndex.TermStatistics> shardStatistics = gather(
+          RecipeShardProtocol.TERM_STATISTICS,
+          output -> RecipeShardProtocol.writeString(output, query),
+          input -> List.of(RecipeShardProtocol.readStatistics(input)),
+          deadline - this.timeoutNanos / 2);
+      RecipeSearchIndex.TermStatistics statistics = new RecipeSearchIndex.TermStatistics();
+      for (RecipeSearchIndex.TermStatistics shardStatistic : shardStatistics.getResults()) {
+        statistics.add(shardStatistic);
+      }
+      ShardedResult<Map.Entry<String, Float>> hits = gather(RecipeShardProtocol.SEARCH,
+          output -> {
+            output.writeInt(count);
+            RecipeShardProtocol.writeString(output, query);
+            RecipeShardProtocol.writeStatistics(output, statistics);
+          }, input -> {
+            int hitCount = RecipeShardProtocol.readCount(input);
+            List<Map.Entry<String, Float>> shardHits = new ArrayList<>(hitCount);
+            for (int i = 0; i < hitCount; i++) {
+              shardHits.add(Map.entry(RecipeShardProtocol.readString(input),
+                  input.readFloat()));
+            }
+            return shardHits;
+          }, deadline);
+      List<Map.Entry<String, Float>> bestHits = new ArrayList<>(hits.getResults());
+      bestHits.sort(BEST_SCORE_FIRST);
+      List<String> names = new ArrayList<>(Math.min(count, bestHits.size()));
+      for (Map.Entry<String, Float> hit : bestHits.subList(0, Math.min(count, bestHits.size()))) {
+        names.add(hit.getKey());
+      }
+      Map<Integer, String> failedShards = new TreeMap<>(shardStatistics.getFailedShards());
+      failedShards.putAll(hits.getFailedShards());
+      return new ShardedResult<>(names, hits.getShardCount(), failedShards);
+    }
+  }
+
+  /**
+   * Finds the recipes that can be made with the ingredients in a food storage, over
+   * every shard.
+   *
+   * @param foodStorage the storage to check the recipes against
+   * @param count the most recipes to return
+   * @return the names of the ready recipes of the shards that answered, sorted by name
+   * @throws IllegalArgumentException if the storage is null or the count is negative
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public ShardedResult<String> suggestRecipesToMake(FoodStorage foodStorage, int count)
+      throws InterruptedException {
+    byte[] ingredients = encodeStorage(foodStorage);
+    validateCount(count);
+    try (TraceSpan span = Tracer.startSpan("ShardedRecipeBook.suggestRecipesToMake")) {
+      return scatter(RecipeShardProtocol.SUGGEST, output -> {
+        output.writeInt(count);
+        RecipeShardProtocol.writeBytes(output, ingredients);
+      }, RecipeShardProtocol::readStrings, Comparator.naturalOrder(), count);
+    }
+  }
+
+  /**
+   * Closes every open shard connection. The shards keep their recipes.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    for (Queue<ShardConnection> connections : this.idleConnections) {
+      ShardConnection connection;
+      while ((connection = connections.poll()) != null) {
+        closeQuietly(connection.socket);
+      }
+    }
+  }
+
+  private long deadline() {
+    return System.nanoTime() + this.timeoutNanos;
+  }
+
+  private static void validateCount(int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("ERR: count cant be negative");
+    }
+  }
+
+  private static byte[] encodeStorage(FoodStorage foodStorage) {
+    if (foodStorage == null) {
+      throw new IllegalArgumentException("ERR: food storage cant be null");
+    }
+    return RecipeShardProtocol.encodeEntities(foodStorage.getIngredients().values());
+  }
+
+  /**
+   * Sends one request to every shard and merges the answers. Shards that fail or miss
+   * the deadline are left out and reported.
+   */
+  private <T> ShardedResult<T> scatter(byte type, RequestWriter request,
+      ResponseReader<List<T>> response, Comparator<? super T> order, int count)
+      throws InterruptedException {
+    ShardedResult<T> gathered = gather(type, request, response, deadline());
+    List<T> results = new ArrayList<>(gathered.getResults());
+    results.sort(order);
+    return new ShardedResult<>(new ArrayList<>(results.subList(0, Math.min(count,
+        results.size()))), gathered.getShardCount(), gathered.getFailedShards());
+  }
+
+  /**
+   * Sends one request to every shard and gathers the answers, in shard order. Shards
+   * that fail or miss the deadline are left out and reported.
+   */
+  private <T> ShardedResult<T> gather(byte type, RequestWriter request,
+      ResponseReader<List<T>> response, long deadline) throws InterruptedException {
+    int shardCount = this.shardAddresses.size();
+    List<T> gathered = new ArrayList<>();
+    Map<Integer, String> failedShards = new TreeMap<>();
+    // ? Closing the executor waits for every shard call, so none outlives this one
+    try (ExecutorService shardCalls = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<List<T>>> answers = new ArrayList<>(shardCount);
+      for (int i = 0; i < shardCount; i++) {
+        int shardIndex = i;
+        answers.add(shardCalls.submit(
+            () -> call(shardIndex, type, request, response, deadline)));
+      }
+      for (int i = 0; i < shardCount; i++) {
+        Future<List<T>> answer = answers.get(i);
+        try {
+          gathered.addAll(answer.get(Math.max(0, deadline - System.nanoTime()),
+              TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+          answer.cancel(true);
+          failedShards.put(i, "timed out");
+        } catch (ExecutionException e) {
+          failedShards.put(i, String.valueOf(e.getCause().getMessage()));
+        }
+      }
+    }
+    return new ShardedResult<>(gathered, shardCount, failedShards);
+  }
+
+  /**
+   * Sends one request to a shard and reads the answer, on a kept connection if there is
+   * one. A kept connection that turns out to be broken is replaced once.
+   */
+  private <T> T call(int shardIndex, byte type, RequestWriter request,
+      ResponseReader<T> response, long deadline) throws IOException {
+    ShardConnection connection = this.idleConnections.get(shardIndex).poll();
+    if (connection != null) {
+      try {
+        return call(connection, shardIndex, type, request, response, deadline);
+      } catch (SocketTimeoutException e) {
+        throw e;
+      } catch (IOException e) {
+        // ? The shard may have restarted since the connection was kept
+      }
+    }
+    return call(connect(shardIndex, deadline), shardIndex, type, request, response, deadline);
+  }
+
+  private <T> T call(ShardConnection connection, int shardIndex, byte type,
+      RequestWriter request, ResponseReader<T> response, long deadline) throws IOException {
+    boolean reusable = false;
+    try {
+      connection.socket.setSoTimeout(millisLeft(deadline));
+      connection.output.writeByte(type);
+      request.write(connection.output);
+      connection.output.flush();
+      byte status = connection.input.readByte();
+      if (status == RecipeShardProtocol.FAILED) {
+        String message = RecipeShardProtocol.readString(connection.input);
+        reusable = true;
+        throw new IllegalArgumentException(message);
+      }
+      T result = response.read(connection.input);
+      reusable = true;
+      return result;
+    } finally {
+      if (reusable && !this.closed) {
+        this.idleConnections.get(shardIndex).offer(connection);
+      } else {
+        // ? A connection left mid-answer cant be reused
+        closeQuietly(connection.socket);
+      }
+    }
+  }
+
+  private ShardConnection connect(int shardIndex, long deadline) throws IOException {
+    Socket socket = new Socket();
+    try {
+      socket.connect(this.shardAddresses.get(shardIndex), millisLeft(deadline));
+      socket.setTcpNoDelay(true);
+      ShardConnection connection = new ShardConnection(socket);
+      connection.output.writeInt(RecipeShardProtocol.MAGIC);
+      return connection;
+    } catch (IOException e) {
+      closeQuietly(socket);
+      throw e;
+    }
+  }
+
+  private static int millisLeft(long deadline) throws SocketTimeoutException {
+    long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    if (left < 1) {
+      throw new SocketTimeoutException("timed out");
+    }
+    return (int) Math.min(left, Integer.MAX_VALUE);
+  }
+
+  private static void closeQuietly(AutoCloseable closeable) {
+    try {
+      closeable.close();
+    } catch (Exception e) {
+      // ? Nothing left to do with a connection that fails to close
+    }
+  }
+
+  /** Writes the arguments of a request. */
+  private interface RequestWriter {
+
+    void write(DataOutputStream output) throws IOException;
+  }
+
+  /** Reads the result of a request that succeeded. */
+  private interface ResponseReader<T> {
+
+    T read(DataInputStream input) throws IOException;
+  }
+
+  /** One open connection to a shard. */
+  private static final class ShardConnection {
+
+    final Socket socket;
+    final DataInputStream input;
+    final DataOutputStream output;
+
+    ShardConnection(Socket socket) throws IOException {
+      this.socket = socket;
+      this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+  }
+}
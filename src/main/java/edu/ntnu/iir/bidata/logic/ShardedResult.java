@@ -0,0 +1,73 @@
+package edu.ntnu.iir.bidata.logic;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ShardedResult class holds the merged answer of a {@link ShardedRecipeBook} query,
+ * together with the shards that didnt answer in time.
+ *
+ * <p>A result with failed shards is partial: it is the best answer of the shards that
+ * did answer, and recipes held by the failed shards are missing from it.
+ *
+ * @param <T> the type of the results
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class ShardedResult<T> {
+
+  private final List<T> results;
+  private final int shardCount;
+  private final Map<Integer, String> failedShards;
+
+  /**
+   * Constructs a ShardedResult.
+   *
+   * @param results the merged results, best first
+   * @param shardCount the number of shards asked
+   * @param failedShards the index of every shard that didnt answer, mapped to the reason
+   */
+  public ShardedResult(List<T> results, int shardCount, Map<Integer, String> failedShards) {
+    this.results = Collections.unmodifiableList(results);
+    this.shardCount = shardCount;
+    this.failedShards = Collections.unmodifiableMap(failedShards);
+  }
+
+  /**
+   * Returns the merged results.
+   *
+   * @return an unmodifiable list of the results, best first
+   */
+  public List<T> getResults() {
+    return this.results;
+  }
+
+  /**
+   * Returns the number of shards asked.
+   *
+   * @return the shard count
+   */
+  public int getShardCount() {
+    return this.shardCount;
+  }
+
+  /**
+   * Returns the shards that didnt answer, by index, with the reason: a timeout, a lost
+   * connection or an error of the shard.
+   *
+   * @return an unmodifiable map from shard index to reason
+   */
+  public Map<Integer, String> getFailedShards() {
+    return this.failedShards;
+  }
+
+  /**
+   * Checks if every shard answered.
+   *
+   * @return true if the result is complete, false if it is partial
+   */
+  public boolean isComplete() {
+    return this.failedShards.isEmpty();
+  }
+}
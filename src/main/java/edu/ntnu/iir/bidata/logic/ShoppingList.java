@@ -0,0 +1,73 @@
+package edu.ntnu.iir.bidata.logic;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ShoppingList class is the consolidated purchase list for a meal plan, made by a
+ * {@link ShoppingListGenerator}.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class ShoppingList {
+
+  private final List<ShoppingListItem> items;
+  private final double totalCost;
+
+  /**
+   * Constructs a ShoppingList.
+   *
+   * @param items the items to buy
+   */
+  public ShoppingList(List<ShoppingListItem> items) {
+    this.items = Collections.unmodifiableList(items);
+    double sum = 0.0;
+    for (ShoppingListItem item : items) {
+      sum += item.getEstimatedCost();
+    }
+    this.totalCost = sum;
+  }
+
+  /**
+   * Returns the items to buy.
+   *
+   * @return an unmodifiable list of items, sorted by ingredient name
+   */
+  public List<ShoppingListItem> getItems() {
+    return this.items;
+  }
+
+  /**
+   * Returns the item for an ingredient.
+   *
+   * @param ingredientName the name of the ingredient
+   * @return the item, or null if the ingredient doesnt have to be bought
+   */
+  public ShoppingListItem getItem(String ingredientName) {
+    for (ShoppingListItem item : this.items) {
+      if (item.getIngredientName().equals(ingredientName)) {
+        return item;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the estimated cost of every item together.
+   *
+   * @return the total cost
+   */
+  public double getTotalCost() {
+    return this.totalCost;
+  }
+
+  /**
+   * Checks if nothing has to be bought.
+   *
+   * @return true if the list has no items
+   */
+  public boolean isEmpty() {
+    return this.items.isEmpty();
+  }
+}
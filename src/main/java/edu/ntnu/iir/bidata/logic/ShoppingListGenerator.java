@@ -0,0 +1,156 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The ShoppingListGenerator class works out what to buy for a meal plan, given what is
+ * already in a {@link FoodStorage}.
+ *
+ * <p>The plan is walked once, day by day. Every requirement of every meal is scaled to
+ * the planned servings and taken from the stock left of that ingredient, but only if the
+ * stock hasnt expired by the day of the meal; whatever the stock cant cover is added to
+ * the list. Each ingredient is looked up in the storage once, the first time a meal
+ * needs it, so the cost is one pass over the requirements of the plan and never a scan
+ * of the storage.
+ *
+ * <p>Costs are estimated from the price per amount of the stored ingredient. Ingredients
+ * that arent stored can be priced with a map of fallback prices; without one, their cost
+ * is 0 and the item is marked as having no known price.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * ShoppingListGenerator generator = new ShoppingListGenerator(foodStorage);
+ * ShoppingList list = generator.generate(List.of(
+ *     new MealPlanEntry(stew, 4, LocalDate.parse("2024-05-01")),
+ *     new MealPlanEntry(salad, 2, LocalDate.parse("2024-05-02"))));
+ * double total = list.getTotalCost();
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class ShoppingListGenerator {
+
+  // ? Amounts below this are rounding noise from scaling, not something to buy
+  private static final double AMOUNT_EPSILON = 1e-9;
+
+  private final FoodStorage foodStorage;
+
+  /**
+   * Constructs a ShoppingListGenerator.
+   *
+   * @param foodStorage the storage whose stock is used first
+   * @throws IllegalArgumentException if the storage is null
+   */
+  public ShoppingListGenerator(FoodStorage foodStorage) {
+    if (foodStorage == null) {
+      throw new IllegalArgumentException("ERR: storage cant be null");
+    }
+    this.foodStorage = foodStorage;
+  }
+
+  /**
+   * Generates the shopping list for a plan, pricing only stored ingredients.
+   *
+   * @param mealPlan the meals to make
+   * @return the consolidated shopping list
+   * @throws IllegalArgumentException if the plan is null or has a null entry
+   */
+  public ShoppingList generate(List<MealPlanEntry> mealPlan) {
+    return generate(mealPlan, Collections.emptyMap());
+  }
+
+  /**
+   * Generates the shopping list for a plan.
+   *
+   * @param mealPlan the meals to make
+   * @param fallbackPrices the price per amount of ingredients that arent stored
+   * @return the consolidated shopping list
+   * @throws IllegalArgumentException if the plan or prices are null, or the plan has a
+   *                                  null entry
+   */
+  public ShoppingList generate(List<MealPlanEntry> mealPlan, Map<String, Double> fallbackPrices) {
+    if (mealPlan == null || fallbackPrices == null) {
+      throw new IllegalArgumentException("ERR: meal plan and prices cant be null");
+    }
+    try (TraceSpan span = Tracer.startSpan("ShoppingListGenerator.generate")) {
+      List<MealPlanEntry> mealsByDay = new ArrayList<>(mealPlan);
+      for (MealPlanEntry entry : mealsByDay) {
+        if (entry == null) {
+          throw new IllegalArgumentException("ERR: meal plan cant contain null");
+        }
+      }
+      // ? Earlier meals use the stock first, so stock that expires goes to them
+      mealsByDay.sort(Comparator.comparing(MealPlanEntry::getDay));
+
+      Map<String, Ingredient> storedIngredients = this.foodStorage.getIngredients();
+      Map<String, Need> needs = new HashMap<>();
+      for (MealPlanEntry entry : mealsByDay) {
+        double scale = entry.getScale();
+        Recipe recipe = entry.getRecipe();
+        for (int i = 0; i < recipe.getIngredientCount(); i++) {
+          String ingredientName = recipe.getIngredientName(i);
+          Need need = needs.get(ingredientName);
+          if (need == null) {
+            need = new Need(storedIngredients.get(ingredientName),
+                recipe.getIngredientMeasurment(i));
+            needs.put(ingredientName, need);
+          }
+          double requiredAmount = recipe.getIngredientAmount(i) * scale;
+          if (need.stock != null && !need.stock.isExpiredOn(entry.getDay())) {
+            double usedStock = Math.min(need.stockLeft, requiredAmount);
+            need.stockLeft -= usedStock;
+            requiredAmount -= usedStock;
+          }
+          need.amountToBuy += requiredAmount;
+        }
+      }
+      return toShoppingList(needs, fallbackPrices);
+    }
+  }
+
+  private static ShoppingList toShoppingList(
+      Map<String, Need> needs, Map<String, Double> fallbackPrices) {
+    Map<String, ShoppingListItem> itemsByName = new TreeMap<>();
+    for (Map.Entry<String, Need> entry : needs.entrySet()) {
+      Need need = entry.getValue();
+      if (need.amountToBuy <= AMOUNT_EPSILON) {
+        continue;
+      }
+      Double pricePerAmount = need.stock != null
+          ? Double.valueOf(need.stock.getIngredientPricePerAmount())
+          : fallbackPrices.get(entry.getKey());
+      boolean priceKnown = pricePerAmount != null;
+      double estimatedCost = priceKnown ? pricePerAmount * need.amountToBuy : 0.0;
+      itemsByName.put(entry.getKey(), new ShoppingListItem(entry.getKey(),
+          need.amountToBuy, need.measurement, estimatedCost, priceKnown));
+    }
+    return new ShoppingList(new ArrayList<>(itemsByName.values()));
+  }
+
+  /** What the plan needs of one ingredient, and what is left of its stock. */
+  private static final class Need {
+
+    private final Ingredient stock;
+    private final String measurement;
+    private double stockLeft;
+    private double amountToBuy;
+
+    Need(Ingredient stock, String measurement) {
+      this.stock = stock;
+      this.measurement = measurement;
+      this.stockLeft = stock == null ? 0.0 : stock.getIngredientAmount();
+    }
+  }
+}
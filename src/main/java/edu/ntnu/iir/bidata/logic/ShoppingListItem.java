@@ -0,0 +1,84 @@
+package edu.ntnu.iir.bidata.logic;
+
+/**
+ * The ShoppingListItem class is one line of a {@link ShoppingList}: an ingredient, the
+ * amount to buy and what it is estimated to cost.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class ShoppingListItem {
+
+  private final String ingredientName;
+  private final double amount;
+  private final String measurement;
+  private final double estimatedCost;
+  private final boolean priceKnown;
+
+  /**
+   * Constructs a ShoppingListItem.
+   *
+   * @param ingredientName the name of the ingredient to buy
+   * @param amount the amount to buy
+   * @param measurement the measurement of the amount, "Unit", "G" or "L"
+   * @param estimatedCost the estimated cost of the amount
+   * @param priceKnown false if no price was known and the cost is 0
+   */
+  public ShoppingListItem(
+      String ingredientName,
+      double amount,
+      String measurement,
+      double estimatedCost,
+      boolean priceKnown) {
+    this.ingredientName = ingredientName;
+    this.amount = amount;
+    this.measurement = measurement;
+    this.estimatedCost = estimatedCost;
+    this.priceKnown = priceKnown;
+  }
+
+  /**
+   * Returns the name of the ingredient to buy.
+   *
+   * @return the ingredient name
+   */
+  public String getIngredientName() {
+    return this.ingredientName;
+  }
+
+  /**
+   * Returns the amount to buy.
+   *
+   * @return the amount
+   */
+  public double getAmount() {
+    return this.amount;
+  }
+
+  /**
+   * Returns the measurement of the amount.
+   *
+   * @return "Unit", "G" or "L"
+   */
+  public String getMeasurement() {
+    return this.measurement;
+  }
+
+  /**
+   * Returns the estimated cost of the amount.
+   *
+   * @return the estimated cost, 0 if no price was known
+   */
+  public double getEstimatedCost() {
+    return this.estimatedCost;
+  }
+
+  /**
+   * Returns whether a price was known for the ingredient.
+   *
+   * @return true if the cost is an estimate, false if it is 0 for lack of a price
+   */
+  public boolean isPriceKnown() {
+    return this.priceKnown;
+  }
+}
@@ -0,0 +1,162 @@
+package edu.ntnu.iir.bidata.logic;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The SimulationSummary class aggregates the results of many scenarios run by a
+ * {@link PantrySimulator}: means and percentiles of waste value, purchase cost and
+ * stock-outs.
+ *
+ * <p>Percentiles use the nearest-rank method over the scenarios, so the 50th percentile
+ * is the median scenario and the 100th is the worst one.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class SimulationSummary {
+
+  private final List<ScenarioResult> results;
+  private final double[] sortedWasteValues;
+  private final double[] sortedPurchaseCosts;
+  private final double[] sortedStockOuts;
+  private final long totalStockOuts;
+  private final long totalMealsCooked;
+
+  /**
+   * Constructs a SimulationSummary.
+   *
+   * @param results the results of the scenarios, in scenario order
+   * @throws IllegalArgumentException if there are no results
+   */
+  public SimulationSummary(List<ScenarioResult> results) {
+    if (results == null || results.isEmpty()) {
+      throw new IllegalArgumentException("ERR: summary needs at least one scenario");
+    }
+    this.results = Collections.unmodifiableList(results);
+    int count = results.size();
+    this.sortedWasteValues = new double[count];
+    this.sortedPurchaseCosts = new double[count];
+    this.sortedStockOuts = new double[count];
+    long stockOuts = 0;
+    long mealsCooked = 0;
+    for (int i = 0; i < count; i++) {
+      ScenarioResult result = results.get(i);
+      this.sortedWasteValues[i] = result.getWasteValue();
+      this.sortedPurchaseCosts[i] = result.getPurchaseCost();
+      this.sortedStockOuts[i] = result.getStockOuts();
+      stockOuts += result.getStockOuts();
+      mealsCooked += result.getMealsCooked();
+    }
+    Arrays.sort(this.sortedWasteValues);
+    Arrays.sort(this.sortedPurchaseCosts);
+    Arrays.sort(this.sortedStockOuts);
+    this.totalStockOuts = stockOuts;
+    this.totalMealsCooked = mealsCooked;
+  }
+
+  /**
+   * Returns the number of scenarios.
+   *
+   * @return the scenario count
+   */
+  public int getScenarioCount() {
+    return this.results.size();
+  }
+
+  /**
+   * Returns the result of every scenario.
+   *
+   * @return an unmodifiable list of results, in scenario order
+   */
+  public List<ScenarioResult> getResults() {
+    return this.results;
+  }
+
+  /**
+   * Returns the mean waste value per scenario.
+   *
+   * @return the mean waste value
+   */
+  public double getMeanWasteValue() {
+    return mean(this.sortedWasteValues);
+  }
+
+  /**
+   * Returns the mean purchase cost per scenario.
+   *
+   * @return the mean purchase cost
+   */
+  public double getMeanPurchaseCost() {
+    return mean(this.sortedPurchaseCosts);
+  }
+
+  /**
+   * Returns the mean number of stock-outs per scenario.
+   *
+   * @return the mean stock-out count
+   */
+  public double getMeanStockOuts() {
+    return mean(this.sortedStockOuts);
+  }
+
+  /**
+   * Returns the share of planned meals, over every scenario, that couldnt be cooked.
+   *
+   * @return the stock-out rate from 0 to 1, 0 if no meals were planned
+   */
+  public double getStockOutRate() {
+    long plannedMeals = this.totalStockOuts + this.totalMealsCooked;
+    return plannedMeals == 0 ? 0.0 : (double) this.totalStockOuts / plannedMeals;
+  }
+
+  /**
+   * Returns a percentile of the waste value.
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the waste value of the scenario at that rank
+   * @throws IllegalArgumentException if the percentile is outside 0 to 100
+   */
+  public double getWasteValuePercentile(double percentile) {
+    return percentile(this.sortedWasteValues, percentile);
+  }
+
+  /**
+   * Returns a percentile of the purchase cost.
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the purchase cost of the scenario at that rank
+   * @throws IllegalArgumentException if the percentile is outside 0 to 100
+   */
+  public double getPurchaseCostPercentile(double percentile) {
+    return percentile(this.sortedPurchaseCosts, percentile);
+  }
+
+  /**
+   * Returns a percentile of the stock-out count.
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the stock-out count of the scenario at that rank
+   * @throws IllegalArgumentException if the percentile is outside 0 to 100
+   */
+  public double getStockOutsPercentile(double percentile) {
+    return percentile(this.sortedStockOuts, percentile);
+  }
+
+  private static double mean(double[] values) {
+    double sum = 0.0;
+    for (double value : values) {
+      sum += value;
+    }
+    return sum / values.length;
+  }
+
+  private static double percentile(double[] sortedValues, double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("ERR: percentile must be from 0 to 100");
+    }
+    int rank = (int) Math.ceil(percentile / 100.0 * sortedValues.length);
+    return sortedValues[Math.max(0, rank - 1)];
+  }
+}
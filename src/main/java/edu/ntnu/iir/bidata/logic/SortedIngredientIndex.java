@@ -0,0 +1,148 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The SortedIngredientIndex class keeps the ingredients of a {@link FoodStorage} sorted
+ * by name, by value and by expire date, and lists them a page at a time.
+ *
+ * <p>{@link FoodStorage#getIterator()} follows the order of the map behind the storage.
+ * This index keeps a sorted set per sort order that follows the storage as ingredients
+ * are added, used and removed, so each page costs O(log n + page size). The value of an
+ * ingredient is its amount times its price per amount; a change in amount only moves
+ * that ingredient in the value order. Ingredients with the same key are listed by name.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * SortedIngredientIndex sorted = new SortedIngredientIndex(foodStorage);
+ * Page<Ingredient> soonest = sorted.getPage(SortedIngredientIndex.SortKey.EXPIRY, 10, null);
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public final class SortedIngredientIndex implements FoodStorageListener, AutoCloseable {
+
+  /** The orders ingredients can be listed in. */
+  public enum SortKey {
+    /** By ingredient name. */
+    NAME,
+    /** By value, most valuable first. */
+    VALUE,
+    /** By expire date, soonest first. */
+    EXPIRY
+  }
+
+  private final FoodStorage foodStorage;
+  private final Map<SortKey, KeysetRanking> rankings = new EnumMap<>(SortKey.class);
+  private final Map<String, Ingredient> ingredientsByName = new HashMap<>();
+
+  /**
+   * Constructs a SortedIngredientIndex of the ingredients in a storage, and keeps it up
+   * to date.
+   *
+   * @param foodStorage the storage to list
+   * @throws IllegalArgumentException if the storage is null
+   */
+  public SortedIngredientIndex(FoodStorage foodStorage) {
+    if (foodStorage == null) {
+      throw new IllegalArgumentException("ERR: storage cant be null");
+    }
+    this.foodStorage = foodStorage;
+    for (SortKey sortKey : SortKey.values()) {
+      this.rankings.put(sortKey, new KeysetRanking("ingredient-" + sortKey.name()));
+    }
+    synchronized (foodStorage) {
+      synchronized (this) {
+        for (Ingredient ingredient : foodStorage.getIngredients().values()) {
+          ingredientAdded(ingredient);
+        }
+      }
+      foodStorage.addListener(this);
+    }
+  }
+
+  /**
+   * Returns a page of ingredients.
+   *
+   * @param sortKey the order to list the ingredients in
+   * @param pageSize the most ingredients on the page
+   * @param cursor the next cursor of the previous page, or null for the first page
+   * @return the page of ingredients
+   * @throws IllegalArgumentException if the sort key is null, the page size isnt above 0,
+   *                                  or the cursor isnt from the same sort key
+   */
+  public synchronized Page<Ingredient> getPage(SortKey sortKey, int pageSize, String cursor) {
+    if (sortKey == null) {
+      throw new IllegalArgumentException("ERR: sort key cant be null");
+    }
+    try (TraceSpan span = Tracer.startSpan("SortedIngredientIndex.getPage")) {
+      Page<String> names = this.rankings.get(sortKey).page(pageSize, cursor);
+      List<Ingredient> ingredients = new ArrayList<>(names.getItems().size());
+      for (String ingredientName : names.getItems()) {
+        ingredients.add(this.ingredientsByName.get(ingredientName));
+      }
+      return new Page<>(ingredients, names.getNextCursor());
+    }
+  }
+
+  /**
+   * Returns the number of listed ingredients.
+   *
+   * @return the ingredient count
+   */
+  public synchronized int size() {
+    return this.ingredientsByName.size();
+  }
+
+  /**
+   * Stops following the storage.
+   */
+  @Override
+  public void close() {
+    this.foodStorage.removeListener(this);
+  }
+
+  @Override
+  public synchronized void ingredientAdded(Ingredient ingredient) {
+    String ingredientName = ingredient.getIngredientName();
+    this.ingredientsByName.put(ingredientName, ingredient);
+    this.rankings.get(SortKey.NAME).put(ingredientName, 0.0);
+    this.rankings.get(SortKey.VALUE).put(ingredientName, -valueOf(ingredient));
+    this.rankings.get(SortKey.EXPIRY).put(ingredientName, expiryOf(ingredient));
+  }
+
+  @Override
+  public synchronized void ingredientAmountChanged(Ingredient ingredient, double amountChange) {
+    if (this.ingredientsByName.containsKey(ingredient.getIngredientName())) {
+      this.rankings.get(SortKey.VALUE)
+          .put(ingredient.getIngredientName(), -valueOf(ingredient));
+    }
+  }
+
+  @Override
+  public synchronized void ingredientRemoved(Ingredient ingredient, boolean expired) {
+    this.ingredientsByName.remove(ingredient.getIngredientName());
+    for (KeysetRanking ranking : this.rankings.values()) {
+      ranking.remove(ingredient.getIngredientName());
+    }
+  }
+
+  private static double valueOf(Ingredient ingredient) {
+    return ingredient.getIngredientAmount() * ingredient.getIngredientPricePerAmount();
+  }
+
+  /** Returns the expire date as an epoch day; ingredients without one are listed last. */
+  private static double expiryOf(Ingredient ingredient) {
+    return ingredient.getExpireLocalDate() == null
+        ? Double.POSITIVE_INFINITY : ingredient.getExpireLocalDate().toEpochDay();
+  }
+}
@@ -0,0 +1,117 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The SortedRecipeIndex class keeps the recipes of a {@link RecipeBook} sorted by name
+ * and by servings, and lists them a page at a time.
+ *
+ * <p>{@link RecipeBook#getIterator()} follows the order of the map behind the book, so
+ * a sorted listing used to sort the whole book on every request. This index keeps a
+ * sorted set per sort order that follows the book as recipes are added and removed, so
+ * each page costs O(log n + page size). Recipes with the same servings are listed by
+ * name. To list recipes by cost, use {@link RecipeCostIndex#getRecipePageByCost}.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * SortedRecipeIndex sorted = new SortedRecipeIndex(recipeBook);
+ * Page<String> page = sorted.getPage(SortedRecipeIndex.SortKey.NAME, 20, null);
+ * Page<String> next = sorted.getPage(SortedRecipeIndex.SortKey.NAME, 20,
+ *     page.getNextCursor());
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public final class SortedRecipeIndex implements RecipeBookListener, AutoCloseable {
+
+  /** The orders recipes can be listed in. */
+  public enum SortKey {
+    /** By recipe name. */
+    NAME,
+    /** By number of servings, fewest first. */
+    SERVINGS
+  }
+
+  private final RecipeBook recipeBook;
+  private final Map<SortKey, KeysetRanking> rankings = new EnumMap<>(SortKey.class);
+
+  /**
+   * Constructs a SortedRecipeIndex of the recipes in a book, and keeps it up to date.
+   *
+   * @param recipeBook the book to list
+   * @throws IllegalArgumentException if the book is null
+   */
+  public SortedRecipeIndex(RecipeBook recipeBook) {
+    if (recipeBook == null) {
+      throw new IllegalArgumentException("ERR: recipe book cant be null");
+    }
+    this.recipeBook = recipeBook;
+    for (SortKey sortKey : SortKey.values()) {
+      this.rankings.put(sortKey, new KeysetRanking("recipe-" + sortKey.name()));
+    }
+    synchronized (recipeBook) {
+      synchronized (this) {
+        for (Recipe recipe : recipeBook.getRecipes().values()) {
+          recipeAdded(recipe);
+        }
+      }
+      recipeBook.addListener(this);
+    }
+  }
+
+  /**
+   * Returns a page of recipe names.
+   *
+   * @param sortKey the order to list the recipes in
+   * @param pageSize the most recipes on the page
+   * @param cursor the next cursor of the previous page, or null for the first page
+   * @return the page of recipe names
+   * @throws IllegalArgumentException if the sort key is null, the page size isnt above 0,
+   *                                  or the cursor isnt from the same sort key
+   */
+  public synchronized Page<String> getPage(SortKey sortKey, int pageSize, String cursor) {
+    if (sortKey == null) {
+      throw new IllegalArgumentException("ERR: sort key cant be null");
+    }
+    try (TraceSpan span = Tracer.startSpan("SortedRecipeIndex.getPage")) {
+      return this.rankings.get(sortKey).page(pageSize, cursor);
+    }
+  }
+
+  /**
+   * Returns the number of listed recipes.
+   *
+   * @return the recipe count
+   */
+  public synchronized int size() {
+    return this.rankings.get(SortKey.NAME).size();
+  }
+
+  /**
+   * Stops following the book.
+   */
+  @Override
+  public void close() {
+    this.recipeBook.removeListener(this);
+  }
+
+  @Override
+  public synchronized void recipeAdded(Recipe recipe) {
+    String recipeName = recipe.getRecipeName();
+    this.rankings.get(SortKey.NAME).put(recipeName, 0.0);
+    this.rankings.get(SortKey.SERVINGS).put(recipeName, recipe.getRecipeServing());
+  }
+
+  @Override
+  public synchronized void recipeRemoved(Recipe recipe) {
+    for (KeysetRanking ranking : this.rankings.values()) {
+      ranking.remove(recipe.getRecipeName());
+    }
+  }
+}
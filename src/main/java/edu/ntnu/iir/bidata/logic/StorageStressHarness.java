@@ -0,0 +1,736 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.DoublePredicate;
+
+/**
+ * The StorageStressHarness class runs many threads against one shared {@link FoodStorage}
+ * and checks afterwards that the storage behaved as if the operations ran one at a time.
+ *
+ * <p>Every thread runs a random mix of operations on a small set of ingredients, so
+ * threads fight over the same lots:
+ * <ul>
+ *   <li>ADD adds a new lot, or an extra amount if the ingredient looked stored.</li>
+ *   <li>USE uses an amount of an ingredient.</li>
+ *   <li>COOK cooks a recipe with {@link RecipeAdvisor#cookRecipe(Recipe)}.</li>
+ *   <li>REMOVE removes an ingredient.</li>
+ *   <li>SWEEP removes every lot that has expired on a set day.</li>
+ * </ul>
+ * Amounts are whole units, so no rounding hides a lost update.
+ *
+ * <p>The history is checked for linearizability with the order the storage itself
+ * chose. A listener records every change while the storage lock is held, so the changes
+ * come out in the order they took effect. Replaying them one at a time must give back
+ * every amount the storage reported and every value an operation returned. Operations
+ * that changed nothing, like a rejected use or a remove of a missing ingredient, must be
+ * explained by a state the storage was in at some point while they ran. The replay also
+ * checks that:
+ * <ul>
+ *   <li>no amount goes negative,</li>
+ *   <li>no update is lost: each change starts from the amount the last one left,</li>
+ *   <li>an ingredient used up to 0 is removed by the same operation,</li>
+ *   <li>the changes of one operation arent interleaved with another, and</li>
+ *   <li>the storage ends up holding what the replay holds.</li>
+ * </ul>
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * StorageStressHarness harness = new StorageStressHarness(64, 10_000, 32, true);
+ * StressReport report = harness.run(42L);
+ * System.out.println(report);
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class StorageStressHarness {
+
+  /** Most violations kept in a {@link StressReport}; later ones are only counted. */
+  public static final int MAX_REPORTED_VIOLATIONS = 20;
+
+  /** A type of operation run by the harness. */
+  public enum OperationType {
+    /** Adds a lot or an extra amount. */
+    ADD,
+    /** Uses an amount of an ingredient. */
+    USE,
+    /** Cooks a recipe. */
+    COOK,
+    /** Removes an ingredient. */
+    REMOVE,
+    /** Removes the expired lots. */
+    SWEEP
+  }
+
+  // ? Cumulative percentages of ADD, USE, COOK and REMOVE; the rest are sweeps
+  private static final int[] OPERATION_MIX = {40, 65, 85, 95};
+  private static final int RECIPE_COUNT = 16;
+  private static final int SWEEP_DAY_OFFSET = 10;
+  private static final int MAX_EXPIRY_OFFSET = 20;
+
+  private static final byte ADDED = 0;
+  private static final byte CHANGED = 1;
+  private static final byte REMOVED = 2;
+
+  private final int threadCount;
+  private final int operationsPerThread;
+  private final int keyCount;
+  private final boolean virtualThreads;
+
+  /**
+   * Constructs a StorageStressHarness.
+   *
+   * @param threadCount the number of threads running operations, must be above 0
+   * @param operationsPerThread the number of operations each thread runs, must be above 0
+   * @param keyCount the number of ingredients the threads share, at least 4
+   * @param virtualThreads true to run on virtual threads, false for platform threads
+   * @throws IllegalArgumentException if a count is too low, or the history wouldnt fit
+   *                                  in memory
+   */
+  public StorageStressHarness(int threadCount, int operationsPerThread, int keyCount,
+      boolean virtualThreads) {
+    if (threadCount < 1 || operationsPerThread < 1) {
+      throw new IllegalArgumentException("ERR: thread and operation counts must be above 0");
+    }
+    if (keyCount < 4) {
+      throw new IllegalArgumentException("ERR: need at least 4 ingredients");
+    }
+    if ((long) threadCount * operationsPerThread > Integer.MAX_VALUE / 4) {
+      throw new IllegalArgumentException("ERR: too many operations for one history");
+    }
+    this.threadCount = threadCount;
+    this.operationsPerThread = operationsPerThread;
+    this.keyCount = keyCount;
+    this.virtualThreads = virtualThreads;
+  }
+
+  /**
+   * Runs the operations on a new, empty storage and checks the history.
+   *
+   * @param seed the seed of the operation mix and recipes
+   * @return the throughput, latencies and violations of the run
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   * @throws RuntimeException if an operation failed with anything but an
+   *                          IllegalArgumentException, which is a bug in the storage
+   */
+  public StressReport run(long seed) throws InterruptedException {
+    try (TraceSpan span = Tracer.startSpan("StorageStressHarness.run")) {
+      SplittableRandom random = new SplittableRandom(seed);
+      long today = LocalDate.now().toEpochDay();
+      String[] keyNames = new String[this.keyCount];
+      Map<String, Integer> keyIndexes = new HashMap<>();
+      for (int key = 0; key < this.keyCount; key++) {
+        keyNames[key] = "Stress item " + key;
+        keyIndexes.put(keyNames[key], key);
+      }
+      FoodStorage foodStorage = new FoodStorage(new ConcurrentHashMap<>());
+      RecipeBook recipeBook = new RecipeBook(new HashMap<>());
+      Recipe[] recipes = new Recipe[RECIPE_COUNT];
+      for (int i = 0; i < RECIPE_COUNT; i++) {
+        recipes[i] = newRecipe(i, keyNames, random);
+        recipeBook.addRecipe(recipes[i]);
+      }
+      Context context = new Context(foodStorage, new RecipeAdvisor(foodStorage, recipeBook),
+          recipes, keyNames, today, LocalDate.ofEpochDay(today + SWEEP_DAY_OFFSET));
+      EventLog eventLog = new EventLog(keyIndexes);
+      foodStorage.addListener(eventLog);
+
+      Worker[] workers = new Worker[this.threadCount];
+      Thread[] threads = new Thread[this.threadCount];
+      CountDownLatch startGate = new CountDownLatch(1);
+      Thread.Builder builder = this.virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform();
+      for (int i = 0; i < this.threadCount; i++) {
+        workers[i] = new Worker(i * this.operationsPerThread, this.operationsPerThread,
+            random.split(), context, eventLog, startGate);
+        threads[i] = builder.name("stress-" + i).start(workers[i]);
+      }
+      long wallStart = System.nanoTime();
+      startGate.countDown();
+      // ? Joining makes every record of the workers and the event log visible here
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      long wallNanos = System.nanoTime() - wallStart;
+      foodStorage.removeListener(eventLog);
+      for (Worker worker : workers) {
+        if (worker.failure != null) {
+          throw worker.failure;
+        }
+      }
+
+      HistoryChecker checker = new HistoryChecker(workers, eventLog, context);
+      checker.check();
+      long[][] latencies = new long[OperationType.values().length][];
+      long[] rejectedCounts = new long[latencies.length];
+      for (OperationType type : OperationType.values()) {
+        latencies[type.ordinal()] = latenciesOf(workers, type, rejectedCounts);
+      }
+      return new StressReport(wallNanos, latencies, rejectedCounts, checker.violationCount,
+          checker.violations);
+    }
+  }
+
+  private static Recipe newRecipe(int number, String[] keyNames, SplittableRandom random) {
+    int ingredientCount = 2 + random.nextInt(3);
+    String[] names = new String[ingredientCount];
+    double[] amounts = new double[ingredientCount];
+    int[] measurements = new int[ingredientCount];
+    int[] keys = random.ints(0, keyNames.length).distinct().limit(ingredientCount).toArray();
+    for (int i = 0; i < ingredientCount; i++) {
+      names[i] = keyNames[keys[i]];
+      amounts[i] = 1 + random.nextInt(3);
+    }
+    return Recipe.fromValidated("Stress recipe " + number, "Stress test recipe",
+        "Use everything.", 1, names, amounts, measurements, ingredientCount);
+  }
+
+  private static long[] latenciesOf(Worker[] workers, OperationType type,
+      long[] rejectedCounts) {
+    int count = 0;
+    for (Worker worker : workers) {
+      for (int i = 0; i < worker.types.length; i++) {
+        count += worker.types[i] == type.ordinal() ? 1 : 0;
+      }
+    }
+    long[] latencies = new long[count];
+    int index = 0;
+    for (Worker worker : workers) {
+      for (int i = 0; i < worker.types.length; i++) {
+        if (worker.types[i] == type.ordinal()) {
+          latencies[index++] = worker.ends[i] - worker.starts[i];
+          rejectedCounts[type.ordinal()] += worker.rejected[i] ? 1 : 0;
+        }
+      }
+    }
+    return latencies;
+  }
+
+  /** What every worker shares. */
+  private static final class Context {
+
+    private final FoodStorage foodStorage;
+    private final RecipeAdvisor advisor;
+    private final Recipe[] recipes;
+    private final String[] keyNames;
+    private final long today;
+    private final LocalDate sweepDay;
+
+    Context(FoodStorage foodStorage, RecipeAdvisor advisor, Recipe[] recipes,
+        String[] keyNames, long today, LocalDate sweepDay) {
+      this.foodStorage = foodStorage;
+      this.advisor = advisor;
+      this.recipes = recipes;
+      this.keyNames = keyNames;
+      this.today = today;
+      this.sweepDay = sweepDay;
+    }
+  }
+
+  /** Runs the operations of one thread and records when each started and ended. */
+  private static final class Worker implements Runnable {
+
+    private final int firstOperation;
+    private final SplittableRandom random;
+    private final Context context;
+    private final EventLog eventLog;
+    private final CountDownLatch startGate;
+    private final byte[] types;
+    private final boolean[] addsLot;
+    private final int[] targets;
+    private final double[] amounts;
+    private final double[] results;
+    private final boolean[] rejected;
+    private final long[] starts;
+    private final long[] ends;
+    private int currentOperation;
+    private RuntimeException failure;
+
+    Worker(int firstOperation, int operationCount, SplittableRandom random, Context context,
+        EventLog eventLog, CountDownLatch startGate) {
+      this.firstOperation = firstOperation;
+      this.random = random;
+      this.context = context;
+      this.eventLog = eventLog;
+      this.startGate = startGate;
+      this.types = new byte[operationCount];
+      this.addsLot = new boolean[operationCount];
+      this.targets = new int[operationCount];
+      this.amounts = new double[operationCount];
+      this.results = new double[operationCount];
+      this.rejected = new boolean[operationCount];
+      this.starts = new long[operationCount];
+      this.ends = new long[operationCount];
+    }
+
+    @Override
+    public void run() {
+      this.eventLog.currentWorker.set(this);
+      try {
+        this.startGate.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      for (int i = 0; i < this.types.length; i++) {
+        int draw = this.random.nextInt(100);
+        int type = 0;
+        while (type < OPERATION_MIX.length && draw >= OPERATION_MIX[type]) {
+          type++;
+        }
+        this.types[i] = (byte) type;
+        this.targets[i] = type == OperationType.COOK.ordinal()
+            ? this.random.nextInt(this.context.recipes.length)
+            : this.random.nextInt(this.context.keyNames.length);
+        this.amounts[i] = type == OperationType.ADD.ordinal()
+            ? 1 + this.random.nextInt(5) : 1 + this.random.nextInt(3);
+        long expireEpochDay = this.context.today + 1 + this.random.nextInt(MAX_EXPIRY_OFFSET);
+        this.currentOperation = this.firstOperation + i;
+        this.starts[i] = System.nanoTime();
+        try {
+          this.results[i] = runOperation(i, expireEpochDay);
+        } catch (IllegalArgumentException e) {
+          this.rejected[i] = true;
+        } catch (RuntimeException e) {
+          // ? Anything but a rejection is a bug, handed to the thread that runs the harness
+          this.failure = e;
+          break;
+        }
+        this.ends[i] = System.nanoTime();
+      }
+      this.eventLog.currentWorker.remove();
+    }
+
+    private double runOperation(int i, long expireEpochDay) {
+      FoodStorage foodStorage = this.context.foodStorage;
+      String name = this.types[i] == OperationType.COOK.ordinal()
+          ? null : this.context.keyNames[this.targets[i]];
+      double amount = this.amounts[i];
+      switch (OperationType.values()[this.types[i]]) {
+        case ADD -> {
+          this.addsLot[i] = foodStorage.getIngredient(name) == null;
+          if (this.addsLot[i]) {
+            foodStorage.addIngredient(
+                Ingredient.fromValidated(name, amount, 0, amount, expireEpochDay));
+            return Double.NaN;
+          }
+          return foodStorage.addIngredientAmount(name, amount);
+        }
+        case USE -> {
+          return foodStorage.useIngredientAmount(name, amount);
+        }
+        case COOK -> {
+          return this.context.advisor.cookRecipe(
+              this.context.recipes[this.targets[i]]).size();
+        }
+        case REMOVE -> {
+          return foodStorage.removeIngredient(name) == null ? 0 : 1;
+        }
+        default -> {
+          return foodStorage.removeExpiredIngredients(this.context.sweepDay).size();
+        }
+      }
+    }
+  }
+
+  /**
+   * Records every change of the storage. It is called with the storage locked, so the
+   * records are in the order the changes took effect and need no lock of their own.
+   */
+  private static final class EventLog implements FoodStorageListener {
+
+    private final Map<String, Integer> keyIndexes;
+    private final ThreadLocal<Worker> currentWorker = new ThreadLocal<>();
+    private int size;
+    private int[] operations = new int[1024];
+    private int[] keys = new int[1024];
+    private byte[] kinds = new byte[1024];
+    private double[] changes = new double[1024];
+    private double[] amounts = new double[1024];
+    private long[] expireEpochDays = new long[1024];
+    private long[] times = new long[1024];
+
+    EventLog(Map<String, Integer> keyIndexes) {
+      this.keyIndexes = keyIndexes;
+    }
+
+    @Override
+    public void ingredientAdded(Ingredient ingredient) {
+      record(ADDED, ingredient, ingredient.getIngredientAmount());
+    }
+
+    @Override
+    public void ingredientAmountChanged(Ingredient ingredient, double amountChange) {
+      record(CHANGED, ingredient, amountChange);
+    }
+
+    @Override
+    public void ingredientRemoved(Ingredient ingredient, boolean expired) {
+      record(REMOVED, ingredient, 0);
+    }
+
+    private void record(byte kind, Ingredient ingredient, double change) {
+      if (this.size == this.times.length) {
+        int capacity = this.size * 2;
+        this.operations = Arrays.copyOf(this.operations, capacity);
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.kinds = Arrays.copyOf(this.kinds, capacity);
+        this.changes = Arrays.copyOf(this.changes, capacity);
+        this.amounts = Arrays.copyOf(this.amounts, capacity);
+        this.expireEpochDays = Arrays.copyOf(this.expireEpochDays, capacity);
+        this.times = Arrays.copyOf(this.times, capacity);
+      }
+      Worker worker = this.currentWorker.get();
+      this.operations[this.size] = worker == null ? -1 : worker.currentOperation;
+      this.keys[this.size] = this.keyIndexes.getOrDefault(ingredient.getIngredientName(), -1);
+      this.kinds[this.size] = kind;
+      this.changes[this.size] = change;
+      this.amounts[this.size] = ingredient.getIngredientAmount();
+      this.expireEpochDays[this.size] = ingredient.getExpireLocalDate().toEpochDay();
+      this.times[this.size] = System.nanoTime();
+      this.size++;
+    }
+  }
+
+  /**
+   * Replays the changes in the order the storage made them, and checks them against
+   * what every operation asked for and returned.
+   */
+  private final class HistoryChecker {
+
+    private final Worker[] workers;
+    private final EventLog log;
+    private final Context context;
+    private final long sweepEpochDay;
+    private final List<String> violations = new ArrayList<>();
+    private long violationCount;
+    // ? Replayed state after each event; an ingredient that isnt stored has amount 0
+    private final double[] amountsAfter;
+    private final int[] expiredLotsAfter;
+    private final int[][] eventsByKey;
+    private final int[] firstEvents;
+    private final int[] eventCounts;
+
+    HistoryChecker(Worker[] workers, EventLog log, Context context) {
+      this.workers = workers;
+      this.log = log;
+      this.context = context;
+      this.sweepEpochDay = context.sweepDay.toEpochDay();
+      this.amountsAfter = new double[log.size];
+      this.expiredLotsAfter = new int[log.size];
+      this.firstEvents = new int[threadCount * operationsPerThread];
+      this.eventCounts = new int[this.firstEvents.length];
+      Arrays.fill(this.firstEvents, -1);
+      int[] keyEventCounts = new int[keyCount];
+      for (int e = 0; e < log.size; e++) {
+        if (log.keys[e] >= 0) {
+          keyEventCounts[log.keys[e]]++;
+        }
+      }
+      this.eventsByKey = new int[keyCount][];
+      for (int key = 0; key < keyCount; key++) {
+        this.eventsByKey[key] = new int[keyEventCounts[key]];
+        keyEventCounts[key] = 0;
+      }
+      for (int e = 0; e < log.size; e++) {
+        if (log.keys[e] >= 0) {
+          this.eventsByKey[log.keys[e]][keyEventCounts[log.keys[e]]++] = e;
+        }
+      }
+    }
+
+    void check() {
+      replay();
+      for (Worker worker : this.workers) {
+        for (int i = 0; i < worker.types.length; i++) {
+          checkOperation(worker, i);
+        }
+      }
+      checkFinalStorage();
+    }
+
+    private void replay() {
+      double[] amounts = new double[keyCount];
+      boolean[] stored = new boolean[keyCount];
+      long[] expireEpochDays = new long[keyCount];
+      int expiredLots = 0;
+      for (int e = 0; e < this.log.size; e++) {
+        int operation = this.log.operations[e];
+        int key = this.log.keys[e];
+        if (operation < 0 || key < 0) {
+          violation("event " + e + " wasnt made by a harness operation");
+          continue;
+        }
+        if (this.firstEvents[operation] < 0) {
+          this.firstEvents[operation] = e;
+        } else if (this.log.operations[e - 1] != operation) {
+          violation("operation " + operation + " was interleaved with another");
+        }
+        this.eventCounts[operation]++;
+        Worker worker = workerOf(operation);
+        int index = operation - worker.firstOperation;
+        OperationType type = OperationType.values()[worker.types[index]];
+        String name = this.context.keyNames[key];
+        switch (this.log.kinds[e]) {
+          case ADDED -> {
+            if (stored[key]) {
+              violation(type + " added a second lot of " + name);
+            }
+            if (type != OperationType.ADD || !worker.addsLot[index]) {
+              violation(type + " added a lot of " + name);
+            }
+            stored[key] = true;
+            amounts[key] = worker.amounts[index];
+            expireEpochDays[key] = this.log.expireEpochDays[e];
+            expiredLots += expireEpochDays[key] < this.sweepEpochDay ? 1 : 0;
+            checkAmount(e, amounts[key], name);
+          }
+          case CHANGED -> {
+            if (!stored[key]) {
+              violation(type + " changed " + name + " while it wasnt stored");
+            }
+            double expectedChange = expectedChange(worker, index, key);
+            if (this.log.changes[e] != expectedChange) {
+              violation(type + " changed " + name + " by " + this.log.changes[e]
+                  + " instead of " + expectedChange);
+            }
+            amounts[key] += this.log.changes[e];
+            if (amounts[key] < 0) {
+              violation(type + " left a negative amount of " + name);
+            }
+            checkAmount(e, amounts[key], name);
+            amounts[key] = this.log.amounts[e];
+          }
+          default -> {
+            if (!stored[key]) {
+              violation(type + " removed " + name + " while it wasnt stored");
+            }
+            if ((type == OperationType.USE || type == OperationType.COOK) && amounts[key] != 0) {
+              violation(type + " removed " + name + " with " + amounts[key] + " left");
+            }
+            if (type == OperationType.SWEEP && expireEpochDays[key] >= this.sweepEpochDay) {
+              violation("SWEEP removed " + name + " before it expired");
+            }
+            if (type != OperationType.USE && type != OperationType.COOK
+                && type != OperationType.REMOVE && type != OperationType.SWEEP) {
+              violation(type + " removed " + name);
+            }
+            if (stored[key] && expireEpochDays[key] < this.sweepEpochDay) {
+              expiredLots--;
+            }
+            stored[key] = false;
+            amounts[key] = 0;
+          }
+        }
+        this.amountsAfter[e] = amounts[key];
+        this.expiredLotsAfter[e] = expiredLots;
+        if (e + 1 == this.log.size || this.log.operations[e + 1] != operation) {
+          for (int g = this.firstEvents[operation]; g <= e; g++) {
+            int touchedKey = this.log.keys[g];
+            if (stored[touchedKey] && amounts[touchedKey] == 0) {
+              violation(type + " left " + this.context.keyNames[touchedKey]
+                  + " stored with amount 0");
+            }
+          }
+          if (type == OperationType.SWEEP && expiredLots != 0) {
+            violation("SWEEP left " + expiredLots + " expired lots stored");
+          }
+        }
+      }
+    }
+
+    private void checkAmount(int event, double replayedAmount, String name) {
+      if (this.log.amounts[event] != replayedAmount) {
+        violation("lost update of " + name + ": storage has " + this.log.amounts[event]
+            + ", history gives " + replayedAmount);
+      }
+    }
+
+    private double expectedChange(Worker worker, int index, int key) {
+      switch (OperationType.values()[worker.types[index]]) {
+        case ADD -> {
+          return worker.addsLot[index] ? Double.NaN : worker.amounts[index];
+        }
+        case USE -> {
+          return -worker.amounts[index];
+        }
+        case COOK -> {
+          Recipe recipe = this.context.recipes[worker.targets[index]];
+          for (int i = 0; i < recipe.getIngredientCount(); i++) {
+            if (recipe.getIngredientName(i).equals(this.context.keyNames[key])) {
+              return -recipe.getIngredientAmount(i);
+            }
+          }
+          return Double.NaN;
+        }
+        default -> {
+          return Double.NaN;
+        }
+      }
+    }
+
+    private void checkOperation(Worker worker, int index) {
+      int operation = worker.firstOperation + index;
+      OperationType type = OperationType.values()[worker.types[index]];
+      int first = this.firstEvents[operation];
+      int count = this.eventCounts[operation];
+      int target = worker.targets[index];
+      double amount = worker.amounts[index];
+      double result = worker.results[index];
+      long start = worker.starts[index];
+      long end = worker.ends[index];
+      String name = type + " #" + operation;
+      if (worker.rejected[index] && count > 0) {
+        violation(name + " was rejected but changed the storage");
+        return;
+      }
+      switch (type) {
+        case ADD -> {
+          if (worker.addsLot[index] && count == 0
+              && !wasOnce(target, start, end, stored -> stored > 0)) {
+            violation(name + " added nothing while the lot wasnt stored");
+          } else if (!worker.addsLot[index] && worker.rejected[index]
+              && !wasOnce(target, start, end, stored -> stored == 0)) {
+            violation(name + " was rejected while the lot was stored");
+          } else if (!worker.addsLot[index] && !worker.rejected[index]
+              && (count != 1 || result != this.amountsAfter[first])) {
+            violation(name + " returned " + result + " that the history doesnt give");
+          }
+        }
+        case USE -> {
+          if (worker.rejected[index]) {
+            if (!wasOnce(target, start, end, stored -> stored < amount)) {
+              violation(name + " was rejected while enough was stored");
+            }
+          } else if (count == 0 || result != this.amountsAfter[first]) {
+            violation(name + " returned " + result + " that the history doesnt give");
+          } else if (count != (result == 0 ? 2 : 1)) {
+            violation(name + " made " + count + " changes");
+          }
+        }
+        case COOK -> {
+          Recipe recipe = this.context.recipes[target];
+          if (worker.rejected[index]) {
+            boolean explained = false;
+            for (int i = 0; i < recipe.getIngredientCount() && !explained; i++) {
+              double required = recipe.getIngredientAmount(i);
+              explained = wasOnce(keyOf(recipe.getIngredientName(i)), start, end,
+                  stored -> stored < required);
+            }
+            if (!explained) {
+              violation(name + " was rejected while every ingredient was stored");
+            }
+          } else if (count != recipe.getIngredientCount() + (int) result) {
+            violation(name + " made " + count + " changes");
+          }
+        }
+        case REMOVE -> {
+          if (result == 0 && !wasOnce(target, start, end, stored -> stored == 0)) {
+            violation(name + " found nothing while the lot was stored");
+          } else if (count != (int) result) {
+            violation(name + " made " + count + " changes");
+          }
+        }
+        default -> {
+          if (count != (int) result) {
+            violation(name + " returned " + (int) result + " lots but removed " + count);
+          } else if (count == 0 && !noExpiredLotsOnce(start, end)) {
+            violation(name + " removed nothing while expired lots were stored");
+          }
+        }
+      }
+    }
+
+    /** Tells if an ingredient was in a state at some point while an operation ran. */
+    private boolean wasOnce(int key, long start, long end, DoublePredicate state) {
+      int[] events = this.eventsByKey[key];
+      int position = lastEventBefore(events, start);
+      if (state.test(position < 0 ? 0 : this.amountsAfter[events[position]])) {
+        return true;
+      }
+      for (int p = position + 1; p < events.length && this.log.times[events[p]] <= end; p++) {
+        if (state.test(this.amountsAfter[events[p]])) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean noExpiredLotsOnce(long start, long end) {
+      int position = -1;
+      for (int low = 0, high = this.log.size - 1; low <= high; ) {
+        int middle = (low + high) >>> 1;
+        if (this.log.times[middle] <= start) {
+          position = middle;
+          low = middle + 1;
+        } else {
+          high = middle - 1;
+        }
+      }
+      if (position < 0 || this.expiredLotsAfter[position] == 0) {
+        return true;
+      }
+      for (int e = position + 1; e < this.log.size && this.log.times[e] <= end; e++) {
+        if (this.expiredLotsAfter[e] == 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private int lastEventBefore(int[] events, long time) {
+      int position = -1;
+      for (int low = 0, high = events.length - 1; low <= high; ) {
+        int middle = (low + high) >>> 1;
+        if (this.log.times[events[middle]] <= time) {
+          position = middle;
+          low = middle + 1;
+        } else {
+          high = middle - 1;
+        }
+      }
+      return position;
+    }
+
+    private void checkFinalStorage() {
+      for (int key = 0; key < keyCount; key++) {
+        int[] events = this.eventsByKey[key];
+        double replayed = events.length == 0 ? 0 : this.amountsAfter[events[events.length - 1]];
+        Ingredient ingredient = this.context.foodStorage.getIngredient(
+            this.context.keyNames[key]);
+        double stored = ingredient == null ? 0 : ingredient.getIngredientAmount();
+        if (stored != replayed || (ingredient != null && stored <= 0)) {
+          violation("storage ends with " + stored + " of " + this.context.keyNames[key]
+              + ", history gives " + replayed);
+        }
+      }
+    }
+
+    private Worker workerOf(int operation) {
+      return this.workers[operation / operationsPerThread];
+    }
+
+    private int keyOf(String name) {
+      return this.log.keyIndexes.get(name);
+    }
+
+    private void violation(String message) {
+      this.violationCount++;
+      if (this.violations.size() < MAX_REPORTED_VIOLATIONS) {
+        this.violations.add(message);
+      }
+    }
+  }
+}
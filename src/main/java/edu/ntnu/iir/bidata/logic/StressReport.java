@@ -0,0 +1,175 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.logic.StorageStressHarness.OperationType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The StressReport class holds the outcome of a {@link StorageStressHarness} run: how
+ * fast each type of operation ran, how many were rejected by the storage, and every
+ * broken invariant the history checker found.
+ *
+ * <p>Percentiles use the nearest-rank method over the operations of a type, so the 50th
+ * percentile is the median latency and the 100th is the slowest operation.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class StressReport {
+
+  private final long wallNanos;
+  private final long[][] sortedLatencies;
+  private final long[] rejectedCounts;
+  private final long violationCount;
+  private final List<String> violations;
+
+  /**
+   * Constructs a StressReport.
+   *
+   * @param wallNanos how long the run took, in nanoseconds
+   * @param latencies the latency of every operation in nanoseconds, by operation type
+   * @param rejectedCounts the number of operations the storage rejected, by type
+   * @param violationCount the number of broken invariants
+   * @param violations the first broken invariants
+   */
+  StressReport(long wallNanos, long[][] latencies, long[] rejectedCounts,
+      long violationCount, List<String> violations) {
+    this.wallNanos = wallNanos;
+    this.sortedLatencies = new long[latencies.length][];
+    for (int type = 0; type < latencies.length; type++) {
+      this.sortedLatencies[type] = latencies[type].clone();
+      Arrays.sort(this.sortedLatencies[type]);
+    }
+    this.rejectedCounts = rejectedCounts.clone();
+    this.violationCount = violationCount;
+    this.violations = Collections.unmodifiableList(violations);
+  }
+
+  /**
+   * Returns true if the history was linearizable and no invariant was broken.
+   *
+   * @return true if no violation was found
+   */
+  public boolean isConsistent() {
+    return this.violationCount == 0;
+  }
+
+  /**
+   * Returns the number of broken invariants.
+   *
+   * @return the violation count
+   */
+  public long getViolationCount() {
+    return this.violationCount;
+  }
+
+  /**
+   * Returns the first broken invariants, at most
+   * {@link StorageStressHarness#MAX_REPORTED_VIOLATIONS}.
+   *
+   * @return an unmodifiable list of violations, in the order they were found
+   */
+  public List<String> getViolations() {
+    return this.violations;
+  }
+
+  /**
+   * Returns how long the run took, from the start of the first operation to the end of
+   * the last.
+   *
+   * @return the wall time in nanoseconds
+   */
+  public long getWallNanos() {
+    return this.wallNanos;
+  }
+
+  /**
+   * Returns the number of operations of a type.
+   *
+   * @param type the operation type
+   * @return the operation count
+   */
+  public long getOperationCount(OperationType type) {
+    return this.sortedLatencies[type.ordinal()].length;
+  }
+
+  /**
+   * Returns the number of operations of a type that the storage rejected, for example
+   * using more than was stored.
+   *
+   * @param type the operation type
+   * @return the rejected count
+   */
+  public long getRejectedCount(OperationType type) {
+    return this.rejectedCounts[type.ordinal()];
+  }
+
+  /**
+   * Returns the operations of a type finished per second over the run.
+   *
+   * @param type the operation type
+   * @return the throughput in operations per second
+   */
+  public double getThroughput(OperationType type) {
+    return getOperationCount(type) * 1e9 / Math.max(1, this.wallNanos);
+  }
+
+  /**
+   * Returns the operations of every type finished per second over the run.
+   *
+   * @return the throughput in operations per second
+   */
+  public double getThroughput() {
+    long operationCount = 0;
+    for (long[] latencies : this.sortedLatencies) {
+      operationCount += latencies.length;
+    }
+    return operationCount * 1e9 / Math.max(1, this.wallNanos);
+  }
+
+  /**
+   * Returns a percentile of the latency of a type of operation.
+   *
+   * @param type the operation type
+   * @param percentile the percentile, from 0 to 100
+   * @return the latency in nanoseconds of the operation at that rank, 0 if none ran
+   * @throws IllegalArgumentException if the percentile is outside 0 to 100
+   */
+  public long getLatencyPercentile(OperationType type, double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("ERR: percentile must be from 0 to 100");
+    }
+    long[] latencies = this.sortedLatencies[type.ordinal()];
+    if (latencies.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percentile / 100.0 * latencies.length);
+    return latencies[Math.max(0, rank - 1)];
+  }
+
+  /**
+   * Returns a table of throughput and latency percentiles per operation type, followed
+   * by the violations.
+   *
+   * @return the report as text
+   */
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder();
+    text.append(String.format("%-7s %10s %9s %12s %9s %9s %9s %9s%n", "op", "count",
+        "rejected", "ops/s", "p50 us", "p99 us", "p99.9 us", "max us"));
+    for (OperationType type : OperationType.values()) {
+      text.append(String.format("%-7s %10d %9d %12.0f %9.1f %9.1f %9.1f %9.1f%n", type,
+          getOperationCount(type), getRejectedCount(type), getThroughput(type),
+          getLatencyPercentile(type, 50) / 1e3, getLatencyPercentile(type, 99) / 1e3,
+          getLatencyPercentile(type, 99.9) / 1e3, getLatencyPercentile(type, 100) / 1e3));
+    }
+    text.append(String.format("total %.0f ops/s, %d violations%n", getThroughput(),
+        this.violationCount));
+    for (String violation : this.violations) {
+      text.append("  ").append(violation).append(System.lineSeparator());
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,275 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.untility.IngredientDictionary;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The SubstitutionGraph class records which ingredients may stand in for others, and
+ * how much of the substitute replaces one unit of the original.
+ *
+ * <p>Substitutions chain: if cream may replace milk at 1.0 and yogurt may replace cream
+ * at 1.5, yogurt may replace milk at 1.5. When several chains lead to the same
+ * substitute, the one that needs the least of it wins. A substitution that closes a
+ * loop whose ratios multiply to less than 1 is refused, since going round it would make
+ * an ingredient out of less of itself. The chains are worked out once
+ * after a change and kept as arrays indexed by {@link IngredientDictionary} id, so
+ * finding the substitutes of an ingredient is an array lookup.
+ *
+ * <p>The graph is thread-safe. Changes are rare; lookups never lock.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * SubstitutionGraph substitutions = new SubstitutionGraph();
+ * substitutions.addSubstitution("Milk", "Food cream", 1.0);
+ * RecipeAdvisor advisor = new RecipeAdvisor(foodStorage, recipeBook, substitutions);
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class SubstitutionGraph {
+
+  private static final int[] NO_SUBSTITUTES = new int[0];
+  private static final double[] NO_RATIOS = new double[0];
+  // ? Lets loops like 1.5 and 1 / 1.5 through despite rounding
+  private static final double LOOP_TOLERANCE = 1e-9;
+
+  private final IngredientDictionary dictionary;
+  private final Map<String, Map<String, Double>> ratiosByRequired = new LinkedHashMap<>();
+  private volatile Closure closure;
+
+  /**
+   * Constructs an empty SubstitutionGraph over the global dictionary.
+   */
+  public SubstitutionGraph() {
+    this(IngredientDictionary.global());
+  }
+
+  /**
+   * Constructs an empty SubstitutionGraph.
+   *
+   * @param dictionary the dictionary that gives ingredients their id
+   * @throws IllegalArgumentException if the dictionary is null
+   */
+  public SubstitutionGraph(IngredientDictionary dictionary) {
+    if (dictionary == null) {
+      throw new IllegalArgumentException("ERR: dictionary cant be null");
+    }
+    this.dictionary = dictionary;
+  }
+
+  /**
+   * Allows an ingredient to stand in for another, replacing an earlier ratio.
+   *
+   * @param requiredName the ingredient a recipe asks for
+   * @param substituteName the ingredient that may be used instead
+   * @param ratio the amount of the substitute that replaces one of the required ingredient
+   * @throws IllegalArgumentException if a name is blank or null, both names are the same,
+   *                                  the ratio isnt above 0, or the substitute already
+   *                                  stands in for the ingredient at a ratio that makes a
+   *                                  loop below 1
+   */
+  public synchronized void addSubstitution(
+      String requiredName, String substituteName, double ratio) {
+    if (requiredName == null || requiredName.isBlank()
+        || substituteName == null || substituteName.isBlank()) {
+      throw new IllegalArgumentException("ERR: ingredient name cant be blank, empty or null");
+    }
+    if (requiredName.equals(substituteName)) {
+      throw new IllegalArgumentException("ERR: ingredient cant substitute itself");
+    }
+    if (!(ratio > 0) || Double.isInfinite(ratio)) {
+      throw new IllegalArgumentException("ERR: ratio must be above 0");
+    }
+    // ? Without loops below 1 the cheapest chains never repeat an ingredient
+    Double returnRatio = getSubstitutes(substituteName).get(requiredName);
+    if (returnRatio != null && ratio * returnRatio < 1 - LOOP_TOLERANCE) {
+      throw new IllegalArgumentException("ERR: " + substituteName + " cant substitute "
+          + requiredName + " at " + ratio + ", the loop back would be below 1");
+    }
+    this.ratiosByRequired.computeIfAbsent(requiredName, name -> new LinkedHashMap<>())
+        .put(substituteName, ratio);
+    this.closure = null;
+  }
+
+  /**
+   * Removes a substitution.
+   *
+   * @param requiredName the ingredient a recipe asks for
+   * @param substituteName the ingredient that may be used instead
+   * @return true if the substitution was in the graph
+   */
+  public synchronized boolean removeSubstitution(String requiredName, String substituteName) {
+    Map<String, Double> ratios = this.ratiosByRequired.get(requiredName);
+    if (ratios == null || ratios.remove(substituteName) == null) {
+      return false;
+    }
+    if (ratios.isEmpty()) {
+      this.ratiosByRequired.remove(requiredName);
+    }
+    this.closure = null;
+    return true;
+  }
+
+  /**
+   * Returns every ingredient that may stand in for an ingredient, directly or through a
+   * chain, with the amount that replaces one unit of it.
+   *
+   * @param requiredName the ingredient a recipe asks for
+   * @return the substitutes mapped to their ratio, lowest ratio first
+   */
+  public Map<String, Double> getSubstitutes(String requiredName) {
+    Closure current = closure();
+    int requiredId = this.dictionary.findId(requiredName);
+    int[] substituteIds = current.substitutesOf(requiredId);
+    double[] ratios = current.ratiosOf(requiredId);
+    Map<String, Double> substitutes = new LinkedHashMap<>();
+    for (int i = 0; i < substituteIds.length; i++) {
+      substitutes.put(this.dictionary.nameOf(substituteIds[i]), ratios[i]);
+    }
+    return substitutes;
+  }
+
+  /**
+   * Returns the dictionary that gives ingredients their id.
+   *
+   * @return the dictionary
+   */
+  public IngredientDictionary getDictionary() {
+    return this.dictionary;
+  }
+
+  /** Returns the worked out chains, working them out again after a change. */
+  Closure closure() {
+    Closure current = this.closure;
+    if (current != null) {
+      return current;
+    }
+    synchronized (this) {
+      if (this.closure == null) {
+        this.closure = compile();
+      }
+      return this.closure;
+    }
+  }
+
+  /** Finds the cheapest chain between every pair of ingredients in the graph. */
+  private Closure compile() {
+    try (TraceSpan span = Tracer.startSpan("SubstitutionGraph.compile")) {
+      Map<String, Integer> nodes = new HashMap<>();
+      List<String> names = new ArrayList<>();
+      for (Map.Entry<String, Map<String, Double>> entry : this.ratiosByRequired.entrySet()) {
+        addNode(entry.getKey(), nodes, names);
+        for (String name : entry.getValue().keySet()) {
+          addNode(name, nodes, names);
+        }
+      }
+      int nodeCount = names.size();
+      double[][] best = new double[nodeCount][nodeCount];
+      for (double[] row : best) {
+        Arrays.fill(row, Double.POSITIVE_INFINITY);
+      }
+      for (Map.Entry<String, Map<String, Double>> entry : this.ratiosByRequired.entrySet()) {
+        int from = nodes.get(entry.getKey());
+        for (Map.Entry<String, Double> edge : entry.getValue().entrySet()) {
+          best[from][nodes.get(edge.getKey())] = edge.getValue();
+        }
+      }
+      for (int via = 0; via < nodeCount; via++) {
+        for (int from = 0; from < nodeCount; from++) {
+          if (best[from][via] == Double.POSITIVE_INFINITY) {
+            continue;
+          }
+          for (int to = 0; to < nodeCount; to++) {
+            double chained = best[from][via] * best[via][to];
+            if (from != to && chained < best[from][to]) {
+              best[from][to] = chained;
+            }
+          }
+        }
+      }
+
+      int[] ids = new int[nodeCount];
+      int idLimit = 0;
+      for (int node = 0; node < nodeCount; node++) {
+        ids[node] = this.dictionary.idOf(names.get(node));
+        idLimit = Math.max(idLimit, ids[node] + 1);
+      }
+      int[][] substituteIds = new int[idLimit][];
+      double[][] ratios = new double[idLimit][];
+      for (int from = 0; from < nodeCount; from++) {
+        double[] row = best[from];
+        Integer[] order = new Integer[nodeCount];
+        int reachable = 0;
+        for (int to = 0; to < nodeCount; to++) {
+          if (row[to] != Double.POSITIVE_INFINITY) {
+            order[reachable++] = to;
+          }
+        }
+        Arrays.sort(order, 0, reachable, (left, right) -> Double.compare(row[left], row[right]));
+        int[] fromSubstitutes = new int[reachable];
+        double[] fromRatios = new double[reachable];
+        for (int i = 0; i < reachable; i++) {
+          fromSubstitutes[i] = ids[order[i]];
+          fromRatios[i] = row[order[i]];
+        }
+        substituteIds[ids[from]] = fromSubstitutes;
+        ratios[ids[from]] = fromRatios;
+      }
+      return new Closure(substituteIds, ratios);
+    }
+  }
+
+  private static void addNode(String name, Map<String, Integer> nodes, List<String> names) {
+    if (!nodes.containsKey(name)) {
+      nodes.put(name, names.size());
+      names.add(name);
+    }
+  }
+
+  /**
+   * The substitutes of every ingredient, indexed by dictionary id. The arrays are shared
+   * and must not be changed.
+   */
+  static final class Closure {
+
+    private final int[][] substituteIds;
+    private final double[][] ratios;
+
+    private Closure(int[][] substituteIds, double[][] ratios) {
+      this.substituteIds = substituteIds;
+      this.ratios = ratios;
+    }
+
+    /** Returns the ids of the substitutes of an ingredient, lowest ratio first. */
+    int[] substitutesOf(int requiredId) {
+      if (requiredId < 0 || requiredId >= this.substituteIds.length
+          || this.substituteIds[requiredId] == null) {
+        return NO_SUBSTITUTES;
+      }
+      return this.substituteIds[requiredId];
+    }
+
+    /** Returns the ratios of the substitutes of an ingredient, in the same order. */
+    double[] ratiosOf(int requiredId) {
+      if (requiredId < 0 || requiredId >= this.ratios.length
+          || this.ratios[requiredId] == null) {
+        return NO_RATIOS;
+      }
+      return this.ratios[requiredId];
+    }
+
+    /** Returns one above the highest id with substitutes. */
+    int idLimit() {
+      return this.substituteIds.length;
+    }
+  }
+}
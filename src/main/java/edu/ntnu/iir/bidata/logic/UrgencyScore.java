@@ -0,0 +1,34 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+
+/**
+ * The UrgencyScore interface rates how urgently a stored ingredient should be used
+ * before it expires. A higher score is more urgent.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@FunctionalInterface
+public interface UrgencyScore {
+
+  /**
+   * Rates a stored ingredient.
+   *
+   * @param ingredient the ingredient to rate
+   * @param daysToExpiry the days left until it expires, 0 on the day it expires
+   * @param value the value of the stored amount
+   * @return the urgency score, higher is more urgent
+   */
+  double score(Ingredient ingredient, long daysToExpiry, double value);
+
+  /**
+   * Returns the default score: the value of the stored amount divided by the days it has
+   * left, counting the day it expires. Expensive food that expires soon comes first.
+   *
+   * @return the default urgency score
+   */
+  static UrgencyScore valuePerDayLeft() {
+    return (ingredient, daysToExpiry, value) -> value / (daysToExpiry + 1);
+  }
+}
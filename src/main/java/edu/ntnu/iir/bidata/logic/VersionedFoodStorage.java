@@ -0,0 +1,283 @@
+package edu.ntnu.iir.bidata.logic;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The VersionedFoodStorage class is a food storage variant that keeps every change as a
+ * new immutable version backed by a {@link PersistentIngredientMap}.
+ *
+ * <p>Unlike {@link FoodStorage#getIngredients()}, which is a live view of a mutable map,
+ * a snapshot taken here never changes. Taking a snapshot is O(1), readers never lock and
+ * never see a half-applied change, and a new version shares all untouched parts of the
+ * trie with the one before it.
+ *
+ * <p>A bounded history of versions is kept, so the storage can be read as it was at a
+ * point in time, for example "yesterday at 18:00", without copying the whole map.
+ *
+ * <p>Ingredients are copied before their amount is changed, so ingredients read from an
+ * old version keep the amount they had in that version. Callers must change amounts
+ * through this class and not through the {@link Ingredient} setters.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * VersionedFoodStorage storage = new VersionedFoodStorage();
+ * storage.addIngredient(new Ingredient("Milk", 1.0, 2, 20, "2024-12-31"));
+ * FoodStorage before = storage.snapshot();
+ * storage.useIngredientAmount("Milk", 0.5);
+ * before.getIngredient("Milk").getIngredientAmount(); // still 1.0
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+@SuppressWarnings("try")
+public class VersionedFoodStorage {
+
+  private static final int DEFAULT_HISTORY_LIMIT = 10_000;
+
+  private final Clock clock;
+  private final int historyLimit;
+  private final ConcurrentSkipListMap<Long, Version> history = new ConcurrentSkipListMap<>();
+  private volatile Version currentVersion;
+
+  /**
+   * Constructs an empty VersionedFoodStorage using the system clock.
+   */
+  public VersionedFoodStorage() {
+    this(Clock.systemDefaultZone(), DEFAULT_HISTORY_LIMIT);
+  }
+
+  /**
+   * Constructs an empty VersionedFoodStorage.
+   *
+   * @param clock the clock used to timestamp versions
+   * @param historyLimit the number of timestamps to keep history for, must be greater than 0
+   * @throws IllegalArgumentException if the clock is null or the history limit is below 1
+   */
+  public VersionedFoodStorage(Clock clock, int historyLimit) {
+    if (clock == null) {
+      throw new IllegalArgumentException("ERR: clock cant be null");
+    }
+    if (historyLimit <= 0) {
+      throw new IllegalArgumentException("ERR: history limit cant be 0 or negative");
+    }
+    this.clock = clock;
+    this.historyLimit = historyLimit;
+    this.currentVersion = new Version(0, clock.millis(), PersistentIngredientMap.empty());
+    this.history.put(this.currentVersion.timeMillis, this.currentVersion);
+  }
+
+  /**
+   * Adds an ingredient to the storage. An ingredient with the same name is kept.
+   *
+   * @param ingredient the ingredient to be added
+   * @throws IllegalArgumentException if the ingredient is null
+   */
+  public synchronized void addIngredient(Ingredient ingredient) {
+    if (ingredient == null) {
+      throw new IllegalArgumentException("Invalid ingredient cant be added");
+    }
+    PersistentIngredientMap ingredients = this.currentVersion.ingredients;
+    if (!ingredients.containsKey(ingredient.getIngredientName())) {
+      publish(ingredients.plus(ingredient.getIngredientName(), new Ingredient(ingredient)));
+    }
+  }
+
+  /**
+   * Removes an ingredient from the storage by its name.
+   *
+   * @param ingredientName the name of the ingredient to remove
+   * @return the removed ingredient, or null if not found
+   * @throws IllegalArgumentException if the ingredient name is blank, empty, or null
+   */
+  public synchronized Ingredient removeIngredient(String ingredientName) {
+    validateIngredientName(ingredientName);
+    PersistentIngredientMap ingredients = this.currentVersion.ingredients;
+    Ingredient removedIngredient = ingredients.get(ingredientName);
+    if (removedIngredient != null) {
+      publish(ingredients.minus(ingredientName));
+    }
+    return removedIngredient;
+  }
+
+  /**
+   * Uses an amount of an ingredient. The ingredient is removed when nothing is left.
+   *
+   * @param ingredientName the name of the ingredient
+   * @param usedAmount the amount to use
+   * @return the amount left
+   * @throws IllegalArgumentException if the ingredient isnt stored or the amount is invalid
+   */
+  public synchronized double useIngredientAmount(String ingredientName, double usedAmount) {
+    Ingredient changedIngredient = copyOf(ingredientName);
+    changedIngredient.setUsedIngredientAmount(usedAmount);
+    PersistentIngredientMap ingredients = this.currentVersion.ingredients;
+    publish(changedIngredient.getIngredientAmount() == 0
+        ? ingredients.minus(ingredientName)
+        : ingredients.plus(ingredientName, changedIngredient));
+    return changedIngredient.getIngredientAmount();
+  }
+
+  /**
+   * Adds an extra amount to an ingredient.
+   *
+   * @param ingredientName the name of the ingredient
+   * @param extraAmount the amount to add
+   * @return the new amount
+   * @throws IllegalArgumentException if the ingredient isnt stored or the amount is invalid
+   */
+  public synchronized double addIngredientAmount(String ingredientName, double extraAmount) {
+    Ingredient changedIngredient = copyOf(ingredientName);
+    changedIngredient.setExtraIngredientAmount(extraAmount);
+    publish(this.currentVersion.ingredients.plus(ingredientName, changedIngredient));
+    return changedIngredient.getIngredientAmount();
+  }
+
+  /**
+   * Retrieves an ingredient from the current version by its name.
+   *
+   * @param ingredientName the name of the ingredient to retrieve
+   * @return the ingredient with the specified name, or null if not found
+   * @throws IllegalArgumentException if the ingredient name is blank, empty, or null
+   */
+  public Ingredient getIngredient(String ingredientName) {
+    validateIngredientName(ingredientName);
+    return this.currentVersion.ingredients.get(ingredientName);
+  }
+
+  /**
+   * Returns the ingredients of the current version. The map never changes.
+   *
+   * @return an immutable map of the ingredients
+   */
+  public Map<String, Ingredient> getIngredients() {
+    return this.currentVersion.ingredients;
+  }
+
+  /**
+   * Returns the number of the current version. It grows by one with every change.
+   *
+   * @return the current version number
+   */
+  public long getVersion() {
+    return this.currentVersion.number;
+  }
+
+  /**
+   * Returns a read-only food storage of the current version in O(1).
+   * Adding, removing, using or topping up ingredients of the returned storage throws
+   * {@link UnsupportedOperationException}, since its ingredients are shared with the
+   * versions that follow it.
+   *
+   * @return a snapshot of the storage
+   */
+  public FoodStorage snapshot() {
+    return new Snapshot(this.currentVersion.ingredients);
+  }
+
+  /**
+   * Returns a read-only food storage as it was at the given time. Like
+   * {@link #snapshot()}, every change to it throws {@link UnsupportedOperationException}.
+   *
+   * @param time the point in time to read the storage at
+   * @return a snapshot of the storage at that time, or null if the time is older
+   *         than the kept history
+   * @throws IllegalArgumentException if the time is null
+   */
+  public FoodStorage snapshotAt(Instant time) {
+    if (time == null) {
+      throw new IllegalArgumentException("ERR: time cant be null");
+    }
+    try (TraceSpan span = Tracer.startSpan("VersionedFoodStorage.snapshotAt")) {
+      Map.Entry<Long, Version> entry = this.history.floorEntry(time.toEpochMilli());
+      return entry == null ? null : new Snapshot(entry.getValue().ingredients);
+    }
+  }
+
+  private Ingredient copyOf(String ingredientName) {
+    validateIngredientName(ingredientName);
+    Ingredient storedIngredient = this.currentVersion.ingredients.get(ingredientName);
+    if (storedIngredient == null) {
+      throw new IllegalArgumentException("Ingredient not found: " + ingredientName);
+    }
+    return new Ingredient(storedIngredient);
+  }
+
+  private void publish(PersistentIngredientMap ingredients) {
+    Version previousVersion = this.currentVersion;
+    // ? Versions are ordered by time, even if the clock is set back
+    long timeMillis = Math.max(this.clock.millis(), previousVersion.timeMillis);
+    Version version = new Version(previousVersion.number + 1, timeMillis, ingredients);
+    this.currentVersion = version;
+    // ! Several versions in the same millisecond share one history slot; the last one wins
+    this.history.put(timeMillis, version);
+    while (this.history.size() > this.historyLimit) {
+      this.history.pollFirstEntry();
+    }
+  }
+
+  private void validateIngredientName(String ingredientName) {
+    if (ingredientName == null || ingredientName.isBlank()) {
+      throw new IllegalArgumentException("Ingredient name can't be blank, empty or null");
+    }
+  }
+
+  /** A food storage over one version, every change to it is refused. */
+  private static final class Snapshot extends FoodStorage {
+
+    Snapshot(PersistentIngredientMap ingredients) {
+      super(ingredients);
+    }
+
+    @Override
+    public void addIngredient(Ingredient ingredient) {
+      throw readOnly();
+    }
+
+    @Override
+    public Ingredient removeIngredient(String ingredientName) {
+      throw readOnly();
+    }
+
+    @Override
+    public double useIngredientAmount(String ingredientName, double usedAmount) {
+      throw readOnly();
+    }
+
+    @Override
+    public double addIngredientAmount(String ingredientName, double extraAmount) {
+      throw readOnly();
+    }
+
+    @Override
+    public List<Ingredient> removeExpiredIngredients(LocalDate day) {
+      throw readOnly();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+      return new UnsupportedOperationException("ERR: a snapshot cant be changed");
+    }
+  }
+
+  /** One immutable version of the storage. */
+  private static final class Version {
+
+    private final long number;
+    private final long timeMillis;
+    private final PersistentIngredientMap ingredients;
+
+    Version(long number, long timeMillis, PersistentIngredientMap ingredients) {
+      this.number = number;
+      this.timeMillis = timeMillis;
+      this.ingredients = ingredients;
+    }
+  }
+}
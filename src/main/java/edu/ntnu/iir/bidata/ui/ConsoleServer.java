@@ -0,0 +1,244 @@
+package edu.ntnu.iir.bidata.ui;
+
+import edu.ntnu.iir.bidata.logic.CookabilityCache;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.RecipeSearchIndex;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ConsoleServer class lets several cooks use the application at once over TCP, for
+ * example with {@code telnet} or {@code nc}. Every connection gets its own
+ * {@link UserInterface} session running the normal menus over the socket.
+ *
+ * <p>Each session runs on its own virtual thread, so a session waiting for its user
+ * costs almost nothing and hundreds of sessions fit in one JVM. All sessions work on
+ * the same {@link FoodStorage} and {@link RecipeBook}, which should be backed by
+ * concurrent maps. The server builds one {@link RecipeSearchIndex} and one
+ * {@link CookabilityCache} that every session shares, so a new connection doesnt index
+ * the book again and cookability answers are reused across sessions. A session ends
+ * when the user quits or the connection closes.
+ *
+ * <p>A read-only server, for example on a replication follower, gives every session
+ * read-only menus, so changes only reach the storage and book from elsewhere.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * FoodStorage foodStorage = new FoodStorage(new ConcurrentHashMap<>());
+ * RecipeBook recipeBook = new RecipeBook(new ConcurrentHashMap<>());
+ * try (ConsoleServer server = new ConsoleServer(foodStorage, recipeBook, 4040)) {
+ *   server.start();
+ *   server.awaitClose();
+ * }
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class ConsoleServer implements AutoCloseable {
+
+  private final FoodStorage foodStorage;
+  private final RecipeBook recipeBook;
+  private final RecipeSearchIndex recipeSearchIndex;
+  private final CookabilityCache cookabilityCache;
+  private final InetSocketAddress bindAddress;
+  private final boolean readOnly;
+  private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger sessionCount = new AtomicInteger();
+  private final ExecutorService sessionExecutor = Executors.newVirtualThreadPerTaskExecutor();
+  private ServerSocket serverSocket;
+  private Thread acceptThread;
+
+  /**
+   * Constructs a ConsoleServer that listens on a port of the loopback address.
+   *
+   * @param foodStorage the storage shared by all sessions
+   * @param recipeBook the recipe book shared by all sessions
+   * @param port the port to listen on, 0 picks a free port
+   * @throws IllegalArgumentException if the storage or book is null, or the port is
+   *                                  outside 0 to 65535
+   */
+  public ConsoleServer(FoodStorage foodStorage, RecipeBook recipeBook, int port) {
+    this(foodStorage, recipeBook, port, false);
+  }
+
+  /**
+   * Constructs a ConsoleServer that listens on a port of the loopback address, and
+   * whose sessions may only read if asked to.
+   *
+   * @param foodStorage the storage shared by all sessions
+   * @param recipeBook the recipe book shared by all sessions
+   * @param port the port to listen on, 0 picks a free port
+   * @param readOnly true to refuse every change the sessions ask for
+   * @throws IllegalArgumentException if the storage or book is null, or the port is
+   *                                  outside 0 to 65535
+   */
+  public ConsoleServer(
+      FoodStorage foodStorage, RecipeBook recipeBook, int port, boolean readOnly) {
+    this(foodStorage, recipeBook,
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), port), readOnly);
+  }
+
+  /**
+   * Constructs a ConsoleServer that listens on an address.
+   *
+   * @param foodStorage the storage shared by all sessions
+   * @param recipeBook the recipe book shared by all sessions
+   * @param bindAddress the address to listen on
+   * @throws IllegalArgumentException if any argument is null
+   */
+  public ConsoleServer(
+      FoodStorage foodStorage, RecipeBook recipeBook, InetSocketAddress bindAddress) {
+    this(foodStorage, recipeBook, bindAddress, false);
+  }
+
+  private ConsoleServer(FoodStorage foodStorage, RecipeBook recipeBook,
+      InetSocketAddress bindAddress, boolean readOnly) {
+    if (foodStorage == null || recipeBook == null || bindAddress == null) {
+      throw new IllegalArgumentException("ERR: storage, recipe book and address cant be null");
+    }
+    this.foodStorage = foodStorage;
+    this.recipeBook = recipeBook;
+    this.bindAddress = bindAddress;
+    this.readOnly = readOnly;
+    this.recipeSearchIndex = new RecipeSearchIndex(recipeBook);
+    this.cookabilityCache = new CookabilityCache(foodStorage, recipeBook);
+  }
+
+  /**
+   * Starts listening and accepting sessions in the background.
+   *
+   * @throws IOException if the address cant be bound
+   * @throws IllegalStateException if the server was already started
+   */
+  public synchronized void start() throws IOException {
+    if (this.serverSocket != null) {
+      throw new IllegalStateException("ERR: server already started");
+    }
+    this.serverSocket = new ServerSocket();
+    this.serverSocket.bind(this.bindAddress);
+    this.acceptThread = Thread.ofVirtual().name("console-accept").start(this::acceptSessions);
+  }
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return the port
+   * @throws IllegalStateException if the server isnt started
+   */
+  public synchronized int getPort() {
+    if (this.serverSocket == null) {
+      throw new IllegalStateException("ERR: server isnt started");
+    }
+    return this.serverSocket.getLocalPort();
+  }
+
+  /**
+   * Returns the number of sessions that are running.
+   *
+   * @return the session count
+   */
+  public int getSessionCount() {
+    return this.sessionCount.get();
+  }
+
+  /**
+   * Waits until the server is closed.
+   *
+   * @throws InterruptedException if the waiting thread is interrupted
+   */
+  public void awaitClose() throws InterruptedException {
+    Thread thread;
+    synchronized (this) {
+      thread = this.acceptThread;
+    }
+    if (thread != null) {
+      thread.join();
+    }
+  }
+
+  /**
+   * Stops accepting sessions, closes every open connection and stops the shared search
+   * index from following the book.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (this.serverSocket != null) {
+        closeQuietly(this.serverSocket);
+      }
+    }
+    for (Socket socket : this.openSockets) {
+      closeQuietly(socket);
+    }
+    this.sessionExecutor.close();
+    this.recipeSearchIndex.close();
+  }
+
+  private void acceptSessions() {
+    while (!this.serverSocket.isClosed()) {
+      try {
+        Socket socket = this.serverSocket.accept();
+        this.openSockets.add(socket);
+        try {
+          this.sessionExecutor.execute(() -> runSession(socket));
+        } catch (RejectedExecutionException e) {
+          // ? The server closed while the connection was accepted
+          this.openSockets.remove(socket);
+          closeQuietly(socket);
+          return;
+        }
+      } catch (SocketException e) {
+        // ? The server socket was closed
+        return;
+      } catch (IOException e) {
+        // ? A failed accept only loses that connection
+      }
+    }
+  }
+
+  private void runSession(Socket socket) {
+    this.sessionCount.incrementAndGet();
+    try (socket) {
+      PrintStream output =
+          new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+      try (UserInterface session = new UserInterface(this.foodStorage, this.recipeBook,
+          this.recipeSearchIndex, this.cookabilityCache, socket.getInputStream(), output)) {
+        session.setReadOnly(this.readOnly);
+        session.inti();
+        session.applicationStart();
+      } catch (NoSuchElementException | IllegalStateException e) {
+        // ? The user closed the connection in the middle of a menu
+      } catch (RuntimeException e) {
+        output.println("\nSession ended: " + e.getMessage());
+      }
+    } catch (IOException e) {
+      // ? The connection broke, nothing left to tell the user
+    } finally {
+      this.openSockets.remove(socket);
+      this.sessionCount.decrementAndGet();
+    }
+  }
+
+  private static void closeQuietly(AutoCloseable closeable) {
+    try {
+      closeable.close();
+    } catch (Exception e) {
+      // ? Closing anyway, nothing to do about it
+    }
+  }
+}
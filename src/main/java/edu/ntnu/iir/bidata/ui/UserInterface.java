@@ -3,15 +3,22 @@ package edu.ntnu.iir.bidata.ui;
 //IMPORT CUSTOM PACKAGES
 import edu.ntnu.iir.bidata.entity.Ingredient;
 import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.CookabilityCache;
+import edu.ntnu.iir.bidata.logic.CookabilityReport;
 import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.RecipeAdvisor;
 import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.RecipeSearchIndex;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
 import edu.ntnu.iir.bidata.untility.ValidationUtil;
 //IMPORT JAVA UTILITIES
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -40,6 +47,13 @@ import java.util.Scanner;
  * which runs the main loop of the application
  * and handles user input to perform various operations.
  * 
+ * <p>By default the menus run on the console. An interface constructed with an input
+ * and output stream runs them over those streams instead, so several sessions can
+ * share one food storage and recipe book in the same JVM.
+ *
+ * <p>A read-only interface, see {@link #setReadOnly(boolean)}, still shows and searches
+ * everything but refuses the menu choices that would change the storage or book.
+ * 
  * <p>The class uses constants to represent menu options and other fixed values.
 
  * 
@@ -52,11 +66,17 @@ import java.util.Scanner;
  * @version 22.0.2
  * @author (Mahmoud Said Madhun Madhun)
  */
-public class UserInterface {
+@SuppressWarnings("try")
+public class UserInterface implements AutoCloseable {
   // ! Declearing and inizilizing classes
-  private FoodStorage foodStorage = new FoodStorage(new HashMap<>());
-  private RecipeBook recipeBook = new RecipeBook(new HashMap<>());
+  private final FoodStorage foodStorage;
+  private final RecipeBook recipeBook;
+  private final RecipeAdvisor recipeAdvisor;
+  private final CookabilityCache cookabilityCache;
+  private final RecipeSearchIndex recipeSearchIndex;
+  private final boolean ownsSearchIndex;
   private Scanner userInput;
+  private PrintStream userOutput = System.out;
 
   
   // ! Declearing and inizilizing classes
@@ -70,6 +90,7 @@ public class UserInterface {
   private static final int SUGGEST_RECIPES_TO_MAKE = 7;
   private static final int GENERATE_RECIPE_AND_INGREDIENTS = 99;
   private static final int QUIT_APP = 0;
+  private static final int SEARCH_RESULT_COUNT = 5;
 
   // ? constant for ingredientMenu() in sea
   private static final int USE_INGREDIENT_AMOUNT = 1;
@@ -90,9 +111,119 @@ public class UserInterface {
 
   
   private int appStartSkip = 0;
+  private boolean readOnly;
+
+
+  /**
+   * Constructs a UserInterface with an empty food storage and recipe book of its own.
+   */
+  public UserInterface() {
+    this(new FoodStorage(new HashMap<>()), new RecipeBook(new HashMap<>()));
+  }
+
+  /**
+   * Constructs a UserInterface that works on an existing food storage and recipe book,
+   * for example the storage of one household in a {@code HouseholdRegistry}.
+   *
+   * @param foodStorage the food storage the menus work on
+   * @param recipeBook the recipe book the menus work on
+   * @throws IllegalArgumentException if the food storage or recipe book is null
+   */
+  public UserInterface(FoodStorage foodStorage, RecipeBook recipeBook) {
+    this(foodStorage, recipeBook, null, null, true);
+  }
+
+  /**
+   * Constructs a UserInterface that reads and writes its menus over streams instead of
+   * the console.
+   *
+   * @param foodStorage the food storage the menus work on
+   * @param recipeBook the recipe book the menus work on
+   * @param input the stream user input is read from
+   * @param output the stream the menus are written to
+   * @throws IllegalArgumentException if any argument is null
+   */
+  public UserInterface(
+      FoodStorage foodStorage, RecipeBook recipeBook, InputStream input, PrintStream output) {
+    this(foodStorage, recipeBook);
+    useStreams(input, output);
+  }
+
+  /**
+   * Constructs a UserInterface over streams that shares its search index and
+   * cookability cache with other sessions, for example one connection of a
+   * {@code ConsoleServer}. The index and cache must be built over the same recipe book
+   * and food storage, and are left open when the interface is closed.
+   *
+   * @param foodStorage the food storage the menus work on
+   * @param recipeBook the recipe book the menus work on
+   * @param recipeSearchIndex the shared search index of the recipe book
+   * @param cookabilityCache the shared cookability cache of the storage and book
+   * @param input the stream user input is read from
+   * @param output the stream the menus are written to
+   * @throws IllegalArgumentException if any argument is null
+   */
+  public UserInterface(FoodStorage foodStorage, RecipeBook recipeBook,
+      RecipeSearchIndex recipeSearchIndex, CookabilityCache cookabilityCache,
+      InputStream input, PrintStream output) {
+    this(foodStorage, recipeBook, recipeSearchIndex, cookabilityCache, false);
+    useStreams(input, output);
+  }
+
+  private UserInterface(FoodStorage foodStorage, RecipeBook recipeBook,
+      RecipeSearchIndex recipeSearchIndex, CookabilityCache cookabilityCache,
+      boolean ownsSearchIndex) {
+    if (foodStorage == null || recipeBook == null) {
+      throw new IllegalArgumentException("ERR: food storage and recipe book cant be null");
+    }
+    if (!ownsSearchIndex && (recipeSearchIndex == null || cookabilityCache == null)) {
+      throw new IllegalArgumentException("ERR: search index and cache cant be null");
+    }
+    this.foodStorage = foodStorage;
+    this.recipeBook = recipeBook;
+    this.recipeAdvisor = new RecipeAdvisor(foodStorage, recipeBook);
+    this.ownsSearchIndex = ownsSearchIndex;
+    this.cookabilityCache = ownsSearchIndex
+        ? new CookabilityCache(foodStorage, recipeBook) : cookabilityCache;
+    this.recipeSearchIndex = ownsSearchIndex
+        ? new RecipeSearchIndex(recipeBook) : recipeSearchIndex;
+  }
 
+  /**
+   * Stops the search index of this interface from following the recipe book, unless
+   * the index is shared. Call it when the interface is done with a shared book.
+   */
+  @Override
+  public void close() {
+    if (this.ownsSearchIndex) {
+      this.recipeSearchIndex.close();
+    }
+  }
 
-  public UserInterface() { 
+  /**
+   * Makes the menus refuse every choice that changes the food storage or recipe book,
+   * for example on a replication follower whose changes only come from its leader.
+   *
+   * @param readOnly true to refuse changes
+   */
+  public void setReadOnly(boolean readOnly) {
+    this.readOnly = readOnly;
+  }
+
+  /** Returns whether a change may be made, telling the user when it cant. */
+  private boolean allowsChanges() {
+    if (this.readOnly) {
+      userOutput.println("\nThis storage is read-only, make changes on the leader.");
+    }
+    return !this.readOnly;
+  }
+
+  private void useStreams(InputStream input, PrintStream output) {
+    if (input == null || output == null) {
+      throw new IllegalArgumentException("ERR: input and output cant be null");
+    }
+    this.userInput = new Scanner(input, StandardCharsets.UTF_8);
+    this.userOutput = output;
   }
 
   /**
@@ -111,30 +242,45 @@ public class UserInterface {
    * the application.
   */
   public void applicationStart() {
-    userInput = new Scanner(System.in);
+    if (userInput == null) {
+      userInput = new Scanner(System.in);
+    }
     // ? Declearing Loop and Insilizing it
     boolean mainRunForever = true;
 
     // ? Use of main class
-    System.out.println("\nWelcome To FoodWaste Application"); // Welcome Message to Application
-    System.out.println("Here you will get a selection menu to make it easy for you :)");
+    userOutput.println("\nWelcome To FoodWaste Application"); // Welcome Message to Application
+    userOutput.println("Here you will get a selection menu to make it easy for you :)");
     while (mainRunForever == true) {
       applicationStartMenu();
-      int choosenSelection = ValidationUtil.isVaildIntInput(userInput, "Menu Selection");
+      int choosenSelection = ValidationUtil.isVaildIntInput(
+          userInput, userOutput, "Menu Selection");
       switch (choosenSelection) {
-        case ADD_INGREDIENT_TO_STORAGE -> addIngredientToStorage(userInput);
+        case ADD_INGREDIENT_TO_STORAGE -> {
+          if (allowsChanges()) {
+            addIngredientToStorage(userInput);
+          }
+        }
         case FIND_INGREDIENT_IN_STORAGE -> findIngredientInStorage(userInput);
         case DISPLAY_FOODSTORAGE -> displayFoodStorage();
-        case ADD_RECIPE_TO_RECIPE_BOOK -> writeRecipeInBook(userInput);
+        case ADD_RECIPE_TO_RECIPE_BOOK -> {
+          if (allowsChanges()) {
+            writeRecipeInBook(userInput);
+          }
+        }
         case DISPLAY_RECIPE_BOOK -> displayRecipeBook();
         case SEARCH_FOR_RECIPE -> searchForRecipe(userInput);
         case SUGGEST_RECIPES_TO_MAKE -> suggestRecipesToMake();
-        case GENERATE_RECIPE_AND_INGREDIENTS -> generateRecipesAndIngredients();
+        case GENERATE_RECIPE_AND_INGREDIENTS -> {
+          if (allowsChanges()) {
+            generateRecipesAndIngredients();
+          }
+        }
         case QUIT_APP -> {
           userInput.close();
           mainRunForever = false;
         }
-        default -> System.out.println("Invalid selection. Please try again.");
+        default -> userOutput.println("Invalid selection. Please try again.");
       }
     }
   }
@@ -150,7 +296,7 @@ public class UserInterface {
  * @param userInput a Scanner object to read user input
  */
   public void addIngredientToStorage(Scanner userInput) {
-    System.out.println("Now you will get some question "
+    userOutput.println("Now you will get some question "
                       + "to set you ingredient in storage");
     boolean addIngredientForever = true; // add ingredients loop
     while (addIngredientForever == true) {
@@ -170,16 +316,16 @@ public class UserInterface {
                                               ingredientExpireDate);
         this.foodStorage.addIngredient(ingredient);
         
-        System.out.println(
+        userOutput.println(
             "\nPress (N) or (n) if you are finished from adding "
             + "and want to see your foodStorage,"
             + "\nor if you want to add more ingredients write any letter.");
-        char loopExit = ValidationUtil.isValidCharInput(userInput, "Exiting");
+        char loopExit = ValidationUtil.isValidCharInput(userInput, userOutput, "Exiting");
         if (loopExit == 'n' || loopExit == 'N') {
           addIngredientForever = false;
         } 
       } else {
-        System.out.println("\nThe ingredient is in the storage."
+        userOutput.println("\nThe ingredient is in the storage."
                           + "\nYou can search for it in your foodStorage");
         addIngredientForever = false;
      
@@ -203,21 +349,21 @@ public class UserInterface {
   public void displayFoodStorage() {
 
 
-    System.out.println(
+    userOutput.println(
         "\n---------------------------"
             +
             "---------------------------------------------------");
-    System.out.printf("| %-31s  %-13s  %-26s |%n", " ", "FoodStorage", " ");
-    System.out.println(
+    userOutput.printf("| %-31s  %-13s  %-26s |%n", " ", "FoodStorage", " ");
+    userOutput.println(
         "---------------------------"
             +
             "---------------------------------------------------");
-    System.out.printf("| %-20s | %-15s | %-15s | %-15s |%n",
+    userOutput.printf("| %-20s | %-15s | %-15s | %-15s |%n",
         "Name",
         "Amount",
         "Price",
         "Expire Date");
-    System.out.println(
+    userOutput.println(
         "---------------------------"
             +
             "---------------------------------------------------");
@@ -229,7 +375,7 @@ public class UserInterface {
 
     while (iterator.hasNext()) {
       Ingredient ingredient = iterator.next();
-      System.out.printf(
+      userOutput.printf(
           "| %-20s | %-15s | %-15s | %-15s |%n",
           ingredient.getIngredientName(),
           ingredient.getIngredientAmount()
@@ -243,7 +389,7 @@ public class UserInterface {
           ingredient.getIngredientExpireDate());
 
           
-      System.out.println(
+      userOutput.println(
             "---------------------------"
             +
             "---------------------------------------------------");
@@ -262,20 +408,24 @@ public class UserInterface {
     if (this.foodStorage.getIngredients().size() > 0) {
 
       if (appStartSkip == 1) {
-        Scanner userInput = new Scanner(System.in);
         boolean switchLoop = true;
-        System.out.println("Welcome to ur storage."
+        userOutput.println("Welcome to ur storage."
                             + "\nHere you will get a navigation menu for the storage");
         while (switchLoop == true) {
           foodStorageMenu();
-          int useAddSelection = ValidationUtil.isVaildIntInput(userInput, "storage menu");
+          int useAddSelection = ValidationUtil.isVaildIntInput(
+              userInput, userOutput, "storage menu");
           switch (useAddSelection) {
-            case REMOVE_EXPIRED_INGREDIENTS -> removeExipredIngredients();
+            case REMOVE_EXPIRED_INGREDIENTS -> {
+              if (allowsChanges()) {
+                removeExipredIngredients();
+              }
+            }
             case CHECK_VALUE_FOODSTORAGE_INGREDIENTS -> {
-              System.out.println("\nPrice of expired Ingredients: " 
+              userOutput.println("\nPrice of expired Ingredients: " 
                                   + sumOfExpiredIngredientPrices + "$");
-              System.out.println("Price of valid Ingredients: " + sumOfIngredientPrices + "$");
-              System.out.println(
+              userOutput.println("Price of valid Ingredients: " + sumOfIngredientPrices + "$");
+              userOutput.println(
                   "Total Price : " + (sumOfIngredientPrices
                   +
                   sumOfExpiredIngredientPrices) + "$");
@@ -288,7 +438,7 @@ public class UserInterface {
               switchLoop = false;
               appStartSkip = 1;
             } 
-            default -> System.out.println("Invalid selection. Please try again.");
+            default -> userOutput.println("Invalid selection. Please try again.");
           }
         }
       }
@@ -319,9 +469,9 @@ public class UserInterface {
       Boolean addIngredientToRecipe = true;
       HashMap<String, Ingredient> recipeIngredients = new HashMap<>();
       while (addIngredientToRecipe == true) {
-        System.out.println("\n\nNow you will get some repeatable question about"
+        userOutput.println("\n\nNow you will get some repeatable question about"
                           + "ingreadients and you can exit after putting the amount");
-        System.out.println("\nWhat are the ingredient that in the recipe:");
+        userOutput.println("\nWhat are the ingredient that in the recipe:");
         String ingredientName = askAboutIngredientName(userInput);
         int ingredientMeasurement = askAboutIngredientMessurment(userInput);
         double ingredientAmout = askAboutIngredientAmount(userInput, ingredientName);
@@ -330,7 +480,7 @@ public class UserInterface {
                                                             ingredientAmout,
                                                             ingredientMeasurement));
   
-        System.out.println("Press (N) or (n) if you are finished.");
+        userOutput.println("Press (N) or (n) if you are finished.");
         String loopExit = userInput.nextLine().substring(0);
         if (loopExit.equals("N") || loopExit.equals("n")) {
           addIngredientToRecipe = false; // change value to get out of loop
@@ -343,7 +493,7 @@ public class UserInterface {
                                       recipeIngredients);
       this.recipeBook.addRecipe(userRecipe);
     } else {
-      System.out.println("\nThe recipe you want to add is already in the book.");
+      userOutput.println("\nThe recipe you want to add is already in the book.");
     }
   }
 
@@ -429,7 +579,7 @@ public class UserInterface {
                           "Mix all ingredients and cook on a griddle.", 4, recipe3Ingredients);
       this.recipeBook.addRecipe(recipe3);
 
-      System.out.println("\nSuccessfully generated.");
+      userOutput.println("\nSuccessfully generated.");
     }
 
   }
@@ -442,26 +592,26 @@ public class UserInterface {
    * this.recipeBook's displayRecipeBook method.
    */
   public void displayRecipeBook() {
-    System.out.println("\n");
-    System.out.println("---------------------------------------------------------");
+    userOutput.println("\n");
+    userOutput.println("---------------------------------------------------------");
       
-    System.out.printf("| %-20s  %-13s  %-16s |%n", " ", "RecipeBook", " ");
-    System.out.println("---------------------------------------------------------");
+    userOutput.printf("| %-20s  %-13s  %-16s |%n", " ", "RecipeBook", " ");
+    userOutput.println("---------------------------------------------------------");
 
     Iterator<Recipe> iterator = this.recipeBook.getIterator();
     while (iterator.hasNext()) {
       Recipe recipe = iterator.next();
-      System.out.println("Recipe Name: " + recipe.getRecipeName());
-      System.out.println("Description: " + recipe.getRecipeDescription());
-      System.out.println("Instruction: " + recipe.getRecipeInstructions());
-      System.out.println("Ingredients & Amount:");
-      recipe.getIngredients().forEach((name, ingredient) -> {
-        System.out.println(name 
+      userOutput.println("Recipe Name: " + recipe.getRecipeName());
+      userOutput.println("Description: " + recipe.getRecipeDescription());
+      userOutput.println("Instruction: " + recipe.getRecipeInstructions());
+      userOutput.println("Ingredients & Amount:");
+      for (int i = 0; i < recipe.getIngredientCount(); i++) {
+        userOutput.println(recipe.getIngredientName(i)
             + " " 
-            + ingredient.getIngredientAmount() 
-            + ingredient.getIngredientMeasurment());
-      });
-      System.out.println("---------------------------------------------------------");
+            + recipe.getIngredientAmount(i)
+            + recipe.getIngredientMeasurment(i));
+      }
+      userOutput.println("---------------------------------------------------------");
 
     }
   }
@@ -476,15 +626,16 @@ public class UserInterface {
    */
   public void findIngredientInStorage(Scanner userInput) {
 
-    System.out.println("\nEnter the name of the ingredient to search: ");
-    String ingredientName = ValidationUtil.isVaildStringInput(userInput, "ingredient name");
+    userOutput.println("\nEnter the name of the ingredient to search: ");
+    String ingredientName = ValidationUtil.isVaildStringInput(
+        userInput, userOutput, "ingredient name");
     ingredientName = ingredientName.substring(0, 1).toUpperCase() 
                     + ingredientName.substring(1, ingredientName.length());
     Ingredient ingredient = this.foodStorage.getIngredient(ingredientName);
     if (ingredient == null) {
-      System.out.println("\nIngredient doesn't exist.");
+      userOutput.println("\nIngredient doesn't exist.");
     } else {
-      System.out.println("\nThe ingredient you are looking for is in the storage:"
+      userOutput.println("\nThe ingredient you are looking for is in the storage:"
                         + "\nIngredient info"
                         + "\nName: " 
                         + ingredient.getIngredientName()
@@ -508,26 +659,38 @@ public class UserInterface {
    */
   public void ingredientMenu(Scanner userInput, Ingredient ingredient) {
     boolean switchLoop = true;
-    System.out.println("\nNow you will recive a menu for the ingredient:");
+    userOutput.println("\nNow you will recive a menu for the ingredient:");
     while (switchLoop == true) {
       ingredientMenuText(ingredient);
-      int useAddSelection = ValidationUtil.isVaildIntInput(userInput, "ingredient menu");
+      int useAddSelection = ValidationUtil.isVaildIntInput(
+          userInput, userOutput, "ingredient menu");
       switch (useAddSelection) {
         case USE_INGREDIENT_AMOUNT -> {
-          if (ingredient.getIngredientAmount() != 0) {
-            useAmoutOfIngredient(userInput, ingredient);
-          } else {
-            System.out.println("\nThere is no amount left of the ingredient");
+          if (allowsChanges()) {
+            if (ingredient.getIngredientAmount() != 0) {
+              useAmoutOfIngredient(userInput, ingredient);
+              // ? Using the whole amount removes the ingredient from the storage
+              switchLoop =
+                  this.foodStorage.getIngredient(ingredient.getIngredientName()) != null;
+            } else {
+              userOutput.println("\nThere is no amount left of the ingredient");
+            }
+          }
+        }
+        case ADD_INGREDIENT_AMOUNT -> {
+          if (allowsChanges()) {
+            increaseIngredientAmount(userInput, ingredient);
           }
         }
-        case ADD_INGREDIENT_AMOUNT -> increaseIngredientAmount(userInput, ingredient);
         case REMOVE_INGREDIENT -> {
-          this.foodStorage.removeIngredient(ingredient.getIngredientName());
-          switchLoop = false;
-          System.out.println("\nIngredients was successfully removed");
+          if (allowsChanges()) {
+            this.foodStorage.removeIngredient(ingredient.getIngredientName());
+            switchLoop = false;
+            userOutput.println("\nIngredients was successfully removed");
+          }
         }
         case QUIT_INGREDIENT_AMOUNT_MENU -> switchLoop = false;
-        default -> System.out.println("\nInvalid selection. Please try again.");
+        default -> userOutput.println("\nInvalid selection. Please try again.");
       }
     }
   }
@@ -542,20 +705,21 @@ public class UserInterface {
    * @param ingredient the Ingredient object to be increased
    */
   public void increaseIngredientAmount(Scanner userInput, Ingredient ingredient) {
-    System.out.println("\nGive us the amount your want to add extra of "
+    userOutput.println("\nGive us the amount your want to add extra of "
                       + ingredient.getIngredientName()
                       + ": ");
-    double addIngredientAmount = ValidationUtil.isVaildDoubleInput(userInput, 
+    double addIngredientAmount = ValidationUtil.isVaildDoubleInput(userInput, userOutput, 
                                                                   "adding extra ingredient amount");
     while (addIngredientAmount <= 0) {
-      System.out.println("\nYou cant add nothing or a negative number try again: ");
-      addIngredientAmount = ValidationUtil.isVaildDoubleInput(userInput, 
+      userOutput.println("\nYou cant add nothing or a negative number try again: ");
+      addIngredientAmount = ValidationUtil.isVaildDoubleInput(userInput, userOutput, 
                                                               "adding extra ingredient amount");
     }
-    ingredient.setExtraIngredientAmount(addIngredientAmount);
-    System.out.println("\nThis is your new amount for "
+    double newIngredientAmount = this.foodStorage.addIngredientAmount(
+        ingredient.getIngredientName(), addIngredientAmount);
+    userOutput.println("\nThis is your new amount for "
                       + ingredient.getIngredientName() + ":");
-    System.out.println(ingredient.getIngredientAmount());
+    userOutput.println(newIngredientAmount);
   }
 
 
@@ -567,24 +731,28 @@ public class UserInterface {
    * @param ingredient the Ingredient object to be used
    */
   public void useAmoutOfIngredient(Scanner userInput, Ingredient ingredient) {
-    System.out.println("\nhow much/many of "
+    userOutput.println("\nhow much/many of "
                       + ingredient.getIngredientName()
                       + " you want to use? ");
-    double useIngredientAmout = ValidationUtil.isVaildDoubleInput(userInput, 
+    double useIngredientAmout = ValidationUtil.isVaildDoubleInput(userInput, userOutput, 
                                                                   "adding extra ingredient amount");
     boolean useLoop = true;                                                       
     while (useLoop) {
-      if (useIngredientAmout <= 0 && useIngredientAmout > ingredient.getIngredientAmount()) {
-        System.out.println("\nYou cant add negative or than existed amount of the Ingredient.");
-        useIngredientAmout = ValidationUtil.isVaildDoubleInput(userInput, 
+      if (useIngredientAmout <= 0 || useIngredientAmout > ingredient.getIngredientAmount()) {
+        userOutput.println("\nYou cant add negative or than existed amount of the Ingredient.");
+        useIngredientAmout = ValidationUtil.isVaildDoubleInput(userInput, userOutput, 
                                                                 "adding extra ingredient amount");
       } else {
         useLoop = false;
-        ingredient.setUsedIngredientAmount(useIngredientAmout);
-        System.out.println("\nThis is your new amount for "
+        double ingredientAmountLeft = this.foodStorage.useIngredientAmount(
+            ingredient.getIngredientName(), useIngredientAmout);
+        userOutput.println("\nThis is your new amount for "
                             + ingredient.getIngredientName() 
                             + ":");
-        System.out.println(ingredient.getIngredientAmount());
+        userOutput.println(ingredientAmountLeft);
+        if (ingredientAmountLeft == 0) {
+          userOutput.println("U ran out of " + ingredient.getIngredientName());
+        }
         
       }
     }
@@ -593,18 +761,28 @@ public class UserInterface {
 
 
   /**
-   * Searches for an ingredient in the food storage by name.
+   * Searches for a recipe by name. If no recipe has the name, the best matches for the
+   * words in its name, description and instructions are listed instead.
    *
    * @param userInput the Scanner object used to read user input
    */
   public void searchForRecipe(Scanner userInput) {
-    System.out.println("\nEnter the name of the Recipe to search for: ");
-    String recipeName = ValidationUtil.isVaildStringInput(userInput, "recipe name");
+    userOutput.println("\nEnter the name of the Recipe to search for: ");
+    String recipeName = ValidationUtil.isVaildStringInput(userInput, userOutput, "recipe name");
     recipeName = recipeName.substring(0, 1).toUpperCase() 
                     + recipeName.substring(1, recipeName.length());
-    Recipe recipe = this.recipeBook.getRecipe(recipeName);
+    // ? getRecipe throws for an unknown name, the map lookup lets the search take over
+    Recipe recipe = this.recipeBook.getRecipes().get(recipeName);
     if (recipe == null) {
-      System.out.println("\nRecipe doesn't exist.");
+      List<String> matches = this.recipeSearchIndex.search(recipeName, SEARCH_RESULT_COUNT);
+      if (matches.isEmpty()) {
+        userOutput.println("\nRecipe doesn't exist.");
+      } else {
+        userOutput.println("\nNo recipe with that name, recipes that match: ");
+        for (String match : matches) {
+          userOutput.println("  " + match);
+        }
+      }
     } else {
       showRecipeInfo(recipe);
       allRecipeIngreidents(recipe);
@@ -623,20 +801,26 @@ public class UserInterface {
  */
   public void recipeMenu(Scanner userInput, Recipe recipe) {
     boolean switchLoop = true;
-    System.out.println("\nNow you will recive a menu for the ingredient:");
+    userOutput.println("\nNow you will recive a menu for the ingredient:");
     while (switchLoop == true) {
       recipeMenuText(recipe);
-      int useAddSelection = ValidationUtil.isVaildIntInput(userInput, "recipe menu");
+      int useAddSelection = ValidationUtil.isVaildIntInput(userInput, userOutput, "recipe menu");
       switch (useAddSelection) {
         case COOKABLE_RECIPE -> {
           checkIfCookable(recipe);  
         }
-        case COOK_RECIPE -> cookRecipe(recipe);
+        case COOK_RECIPE -> {
+          if (allowsChanges()) {
+            cookRecipe(recipe);
+          }
+        }
         case REMOVE_RECIPE -> { 
-          this.recipeBook.removeRecipe(recipe.getRecipeName());
+          if (allowsChanges()) {
+            this.recipeBook.removeRecipe(recipe.getRecipeName());
+          }
         }
         case QUIT_RECIPE_MENU -> switchLoop = false;
-        default -> System.out.println("\nInvalid selection in recipe menu");
+        default -> userOutput.println("\nInvalid selection in recipe menu");
       }
     }
   }
@@ -652,29 +836,13 @@ public class UserInterface {
   * @param recipe the Recipe object to be cooked
   */
   public void cookRecipe(Recipe recipe) {
-    int recipeIngredientStored = 0;
-    for (Ingredient ingredient : recipe.getIngredients().values()) {
-      if (this.foodStorage.getIngredients().containsKey(ingredient.getIngredientName())) {
-        recipeIngredientStored++;
-      } 
-    }
-
-    if (recipeIngredientStored == recipe.getIngredients().size()) {
-      for (Ingredient recipeIngredient : recipe.getIngredients().values()) {
-        this.foodStorage.getIngredient(recipeIngredient.getIngredientName())
-              .setUsedIngredientAmount(recipeIngredient.getIngredientAmount());
-
-        double ingredientAmount = this.foodStorage.getIngredient(recipeIngredient
-                                                        .getIngredientName()).getIngredientAmount();
-
-        if (ingredientAmount == 0) {
-          this.foodStorage.removeIngredient(recipeIngredient.getIngredientName());
-          System.out.println("U ran out of " + recipeIngredient.getIngredientName());
-        }
+    try (TraceSpan span = Tracer.startSpan("UserInterface.cookRecipe")) {
+      for (String ingredientName : this.recipeAdvisor.cookRecipe(recipe)) {
+        userOutput.println("U ran out of " + ingredientName);
       }
-      System.out.println("Recipe has been made.");
-    } else {
-      System.out.println("Recipe missing ingredient.");
+      userOutput.println("Recipe has been made.");
+    } catch (IllegalArgumentException e) {
+      userOutput.println("Recipe missing ingredient.");
     }
   }
 
@@ -685,7 +853,7 @@ public class UserInterface {
    * @param recipe the Recipe object whose information is to be displayed
    */
   public void showRecipeInfo(Recipe recipe) {
-    System.out.println("\nHere i the recipe Info"
+    userOutput.println("\nHere i the recipe Info"
                       + "\nName: " 
                       + recipe.getRecipeName()
                       + "\nDescirption: "
@@ -704,11 +872,11 @@ public class UserInterface {
    * @param recipe the Recipe object whose ingredients are to be displayed
   */
   public void allRecipeIngreidents(Recipe recipe) {
-    System.out.println("Ingredients & Amount");
-    recipe.getIngredients().forEach((name, recipeIngredient) -> {
-      System.out.println(name + ": " + recipeIngredient.getIngredientAmount() 
-                        + recipeIngredient.getIngredientMeasurment());
-    });
+    userOutput.println("Ingredients & Amount");
+    for (int i = 0; i < recipe.getIngredientCount(); i++) {
+      userOutput.println(recipe.getIngredientName(i) + ": " + recipe.getIngredientAmount(i)
+                        + recipe.getIngredientMeasurment(i));
+    }
   }
 
 
@@ -721,25 +889,20 @@ public class UserInterface {
    * If the user declines, prints a message indicating no ingredients were removed.
    */
   public void removeExipredIngredients() { //* saw */
-    System.out.println("\nDo you want to get rid of expired ingredient?"  
+    userOutput.println("\nDo you want to get rid of expired ingredient?"  
                      + " ([y/Y]=Yes Or anything to exit must be one charcter.)");
-    Scanner userInput = new Scanner(System.in);
-    char choiceInput = ValidationUtil.isValidCharInput(userInput, "removing expired ingredients");
+    char choiceInput = ValidationUtil.isValidCharInput(
+        userInput, userOutput, "removing expired ingredients");
     double sumOfExpiredIngredientPrices = 0.0;
     if (choiceInput == 'y' || choiceInput == 'Y') {
-      Iterator<Ingredient> iterator = this.foodStorage.getIterator();
-      while (iterator.hasNext()) {
-        Ingredient ingredient = iterator.next();
-        if (ingredient.getIngredientExpireDate().equals("Expired")) {
-          sumOfExpiredIngredientPrices += ingredient.getIngredientPrice();
-          iterator.remove();
-          System.out.println("Removed expired ingredient: " + ingredient.getIngredientName());
-        }
+      for (Ingredient ingredient : this.foodStorage.removeExpiredIngredients()) {
+        sumOfExpiredIngredientPrices += ingredient.getIngredientPrice();
+        userOutput.println("Removed expired ingredient: " + ingredient.getIngredientName());
       }
-      System.out.println("\n Succesfully removed expired ingredients.");
-      System.out.println("Total price of expired Ingredients: " + sumOfExpiredIngredientPrices);
+      userOutput.println("\n Succesfully removed expired ingredients.");
+      userOutput.println("Total price of expired Ingredients: " + sumOfExpiredIngredientPrices);
     } else {
-      System.out.println("\nNo ingredients were removed.");
+      userOutput.println("\nNo ingredients were removed.");
     }
   }
 
@@ -751,63 +914,41 @@ public class UserInterface {
    * @param recipe the Recipe object to check for available ingredients
    */
   public void checkIfCookable(Recipe recipe) {
-    List<String> expiredIngredients = new ArrayList<>();
-    List<String> missingIngredients = new ArrayList<>();
-    Map<String, String> lowAmountIngredients = new HashMap<>();
-    int readyStorageIngredients = 0;
-    Iterator<Ingredient> iterator = recipe.getIngredientIterator();
-    while (iterator.hasNext()) {
-      Ingredient recipeIngredient = iterator.next();
-
-      if (this.foodStorage.getIngredients().containsKey(recipeIngredient.getIngredientName())) {
-        double storedIngredientAmount = this.foodStorage
-                                        .getIngredient(recipeIngredient.getIngredientName())
-                                        .getIngredientAmount();
-
-        String storedIngredientDate = this.foodStorage
-                .getIngredient(recipeIngredient.getIngredientName())
-                .getIngredientExpireDate();
-
-        if (!this.foodStorage.getIngredients().containsKey(recipeIngredient.getIngredientName())) {
-          missingIngredients.add(recipeIngredient.getIngredientName());
-        } else if (recipeIngredient.getIngredientAmount() <= storedIngredientAmount 
-            && !storedIngredientDate.equals("Expired")) {
-          readyStorageIngredients++;
-        } else if (recipeIngredient.getIngredientAmount() > storedIngredientAmount 
-                                      && !storedIngredientDate.equals("Expired")) {
-          lowAmountIngredients.put(recipeIngredient.getIngredientName(),
-                      (storedIngredientAmount - recipeIngredient.getIngredientAmount())
-                      + recipeIngredient.getIngredientMeasurment());
+    try (TraceSpan span = Tracer.startSpan("UserInterface.checkIfCookable")) {
+      CookabilityReport report = this.cookabilityCache.checkIfCookable(recipe);
+
+      try (TraceSpan renderSpan = Tracer.startSpan("checkIfCookable.render")) {
+        if (report.isCookable()) {
+          userOutput.println("\nThis recipe can be made.");
+          report.getSubstitutions().forEach((ingredientName, substituteName) ->
+              userOutput.println("Using " + substituteName + " instead of " + ingredientName));
         } else {
-          expiredIngredients.add(recipeIngredient.getIngredientName());
-        }
-      } else {
-        missingIngredients.add(recipeIngredient.getIngredientName());
-      }
-      
+          userOutput.println("\nThis recipe cant be made.");
 
-    }
-
-    if (readyStorageIngredients == recipe.getIngredients().size()) {
-      System.out.println("\nThis recipe can be made.");
-    } else {
-      System.out.println("\nThis recipe cant be made.");
-
-      if (missingIngredients.size() > 0) {
-        System.out.println("The following ingredient isn't in the storage:");
-        missingIngredients.forEach(ingredientName -> System.out.println(ingredientName));
-      }
+          if (report.getMissingIngredients().size() > 0) {
+            userOutput.println("The following ingredient isn't in the storage:");
+            report.getMissingIngredients()
+                .forEach(ingredientName -> userOutput.println(ingredientName));
+          }
 
-      if (lowAmountIngredients.size() > 0) {
-        System.out.println("\nThe following ingredients have a lower amount than required:");
-        lowAmountIngredients.forEach((ingredient, ingreadients) -> {
-          System.out.println(ingredient + " missing: " + ingreadients);
-        });
-      }
+          if (report.getLowAmountIngredients().size() > 0) {
+            userOutput.println("\nThe following ingredients have a lower amount than required:");
+            for (int i = 0; i < recipe.getIngredientCount(); i++) {
+              Double neededAmount = report.getLowAmountIngredients()
+                  .get(recipe.getIngredientName(i));
+              if (neededAmount != null) {
+                userOutput.println(recipe.getIngredientName(i) + " missing: "
+                    + (-neededAmount) + recipe.getIngredientMeasurment(i));
+              }
+            }
+          }
 
-      if (expiredIngredients.size() > 0) {
-        System.out.println("\nThe following ingredients is expired");
-        expiredIngredients.forEach(ingredientName -> System.out.println(ingredientName));
+          if (report.getExpiredIngredients().size() > 0) {
+            userOutput.println("\nThe following ingredients is expired");
+            report.getExpiredIngredients()
+                .forEach(ingredientName -> userOutput.println(ingredientName));
+          }
+        }
       }
     }
   }
@@ -815,38 +956,30 @@ public class UserInterface {
 
 
 
+
   /**
  * Suggests recipes that can be made with the ingredients available in the food storage.
  * It checks all available recipes in the recipe book and prints the names of the recipes
  * that can be made with the current ingredients.
  */
   public void suggestRecipesToMake() {
-    List<String> readyRecipes = new ArrayList<>();
-    Iterator<Recipe> iterator = this.recipeBook.getIterator();
-    while (iterator.hasNext()) {
-      Recipe recipe = iterator.next();
-      int totalIngredientStored = 0;
-      for (Ingredient ingredient : recipe.getIngredients().values()) {
-        if (this.foodStorage.getIngredients().containsKey(ingredient.getIngredientName())) {
-          totalIngredientStored++;
-        } 
-      }
+    try (TraceSpan span = Tracer.startSpan("UserInterface.suggestRecipesToMake")) {
+      List<String> readyRecipes = this.cookabilityCache.suggestRecipesToMake();
 
-      if (totalIngredientStored == recipe.getIngredients().values().size()) {
-        readyRecipes.add(recipe.getRecipeName());
+      try (TraceSpan renderSpan = Tracer.startSpan("suggestRecipesToMake.render")) {
+        if (readyRecipes.size() == 0) {
+          userOutput.println("\nYou cant make any recipes from the book");
+        } else {
+          userOutput.println("\nYou can cook the following recipes");
+          for (String recipe : readyRecipes) {
+            userOutput.println(recipe);
+          }
+        }
       }
     }
+  }
 
-    if (readyRecipes.size() == 0) {
-      System.out.println("\nYou cant make any recipes from the book");
-    } else {
-      System.out.println("\nYou can cook the following recipes");
-      for (String recipe : readyRecipes) {
-        System.out.println(recipe);
-      }
-    }
 
-  }
 
 
 
@@ -873,8 +1006,8 @@ public class UserInterface {
  * @return the name of the recipe
  */  
   public String askAboutRecipeName(Scanner userInput) {
-    System.out.println("\nWhat is the name of recipe you want to add in the book?");
-    String recipeName = ValidationUtil.isVaildStringInput(userInput, "recipe name");
+    userOutput.println("\nWhat is the name of recipe you want to add in the book?");
+    String recipeName = ValidationUtil.isVaildStringInput(userInput, userOutput, "recipe name");
     return recipeName;
   }
 
@@ -887,10 +1020,11 @@ public class UserInterface {
  * @return the description for the recipe
  */
   public String askAboutRecipeDescription(Scanner userInput, String userRecipeName) {
-    System.out.println("Write a Description about "
+    userOutput.println("Write a Description about "
                           + userRecipeName 
                           + ":");        
-    String recipeDescription = ValidationUtil.isVaildStringInput(userInput, "recipe description");
+    String recipeDescription = ValidationUtil.isVaildStringInput(
+        userInput, userOutput, "recipe description");
     return recipeDescription;
   }
     
@@ -903,10 +1037,11 @@ public class UserInterface {
  * @return the instructions for the recipe
  */    
   public String askAboutRecipeInstructions(Scanner userInput, String userRecipeName) {
-    System.out.println("Give instruction on how to make "
+    userOutput.println("Give instruction on how to make "
                           + userRecipeName 
                           + ":");
-    String recipeInstructions = ValidationUtil.isVaildStringInput(userInput, "recipe instruction");
+    String recipeInstructions = ValidationUtil.isVaildStringInput(
+        userInput, userOutput, "recipe instruction");
     return recipeInstructions;
   }
 
@@ -918,8 +1053,8 @@ public class UserInterface {
  * @return the number of servings for the recipe
  */
   public int askAboutRecipeServing(Scanner userInput, String userRecipeName) {
-    System.out.println("How many people its made to?");
-    int recipeServing = ValidationUtil.isVaildIntInput(userInput, "Amount of People");
+    userOutput.println("How many people its made to?");
+    int recipeServing = ValidationUtil.isVaildIntInput(userInput, userOutput, "Amount of People");
     return recipeServing;
   }
   
@@ -932,8 +1067,9 @@ public class UserInterface {
    * @return the name of the ingredient as a String
    */
   public String askAboutIngredientName(Scanner userInput) {
-    System.out.println("\nWhat is the name of the ingredient?");
-    String ingredientName = ValidationUtil.isVaildStringInput(userInput, "ingredient name");
+    userOutput.println("\nWhat is the name of the ingredient?");
+    String ingredientName = ValidationUtil.isVaildStringInput(
+        userInput, userOutput, "ingredient name");
     return ingredientName;
   }
   
@@ -944,11 +1080,11 @@ public class UserInterface {
    * @return the ingredient measurement type as an integer
    */
   public int askAboutIngredientMessurment(Scanner userInput) {
-    System.out.println("\nWhat does it measure? (the number to the left) ");
-    System.out.println("0. Unit/Units ");
-    System.out.println("1. Gram ");
-    System.out.println("2. Liter ");
-    int ingredientMeasurement = ValidationUtil.isVaildMesurmentInput(userInput);
+    userOutput.println("\nWhat does it measure? (the number to the left) ");
+    userOutput.println("0. Unit/Units ");
+    userOutput.println("1. Gram ");
+    userOutput.println("2. Liter ");
+    int ingredientMeasurement = ValidationUtil.isVaildMesurmentInput(userInput, userOutput);
     return ingredientMeasurement;
   }
   
@@ -961,9 +1097,10 @@ public class UserInterface {
    * @return the amount of the ingredient as a double
    */
   public double askAboutIngredientAmount(Scanner userInput, String ingredientName) {
-    System.out.println("\nWhat is the amount you have of "
+    userOutput.println("\nWhat is the amount you have of "
                                 + ingredientName + "?");
-    double ingredientAmount = ValidationUtil.isVaildDoubleInput(userInput, "ingredient amount");
+    double ingredientAmount = ValidationUtil.isVaildDoubleInput(
+        userInput, userOutput, "ingredient amount");
     return ingredientAmount;
   }
   
@@ -975,10 +1112,11 @@ public class UserInterface {
    * @return the price of the ingredient as a double
    */
   public double askAboutIngredientPrice(Scanner userInput, String ingredientName) {
-    System.out.println("\nWhat is the price of it "
+    userOutput.println("\nWhat is the price of it "
                             + ingredientName 
                             + "? (If you selected an mesurment as unit the price is per unit)");
-    double ingredientPrice = ValidationUtil.isVaildDoubleInput(userInput, "ingredient price");
+    double ingredientPrice = ValidationUtil.isVaildDoubleInput(
+        userInput, userOutput, "ingredient price");
     return ingredientPrice;
   }
   
@@ -990,8 +1128,8 @@ public class UserInterface {
    * @return the expiration date of the ingredient as a String
    */
   public String askAboutIngredientExpireDate(Scanner userInput) {
-    System.out.println("\nEnter the ingredient expiration date (yyyy-MM-dd):");
-    String ingredientExpireDate = ValidationUtil.isValidDateInput(userInput, 
+    userOutput.println("\nEnter the ingredient expiration date (yyyy-MM-dd):");
+    String ingredientExpireDate = ValidationUtil.isValidDateInput(userInput, userOutput, 
                                           "ingredient expire date");
     return ingredientExpireDate;
   }
@@ -1007,7 +1145,7 @@ public class UserInterface {
  * @param recipe the Recipe object for which the menu is displayed
  */
   public void recipeMenuText(Recipe recipe) {
-    System.out.println("\nRecipe menu for "
+    userOutput.println("\nRecipe menu for "
                       + recipe.getRecipeName()
                       + ":"
                       + "\n1. Check if the recipe could be make"
@@ -1027,7 +1165,7 @@ public class UserInterface {
  * 0. Go back to the start menu
  */
   public void foodStorageMenu() {
-    System.out.println("\nFood storage menu:"
+    userOutput.println("\nFood storage menu:"
             + "\n1. Remove expire ingredients" 
             + "\n2. Check the value of the storage"
             + "\n3. Redisplay food storage"
@@ -1052,7 +1190,7 @@ public class UserInterface {
    * </ul>
    */
   public void applicationStartMenu() {
-    System.out.println("\nSelection Menu:"
+    userOutput.println("\nSelection Menu:"
                     + "\n1. Add Ingredients to your food storage"
                     + "\n2. Search for Ingredient in storage"
                     + "\n3. Display ingredients in the food storage"
@@ -1075,7 +1213,7 @@ public class UserInterface {
  * @param ingredient the Ingredient object for which the menu is displayed
  */
   public void ingredientMenuText(Ingredient ingredient) {
-    System.out.println("\nIngredient menu:"
+    userOutput.println("\nIngredient menu:"
             + "\n1. Use amoumt of " + ingredient.getIngredientName()
             + "\n2. Add amount of " + ingredient.getIngredientName()
             + "\n3. Remove " + ingredient.getIngredientName()
@@ -0,0 +1,114 @@
+package edu.ntnu.iir.bidata.untility;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The IngredientDictionary class gives every ingredient name a small, dense integer id.
+ * Ids start at 0 and are never reused, so they can index arrays and bitsets.
+ *
+ * <p>Lookups are lock-free; assigning a new id is synchronized. Names are used exactly
+ * as given, so callers should pass the normalized name of an ingredient
+ * (see {@code Ingredient#getIngredientName()}).
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * IngredientDictionary dictionary = IngredientDictionary.global();
+ * int tomatoId = dictionary.idOf("Tomato");
+ * String name = dictionary.nameOf(tomatoId); // "Tomato"
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class IngredientDictionary {
+
+  private static final IngredientDictionary GLOBAL = new IngredientDictionary();
+
+  private final ConcurrentHashMap<String, Integer> idsByName = new ConcurrentHashMap<>();
+  private volatile String[] namesById = new String[64];
+  private volatile int size;
+
+  /**
+   * Returns the dictionary shared by the whole application.
+   *
+   * @return the global dictionary
+   */
+  public static IngredientDictionary global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Returns the id of a name, assigning the next free id if the name is new.
+   *
+   * @param ingredientName the ingredient name
+   * @return the id of the name
+   * @throws IllegalArgumentException if the name is blank, empty or null
+   */
+  public int idOf(String ingredientName) {
+    Integer id = this.idsByName.get(validateName(ingredientName));
+    return id != null ? id : assign(ingredientName);
+  }
+
+  /**
+   * Returns the id of a name without assigning one.
+   *
+   * @param ingredientName the ingredient name
+   * @return the id of the name, or -1 if the name has no id
+   */
+  public int findId(String ingredientName) {
+    if (ingredientName == null) {
+      return -1;
+    }
+    Integer id = this.idsByName.get(ingredientName);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns the name with the given id.
+   *
+   * @param id the id of the name
+   * @return the ingredient name
+   * @throws IllegalArgumentException if no name has the id
+   */
+  public String nameOf(int id) {
+    if (id < 0 || id >= this.size) {
+      throw new IllegalArgumentException("ERR: unknown ingredient id " + id);
+    }
+    return this.namesById[id];
+  }
+
+  /**
+   * Returns the number of names with an id. Ids run from 0 to size - 1.
+   *
+   * @return the dictionary size
+   */
+  public int size() {
+    return this.size;
+  }
+
+  private synchronized int assign(String ingredientName) {
+    Integer existingId = this.idsByName.get(ingredientName);
+    if (existingId != null) {
+      return existingId;
+    }
+    int id = this.size;
+    String[] names = this.namesById;
+    if (id == names.length) {
+      names = Arrays.copyOf(names, names.length * 2);
+    }
+    names[id] = ingredientName;
+    this.namesById = names;
+    this.size = id + 1;
+    // ! Publish the name before the id, so nameOf works for every id a reader can see
+    this.idsByName.put(ingredientName, id);
+    return id;
+  }
+
+  private static String validateName(String ingredientName) {
+    if (ingredientName == null || ingredientName.isBlank()) {
+      throw new IllegalArgumentException("ERR: ingredient name cant be blank, empty or null");
+    }
+    return ingredientName;
+  }
+}
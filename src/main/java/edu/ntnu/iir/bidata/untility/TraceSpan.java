@@ -0,0 +1,128 @@
+package edu.ntnu.iir.bidata.untility;
+
+/**
+ * The TraceSpan class represents one timed step of an operation traced by the {@link Tracer}.
+ * Spans are nested: a span started while another span is open on the same thread
+ * (or on a thread started from it) becomes its child and shares its trace id.
+ *
+ * <p>Spans are closed with try-with-resources:
+ * <pre>{@code
+ * try (TraceSpan span = Tracer.startSpan("FoodStorage.addIngredient")) {
+ *   // traced work
+ * }
+ * }</pre>
+ * The span variable is only there to be closed, so classes that open spans carry
+ * {@code @SuppressWarnings("try")} to keep {@code -Xlint:all} quiet about it.
+ *
+ * <p>When a trace is not sampled the tracer hands out non-recording spans, and when
+ * sampling is turned off it hands out the shared {@link #NOOP} span, so closing a span
+ * is always safe.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class TraceSpan implements AutoCloseable {
+
+  /** Span handed out when tracing is off. It records nothing and has no parent. */
+  public static final TraceSpan NOOP = new TraceSpan(null, null, 0L, 0L, 0L, false);
+
+  private final String spanName;
+  private final TraceSpan parentSpan;
+  private final long traceId;
+  private final long spanId;
+  private final long startNanos;
+  private final boolean recording;
+  private boolean closed;
+
+  /**
+   * Constructs a span. Only the {@link Tracer} creates spans.
+   *
+   * @param spanName the name of the traced step
+   * @param parentSpan the enclosing span, or null for a root span
+   * @param traceId the id shared by every span of one trace
+   * @param spanId the id of this span
+   * @param startNanos the {@link System#nanoTime()} value when the span started
+   * @param recording true if the span is exported when it is closed
+   */
+  TraceSpan(
+      String spanName,
+      TraceSpan parentSpan,
+      long traceId,
+      long spanId,
+      long startNanos,
+      boolean recording) {
+    this.spanName = spanName;
+    this.parentSpan = parentSpan;
+    this.traceId = traceId;
+    this.spanId = spanId;
+    this.startNanos = startNanos;
+    this.recording = recording;
+  }
+
+  /**
+   * Returns the name of the traced step.
+   *
+   * @return the span name
+   */
+  public String getSpanName() {
+    return this.spanName;
+  }
+
+  /**
+   * Returns the enclosing span.
+   *
+   * @return the parent span, or null for a root span
+   */
+  public TraceSpan getParentSpan() {
+    return this.parentSpan;
+  }
+
+  /**
+   * Returns the id shared by every span of the trace.
+   *
+   * @return the trace id
+   */
+  public long getTraceId() {
+    return this.traceId;
+  }
+
+  /**
+   * Returns the id of this span.
+   *
+   * @return the span id
+   */
+  public long getSpanId() {
+    return this.spanId;
+  }
+
+  /**
+   * Returns the {@link System#nanoTime()} value when the span started.
+   *
+   * @return the start time in nanoseconds
+   */
+  long getStartNanos() {
+    return this.startNanos;
+  }
+
+  /**
+   * Returns whether the span belongs to a sampled trace and is exported on close.
+   *
+   * @return true if the span is recorded
+   */
+  public boolean isRecording() {
+    return this.recording;
+  }
+
+  /**
+   * Ends the span, exports it if it is recorded and makes its parent the current span again.
+   * Closing a span more than once has no effect.
+   */
+  @Override
+  public void close() {
+    if (this == NOOP || this.closed) {
+      return;
+    }
+    this.closed = true;
+    Tracer.endSpan(this);
+  }
+}
@@ -0,0 +1,289 @@
+package edu.ntnu.iir.bidata.untility;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The Tracer class is a lightweight in-process tracing facility for multi-step
+ * operations such as cooking a recipe or suggesting recipes to make.
+ *
+ * <p>Each traced step is a {@link TraceSpan}. Spans opened while another span is open
+ * become its children, so one slow operation can be broken down into lookups,
+ * validation, amount updates and rendering. The current span is kept in an inheritable
+ * thread local, so threads (including virtual threads) started inside a span continue
+ * the same trace. Work handed to a pool can be carried over with {@link #wrap(Runnable)}.
+ *
+ * <p>Sampling is decided once per trace at the root span. With a sample rate of 0 (the
+ * default) {@link #startSpan(String)} only reads one volatile field and returns
+ * {@link TraceSpan#NOOP}, so tracing can stay in the code at close to zero cost.
+ *
+ * <p>Recorded spans are exported as JSON lines, one object per finished span:
+ * <pre>
+ * {"traceId":"..","spanId":"..","parentId":"..","name":"..","thread":"..",
+ *  "startEpochMicros":..,"durationNanos":..}
+ * </pre>
+ *
+ * <p>Example usage:
+ * <pre>{@code
+ * Tracer.configure(0.1, Path.of("trace.jsonl"));
+ * try (TraceSpan span = Tracer.startSpan("cookRecipe")) {
+ *   // traced work
+ * }
+ * Tracer.flush();
+ * }</pre>
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public class Tracer {
+
+  private static final InheritableThreadLocal<TraceSpan> CURRENT_SPAN =
+      new InheritableThreadLocal<>();
+  private static final Object EXPORT_LOCK = new Object();
+
+  // ? Offset to turn System.nanoTime() into wall clock microseconds for the export
+  private static final long EPOCH_OFFSET_NANOS =
+      System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+
+  private static volatile double sampleRate = 0.0;
+  private static BufferedWriter traceWriter;
+
+  private Tracer() {
+  }
+
+  /**
+   * Turns tracing on and sets where recorded spans are written.
+   * Spans are appended to the file if it already exists.
+   *
+   * @param newSampleRate the share of traces to record, between 0 and 1
+   * @param traceFile the JSON-lines file to export spans to
+   * @throws IllegalArgumentException if the sample rate is outside 0 to 1 or the file is null
+   * @throws UncheckedIOException if the trace file cant be opened
+   */
+  public static void configure(double newSampleRate, Path traceFile) {
+    if (newSampleRate < 0 || newSampleRate > 1) {
+      throw new IllegalArgumentException("ERR: sample rate must be between 0 and 1");
+    }
+    if (traceFile == null) {
+      throw new IllegalArgumentException("ERR: trace file cant be null");
+    }
+    synchronized (EXPORT_LOCK) {
+      closeWriter();
+      try {
+        traceWriter = Files.newBufferedWriter(traceFile, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+      } catch (IOException e) {
+        throw new UncheckedIOException("ERR: cant open trace file " + traceFile, e);
+      }
+    }
+    sampleRate = newSampleRate;
+  }
+
+  /**
+   * Turns tracing off and closes the trace file. Spans still open are dropped.
+   */
+  public static void shutdown() {
+    sampleRate = 0.0;
+    synchronized (EXPORT_LOCK) {
+      closeWriter();
+    }
+  }
+
+  /**
+   * Returns whether any traces are being sampled.
+   *
+   * @return true if the sample rate is above 0
+   */
+  public static boolean isEnabled() {
+    return sampleRate > 0.0;
+  }
+
+  /**
+   * Starts a span as a child of the current span, or as the root of a new trace
+   * if no span is open. The span must be closed, preferably with try-with-resources.
+   *
+   * @param spanName the name of the traced step
+   * @return the started span, or {@link TraceSpan#NOOP} if tracing is off
+   */
+  public static TraceSpan startSpan(String spanName) {
+    double rate = sampleRate;
+    if (rate <= 0.0) {
+      return TraceSpan.NOOP;
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    TraceSpan parentSpan = CURRENT_SPAN.get();
+    TraceSpan span;
+    if (parentSpan == null) {
+      boolean sampled = rate >= 1.0 || random.nextDouble() < rate;
+      span = new TraceSpan(spanName, null, random.nextLong(), random.nextLong(),
+          System.nanoTime(), sampled);
+    } else {
+      span = new TraceSpan(spanName, parentSpan, parentSpan.getTraceId(), random.nextLong(),
+          System.nanoTime(), parentSpan.isRecording());
+    }
+    CURRENT_SPAN.set(span);
+    return span;
+  }
+
+  /**
+   * Returns the span open on the current thread.
+   *
+   * @return the current span, or {@link TraceSpan#NOOP} if no span is open
+   */
+  public static TraceSpan currentSpan() {
+    TraceSpan span = CURRENT_SPAN.get();
+    return span == null ? TraceSpan.NOOP : span;
+  }
+
+  /**
+   * Wraps a task so that it runs as part of the trace that is current when this method
+   * is called, even if the task is run later on a pool thread.
+   *
+   * @param task the task to wrap
+   * @return the wrapped task, or the task itself if no span is open
+   */
+  public static Runnable wrap(Runnable task) {
+    TraceSpan capturedSpan = CURRENT_SPAN.get();
+    if (capturedSpan == null) {
+      return task;
+    }
+    return () -> {
+      TraceSpan previousSpan = CURRENT_SPAN.get();
+      CURRENT_SPAN.set(capturedSpan);
+      try {
+        task.run();
+      } finally {
+        restore(previousSpan);
+      }
+    };
+  }
+
+  /**
+   * Wraps a task so that it runs as part of the trace that is current when this method
+   * is called, even if the task is run later on a pool thread.
+   *
+   * @param <T> the result type of the task
+   * @param task the task to wrap
+   * @return the wrapped task, or the task itself if no span is open
+   */
+  public static <T> Callable<T> wrap(Callable<T> task) {
+    TraceSpan capturedSpan = CURRENT_SPAN.get();
+    if (capturedSpan == null) {
+      return task;
+    }
+    return () -> {
+      TraceSpan previousSpan = CURRENT_SPAN.get();
+      CURRENT_SPAN.set(capturedSpan);
+      try {
+        return task.call();
+      } finally {
+        restore(previousSpan);
+      }
+    };
+  }
+
+  /**
+   * Writes any buffered spans to the trace file.
+   *
+   * @throws UncheckedIOException if the trace file cant be written
+   */
+  public static void flush() {
+    synchronized (EXPORT_LOCK) {
+      if (traceWriter != null) {
+        try {
+          traceWriter.flush();
+        } catch (IOException e) {
+          throw new UncheckedIOException("ERR: cant flush trace file", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Ends a span: exports it if it is recorded and makes its parent the current span.
+   *
+   * @param span the span to end
+   */
+  static void endSpan(TraceSpan span) {
+    long durationNanos = System.nanoTime() - span.getStartNanos();
+    if (CURRENT_SPAN.get() == span) {
+      restore(span.getParentSpan());
+    }
+    if (span.isRecording()) {
+      export(span, durationNanos);
+    }
+  }
+
+  private static void restore(TraceSpan span) {
+    if (span == null) {
+      CURRENT_SPAN.remove();
+    } else {
+      CURRENT_SPAN.set(span);
+    }
+  }
+
+  private static void export(TraceSpan span, long durationNanos) {
+    TraceSpan parentSpan = span.getParentSpan();
+    StringBuilder line = new StringBuilder(192);
+    line.append("{\"traceId\":\"").append(Long.toHexString(span.getTraceId()))
+        .append("\",\"spanId\":\"").append(Long.toHexString(span.getSpanId()))
+        .append("\",\"parentId\":");
+    if (parentSpan == null) {
+      line.append("null");
+    } else {
+      line.append('"').append(Long.toHexString(parentSpan.getSpanId())).append('"');
+    }
+    line.append(",\"name\":\"");
+    appendEscaped(line, span.getSpanName());
+    line.append("\",\"thread\":\"");
+    appendEscaped(line, Thread.currentThread().getName());
+    line.append("\",\"startEpochMicros\":")
+        .append((span.getStartNanos() + EPOCH_OFFSET_NANOS) / 1_000L)
+        .append(",\"durationNanos\":").append(durationNanos)
+        .append('}');
+
+    synchronized (EXPORT_LOCK) {
+      if (traceWriter == null) {
+        return;
+      }
+      try {
+        traceWriter.write(line.toString());
+        traceWriter.newLine();
+      } catch (IOException e) {
+        throw new UncheckedIOException("ERR: cant write trace file", e);
+      }
+    }
+  }
+
+  private static void appendEscaped(StringBuilder line, String text) {
+    for (int i = 0; i < text.length(); i++) {
+      char character = text.charAt(i);
+      if (character == '"' || character == '\\') {
+        line.append('\\').append(character);
+      } else if (character < 0x20) {
+        line.append(String.format("\\u%04x", (int) character));
+      } else {
+        line.append(character);
+      }
+    }
+  }
+
+  private static void closeWriter() {
+    if (traceWriter != null) {
+      try {
+        traceWriter.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException("ERR: cant close trace file", e);
+      } finally {
+        traceWriter = null;
+      }
+    }
+  }
+}
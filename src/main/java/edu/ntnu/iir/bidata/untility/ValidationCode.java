@@ -0,0 +1,55 @@
+package edu.ntnu.iir.bidata.untility;
+
+/**
+ * The ValidationCode enum is the result of a check that doesnt throw, such as
+ * {@link ValidationUtil#validateIngredient(String, double, int, double)}. Bulk loads can
+ * count and report invalid rows without paying for an exception per row.
+ *
+ * <p>Every code carries the message the throwing checks use for the same problem.
+ *
+ * @version 22.0.2
+ * @author (Mahmoud Said Madhun Madhun)
+ */
+public enum ValidationCode {
+
+  /** The values are valid. */
+  VALID(null),
+  /** The name is null, empty or only spaces. */
+  BLANK_NAME("ERR: name cant be blank or empty"),
+  /** The name starts or ends with a space. */
+  NAME_EDGE_SPACE("ERR: name cant start with space or end with space"),
+  /** The measurement type isnt 0, 1 or 2. */
+  WRONG_MEASUREMENT("ERR: wrong messurment"),
+  /** The amount is 0, negative or not a number. */
+  NON_POSITIVE_AMOUNT("ERR: amount cant be 0 or negative"),
+  /** The price is negative or not a number. */
+  NEGATIVE_PRICE("ERR: price cant be 0 or negative"),
+  /** The date isnt a valid yyyy-MM-dd date. */
+  WRONG_DATE_FORMAT("ERR: Wrong date format i should be (yyyy-MM-dd)"),
+  /** The text isnt a number. */
+  NOT_A_NUMBER("ERR: not a number");
+
+  private final String message;
+
+  ValidationCode(String message) {
+    this.message = message;
+  }
+
+  /**
+   * Returns whether the code means the values are valid.
+   *
+   * @return true for {@link #VALID}
+   */
+  public boolean isValid() {
+    return this == VALID;
+  }
+
+  /**
+   * Returns the message for the problem.
+   *
+   * @return the message, or null for {@link #VALID}
+   */
+  public String getMessage() {
+    return this.message;
+  }
+}
@@ -1,7 +1,6 @@
 package edu.ntnu.iir.bidata.untility;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.io.PrintStream;
 import java.util.Scanner;
 
 /**
@@ -24,6 +23,8 @@ import java.util.Scanner;
  * <p>Each method reads user input from the console using a Scanner object and 
  * ensures that the input meets the required criteria. If the input is invalid, 
  * the user is prompted to re-enter the input until a valid input is provided.
+ * Every method has an overload that takes the {@link PrintStream} to prompt on, so
+ * the same checks work for a session that isnt on the console.
  * 
  * <p>Example usage:
  * <pre>
@@ -48,18 +49,39 @@ import java.util.Scanner;
  * @version 22.0.2
  * @author (Mahmoud Said Madhun Madhun)
  */
+@SuppressWarnings("try")
 public class ValidationUtil {
+
+  /** Returned by the parse methods that return a long when the text cant be parsed. */
+  public static final long NOT_PARSED = Long.MIN_VALUE;
+
+  private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+  private static final long DAYS_0000_TO_1970 = 719528L;
     
 
+  /**
+   * Same as {@link #isVaildStringInput(Scanner, PrintStream, String)},
+   * prompting on {@code System.out}.
+   *
+   * @param userInput the Scanner object to read user input
+   * @param validationTarget the target being validated
+   * @return the validated input
+   */
+  public static String isVaildStringInput(Scanner userInput, String validationTarget) {
+    return isVaildStringInput(userInput, System.out, validationTarget);
+  }
+
   /**
    * Prompts the user to input the name of an ingredient and validates the input.
    * The method ensures that the user does not enter a blank or empty name.
    * 
    *
    * @param userInput a Scanner object to read user input from the console.
+   * @param userOutput the stream prompts and error messages are written to
    * @return a valid ingredient name entered by the user.
   */
-  public static String isVaildStringInput(Scanner userInput, String validationTarget) {
+  public static String isVaildStringInput(
+      Scanner userInput, PrintStream userOutput, String validationTarget) {
     String stringInput = userInput.nextLine();
     stringInput = stringInput.replaceAll("\\s+", " ").trim();
     stringInput = stringInput.substring(0, 1).toUpperCase() 
@@ -67,10 +89,10 @@ public class ValidationUtil {
     boolean inCorrectString = true; // name is not correct
     while (inCorrectString == true) {
       if ((stringInput.isBlank())) {
-        System.out.println("\n"
+        userOutput.println("\n"
                           + validationTarget
                           + " cant be blank or empty.");
-        System.out.println("Rewrite name:");
+        userOutput.println("Rewrite name:");
         stringInput = userInput.nextLine(); //
       } else {
         inCorrectString = false;
@@ -79,6 +101,17 @@ public class ValidationUtil {
     return stringInput;
   }
 
+  /**
+   * Same as {@link #isVaildMesurmentInput(Scanner, PrintStream)},
+   * prompting on {@code System.out}.
+   *
+   * @param userInput the Scanner object to read user input
+   * @return the validated integer value
+   */
+  public static int isVaildMesurmentInput(Scanner userInput) {
+    return isVaildMesurmentInput(userInput, System.out);
+  }
+
   /**
    * Validates the user input for ingredient measurement.
    * The input must be an integer between 0 and 2 inclusive.
@@ -86,36 +119,46 @@ public class ValidationUtil {
    * to enter a valid number until a valid input is provided.
    *
    * @param userInput the Scanner object to read user input
+   * @param userOutput the stream prompts and error messages are written to
    * @return the validated ingredient measurement as an integer
-   * @throws NumberFormatException if the input is not a valid integer
   */
-  public static int isVaildMesurmentInput(Scanner userInput) {
+  public static int isVaildMesurmentInput(Scanner userInput, PrintStream userOutput) {
     String messurmentStringInput = null;
     boolean numberIsntIntegar = true;
     int vaildMesurmentInput = 0;
     while (numberIsntIntegar == true) {
-      try {
-        messurmentStringInput = userInput.nextLine();
-        vaildMesurmentInput = Integer.parseInt(messurmentStringInput);
-        
-        if (vaildMesurmentInput < 0 || 2 < vaildMesurmentInput) { 
-          throw new IllegalArgumentException();
-        }
-        numberIsntIntegar = false;
-      } catch (NumberFormatException e) {
-        if (messurmentStringInput instanceof String) {
-          System.out.println("\nYou cant input a string "
-                            + messurmentStringInput
-                            + "\nWrite a number again: ");
-        }
-      } catch (IllegalArgumentException e) {
-        System.out.println("\nThe must be one of the listed."
+      messurmentStringInput = userInput.nextLine();
+      long parsedInput;
+      try (TraceSpan span = Tracer.startSpan("ValidationUtil.parseMeasurement")) {
+        parsedInput = tryParseInt(messurmentStringInput);
+      }
+      if (parsedInput == NOT_PARSED) {
+        userOutput.println("\nYou cant input a string "
+                          + messurmentStringInput
+                          + "\nWrite a number again: ");
+      } else if (parsedInput < 0 || 2 < parsedInput) {
+        userOutput.println("\nThe must be one of the listed."
                             + "\nWrite a number again:");
+      } else {
+        vaildMesurmentInput = (int) parsedInput;
+        numberIsntIntegar = false;
       }
     }
     return vaildMesurmentInput;
   }
 
+  /**
+   * Same as {@link #isVaildDoubleInput(Scanner, PrintStream, String)},
+   * prompting on {@code System.out}.
+   *
+   * @param userInput the Scanner object to read user input
+   * @param validationTarget the target being validated
+   * @return the validated double value
+   */
+  public static double isVaildDoubleInput(Scanner userInput, String validationTarget) {
+    return isVaildDoubleInput(userInput, System.out, validationTarget);
+  }
+
   /**
    * Validates the user input for a double value.
    * The input must be a positive double value.
@@ -123,19 +166,21 @@ public class ValidationUtil {
    * to enter a valid number until a valid input is provided.
    *
    * @param userInput the Scanner object to read user input
+   * @param userOutput the stream prompts and error messages are written to
    * @return the validated double value
-   * @throws NumberFormatException if the input is not a valid double
   */
-  public static double isVaildDoubleInput(Scanner userInput, String validationTarget) {
+  public static double isVaildDoubleInput(
+      Scanner userInput, PrintStream userOutput, String validationTarget) {
     boolean vaildDouble = true;
-    double vaildNumber = Double.parseDouble(userInput.nextLine());
+    double vaildNumber = tryParseDouble(userInput.nextLine());
     while (vaildDouble == true) {
-      if (vaildNumber <= 0) {
+      // ? Not a number fails the check too, NaN is never above 0
+      if (!(vaildNumber > 0)) {
         
-        System.out.println("\nThe number you are trying to enter, cant be"
+        userOutput.println("\nThe number you are trying to enter, cant be"
               + "\nnegative, 0, or higher that the stored amount");
-        System.out.println("Check the Number again: ");
-        vaildNumber = Double.parseDouble(userInput.nextLine());
+        userOutput.println("Check the Number again: ");
+        vaildNumber = tryParseDouble(userInput.nextLine());
       } else {
         vaildDouble = false;
       }
@@ -144,6 +189,18 @@ public class ValidationUtil {
   }
   
 
+  /**
+   * Same as {@link #isVaildIntInput(Scanner, PrintStream, String)},
+   * prompting on {@code System.out}.
+   *
+   * @param userInput the Scanner object to read user input
+   * @param validationTarget the target being validated
+   * @return the validated integer value
+   */
+  public static int isVaildIntInput(Scanner userInput, String validationTarget) {
+    return isVaildIntInput(userInput, System.out, validationTarget);
+  }
+
   /**
    * Validates the user input for an integer value.
    * The input must be a valid integer.
@@ -151,35 +208,46 @@ public class ValidationUtil {
    * to enter a valid number until a valid input is provided.
    *
    * @param userInput the Scanner object to read user input
+   * @param userOutput the stream prompts and error messages are written to
    * @param validationTarget the target being validated
    * @return the validated integer value
    */
-  public static int isVaildIntInput(Scanner userInput, String validationTarget) {
+  public static int isVaildIntInput(
+      Scanner userInput, PrintStream userOutput, String validationTarget) {
     String hopeItsRight = null;
     boolean numberIsntIntegar = true;
     int theValidated = 0;
     while (numberIsntIntegar == true) {
-      try {
-        hopeItsRight = userInput.nextLine();
-        theValidated = Integer.parseInt(hopeItsRight);
+      hopeItsRight = userInput.nextLine();
+      long parsedInput;
+      try (TraceSpan span = Tracer.startSpan("ValidationUtil.parseInt")) {
+        parsedInput = tryParseInt(hopeItsRight);
+      }
+      if (parsedInput == NOT_PARSED) {
+        userOutput.println("\nInvalid entered integar for: ( "
+            + validationTarget 
+            + " )"
+            + "\nWrite a valid integar show from the menu");
+      } else {
+        theValidated = (int) parsedInput;
         numberIsntIntegar = false;
-      } catch (NumberFormatException e) {
-        if (hopeItsRight instanceof String) {
-          System.out.println("\nInvalid entered integar for: ( "
-              + validationTarget 
-              + " )"
-              + "\nWrite a valid integar show from the menu");
-        } else {
-          System.out.println("\nInvalid entered integar for: ("
-              + validationTarget 
-              + ")"
-              + "\nWrite a valid integar show from the menu");
-        }
       }
     }
     return theValidated;
   }
 
+  /**
+   * Same as {@link #isValidDateInput(Scanner, PrintStream, String)},
+   * prompting on {@code System.out}.
+   *
+   * @param userInput the Scanner object to read user input
+   * @param validationTarget the target being validated
+   * @return the validated input
+   */
+  public static String isValidDateInput(Scanner userInput, String validationTarget) {
+    return isValidDateInput(userInput, System.out, validationTarget);
+  }
+
   /**
    * Validates and returns a date input from the user.
    * The method prompts the user to enter a date and checks if the input is in the correct format.
@@ -187,21 +255,25 @@ public class ValidationUtil {
    * it will repeatedly prompt the user until a valid date is entered.
    *
    * @param userInput the Scanner object to read user input
+   * @param userOutput the stream prompts and error messages are written to
    * @return a valid date string in the correct format
    */
-  public static String isValidDateInput(Scanner userInput, String validationTarget) {
-    final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+  public static String isValidDateInput(
+      Scanner userInput, PrintStream userOutput, String validationTarget) {
     String date = userInput.nextLine();
     boolean wrongFormat = true;
     while (wrongFormat == true) {
-      try {
-        LocalDate.parse(date, formatter);
-        wrongFormat = false;
-      } catch (Exception e) {
-        System.out.println("\nWrong Format for "
+      long epochDay;
+      try (TraceSpan span = Tracer.startSpan("ValidationUtil.parseDate")) {
+        epochDay = tryParseEpochDay(date);
+      }
+      if (epochDay == NOT_PARSED) {
+        userOutput.println("\nWrong Format for "
             + validationTarget
             + "\nRetype a date:");
         date = userInput.nextLine();
+      } else {
+        wrongFormat = false;
       }
     }    
     return date;
@@ -210,6 +282,18 @@ public class ValidationUtil {
 
 
 
+  /**
+   * Same as {@link #isValidCharInput(Scanner, PrintStream, String)},
+   * prompting on {@code System.out}.
+   *
+   * @param userInput the Scanner object to read user input
+   * @param validationTarget the target being validated
+   * @return the validated character
+   */
+  public static char isValidCharInput(Scanner userInput, String validationTarget) {
+    return isValidCharInput(userInput, System.out, validationTarget);
+  }
+
   /**
    * Validates the user input for a single character.
    * The input must be a single character.
@@ -217,10 +301,12 @@ public class ValidationUtil {
    * to enter a valid character until a valid input is provided.
    *
    * @param userInput the Scanner object to read user input
+   * @param userOutput the stream prompts and error messages are written to
    * @param validationTarget the target being validated
    * @return the validated character
    */
-  public static char isValidCharInput(Scanner userInput, String validationTarget) {
+  public static char isValidCharInput(
+      Scanner userInput, PrintStream userOutput, String validationTarget) {
     String textInput;
     boolean isValid = false;
     char charInput = '0';
@@ -231,7 +317,7 @@ public class ValidationUtil {
         charInput = textInput.charAt(0);
         isValid = true;
       } else {
-        System.out.println("\nInvalid input for " 
+        userOutput.println("\nInvalid input for " 
                           + validationTarget 
                           + ".\nPlease enter a single character:");
       }
@@ -239,4 +325,165 @@ public class ValidationUtil {
     return charInput;
   }
 
+  /**
+   * Checks the values of a stored ingredient without throwing.
+   *
+   * @param ingredientName the name of the ingredient
+   * @param ingredientAmount the amount, must be above 0
+   * @param ingredientMeasurement the measurement type, from 0 to 2
+   * @param ingredientPrice the price, must be 0 or above
+   * @return the first problem found, or {@link ValidationCode#VALID}
+   */
+  public static ValidationCode validateIngredient(String ingredientName,
+      double ingredientAmount, int ingredientMeasurement, double ingredientPrice) {
+    if (ingredientName == null || ingredientName.isBlank()) {
+      return ValidationCode.BLANK_NAME;
+    }
+    if (ingredientName.startsWith(" ") || ingredientName.endsWith(" ")) {
+      return ValidationCode.NAME_EDGE_SPACE;
+    }
+    if (ingredientMeasurement < 0 || ingredientMeasurement > 2) {
+      return ValidationCode.WRONG_MEASUREMENT;
+    }
+    if (!(ingredientAmount > 0)) {
+      return ValidationCode.NON_POSITIVE_AMOUNT;
+    }
+    if (!(ingredientPrice >= 0)) {
+      return ValidationCode.NEGATIVE_PRICE;
+    }
+    return ValidationCode.VALID;
+  }
+
+  /**
+   * Parses a whole number without throwing. Accepts what {@link Integer#parseInt(String)}
+   * accepts: an optional sign and decimal digits, within the int range.
+   *
+   * @param text the text to parse
+   * @return the number, or {@link #NOT_PARSED} if the text isnt an int
+   */
+  public static long tryParseInt(CharSequence text) {
+    if (text == null || text.length() == 0) {
+      return NOT_PARSED;
+    }
+    int position = 0;
+    boolean negative = false;
+    char first = text.charAt(0);
+    if (first == '-' || first == '+') {
+      negative = first == '-';
+      position++;
+    }
+    int digitCount = text.length() - position;
+    // ? 10 digits fit in a long, more never fit in an int
+    if (digitCount == 0 || digitCount > 10) {
+      return NOT_PARSED;
+    }
+    long value = 0;
+    for (; position < text.length(); position++) {
+      int digit = text.charAt(position) - '0';
+      if (digit < 0 || digit > 9) {
+        return NOT_PARSED;
+      }
+      value = value * 10 + digit;
+    }
+    value = negative ? -value : value;
+    return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? NOT_PARSED : value;
+  }
+
+  /**
+   * Parses a decimal number without throwing. Accepts an optional sign, digits with an
+   * optional decimal point and an optional exponent, with spaces around it.
+   *
+   * @param text the text to parse
+   * @return the number, or {@link Double#NaN} if the text isnt a number
+   */
+  public static double tryParseDouble(String text) {
+    if (text == null) {
+      return Double.NaN;
+    }
+    String number = text.strip();
+    int position = 0;
+    int length = number.length();
+    if (position < length && (number.charAt(position) == '-' || number.charAt(position) == '+')) {
+      position++;
+    }
+    int digitCount = 0;
+    while (position < length && isDigit(number.charAt(position))) {
+      position++;
+      digitCount++;
+    }
+    if (position < length && number.charAt(position) == '.') {
+      position++;
+      while (position < length && isDigit(number.charAt(position))) {
+        position++;
+        digitCount++;
+      }
+    }
+    if (digitCount == 0) {
+      return Double.NaN;
+    }
+    if (position < length && (number.charAt(position) == 'e' || number.charAt(position) == 'E')) {
+      position++;
+      if (position < length
+          && (number.charAt(position) == '-' || number.charAt(position) == '+')) {
+        position++;
+      }
+      int exponentStart = position;
+      while (position < length && isDigit(number.charAt(position))) {
+        position++;
+      }
+      if (position == exponentStart) {
+        return Double.NaN;
+      }
+    }
+    // ? The syntax is checked, so parseDouble cant throw here
+    return position == length ? Double.parseDouble(number) : Double.NaN;
+  }
+
+  /**
+   * Parses a yyyy-MM-dd date to its epoch day without throwing or allocating. It
+   * accepts the same dates as {@code LocalDate.parse(text, ofPattern("yyyy-MM-dd"))}
+   * for four-digit years: a day past the end of its month, such as 2023-02-30, is moved
+   * back to the last day of the month.
+   *
+   * @param text the text to parse
+   * @return the number of days since 1970-01-01, or {@link #NOT_PARSED} if the text
+   *         isnt a date
+   */
+  public static long tryParseEpochDay(CharSequence text) {
+    if (text == null || text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+      return NOT_PARSED;
+    }
+    int year = digits(text, 0, 4);
+    int month = digits(text, 5, 7);
+    int day = digits(text, 8, 10);
+    if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) {
+      return NOT_PARSED;
+    }
+    boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    day = Math.min(day, month == 2 ? (leapYear ? 29 : 28) : DAYS_IN_MONTH[month - 1]);
+
+    // ? Same arithmetic as LocalDate.toEpochDay, for years from 1
+    long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+    total += (367 * month - 362) / 12 + day - 1;
+    if (month > 2) {
+      total -= leapYear ? 1 : 2;
+    }
+    return total - DAYS_0000_TO_1970;
+  }
+
+  private static int digits(CharSequence text, int from, int to) {
+    int value = 0;
+    for (int i = from; i < to; i++) {
+      char character = text.charAt(i);
+      if (!isDigit(character)) {
+        return -1;
+      }
+      value = value * 10 + character - '0';
+    }
+    return value;
+  }
+
+  private static boolean isDigit(char character) {
+    return character >= '0' && character <= '9';
+  }
 }
@@ -0,0 +1,104 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.logic.AtRiskIngredientIndex;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.UrgencyScore;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the AtRiskIngredientIndex class. */
+class AtRiskIngredientIndexTest {
+
+  private MutableClock clock;
+  private FoodStorage foodStorage;
+  private AtRiskIngredientIndex atRisk;
+
+  /** Clock that only moves when the test moves it. */
+  private static class MutableClock extends Clock {
+    private Instant now = Instant.parse("2024-05-01T12:00:00Z");
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+
+  /** Sets up cheap milk expiring tomorrow, steak in four days and rice in a year. */
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock();
+    foodStorage = new FoodStorage(new HashMap<>());
+    foodStorage.addIngredient(new Ingredient("Milk", 1, 0, 10, "2024-05-02"));
+    foodStorage.addIngredient(new Ingredient("Steak", 1, 0, 100, "2024-05-05"));
+    foodStorage.addIngredient(new Ingredient("Rice", 1, 0, 50, "2025-05-01"));
+    atRisk = new AtRiskIngredientIndex(foodStorage, clock, UrgencyScore.valuePerDayLeft());
+  }
+
+  private List<String> mostAtRiskNames(int count) {
+    return atRisk.getMostAtRisk(count).stream().map(Ingredient::getIngredientName).toList();
+  }
+
+  // Positive Tests
+
+  /** Tests that value and days left both decide the ranking. */
+  @Test
+  void testRanking() {
+    // Steak 100 / 5 = 20, Milk 10 / 2 = 5, Rice 50 / 366
+    assertEquals(List.of("Steak", "Milk", "Rice"), mostAtRiskNames(3));
+    assertEquals(20.0, atRisk.getUrgencyScore("Steak"), 1e-9);
+  }
+
+  /** Tests that storage changes move ingredients in the ranking. */
+  @Test
+  void testStorageChangesUpdateRanking() {
+    foodStorage.removeIngredient("Milk");
+    assertEquals(List.of("Steak", "Rice"), mostAtRiskNames(5));
+
+    foodStorage.addIngredient(new Ingredient("Milk", 1, 0, 100, "2024-05-02"));
+    assertEquals(List.of("Milk", "Steak"), mostAtRiskNames(2));
+  }
+
+  /** Tests that a new day rescores and drops expired ingredients. */
+  @Test
+  void testNewDayRescores() {
+    clock.now = Instant.parse("2024-05-03T12:00:00Z");
+    assertEquals(List.of("Steak", "Rice"), mostAtRiskNames(5));
+    assertEquals(100.0 / 3, atRisk.getUrgencyScore("Steak"), 1e-9);
+    assertNull(atRisk.getUrgencyScore("Milk"));
+  }
+
+  /** Tests a custom score that only looks at the days left. */
+  @Test
+  void testCustomScore() {
+    AtRiskIngredientIndex soonest = new AtRiskIngredientIndex(foodStorage, clock,
+        (ingredient, daysToExpiry, value) -> -daysToExpiry);
+    assertEquals("Milk", soonest.getMostAtRisk(1).get(0).getIngredientName());
+  }
+
+  // Negative Tests
+
+  /** Tests that a negative count throws an IllegalArgumentException. */
+  @Test
+  void testNegativeCount() {
+    assertThrows(IllegalArgumentException.class, () -> atRisk.getMostAtRisk(-1));
+  }
+}
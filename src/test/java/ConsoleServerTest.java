@@ -0,0 +1,158 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.ui.ConsoleServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the ConsoleServer class, over the loopback address. */
+class ConsoleServerTest {
+
+  private FoodStorage foodStorage;
+  private RecipeBook recipeBook;
+  private ConsoleServer server;
+
+  /** Starts a server on a free loopback port with an empty shared storage and book. */
+  @BeforeEach
+  void setUp() throws IOException {
+    foodStorage = new FoodStorage(new ConcurrentHashMap<>());
+    recipeBook = new RecipeBook(new ConcurrentHashMap<>());
+    server = new ConsoleServer(foodStorage, recipeBook, 0);
+    server.start();
+  }
+
+  /** Closes the server. */
+  @AfterEach
+  void tearDown() {
+    server.close();
+  }
+
+  private String runSession(String input) throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+      socket.setSoTimeout(10_000);
+      OutputStream output = socket.getOutputStream();
+      output.write(input.getBytes(StandardCharsets.UTF_8));
+      output.flush();
+      InputStream serverOutput = socket.getInputStream();
+      return new String(serverOutput.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private void awaitNoSessions() throws InterruptedException {
+    for (int i = 0; i < 200 && server.getSessionCount() > 0; i++) {
+      Thread.sleep(10);
+    }
+  }
+
+  // Positive Tests
+
+  /** Tests that a session runs the menus and changes the shared storage. */
+  @Test
+  void testSessionAddsToSharedStorage() throws IOException {
+    String output = runSession("1\nMilk\n2\n1\n20\n2999-01-01\nn\n0\n");
+
+    assertTrue(output.contains("Welcome To FoodWaste Application"));
+    assertTrue(output.contains("What is the name of the ingredient?"));
+    assertNotNull(foodStorage.getIngredient("Milk"));
+  }
+
+  /** Tests that a later session sees what an earlier session added. */
+  @Test
+  void testSessionsShareStorage() throws IOException {
+    runSession("1\nMilk\n2\n1\n20\n2999-01-01\nn\n0\n");
+
+    String output = runSession("2\nMilk\n0\n0\n");
+
+    assertTrue(output.contains("Milk"));
+  }
+
+  /** Tests many sessions running at the same time on virtual threads. */
+  @Test
+  void testManyConcurrentSessions() throws Exception {
+    int sessionCount = 200;
+    try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<String>> outputs = new ArrayList<>();
+      for (int i = 0; i < sessionCount; i++) {
+        String ingredientName = "Spice" + i;
+        outputs.add(clients.submit(() ->
+            runSession("1\n" + ingredientName + "\n1\n5\n2\n2999-01-01\nn\n0\n")));
+      }
+      for (Future<String> output : outputs) {
+        assertTrue(output.get().contains("Welcome To FoodWaste Application"));
+      }
+    }
+    assertEquals(sessionCount, foodStorage.getIngredients().size());
+    awaitNoSessions();
+    assertEquals(0, server.getSessionCount());
+  }
+
+  // Negative Tests
+
+  /** Tests that a connection closed in the middle of a menu ends its session. */
+  @Test
+  void testDisconnectEndsSession() throws Exception {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+      socket.getOutputStream().write("1\nMilk\n".getBytes(StandardCharsets.UTF_8));
+    }
+    awaitNoSessions();
+    assertEquals(0, server.getSessionCount());
+  }
+
+  /** Tests that a read-only server shows the storage but refuses every change. */
+  @Test
+  void testReadOnlySessionsRefuseChanges() throws IOException {
+    foodStorage.addIngredient(new Ingredient("Milk", 2, 2, 20, "2999-01-01"));
+    try (ConsoleServer follower = new ConsoleServer(foodStorage, recipeBook, 0, true)) {
+      follower.start();
+      String output;
+      try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), follower.getPort())) {
+        socket.setSoTimeout(10_000);
+        socket.getOutputStream().write(
+            "1\n4\n2\nMilk\n1\n2\n3\n0\n0\n".getBytes(StandardCharsets.UTF_8));
+        output = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+      }
+
+      assertTrue(output.contains("The ingredient you are looking for is in the storage"));
+      assertEquals(5, output.split("read-only", -1).length - 1);
+      assertEquals(2.0, foodStorage.getIngredient("Milk").getIngredientAmount());
+      assertEquals(1, foodStorage.getIngredients().size());
+      assertTrue(recipeBook.getRecipes().isEmpty());
+    }
+  }
+
+  /** Tests that starting twice or reading the port of an unstarted server throws. */
+  @Test
+  void testInvalidState() {
+    assertThrows(IllegalStateException.class, server::start);
+    try (ConsoleServer unstarted = new ConsoleServer(foodStorage, recipeBook, 0)) {
+      assertThrows(IllegalStateException.class, unstarted::getPort);
+    }
+  }
+
+  /** Tests that null arguments throw an IllegalArgumentException. */
+  @Test
+  void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new ConsoleServer(null, recipeBook, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ConsoleServer(foodStorage, recipeBook, 70_000));
+  }
+}
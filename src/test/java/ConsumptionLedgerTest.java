@@ -0,0 +1,134 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.logic.ConsumptionLedger;
+import edu.ntnu.iir.bidata.logic.ConsumptionLedger.EventType;
+import edu.ntnu.iir.bidata.logic.ConsumptionLedger.Granularity;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for the ConsumptionLedger class. */
+class ConsumptionLedgerTest {
+
+  private static final Clock CLOCK =
+      Clock.fixed(Instant.parse("2024-05-10T12:00:00Z"), ZoneOffset.UTC);
+
+  private ConsumptionLedger ledger;
+
+  /** Sets up an empty ledger dated 2024-05-10. */
+  @BeforeEach
+  void setUp() {
+    ledger = new ConsumptionLedger(CLOCK);
+  }
+
+  // Positive Tests
+
+  /** Tests that storage changes are recorded and priced at the purchase price. */
+  @Test
+  void testAttachedStorageIsRecorded() {
+    FoodStorage storage = new FoodStorage(new HashMap<>());
+    ledger.attach("Home", storage);
+    storage.addIngredient(new Ingredient("Egg", 10, 0, 50, "2024-05-09"));
+    storage.useIngredientAmount("Egg", 4);
+    storage.removeExpiredIngredients(LocalDate.parse("2024-05-10"));
+
+    LocalDate day = LocalDate.parse("2024-05-10");
+    assertEquals(3, ledger.getEventCount());
+    assertEquals(20.0, ledger.getTotalValue(EventType.CONSUMED, "Home", day, day), 1e-9);
+    assertEquals(30.0, ledger.getTotalValue(EventType.WASTED, null, day, day), 1e-9);
+    assertEquals(6.0, ledger.getAmountByIngredient(EventType.WASTED, "Home", day, day)
+        .get("Egg"), 1e-9);
+  }
+
+  /** Tests a range that mixes whole months with days on the edges. */
+  @Test
+  void testRangeMixesMonthsAndDays() {
+    LocalDate start = LocalDate.parse("2023-01-01");
+    for (int i = 0; i < 500; i++) {
+      ledger.record("Home", EventType.WASTED, "Milk", 1, 2.0, start.plusDays(i));
+      ledger.record("Cabin", EventType.WASTED, "Milk", 1, 5.0, start.plusDays(i));
+    }
+    LocalDate from = LocalDate.parse("2023-03-15");
+    LocalDate to = LocalDate.parse("2024-03-14");
+    long days = to.toEpochDay() - from.toEpochDay() + 1;
+
+    Map<String, Double> waste = ledger.getValueByIngredient(EventType.WASTED, "Home", from, to);
+    assertEquals(days * 2.0, waste.get("Milk"), 1e-9);
+    assertEquals(days * 7.0, ledger.getTotalValue(EventType.WASTED, null, from, to), 1e-9);
+    assertEquals(0.0, ledger.getTotalValue(EventType.CONSUMED, null, from, to));
+  }
+
+  /** Tests weekly and monthly series. */
+  @Test
+  void testValueSeries() {
+    // 2024-05-06 is a Monday
+    ledger.record("Home", EventType.CONSUMED, "Milk", 1, 3.0, LocalDate.parse("2024-05-06"));
+    ledger.record("Home", EventType.CONSUMED, "Milk", 1, 4.0, LocalDate.parse("2024-05-12"));
+    ledger.record("Home", EventType.CONSUMED, "Milk", 1, 5.0, LocalDate.parse("2024-05-13"));
+
+    Map<LocalDate, Double> weekly = ledger.getValueSeries(EventType.CONSUMED, "Home",
+        Granularity.WEEK, LocalDate.parse("2024-05-01"), LocalDate.parse("2024-05-31"));
+    assertEquals(Map.of(LocalDate.parse("2024-05-06"), 7.0,
+        LocalDate.parse("2024-05-13"), 5.0), weekly);
+
+    Map<LocalDate, Double> monthly = ledger.getValueSeries(EventType.CONSUMED, null,
+        Granularity.MONTH, LocalDate.parse("2024-01-01"), LocalDate.parse("2024-12-31"));
+    assertEquals(Map.of(LocalDate.parse("2024-05-01"), 12.0), monthly);
+  }
+
+  /** Tests that an exported ledger reads back with the same totals. */
+  @Test
+  void testExportAndImport(@TempDir Path directory) throws IOException {
+    ledger.record("Home", EventType.WASTED, "Milk", 1, 2.5, LocalDate.parse("2024-01-03"));
+    ledger.record("Cabin", EventType.WASTED, "Egg", 2, 4.0, LocalDate.parse("2024-02-03"));
+    Path file = directory.resolve("ledger.bin");
+    ledger.exportTo(file);
+
+    ConsumptionLedger copy = ConsumptionLedger.importFrom(file, CLOCK);
+    LocalDate from = LocalDate.parse("2024-01-01");
+    LocalDate to = LocalDate.parse("2024-12-31");
+    assertEquals(2, copy.getEventCount());
+    assertEquals(ledger.getValueByIngredient(EventType.WASTED, null, from, to),
+        copy.getValueByIngredient(EventType.WASTED, null, from, to));
+    // 45 bytes of header and names, then the records as they are held in memory
+    assertEquals(45 + 2 * ConsumptionLedger.RECORD_BYTES, Files.size(file));
+  }
+
+  // Negative Tests
+
+  /** Tests that an unknown household has no events. */
+  @Test
+  void testUnknownHousehold() {
+    ledger.record("Home", EventType.WASTED, "Milk", 1, 2.0, LocalDate.parse("2024-01-03"));
+    assertTrue(ledger.getValueByIngredient(EventType.WASTED, "Nobody",
+        LocalDate.parse("2024-01-01"), LocalDate.parse("2024-01-31")).isEmpty());
+  }
+
+  /** Tests that a negative amount throws an IllegalArgumentException. */
+  @Test
+  void testNegativeAmount() {
+    assertThrows(IllegalArgumentException.class, () -> ledger.record("Home",
+        EventType.WASTED, "Milk", -1, 2.0, LocalDate.parse("2024-01-03")));
+  }
+
+  /** Tests that a file that isnt a ledger throws an IOException. */
+  @Test
+  void testImportWrongFile(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("other.bin");
+    Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+    assertThrows(IOException.class, () -> ConsumptionLedger.importFrom(file, CLOCK));
+  }
+}
@@ -0,0 +1,199 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.CookabilityCache;
+import edu.ntnu.iir.bidata.logic.CookabilityReport;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.SubstitutionGraph;
+import edu.ntnu.iir.bidata.untility.IngredientDictionary;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the CookabilityCache class. */
+class CookabilityCacheTest {
+
+  private FoodStorage foodStorage;
+  private RecipeBook recipeBook;
+  private SubstitutionGraph substitutionGraph;
+  private MutableClock clock;
+  private CookabilityCache cache;
+
+  /** Clock that only moves when the test moves it. */
+  private static class MutableClock extends Clock {
+    private Instant now = Instant.parse("2024-05-01T12:00:00Z");
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+
+  /** Sets up a storage with tomatoes and onions and a cache of two reports. */
+  @BeforeEach
+  void setUp() {
+    foodStorage = new FoodStorage(new HashMap<>());
+    foodStorage.addIngredient(new Ingredient("Tomato", 5, 0, 10, "2999-01-01"));
+    foodStorage.addIngredient(new Ingredient("Onion", 2, 0, 10, "2999-01-01"));
+    recipeBook = new RecipeBook(new HashMap<>());
+    substitutionGraph = new SubstitutionGraph(new IngredientDictionary());
+    clock = new MutableClock();
+    cache = new CookabilityCache(foodStorage, recipeBook, substitutionGraph, 2, clock);
+  }
+
+  /** Builds a recipe that needs one unit of each listed ingredient. */
+  private static Recipe recipe(String name, List<String> ingredientNames) {
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    ingredientNames.forEach(
+        ingredientName -> ingredients.put(ingredientName, new Ingredient(ingredientName, 1, 0)));
+    return new Recipe(name, "Description", "Instructions", 2, ingredients);
+  }
+
+  // Positive Tests
+
+  /** Tests that a report is reused until one of its own ingredients changes. */
+  @Test
+  void testReportIsInvalidatedPrecisely() {
+    Recipe salsa = recipe("Salsa", List.of("Tomato"));
+    CookabilityReport report = cache.checkIfCookable(salsa);
+    assertSame(report, cache.checkIfCookable(salsa));
+
+    foodStorage.useIngredientAmount("Onion", 1);
+    assertSame(report, cache.checkIfCookable(salsa));
+    assertEquals(2, cache.getHitCount());
+
+    foodStorage.useIngredientAmount("Tomato", 5);
+    CookabilityReport changed = cache.checkIfCookable(salsa);
+    assertNotSame(report, changed);
+    assertFalse(changed.isCookable());
+    assertEquals(List.of("Tomato"), changed.getMissingIngredients());
+    assertEquals(1, cache.getStaleCount());
+    assertEquals(2, cache.getMissCount());
+    assertEquals(0.5, cache.getHitRatio());
+  }
+
+  /** Tests that a report is invalidated when a substitute of an ingredient changes. */
+  @Test
+  void testSubstitutesAreTracked() {
+    substitutionGraph.addSubstitution("Shallot", "Onion", 1);
+    Recipe soup = recipe("Soup", List.of("Shallot"));
+    assertTrue(cache.checkIfCookable(soup).isCookable());
+    assertTrue(cache.checkIfCookable(soup).isCookable());
+
+    foodStorage.removeIngredient("Onion");
+    assertFalse(cache.checkIfCookable(soup).isCookable());
+
+    foodStorage.addIngredient(new Ingredient("Onion", 2, 0, 10, "2999-01-01"));
+    substitutionGraph.removeSubstitution("Shallot", "Onion");
+    assertFalse(cache.checkIfCookable(soup).isCookable());
+    assertEquals(1, cache.getHitCount());
+  }
+
+  /** Tests that suggestions are reused until the storage or book changes. */
+  @Test
+  void testSuggestionsFollowStorageAndBook() {
+    recipeBook.addRecipe(recipe("Salsa", List.of("Tomato", "Onion")));
+    List<String> suggestions = cache.suggestRecipesToMake();
+    assertEquals(List.of("Salsa"), suggestions);
+    assertSame(suggestions, cache.suggestRecipesToMake());
+
+    recipeBook.addRecipe(recipe("Bruschetta", List.of("Tomato")));
+    assertEquals(List.of("Bruschetta", "Salsa"), cache.suggestRecipesToMake());
+
+    foodStorage.removeIngredient("Onion");
+    assertEquals(List.of("Bruschetta"), cache.suggestRecipesToMake());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, cache.getStaleCount());
+  }
+
+  /** Tests that the report used longest ago is evicted. */
+  @Test
+  void testLeastRecentlyUsedIsEvicted() {
+    Recipe salsa = recipe("Salsa", List.of("Tomato"));
+    Recipe stew = recipe("Stew", List.of("Onion"));
+    Recipe soup = recipe("Soup", List.of("Onion", "Tomato"));
+    cache.checkIfCookable(salsa);
+    cache.checkIfCookable(stew);
+    cache.checkIfCookable(salsa);
+    cache.checkIfCookable(soup);
+
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    cache.checkIfCookable(salsa);
+    assertEquals(2, cache.getHitCount());
+    cache.checkIfCookable(stew);
+    assertEquals(2, cache.getHitCount());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  /** Tests that a replaced recipe with the same name isnt answered from the cache. */
+  @Test
+  void testReplacedRecipeIsCheckedAgain() {
+    CookabilityReport report = cache.checkIfCookable(recipe("Salsa", List.of("Tomato")));
+    CookabilityReport replaced = cache.checkIfCookable(recipe("Salsa", List.of("Garlic")));
+
+    assertTrue(report.isCookable());
+    assertFalse(replaced.isCookable());
+    assertEquals(0, cache.getHitCount());
+  }
+
+  /** Tests that reports and suggestions go stale when the day of the clock changes. */
+  @Test
+  void testAnswersGoStaleNextDay() {
+    Recipe salsa = recipe("Salsa", List.of("Tomato"));
+    recipeBook.addRecipe(salsa);
+    CookabilityReport report = cache.checkIfCookable(salsa);
+    List<String> suggestions = cache.suggestRecipesToMake();
+
+    clock.now = clock.now.plus(Duration.ofHours(11));
+    assertSame(report, cache.checkIfCookable(salsa));
+    assertSame(suggestions, cache.suggestRecipesToMake());
+
+    clock.now = clock.now.plus(Duration.ofHours(1));
+    assertNotSame(report, cache.checkIfCookable(salsa));
+    assertNotSame(suggestions, cache.suggestRecipesToMake());
+    assertEquals(2, cache.getHitCount());
+    assertEquals(2, cache.getStaleCount());
+  }
+
+  // Negative Tests
+
+  /** Tests that invalid arguments throw an IllegalArgumentException. */
+  @Test
+  void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new CookabilityCache(null, recipeBook));
+    assertThrows(IllegalArgumentException.class,
+        () -> new CookabilityCache(foodStorage, recipeBook, substitutionGraph, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> new CookabilityCache(foodStorage, recipeBook, substitutionGraph, 2, null));
+    assertThrows(IllegalArgumentException.class, () -> cache.checkIfCookable(null));
+    assertEquals(0, cache.getHitRatio());
+  }
+}
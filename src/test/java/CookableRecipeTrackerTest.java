@@ -0,0 +1,132 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.CookableRecipeTracker;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.RecipeAdvisor;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the CookableRecipeTracker class. */
+class CookableRecipeTrackerTest {
+
+  private FoodStorage foodStorage;
+  private RecipeBook recipeBook;
+  private CookableRecipeTracker tracker;
+
+  /** Sets up a tracker on 2024-05-01 with two recipes and one stored ingredient. */
+  @BeforeEach
+  void setUp() {
+    foodStorage = new FoodStorage(new HashMap<>());
+    foodStorage.addIngredient(new Ingredient("Tomato", 5, 0, 10, "2024-05-03"));
+    recipeBook = new RecipeBook(new HashMap<>());
+    recipeBook.addRecipe(recipe("Salad", new Ingredient("Tomato", 2, 0)));
+    recipeBook.addRecipe(recipe("Stew",
+        new Ingredient("Tomato", 2, 0), new Ingredient("Onion", 1, 0)));
+    Clock clock = Clock.fixed(Instant.parse("2024-05-01T12:00:00Z"), ZoneOffset.UTC);
+    tracker = new CookableRecipeTracker(foodStorage, recipeBook, clock);
+  }
+
+  /** Builds a recipe for 2 out of its requirements, each an ingredient with its amount. */
+  private static Recipe recipe(String name, Ingredient... requirements) {
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    for (Ingredient requirement : requirements) {
+      ingredients.put(requirement.getIngredientName(), requirement);
+    }
+    return new Recipe(name, "Description", "Instructions", 2, ingredients);
+  }
+
+  // Positive Tests
+
+  /** Tests that adding and using ingredients moves recipes in and out of the set. */
+  @Test
+  void testStorageChangesUpdateCookableRecipes() {
+    assertEquals(List.of("Salad"), tracker.getCookableRecipes());
+
+    foodStorage.addIngredient(new Ingredient("Onion", 1, 0, 5, "2024-06-01"));
+    assertEquals(List.of("Salad", "Stew"), tracker.getCookableRecipes());
+
+    foodStorage.useIngredientAmount("Tomato", 4);
+    assertEquals(List.of(), tracker.getCookableRecipes());
+
+    foodStorage.addIngredientAmount("Tomato", 1);
+    assertEquals(List.of("Salad", "Stew"), tracker.getCookableRecipes());
+
+    foodStorage.removeIngredient("Onion");
+    assertEquals(List.of("Salad"), tracker.getCookableRecipes());
+  }
+
+  /** Tests that cooking through the advisor is seen by the tracker. */
+  @Test
+  void testCookingUpdatesCookableRecipes() {
+    List<String> ranOut = new RecipeAdvisor(foodStorage, recipeBook)
+        .cookRecipe(recipeBook.getRecipe("Salad"));
+    assertEquals(List.of(), ranOut);
+    assertTrue(tracker.isCookable("Salad"));
+
+    new RecipeAdvisor(foodStorage, recipeBook).cookRecipe(recipeBook.getRecipe("Salad"));
+    assertFalse(tracker.isCookable("Salad"));
+  }
+
+  /** Tests that an ingredient stops counting the day after it expires. */
+  @Test
+  void testExpiryRemovesRecipes() {
+    tracker.advanceTo(LocalDate.parse("2024-05-03"));
+    assertTrue(tracker.isCookable("Salad"));
+
+    tracker.advanceTo(LocalDate.parse("2024-05-04"));
+    assertFalse(tracker.isCookable("Salad"));
+  }
+
+  /** Tests that added, replaced and removed recipes are tracked. */
+  @Test
+  void testRecipeBookChanges() {
+    recipeBook.addRecipe(recipe("Soup", new Ingredient("Tomato", 1, 0)));
+    assertEquals(List.of("Salad", "Soup"), tracker.getCookableRecipes());
+
+    recipeBook.addRecipe(recipe("Soup", new Ingredient("Tomato", 9, 0)));
+    assertFalse(tracker.isCookable("Soup"));
+
+    recipeBook.removeRecipe("Salad");
+    assertEquals(List.of(), tracker.getCookableRecipes());
+  }
+
+  /** Tests that a closed tracker stops following the storage. */
+  @Test
+  void testClosedTrackerIgnoresChanges() {
+    tracker.close();
+    foodStorage.removeIngredient("Tomato");
+    assertTrue(tracker.isCookable("Salad"));
+  }
+
+  // Negative Tests
+
+  /** Tests that a tracker without a storage throws an IllegalArgumentException. */
+  @Test
+  void testNullStorage() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new CookableRecipeTracker(null, recipeBook));
+  }
+
+  /** Tests that cooking a recipe with too little stored throws and uses nothing. */
+  @Test
+  void testCookWithLowAmount() {
+    Recipe stew = recipe("Stew",
+        new Ingredient("Tomato", 2, 0), new Ingredient("Onion", 1, 0));
+    RecipeAdvisor advisor = new RecipeAdvisor(foodStorage, recipeBook);
+    assertThrows(IllegalArgumentException.class, () -> advisor.cookRecipe(stew));
+    assertEquals(5.0, foodStorage.getIngredient("Tomato").getIngredientAmount());
+  }
+}
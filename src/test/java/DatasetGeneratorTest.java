@@ -0,0 +1,138 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.DatasetGenerator;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.ImportReport;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.RecipeCatalog;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the DatasetGenerator class. */
+class DatasetGeneratorTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2024, 1, 1);
+
+  private DatasetGenerator generator;
+
+  /** Sets up a generator with a fixed seed. */
+  @BeforeEach
+  void setUp() {
+    generator = new DatasetGenerator(7L);
+  }
+
+  private static String catalogOf(long seed, int count) throws IOException {
+    StringWriter output = new StringWriter();
+    new DatasetGenerator(seed).writeRecipeCatalog(output, count);
+    return output.toString();
+  }
+
+  // Positive Tests
+
+  /** Tests that the same seed gives the same data and another seed doesnt. */
+  @Test
+  void testSameSeedGivesSameData() throws IOException {
+    assertEquals(catalogOf(7L, 200), catalogOf(7L, 200));
+    assertNotEquals(catalogOf(7L, 200), catalogOf(8L, 200));
+
+    DatasetGenerator other = new DatasetGenerator(7L);
+    for (int i = 0; i < 1000; i++) {
+      Ingredient expected = generator.nextIngredient();
+      Ingredient actual = other.nextIngredient();
+      assertEquals(expected.getIngredientName(), actual.getIngredientName());
+      assertEquals(expected.getIngredientAmount(), actual.getIngredientAmount());
+      assertEquals(expected.getExpireLocalDate(), actual.getExpireLocalDate());
+    }
+  }
+
+  /** Tests that recipes have 3 to 30 different ingredients and mixed units. */
+  @Test
+  void testRecipeShape() {
+    Set<Integer> measurements = new HashSet<>();
+    for (int i = 0; i < 2000; i++) {
+      Recipe recipe = generator.nextRecipe();
+      int count = recipe.getIngredientCount();
+      assertTrue(count >= DatasetGenerator.MIN_RECIPE_INGREDIENTS);
+      assertTrue(count <= DatasetGenerator.MAX_RECIPE_INGREDIENTS);
+      Set<String> names = new HashSet<>();
+      for (int j = 0; j < count; j++) {
+        assertTrue(names.add(recipe.getIngredientName(j)));
+        assertTrue(recipe.getIngredientAmount(j) > 0);
+        measurements.add(recipe.getIngredientMeasurement(j));
+      }
+    }
+    assertEquals(Set.of(0, 1, 2), measurements);
+  }
+
+  /** Tests that popular kinds are drawn far more often and some lots have expired. */
+  @Test
+  void testPopularityAndExpiry() {
+    String mostPopular = generator.getIngredientName(0);
+    String rare = generator.getIngredientName(999);
+    int popularCount = 0;
+    int rareCount = 0;
+    int expiredCount = 0;
+    int draws = 100_000;
+    for (int i = 0; i < draws; i++) {
+      Ingredient ingredient = generator.nextIngredient();
+      if (ingredient.getIngredientName().equals(mostPopular)) {
+        popularCount++;
+      } else if (ingredient.getIngredientName().equals(rare)) {
+        rareCount++;
+      }
+      if (ingredient.getExpireLocalDate().isBefore(TODAY)) {
+        expiredCount++;
+      }
+    }
+    assertTrue(popularCount > 100 * Math.max(rareCount, 1));
+    assertTrue(expiredCount > draws / 100 && expiredCount < draws / 5);
+  }
+
+  /** Tests filling a storage and a book, and that a written catalog imports. */
+  @Test
+  void testFillAndWrite() throws IOException {
+    FoodStorage foodStorage = new FoodStorage(new HashMap<>());
+    int added = generator.fillStorage(foodStorage, 50_000);
+    assertEquals(added, foodStorage.getIngredients().size());
+    assertTrue(added > 100 && added <= DatasetGenerator.DEFAULT_INGREDIENT_KINDS);
+
+    RecipeBook recipeBook = new RecipeBook(new HashMap<>());
+    generator.fillRecipeBook(recipeBook, 500);
+    assertEquals(500, recipeBook.getRecipeBookSize());
+
+    RecipeBook imported = new RecipeBook(new HashMap<>());
+    ImportReport report = new RecipeCatalog().importInto(imported,
+        new StringReader(catalogOf(3L, 500)));
+    assertEquals(500, report.getImportedCount());
+    assertEquals(0, report.getRejectedCount());
+  }
+
+  // Negative Tests
+
+  /** Tests that invalid arguments throw an IllegalArgumentException. */
+  @Test
+  void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new DatasetGenerator(1L, 29, 1.0, TODAY));
+    assertThrows(IllegalArgumentException.class,
+        () -> new DatasetGenerator(1L, 100, -0.5, TODAY));
+    assertThrows(IllegalArgumentException.class,
+        () -> new DatasetGenerator(1L, 100, 1.0, null));
+    assertThrows(IllegalArgumentException.class, () -> generator.getIngredientName(2000));
+    assertThrows(IllegalArgumentException.class, () -> generator.fillStorage(null, 1));
+    assertThrows(IllegalArgumentException.class,
+        () -> generator.fillRecipeBook(new RecipeBook(new HashMap<>()), -1));
+  }
+}
@@ -0,0 +1,220 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.EntityCodec;
+import edu.ntnu.iir.bidata.entity.EntityReader;
+import edu.ntnu.iir.bidata.entity.EntityWriter;
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.entity.RecipeView;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the EntityWriter, EntityReader and RecipeView classes. */
+class EntityCodecTest {
+
+  private static Recipe pancakes() {
+    Map<String, Ingredient> ingredients = new LinkedHashMap<>();
+    ingredients.put("Egg", new Ingredient("Egg", 2, 0));
+    ingredients.put("Flour", new Ingredient("Flour", 300, 1));
+    return new Recipe("Pancakes", "Fluffy pancakes", "Mix and fry", 4, ingredients);
+  }
+
+  // Positive Tests
+
+  /** Tests that ingredients and recipes read back as they were written. */
+  @Test
+  void testRoundTrip() {
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    EntityWriter writer = new EntityWriter(buffer);
+    writer.writeIngredient(new Ingredient("Egg", 6, 0, 30, "2024-05-01"));
+    writer.writeIngredient(new Ingredient("Salt", 1, 1));
+    writer.writeRecipe(pancakes());
+    buffer.flip();
+
+    EntityReader reader = new EntityReader(buffer);
+    assertTrue(reader.next());
+    Ingredient egg = reader.readIngredient();
+    assertEquals("Egg", egg.getIngredientName());
+    assertEquals(6.0, egg.getIngredientAmount());
+    assertEquals(5.0, egg.getIngredientPrice());
+    assertEquals(LocalDate.parse("2024-05-01"), egg.getExpireLocalDate());
+
+    assertTrue(reader.next());
+    Ingredient salt = reader.readIngredient();
+    assertEquals("G", salt.getIngredientMeasurment());
+    assertNull(salt.getExpireLocalDate());
+
+    assertTrue(reader.next());
+    assertTrue(reader.isRecipe());
+    Recipe recipe = reader.readRecipe();
+    assertEquals("Pancakes", recipe.getRecipeName());
+    assertEquals("Mix and fry", recipe.getRecipeInstructions());
+    assertEquals(300.0, recipe.getIngredients().get("Flour").getIngredientAmount());
+    assertFalse(reader.next());
+  }
+
+  /** Tests reading the ingredient list of a recipe without copying it. */
+  @Test
+  void testRecipeView() {
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    new EntityWriter(buffer).writeRecipe(pancakes());
+    buffer.flip();
+
+    EntityReader reader = new EntityReader(buffer);
+    reader.next();
+    RecipeView view = reader.viewRecipe();
+    assertEquals("Pancakes", view.getRecipeName());
+    assertEquals(4, view.getRecipeServing());
+    assertEquals(2, view.getIngredientCount());
+    assertEquals("Egg", view.getIngredientName(0));
+    assertEquals(300.0, view.getIngredientAmount(1));
+    assertEquals(1, view.getIngredientMeasurement(1));
+  }
+
+  /** Tests that names are written once and referenced after that. */
+  @Test
+  void testNamesAreWrittenOnce() {
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    EntityWriter writer = new EntityWriter(buffer);
+    writer.writeIngredient(new Ingredient("Egg", 1, 0));
+    int afterFirst = buffer.position();
+    writer.writeIngredient(new Ingredient("Egg", 2, 0));
+
+    // Header and body of the second record only: 6 + 25 bytes
+    assertEquals(31, buffer.position() - afterFirst);
+  }
+
+  /** Tests that unknown records and fields appended by a newer writer are skipped. */
+  @Test
+  void testNewerRecordsAreSkipped() {
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    EntityWriter writer = new EntityWriter(buffer);
+    writer.writeIngredient(new Ingredient("Egg", 1, 0));
+    // ? A record type from the future
+    buffer.put((byte) 99).put((byte) 1).putInt(3).put(new byte[] {1, 2, 3});
+    // ? An ingredient of schema version 3 with an extra long at the end
+    buffer.put((byte) 2).put((byte) 3).putInt(33)
+        .putInt(0).putDouble(7).put((byte) 2).putDouble(0).putInt(EntityCodec.NO_EXPIRY)
+        .putLong(42L);
+    buffer.flip();
+
+    EntityReader reader = new EntityReader(buffer);
+    assertTrue(reader.next());
+    assertTrue(reader.next());
+    Ingredient newer = reader.readIngredient();
+    assertEquals("Egg", newer.getIngredientName());
+    assertEquals(7.0, newer.getIngredientAmount());
+    assertEquals("L", newer.getIngredientMeasurment());
+    assertFalse(reader.next());
+  }
+
+  /** Tests that fields a newer writer appended to a recipe ingredient entry are skipped. */
+  @Test
+  void testNewerRecipeEntriesAreSkipped() {
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    new EntityWriter(buffer).writeIngredient(new Ingredient("Egg", 1, 0));
+    // ? A recipe of schema version 2, named Egg, whose entry has an extra int at the end
+    buffer.put((byte) 3).put((byte) 2).putInt(41)
+        .putInt(0).putInt(2).putInt(0).putInt(0).putInt(1)
+        .putInt(17).putInt(0).putDouble(4).put((byte) 0).putInt(42);
+    buffer.flip();
+
+    EntityReader reader = new EntityReader(buffer);
+    reader.next();
+    reader.next();
+    RecipeView newer = reader.viewRecipe();
+    assertEquals(1, newer.getIngredientCount());
+    assertEquals("Egg", newer.getIngredientName(0));
+    assertEquals(4.0, newer.getIngredientAmount(0));
+    assertFalse(reader.next());
+  }
+
+  // Negative Tests
+
+  /** Tests that a record that doesnt fit leaves the buffer and names unchanged. */
+  @Test
+  void testOverflowRollsBack() {
+    ByteBuffer buffer = ByteBuffer.allocate(40);
+    EntityWriter writer = new EntityWriter(buffer);
+    int start = buffer.position();
+    assertThrows(BufferOverflowException.class, () -> writer.writeRecipe(pancakes()));
+    assertEquals(start, buffer.position());
+  }
+
+  /** Tests that a buffer without a header throws an IllegalArgumentException. */
+  @Test
+  void testMissingHeader() {
+    ByteBuffer buffer = ByteBuffer.wrap(new byte[] {0, 1, 2, 3, 4, 5, 6, 7});
+    assertThrows(IllegalArgumentException.class, () -> new EntityReader(buffer));
+  }
+
+  /** Tests that a cut off record throws an IllegalArgumentException. */
+  @Test
+  void testCutOffRecord() {
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    new EntityWriter(buffer).writeIngredient(new Ingredient("Egg", 1, 0));
+    buffer.flip();
+    buffer.limit(buffer.limit() - 3);
+
+    EntityReader reader = new EntityReader(buffer);
+    assertThrows(IllegalArgumentException.class, reader::next);
+  }
+
+  /** Tests that bodies shorter than their fields throw an IllegalArgumentException. */
+  @Test
+  void testTruncatedBodies() {
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    EntityWriter writer = new EntityWriter(buffer);
+    writer.writeIngredient(new Ingredient("Egg", 1, 0));
+    // ? An ingredient without its price and expiry
+    buffer.put((byte) 2).put((byte) 1).putInt(12).putInt(0).putDouble(1);
+    // ? A recipe whose description would run into the ingredient after it
+    buffer.put((byte) 3).put((byte) 1).putInt(12).putInt(0).putInt(2).putInt(20);
+    writer.writeIngredient(new Ingredient("Egg", 2, 0));
+    // ? A recipe that ends before its ingredient count
+    buffer.put((byte) 3).put((byte) 1).putInt(16).putInt(0).putInt(2).putInt(0).putInt(0);
+    // ? A name record without a whole id
+    buffer.put((byte) 1).put((byte) 1).putInt(2).putShort((short) 0);
+    buffer.flip();
+
+    EntityReader reader = new EntityReader(buffer);
+    reader.next();
+    assertTrue(reader.next());
+    assertThrows(IllegalArgumentException.class, reader::readIngredient);
+    assertTrue(reader.next());
+    assertThrows(IllegalArgumentException.class, reader::viewRecipe);
+    assertTrue(reader.next());
+    assertEquals(2.0, reader.readIngredient().getIngredientAmount());
+    assertTrue(reader.next());
+    assertThrows(IllegalArgumentException.class, reader::readRecipe);
+    assertThrows(IllegalArgumentException.class, reader::next);
+  }
+
+  /** Tests that an unknown schema version and a short entry throw exceptions. */
+  @Test
+  void testInvalidVersionAndEntry() {
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    new EntityWriter(buffer).writeRecipe(pancakes());
+    buffer.put(7, (byte) 0);
+    buffer.flip();
+    assertThrows(IllegalArgumentException.class, () -> new EntityReader(buffer).next());
+
+    ByteBuffer shortEntry = ByteBuffer.allocate(1024);
+    new EntityWriter(shortEntry).writeRecipe(pancakes());
+    shortEntry.flip();
+    EntityReader reader = new EntityReader(shortEntry);
+    reader.next();
+    RecipeView view = reader.viewRecipe();
+    assertEquals(2, view.getIngredientCount());
+    shortEntry.putInt(shortEntry.limit() - 2 * 17, 12);
+    assertThrows(IllegalArgumentException.class, reader::viewRecipe);
+  }
+}
@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import edu.ntnu.iir.bidata.entity.Ingredient;
 import edu.ntnu.iir.bidata.logic.FoodStorage;
 import java.util.HashMap;
+import java.util.Iterator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -98,6 +99,27 @@ public class FoodStorageTest {
     assertEquals(2, foodStorage.getIngredients().size());
   }
 
+  /** Tests that every change bumps the version and stamps only the changed ingredient. */
+  @Test
+  void testVersions() {
+    assertEquals(0, foodStorage.getVersion());
+    foodStorage.addIngredient(new Ingredient("Tomato", 5.0, 1));
+    foodStorage.addIngredient(new Ingredient("Potato", 3.0, 2));
+    foodStorage.addIngredient(new Ingredient("Tomato", 1.0, 1));
+    assertEquals(2, foodStorage.getVersion());
+
+    foodStorage.useIngredientAmount("Tomato", 5.0);
+    assertEquals(3, foodStorage.getVersion());
+    assertEquals(0, foodStorage.getIngredientVersion("Tomato"));
+    assertEquals(2, foodStorage.getIngredientVersion("Potato"));
+    assertEquals(0, foodStorage.getIngredientVersion("Garlic"));
+
+    foodStorage.addIngredient(new Ingredient("Tomato", 1.0, 1));
+    assertEquals(4, foodStorage.getIngredientVersion("Tomato"));
+    assertEquals(null, foodStorage.removeIngredient("Garlic"));
+    assertEquals(4, foodStorage.getVersion());
+  }
+
   // Negative Tests
 
   /** Tests that an IllegalArgumentException is thrown when adding a null ingredient. */
@@ -156,4 +178,14 @@ public class FoodStorageTest {
   void testRemoveIngredientWithNullName() {
     assertThrows(IllegalArgumentException.class, () -> foodStorage.removeIngredient(null));
   }
+
+  /** Tests that the iterator cant remove an ingredient behind the listeners' back. */
+  @Test
+  void testIteratorIsUnmodifiable() {
+    foodStorage.addIngredient(new Ingredient("Tomato", 5.0, 1));
+    Iterator<Ingredient> iterator = foodStorage.getIterator();
+    iterator.next();
+    assertThrows(UnsupportedOperationException.class, iterator::remove);
+    assertNotNull(foodStorage.getIngredient("Tomato"));
+  }
 }
\ No newline at end of file
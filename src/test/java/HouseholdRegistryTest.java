@@ -0,0 +1,115 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.HouseholdRegistry;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the HouseholdRegistry class. */
+class HouseholdRegistryTest {
+
+  private HouseholdRegistry registry;
+
+  /** Sets up a registry with one shared recipe and four shards. */
+  @BeforeEach
+  void setUp() {
+    RecipeBook catalog = new RecipeBook(new HashMap<>());
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    ingredients.put("Tomato", new Ingredient("Tomato", 2, 0));
+    catalog.addRecipe(new Recipe("Salad", "Fresh salad", "Mix it", 2, ingredients));
+    registry = new HouseholdRegistry(catalog, 4);
+  }
+
+  @AfterEach
+  void tearDown() {
+    registry.close();
+  }
+
+  // Positive Tests
+
+  /** Tests that a household is pinned to the same shard every time. */
+  @Test
+  void testHouseholdIsPinnedToShard() {
+    int shard = registry.shardOf("household-1");
+    assertEquals(shard, registry.shardOf("household-1"));
+    assertTrue(shard >= 0 && shard < registry.getShardCount());
+  }
+
+  /** Tests that registering a household twice returns the same storage. */
+  @Test
+  void testRegisterHousehold() {
+    FoodStorage foodStorage = registry.registerHousehold("household-1");
+    assertSame(foodStorage, registry.registerHousehold("household-1"));
+    assertEquals(1, registry.getHouseholdCount());
+  }
+
+  /** Tests that tasks run against the storage of the right household. */
+  @Test
+  void testSubmitRunsAgainstHouseholdStorage() {
+    registry.registerHousehold("household-1");
+    registry.registerHousehold("household-2");
+    registry.submit("household-1", foodStorage -> {
+      foodStorage.addIngredient(new Ingredient("Milk", 1.0, 2, 20, "2999-01-01"));
+      return null;
+    }).join();
+
+    assertNotNull(registry.getHousehold("household-1").getIngredient("Milk"));
+    assertNull(registry.getHousehold("household-2").getIngredient("Milk"));
+  }
+
+  /** Tests that the expiry sweep and valuation cover every household. */
+  @Test
+  void testSweepAndValuation() {
+    for (int i = 0; i < 20; i++) {
+      FoodStorage foodStorage = registry.registerHousehold("household-" + i);
+      foodStorage.addIngredient(new Ingredient("Kiwi", 1.0, 1, 10, "2020-01-01"));
+      foodStorage.addIngredient(new Ingredient("Milk", 1.0, 2, 20, "2999-01-01"));
+    }
+
+    assertEquals(20 * 30.0, registry.valuateHouseholds().values().stream()
+        .mapToDouble(Double::doubleValue).sum(), 0.0001);
+    assertEquals(20 * 10.0, registry.sweepExpiredIngredients(), 0.0001);
+    assertEquals(20, registry.valuateHouseholds().size());
+    assertNull(registry.getHousehold("household-3").getIngredient("Kiwi"));
+  }
+
+  /** Tests that memory accounting grows with the number of stored ingredients. */
+  @Test
+  void testMemoryUsageGrowsWithIngredients() {
+    registry.registerHousehold("empty");
+    FoodStorage foodStorage = registry.registerHousehold("full");
+    foodStorage.addIngredient(new Ingredient("Milk", 1.0, 2, 20, "2999-01-01"));
+    Map<String, Long> usage = registry.estimateMemoryUsage();
+    assertTrue(usage.get("full") > usage.get("empty"));
+  }
+
+  // Negative Tests
+
+  /** Tests that the shared catalog cant be changed through the registry. */
+  @Test
+  void testRecipeCatalogIsReadOnly() {
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    ingredients.put("Egg", new Ingredient("Egg", 2, 0));
+    Recipe recipe = new Recipe("Omelette", "Eggs", "Fry", 1, ingredients);
+    assertThrows(UnsupportedOperationException.class,
+        () -> registry.getRecipeCatalog().addRecipe(recipe));
+  }
+
+  /** Tests that submitting to an unknown household throws an IllegalArgumentException. */
+  @Test
+  void testSubmitToUnknownHousehold() {
+    assertThrows(IllegalArgumentException.class,
+        () -> registry.submit("unknown", foodStorage -> null));
+  }
+}
@@ -0,0 +1,92 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.PantrySimulator;
+import edu.ntnu.iir.bidata.logic.PurchaseRule;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.ScenarioResult;
+import edu.ntnu.iir.bidata.logic.SimulationSummary;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the PantrySimulator class. */
+class PantrySimulatorTest {
+
+  private static final LocalDate START = LocalDate.parse("2024-01-01");
+
+  private RecipeBook recipeBook;
+
+  /** Sets up a book with one recipe that needs 1 liter of milk. */
+  @BeforeEach
+  void setUp() {
+    recipeBook = new RecipeBook(new HashMap<>());
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    ingredients.put("Milk", new Ingredient("Milk", 1, 2));
+    recipeBook.addRecipe(new Recipe("Porridge", "Description", "Instructions", 1, ingredients));
+  }
+
+  // Positive Tests
+
+  /** Tests that a lot nobody cooks with is wasted when it expires. */
+  @Test
+  void testUnusedLotIsWasted() {
+    PantrySimulator simulator = new PantrySimulator(recipeBook,
+        List.of(new PurchaseRule("Milk", 2, 2, 40, 2, 7)), START, 7, 0);
+    ScenarioResult result = simulator.runScenario(1L);
+
+    assertEquals(40.0, result.getPurchaseCost(), 1e-9);
+    assertEquals(40.0, result.getWasteValue(), 1e-9);
+    assertEquals(0, result.getMealsCooked());
+  }
+
+  /** Tests that meals without stock count as stock-outs. */
+  @Test
+  void testMealsWithoutStockAreStockOuts() {
+    PantrySimulator simulator = new PantrySimulator(recipeBook, List.of(), START, 10, 3);
+    SimulationSummary summary = simulator.run(50, 7L);
+
+    assertEquals(50, summary.getScenarioCount());
+    assertEquals(1.0, summary.getStockOutRate(), 1e-9);
+    assertEquals(0.0, summary.getMeanWasteValue(), 1e-9);
+  }
+
+  /** Tests that a run gives the same summary on different pools. */
+  @Test
+  void testRunIsReproducible() {
+    List<PurchaseRule> rules = List.of(new PurchaseRule("Milk", 3, 2, 30, 4, 2));
+    SimulationSummary parallel = new PantrySimulator(recipeBook, rules, START, 28, 3)
+        .run(500, 42L);
+    SimulationSummary single = new PantrySimulator(recipeBook, rules, START, 28, 3,
+        new ForkJoinPool(1)).run(500, 42L);
+
+    assertEquals(parallel.getMeanWasteValue(), single.getMeanWasteValue());
+    assertEquals(parallel.getMeanStockOuts(), single.getMeanStockOuts());
+    assertEquals(parallel.getWasteValuePercentile(95), single.getWasteValuePercentile(95));
+    assertTrue(parallel.getMeanPurchaseCost() > 0);
+    assertTrue(parallel.getWasteValuePercentile(50) <= parallel.getWasteValuePercentile(100));
+  }
+
+  // Negative Tests
+
+  /** Tests that a run without scenarios throws an IllegalArgumentException. */
+  @Test
+  void testNoScenarios() {
+    PantrySimulator simulator = new PantrySimulator(recipeBook, List.of(), START, 10, 1);
+    assertThrows(IllegalArgumentException.class, () -> simulator.run(0, 1L));
+  }
+
+  /** Tests that a purchase rule with no interval throws an IllegalArgumentException. */
+  @Test
+  void testZeroInterval() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new PurchaseRule("Milk", 1, 2, 10, 5, 0));
+  }
+}
@@ -0,0 +1,156 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.CookabilityReport;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.RecipeAdvisor;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the RecipeAdvisor class. */
+class RecipeAdvisorTest {
+
+  private FoodStorage foodStorage;
+  private RecipeBook recipeBook;
+
+  /** Sets up a storage with fresh, low and expired ingredients. */
+  @BeforeEach
+  void setUp() {
+    foodStorage = new FoodStorage(new HashMap<>());
+    foodStorage.addIngredient(new Ingredient("Tomato", 5, 0, 10, "2999-01-01"));
+    foodStorage.addIngredient(new Ingredient("Onion", 1, 0, 10, "2999-01-01"));
+    foodStorage.addIngredient(new Ingredient("Kiwi", 5, 0, 10, "2020-01-01"));
+    recipeBook = new RecipeBook(new HashMap<>());
+  }
+
+  /** Builds a recipe for 2 that needs the given amounts, in units, of its ingredients. */
+  private static Recipe recipe(String name, Map<String, Double> amounts) {
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    amounts.forEach((ingredientName, amount) ->
+        ingredients.put(ingredientName, new Ingredient(ingredientName, amount, 0)));
+    return new Recipe(name, "Description", "Instructions", 2, ingredients);
+  }
+
+  // Positive Tests
+
+  /** Tests that every kind of problem is reported for a recipe. */
+  @Test
+  void testCheckIfCookableReport() {
+    Recipe recipe = recipe("Stew",
+        Map.of("Tomato", 2.0, "Onion", 3.0, "Kiwi", 1.0, "Garlic", 1.0));
+    CookabilityReport report = new RecipeAdvisor(foodStorage, recipeBook).checkIfCookable(recipe);
+
+    assertFalse(report.isCookable());
+    assertEquals(1, report.getReadyIngredientCount());
+    assertEquals(List.of("Garlic"), report.getMissingIngredients());
+    assertEquals(2.0, report.getLowAmountIngredients().get("Onion"));
+    assertEquals(List.of("Kiwi"), report.getExpiredIngredients());
+  }
+
+  /** Tests that suggestions are sorted by recipe name. */
+  @Test
+  void testSuggestionsAreSorted() {
+    recipeBook.addRecipe(recipe("Salsa", Map.of("Tomato", 1.0, "Onion", 1.0)));
+    recipeBook.addRecipe(recipe("Bruschetta", Map.of("Tomato", 1.0)));
+    recipeBook.addRecipe(recipe("Garlic bread", Map.of("Garlic", 1.0)));
+
+    assertEquals(List.of("Bruschetta", "Salsa"),
+        new RecipeAdvisor(foodStorage, recipeBook).suggestRecipesToMake());
+  }
+
+  /** Tests that a big book evaluated in parallel gives the same result as one thread. */
+  @Test
+  void testParallelMatchesSequential() {
+    for (int i = 0; i < 5000; i++) {
+      recipeBook.addRecipe(i % 3 == 0
+          ? recipe("Recipe " + i, Map.of("Tomato", 1.0))
+          : recipe("Recipe " + i, Map.of("Tomato", 1.0, "Garlic", 1.0)));
+    }
+    RecipeAdvisor sequential =
+        new RecipeAdvisor(foodStorage, recipeBook, ForkJoinPool.commonPool(), 10_000);
+    RecipeAdvisor parallel =
+        new RecipeAdvisor(foodStorage, recipeBook, new ForkJoinPool(4), 64);
+
+    List<String> expected = sequential.suggestRecipesToMake();
+    assertEquals(1667, expected.size());
+    assertEquals(expected, parallel.suggestRecipesToMake());
+
+    Map<String, CookabilityReport> reports = parallel.checkAllRecipes();
+    assertEquals(5000, reports.size());
+    assertEquals(new ArrayList<>(sequential.checkAllRecipes().keySet()),
+        new ArrayList<>(reports.keySet()));
+    assertTrue(reports.get("Recipe 0").isCookable());
+  }
+
+  /** Tests that the chunks read a copy of the storage instead of the storage itself. */
+  @Test
+  void testChunksReadCopyOfStorage() {
+    LockCheckingMap storedIngredients = new LockCheckingMap();
+    FoodStorage sharedStorage = new FoodStorage(storedIngredients);
+    storedIngredients.owner = sharedStorage;
+    sharedStorage.addIngredient(new Ingredient("Tomato", 5, 0, 10, "2999-01-01"));
+    for (int i = 0; i < 500; i++) {
+      recipeBook.addRecipe(recipe("Recipe " + i, Map.of("Tomato", 1.0, "Garlic", 1.0)));
+    }
+    RecipeAdvisor parallel =
+        new RecipeAdvisor(sharedStorage, recipeBook, new ForkJoinPool(4), 16);
+
+    assertEquals(List.of(), parallel.suggestRecipesToMake());
+    assertEquals(500, parallel.checkAllRecipes().size());
+    assertFalse(parallel.checkIfCookable(recipeBook.getRecipe("Recipe 0")).isCookable());
+    assertFalse(storedIngredients.readWithoutLock);
+  }
+
+  // Negative Tests
+
+  /** Tests that a cutoff of 0 throws an IllegalArgumentException. */
+  @Test
+  void testInvalidCutoff() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new RecipeAdvisor(foodStorage, recipeBook, ForkJoinPool.commonPool(), 0));
+  }
+
+  /** Tests that checking a null recipe throws an IllegalArgumentException. */
+  @Test
+  void testCheckNullRecipe() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new RecipeAdvisor(foodStorage, recipeBook).checkIfCookable(null));
+  }
+
+  /** Backing map of a storage that notes any lookup made without the storage lock. */
+  private static final class LockCheckingMap extends HashMap<String, Ingredient> {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient FoodStorage owner;
+    private volatile boolean readWithoutLock;
+
+    @Override
+    public Ingredient get(Object key) {
+      noteRead();
+      return super.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      noteRead();
+      return super.containsKey(key);
+    }
+
+    private void noteRead() {
+      if (this.owner != null && !Thread.holdsLock(this.owner)) {
+        this.readWithoutLock = true;
+      }
+    }
+  }
+}
@@ -0,0 +1,143 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.RecipeAdvisor;
+import edu.ntnu.iir.bidata.logic.RecipeBitsetIndex;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.untility.IngredientDictionary;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the RecipeBitsetIndex and IngredientDictionary classes. */
+class RecipeBitsetIndexTest {
+
+  private IngredientDictionary dictionary;
+  private FoodStorage foodStorage;
+  private RecipeBook recipeBook;
+
+  @BeforeEach
+  void setUp() {
+    dictionary = new IngredientDictionary();
+    foodStorage = new FoodStorage(new HashMap<>());
+    foodStorage.addIngredient(new Ingredient("Tomato", 5, 0, 10, "2999-01-01"));
+    foodStorage.addIngredient(new Ingredient("Onion", 1, 0, 10, "2999-01-01"));
+    foodStorage.addIngredient(new Ingredient("Kiwi", 5, 0, 10, "2020-01-01"));
+    recipeBook = new RecipeBook(new HashMap<>());
+  }
+
+  /** Builds a recipe needing the ingredients; the bitsets only look at which ones. */
+  private static Recipe recipeNeeding(String name, String... ingredientNames) {
+    Map<String, Ingredient> ingredients = Arrays.stream(ingredientNames)
+        .collect(Collectors.toMap(Function.identity(), each -> new Ingredient(each, 1, 0)));
+    return new Recipe(name, "Description", "Instructions", 2, ingredients);
+  }
+
+  private Set<String> candidateNames(RecipeBitsetIndex index) {
+    return index.findCandidates(foodStorage.getAvailabilityBits(dictionary)).stream()
+        .map(Recipe::getRecipeName).collect(Collectors.toSet());
+  }
+
+  // Positive Tests
+
+  /** Tests that only recipes with all ingredients available and fresh are candidates. */
+  @Test
+  void testFindCandidates() {
+    recipeBook.addRecipe(recipeNeeding("Salsa", "Tomato", "Onion"));
+    recipeBook.addRecipe(recipeNeeding("Fruit salad", "Kiwi", "Tomato"));
+    recipeBook.addRecipe(recipeNeeding("Garlic bread", "Garlic"));
+    RecipeBitsetIndex index = RecipeBitsetIndex.build(recipeBook, dictionary);
+
+    assertEquals(Set.of("Salsa"), candidateNames(index));
+  }
+
+  /** Tests that rows are widened when the dictionary grows past one word. */
+  @Test
+  void testManyIngredientsWidenRows() {
+    RecipeBitsetIndex index = new RecipeBitsetIndex(dictionary);
+    index.addRecipe(recipeNeeding("Salsa", "Tomato", "Onion"));
+    for (int i = 0; i < 300; i++) {
+      index.addRecipe(recipeNeeding("Recipe " + i, "Spice" + i));
+    }
+    foodStorage.addIngredient(new Ingredient("Spice250", 1, 0, 1, "2999-01-01"));
+
+    assertEquals(Set.of("Salsa", "Recipe 250"), candidateNames(index));
+  }
+
+  /** Tests that removed recipes are no longer candidates and other rows are kept. */
+  @Test
+  void testRemoveRecipe() {
+    RecipeBitsetIndex index = new RecipeBitsetIndex(dictionary);
+    index.addRecipe(recipeNeeding("Salsa", "Tomato", "Onion"));
+    index.addRecipe(recipeNeeding("Bruschetta", "Tomato"));
+    index.addRecipe(recipeNeeding("Onion soup", "Onion"));
+
+    assertTrue(index.removeRecipe("Salsa"));
+    assertFalse(index.removeRecipe("Salsa"));
+    assertEquals(2, index.size());
+    assertEquals(Set.of("Bruschetta", "Onion soup"), candidateNames(index));
+  }
+
+  /** Tests that the advisor checks amounts after the bitset filter. */
+  @Test
+  void testAdvisorChecksAmountsOfCandidates() {
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    ingredients.put("Onion", new Ingredient("Onion", 3, 0));
+    recipeBook.addRecipe(new Recipe("Onion soup", "Soup", "Boil", 2, ingredients));
+    recipeBook.addRecipe(recipeNeeding("Salsa", "Tomato", "Onion"));
+    RecipeBitsetIndex index = RecipeBitsetIndex.build(recipeBook, dictionary);
+
+    assertEquals(List.of("Salsa"),
+        new RecipeAdvisor(foodStorage, recipeBook).suggestCookableRecipes(index));
+  }
+
+  /** Tests that the kept availability bits follow changes, new names and another day. */
+  @Test
+  void testAvailabilityBitsFollowChanges() {
+    LocalDate day = LocalDate.of(2019, 12, 31);
+    int tomato = dictionary.idOf("Tomato");
+    int kiwi = dictionary.idOf("Kiwi");
+    assertEquals(1L << tomato | 1L << kiwi, foodStorage.getAvailabilityBits(dictionary, day)[0]);
+
+    foodStorage.useIngredientAmount("Tomato", 5);
+    int onion = dictionary.idOf("Onion");
+    assertEquals(1L << kiwi | 1L << onion, foodStorage.getAvailabilityBits(dictionary, day)[0]);
+
+    foodStorage.addIngredient(new Ingredient("Tomato", 1, 0, 10, "2999-01-01"));
+    foodStorage.getAvailabilityBits(dictionary, day)[0] = 0;
+    assertEquals(1L << tomato | 1L << kiwi | 1L << onion,
+        foodStorage.getAvailabilityBits(dictionary, day)[0]);
+    assertEquals(1L << tomato | 1L << onion,
+        foodStorage.getAvailabilityBits(dictionary, day.plusDays(2))[0]);
+  }
+
+  // Negative Tests
+
+  /** Tests that a null bitset throws an IllegalArgumentException. */
+  @Test
+  void testNullBitset() {
+    RecipeBitsetIndex index = new RecipeBitsetIndex(dictionary);
+    assertThrows(IllegalArgumentException.class, () -> index.findCandidates(null));
+    assertThrows(IllegalArgumentException.class,
+        () -> foodStorage.getAvailabilityBits(dictionary, null));
+  }
+
+  /** Tests that an unknown dictionary id throws an IllegalArgumentException. */
+  @Test
+  void testUnknownDictionaryId() {
+    assertEquals(-1, dictionary.findId("Tomato"));
+    assertThrows(IllegalArgumentException.class, () -> dictionary.nameOf(0));
+  }
+}
@@ -0,0 +1,200 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.entity.RecipeJson;
+import edu.ntnu.iir.bidata.logic.ImportReport;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.RecipeCatalog;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the RecipeCatalog and RecipeJson classes. */
+class RecipeCatalogTest {
+
+  private RecipeBook recipeBook;
+  private RecipeCatalog catalog;
+
+  /** Sets up an empty book and a catalog with small batches. */
+  @BeforeEach
+  void setUp() {
+    recipeBook = new RecipeBook(new HashMap<>());
+    catalog = new RecipeCatalog(ForkJoinPool.commonPool(), 64);
+  }
+
+  private static Recipe pancakes() {
+    Map<String, Ingredient> ingredients = new LinkedHashMap<>();
+    ingredients.put("Flour", new Ingredient("Flour", 200, 1));
+    ingredients.put("Milk", new Ingredient("Milk", 0.5, 2));
+    ingredients.put("Egg", new Ingredient("Egg", 2, 0));
+    return new Recipe("Pancakes", "Fluffy \"pancakes\"", "Mix,\nthen fry\\flip", 4,
+        ingredients);
+  }
+
+  private static String line(String name, int servings) {
+    return "{\"name\":\"" + name + "\",\"description\":\"Tasty\",\"instructions\":\"Cook\","
+        + "\"servings\":" + servings
+        + ",\"ingredients\":[{\"name\":\"Egg\",\"amount\":2,\"measurement\":0}]}\n";
+  }
+
+  // Positive Tests
+
+  /** Tests that an exported book imports into an equal book. */
+  @Test
+  void testExportImportRoundTrip() throws IOException {
+    recipeBook.addRecipe(pancakes());
+    StringWriter output = new StringWriter();
+    assertEquals(1, catalog.exportTo(recipeBook, output));
+
+    RecipeBook imported = new RecipeBook(new HashMap<>());
+    ImportReport report = catalog.importInto(imported, new StringReader(output.toString()));
+
+    assertEquals(1, report.getImportedCount());
+    assertEquals(0, report.getRejectedCount());
+    Recipe recipe = imported.getRecipe("Pancakes");
+    assertEquals("Fluffy \"pancakes\"", recipe.getRecipeDescription());
+    assertEquals("Mix,\nthen fry\\flip", recipe.getRecipeInstructions());
+    assertEquals(3, recipe.getIngredientCount());
+    assertEquals(0.5, recipe.getIngredients().get("Milk").getIngredientAmount());
+    assertEquals("G", recipe.getIngredients().get("Flour").getIngredientMeasurment());
+  }
+
+  /** Tests that text is normalized like in the constructor and unknown fields skipped. */
+  @Test
+  void testParseNormalizesAndSkipsUnknownFields() {
+    Recipe recipe = RecipeJson.parse(" { \"servings\" : 2, \"tags\":[\"quick\",{\"a\":null}],"
+        + "\"name\":\"tOAST\",\"description\":\"crispy\",\"instructions\":\"toast it\","
+        + "\"rating\":4.5e0,\"ingredients\":[{\"amount\":1,\"name\":\"bREAD\","
+        + "\"measurement\":0,\"fresh\":true}],\"author\":\"\\u00c5se\"} ");
+
+    assertEquals("Toast", recipe.getRecipeName());
+    assertEquals("Crispy", recipe.getRecipeDescription());
+    assertEquals(2, recipe.getRecipeServing());
+    assertEquals("Bread", recipe.getIngredientName(0));
+  }
+
+  /** Tests an import that spans many batches, with recipes added in catalog order. */
+  @Test
+  void testImportManyBatches() throws IOException {
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      input.append(line("Recipe " + i, 1 + i % 7));
+      if (i % 1000 == 0) {
+        input.append('\n');
+      }
+    }
+    input.append(line("Recipe 0", 99));
+
+    ImportReport report = catalog.importInto(recipeBook, new StringReader(input.toString()));
+
+    assertEquals(5001, report.getImportedCount());
+    assertEquals(5000, recipeBook.getRecipeBookSize());
+    assertEquals(99, recipeBook.getRecipe("Recipe 0").getRecipeServing());
+  }
+
+  // Negative Tests
+
+  /** Tests that invalid lines are rejected with their line number and reason. */
+  @Test
+  void testInvalidLinesAreReported() throws IOException {
+    String input = line("Soup", 2)
+        + "not json\n"
+        + line("Stew", 0)
+        + "{\"name\":\"Cake\",\"description\":\"Sweet\",\"instructions\":\"Bake\",\"servings\":1,"
+        + "\"ingredients\":[{\"name\":\"Egg\",\"amount\":-1,\"measurement\":0}]}\n"
+        + "{\"name\":\"Tea\",\"description\":\"Hot\",\"instructions\":\"Brew\",\"servings\":1,"
+        + "\"ingredients\":[]}\n"
+        + line("Salad", 1);
+
+    ImportReport report = catalog.importInto(recipeBook, new StringReader(input));
+
+    assertEquals(2, report.getImportedCount());
+    assertEquals(4, report.getRejectedCount());
+    assertTrue(report.getErrors().get(0).startsWith("line 2: ERR: invalid JSON"));
+    assertEquals("line 3: ERR: recipe serving cant be negative or 0", report.getErrors().get(1));
+    assertEquals("line 4: ERR: amount cant be 0 or negative", report.getErrors().get(2));
+    assertEquals("line 5: ERR: recipe doesnt contain ingredients.", report.getErrors().get(3));
+    assertNotNull(recipeBook.getRecipe("Salad"));
+  }
+
+  /** Tests that only the first errors are kept, while all are counted. */
+  @Test
+  void testErrorsAreCapped() throws IOException {
+    String input = "{}\n".repeat(RecipeCatalog.MAX_REPORTED_ERRORS + 50);
+
+    ImportReport report = catalog.importInto(recipeBook, new StringReader(input));
+
+    assertEquals(RecipeCatalog.MAX_REPORTED_ERRORS + 50, report.getRejectedCount());
+    assertEquals(RecipeCatalog.MAX_REPORTED_ERRORS, report.getErrors().size());
+  }
+
+  /** Tests that malformed JSON and repeated ingredients throw when parsed. */
+  @Test
+  void testParseRejectsMalformedLines() {
+    assertThrows(IllegalArgumentException.class, () -> RecipeJson.parse("{\"name\":\"A\"} x"));
+    assertThrows(IllegalArgumentException.class, () -> RecipeJson.parse("{\"name\":\"A"));
+    assertThrows(IllegalArgumentException.class, () -> RecipeJson.parse(
+        "{\"name\":\"A\",\"description\":\"B\",\"instructions\":\"C\",\"servings\":1.5,"
+        + "\"ingredients\":[{\"name\":\"Egg\",\"amount\":1,\"measurement\":0}]}"));
+    assertThrows(IllegalArgumentException.class, () -> RecipeJson.parse(
+        "{\"name\":\"A\",\"description\":\"B\",\"instructions\":\"C\",\"servings\":1,"
+        + "\"ingredients\":[{\"name\":\"Egg\",\"amount\":1,\"measurement\":0},"
+        + "{\"name\":\"egg\",\"amount\":1,\"measurement\":0}]}"));
+  }
+
+  /** Tests that a line nested too deep is reported instead of ending the import. */
+  @Test
+  void testDeeplyNestedLineIsReported() throws IOException {
+    String nested = "[".repeat(RecipeJson.MAX_SKIPPED_DEPTH)
+        + "]".repeat(RecipeJson.MAX_SKIPPED_DEPTH);
+    String tooDeep = "[".repeat(100_000) + "]".repeat(100_000);
+    String input = line("Soup", 2).replace("{\"name\"", "{\"extra\":" + nested + ",\"name\"")
+        + line("Stew", 2).replace("{\"name\"", "{\"extra\":" + tooDeep + ",\"name\"")
+        + line("Salad", 1);
+
+    ImportReport report = catalog.importInto(recipeBook, new StringReader(input));
+
+    assertEquals(2, report.getImportedCount());
+    assertEquals(1, report.getRejectedCount());
+    assertTrue(report.getErrors().get(0).startsWith("line 2: ERR: invalid JSON"));
+    assertNotNull(recipeBook.getRecipe("Soup"));
+    assertNotNull(recipeBook.getRecipe("Salad"));
+  }
+
+  /** Tests that repeated ingredients are found whatever the default locale is. */
+  @Test
+  void testRepeatedIngredientInTurkishLocale() {
+    Locale defaultLocale = Locale.getDefault();
+    Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+    try {
+      assertThrows(IllegalArgumentException.class, () -> RecipeJson.parse(
+          "{\"name\":\"A\",\"description\":\"B\",\"instructions\":\"C\",\"servings\":1,"
+          + "\"ingredients\":[{\"name\":\"Ice\",\"amount\":1,\"measurement\":0},"
+          + "{\"name\":\"ice\",\"amount\":1,\"measurement\":0}]}"));
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
+  /** Tests that invalid arguments throw an IllegalArgumentException. */
+  @Test
+  void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new RecipeCatalog(ForkJoinPool.commonPool(), 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> catalog.importInto(null, new StringReader("")));
+    assertThrows(IllegalArgumentException.class,
+        () -> catalog.exportTo(recipeBook, null));
+  }
+}
@@ -0,0 +1,113 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.Page;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.RecipeCostIndex;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the RecipeCostIndex class. */
+class RecipeCostIndexTest {
+
+  private FoodStorage foodStorage;
+  private RecipeBook recipeBook;
+  private RecipeCostIndex costIndex;
+
+  /** Sets up eggs at 5 each, flour at 0.01 per gram and three recipes. */
+  @BeforeEach
+  void setUp() {
+    foodStorage = new FoodStorage(new HashMap<>());
+    foodStorage.addIngredient(new Ingredient("Egg", 10, 0, 50, "2999-01-01"));
+    foodStorage.addIngredient(new Ingredient("Flour", 1000, 1, 10, "2999-01-01"));
+    recipeBook = new RecipeBook(new HashMap<>());
+    Map<String, Ingredient> omeletteIngredients = new HashMap<>();
+    omeletteIngredients.put("Egg", new Ingredient("Egg", 3, 0));
+    recipeBook.addRecipe(
+        new Recipe("Omelette", "Plain omelette", "Whisk and fry", 1, omeletteIngredients));
+    Map<String, Ingredient> pancakeIngredients = new HashMap<>();
+    pancakeIngredients.put("Egg", new Ingredient("Egg", 2, 0));
+    pancakeIngredients.put("Flour", new Ingredient("Flour", 300, 1));
+    recipeBook.addRecipe(
+        new Recipe("Pancakes", "Thin pancakes", "Mix and fry", 4, pancakeIngredients));
+    Map<String, Ingredient> waffleIngredients = new HashMap<>();
+    waffleIngredients.put("Egg", new Ingredient("Egg", 2, 0));
+    waffleIngredients.put("Milk", new Ingredient("Milk", 1, 2));
+    recipeBook.addRecipe(
+        new Recipe("Waffles", "Crisp waffles", "Mix and bake", 2, waffleIngredients));
+    costIndex = new RecipeCostIndex(foodStorage, recipeBook);
+  }
+
+  // Positive Tests
+
+  /** Tests recipe costs and the rankings by cost and by cost per serving. */
+  @Test
+  void testCostsAndRankings() {
+    assertEquals(15.0, costIndex.getRecipeCost("Omelette"), 1e-9);
+    assertEquals(13.0, costIndex.getRecipeCost("Pancakes"), 1e-9);
+    assertEquals(3.25, costIndex.getCostPerServing("Pancakes"), 1e-9);
+    assertNull(costIndex.getRecipeCost("Waffles"));
+
+    assertEquals(List.of("Pancakes", "Omelette"), costIndex.getCheapestRecipes(5));
+    assertEquals(List.of("Pancakes"), costIndex.getCheapestRecipesPerServing(1));
+  }
+
+  /** Tests that a new ingredient prices the recipes that use it. */
+  @Test
+  void testAddedIngredientRepricesRecipes() {
+    foodStorage.addIngredient(new Ingredient("Milk", 1, 2, 1, "2999-01-01"));
+    assertEquals(11.0, costIndex.getRecipeCost("Waffles"), 1e-9);
+    assertEquals(List.of("Waffles", "Pancakes", "Omelette"), costIndex.getCheapestRecipes(3));
+
+    foodStorage.removeIngredient("Flour");
+    assertEquals(List.of("Waffles", "Omelette"), costIndex.getCheapestRecipes(3));
+  }
+
+  /** Tests that the cost pages follow the price changes. */
+  @Test
+  void testPagesByCost() {
+    Page<String> first = costIndex.getRecipePageByCost(1, null);
+    assertEquals(List.of("Pancakes"), first.getItems());
+    assertEquals(List.of("Omelette"),
+        costIndex.getRecipePageByCost(1, first.getNextCursor()).getItems());
+
+    foodStorage.addIngredient(new Ingredient("Milk", 1, 2, 1, "2999-01-01"));
+    assertEquals(List.of("Omelette"),
+        costIndex.getRecipePageByCost(5, first.getNextCursor()).getItems());
+    assertEquals(List.of("Waffles", "Pancakes", "Omelette"),
+        costIndex.getRecipePageByCost(5, null).getItems());
+  }
+
+  /** Tests that only cookable recipes are returned by the cookable ranking. */
+  @Test
+  void testCheapestCookableRecipes() {
+    assertEquals(List.of("Pancakes", "Omelette"), costIndex.getCheapestCookableRecipes(3));
+
+    foodStorage.useIngredientAmount("Egg", 8);
+    assertEquals(List.of("Pancakes"), costIndex.getCheapestCookableRecipes(3));
+
+    recipeBook.removeRecipe("Pancakes");
+    assertEquals(List.of(), costIndex.getCheapestCookableRecipes(3));
+  }
+
+  // Negative Tests
+
+  /** Tests that a negative count throws an IllegalArgumentException. */
+  @Test
+  void testNegativeCount() {
+    assertThrows(IllegalArgumentException.class, () -> costIndex.getCheapestRecipes(-1));
+  }
+
+  /** Tests that an unknown recipe has no cost. */
+  @Test
+  void testUnknownRecipe() {
+    assertNull(costIndex.getCostPerServing("Nothing"));
+  }
+}
@@ -0,0 +1,133 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.CoverageMatch;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.RecipeCoverageIndex;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the RecipeCoverageIndex class. */
+class RecipeCoverageIndexTest {
+
+  private RecipeBook recipeBook;
+  private RecipeCoverageIndex coverageIndex;
+
+  /** Sets up a book of three recipes and an index over it, on 2024-05-01. */
+  @BeforeEach
+  void setUp() {
+    recipeBook = new RecipeBook(new HashMap<>());
+    addRecipe("Omelette", "Egg", "Milk");
+    addRecipe("Pancakes", "Egg", "Milk", "Flour", "Sugar");
+    addRecipe("Bread", "Flour", "Yeast", "Salt");
+    coverageIndex = new RecipeCoverageIndex(recipeBook,
+        Clock.fixed(Instant.parse("2024-05-01T12:00:00Z"), ZoneOffset.UTC));
+  }
+
+  /** Adds a recipe to the book; coverage counts ingredients, so each needs one unit. */
+  private void addRecipe(String name, String... ingredientNames) {
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    for (String ingredientName : ingredientNames) {
+      ingredients.put(ingredientName, new Ingredient(ingredientName, 1, 0));
+    }
+    recipeBook.addRecipe(new Recipe(name, "Description", "Instructions", 2, ingredients));
+  }
+
+  // Positive Tests
+
+  /** Tests ranking by coverage and listing the missing ingredients. */
+  @Test
+  void testRankByCoverage() {
+    List<CoverageMatch> matches = coverageIndex.findBestMatches(Set.of("Egg", "Milk", "Flour"), 5);
+
+    assertEquals(3, matches.size());
+    assertEquals("Omelette", matches.get(0).getRecipeName());
+    assertEquals(1.0, matches.get(0).getCoverage());
+    assertEquals("Pancakes", matches.get(1).getRecipeName());
+    assertEquals(List.of("Sugar"), matches.get(1).getMissingIngredients());
+    assertEquals(3, matches.get(1).getCoveredCount());
+    assertEquals(List.of("Salt", "Yeast"), matches.get(2).getMissingIngredients());
+  }
+
+  /** Tests that equal coverage ranks the recipe with fewer missing ingredients first. */
+  @Test
+  void testFewerMissingBreaksTies() {
+    addRecipe("Porridge", "Oats", "Milk");
+
+    List<CoverageMatch> matches = coverageIndex.findBestMatches(Set.of("Milk", "Flour"), 2);
+
+    assertEquals("Omelette", matches.get(0).getRecipeName());
+    assertEquals("Porridge", matches.get(1).getRecipeName());
+  }
+
+  /** Tests a query with the fresh ingredients of a food storage. */
+  @Test
+  void testFindWithFoodStorage() {
+    FoodStorage foodStorage = new FoodStorage(new HashMap<>());
+    foodStorage.addIngredient(new Ingredient("Egg", 6, 0, 30, "2024-06-01"));
+    foodStorage.addIngredient(new Ingredient("Milk", 1, 2, 20, "2024-04-20"));
+
+    List<CoverageMatch> matches = coverageIndex.findBestMatches(foodStorage, 1);
+
+    assertEquals("Omelette", matches.get(0).getRecipeName());
+    assertEquals(List.of("Milk"), matches.get(0).getMissingIngredients());
+  }
+
+  /** Tests that removed and replaced recipes are followed. */
+  @Test
+  void testIncrementalUpdates() {
+    recipeBook.removeRecipe("Omelette");
+    addRecipe("Bread", "Flour", "Water");
+
+    List<CoverageMatch> matches = coverageIndex.findBestMatches(Set.of("Flour", "Water"), 5);
+
+    assertEquals(2, matches.size());
+    assertEquals("Bread", matches.get(0).getRecipeName());
+    assertTrue(matches.get(0).getMissingIngredients().isEmpty());
+    assertEquals(2, coverageIndex.size());
+  }
+
+  /** Tests that a recipe keyed "pasta" is matched by the name of its ingredient, "Pasta". */
+  @Test
+  void testKeyCaseDoesntMatter() {
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    ingredients.put("pasta", new Ingredient("Pasta", 200, 1));
+    recipeBook.addRecipe(new Recipe("Plain pasta", "Pasta", "Boil", 1, ingredients));
+
+    List<CoverageMatch> matches = coverageIndex.findBestMatches(Set.of("Pasta"), 1);
+
+    assertEquals("Plain pasta", matches.get(0).getRecipeName());
+    assertEquals(1.0, matches.get(0).getCoverage());
+  }
+
+  // Negative Tests
+
+  /** Tests that recipes sharing nothing with the set are left out. */
+  @Test
+  void testNothingCovered() {
+    assertTrue(coverageIndex.findBestMatches(Set.of("Rice"), 5).isEmpty());
+    assertTrue(coverageIndex.findBestMatches(Set.of("Egg"), 0).isEmpty());
+  }
+
+  /** Tests that null arguments or a negative count throw an IllegalArgumentException. */
+  @Test
+  void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class,
+        () -> coverageIndex.findBestMatches((Set<String>) null, 5));
+    assertThrows(IllegalArgumentException.class,
+        () -> coverageIndex.findBestMatches((FoodStorage) null, 5));
+    assertThrows(IllegalArgumentException.class,
+        () -> coverageIndex.findBestMatches(Set.of("Egg"), -1));
+  }
+}
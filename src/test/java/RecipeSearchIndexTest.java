@@ -0,0 +1,109 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.RecipeSearchIndex;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the RecipeSearchIndex class. */
+class RecipeSearchIndexTest {
+
+  private RecipeBook recipeBook;
+  private RecipeSearchIndex searchIndex;
+
+  /** Sets up a book of three recipes and an index over it. */
+  @BeforeEach
+  void setUp() {
+    recipeBook = new RecipeBook(new HashMap<>());
+    recipeBook.addRecipe(recipe("Stew", "Slow cooked beef stew",
+        "Brown the beef, then leave it slow cooked for hours."));
+    recipeBook.addRecipe(recipe("Pancakes", "Fluffy pancakes",
+        "Fry on a hot griddle."));
+    recipeBook.addRecipe(recipe("Griddle cakes", "Old style cakes",
+        "Mix and bake."));
+    searchIndex = new RecipeSearchIndex(recipeBook);
+  }
+
+  private static Recipe recipe(String name, String description, String instructions) {
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    ingredients.put("Egg", new Ingredient("Egg", 1, 0));
+    return new Recipe(name, description, instructions, 2, ingredients);
+  }
+
+  // Positive Tests
+
+  /** Tests that descriptions and instructions are searched, ignoring case. */
+  @Test
+  void testSearchDescriptionAndInstructions() {
+    assertEquals(List.of("Stew"), searchIndex.search("SLOW cooked", 10));
+    assertEquals(List.of("Pancakes"), searchIndex.search("fluffy", 10));
+  }
+
+  /** Tests that a word in the name ranks above the same word in the instructions. */
+  @Test
+  void testNameWordsRankHigher() {
+    assertEquals(List.of("Griddle cakes", "Pancakes"), searchIndex.search("griddle", 10));
+    assertEquals(List.of("Griddle cakes"), searchIndex.search("griddle", 1));
+  }
+
+  /** Tests that added, replaced and removed recipes are followed. */
+  @Test
+  void testIncrementalUpdates() {
+    recipeBook.addRecipe(recipe("Chili", "Slow simmered chili", "Simmer."));
+    assertEquals(List.of("Chili"), searchIndex.search("simmered", 10));
+
+    recipeBook.addRecipe(recipe("Chili", "Quick chili", "Fry."));
+    assertTrue(searchIndex.search("simmered", 10).isEmpty());
+    assertEquals(List.of("Chili"), searchIndex.search("quick", 10));
+
+    recipeBook.removeRecipe("Stew");
+    assertTrue(searchIndex.search("beef", 10).isEmpty());
+    assertEquals(3, searchIndex.size());
+  }
+
+  /** Tests that many removals compact the index without losing live recipes. */
+  @Test
+  void testCompaction() {
+    for (int i = 0; i < 3000; i++) {
+      recipeBook.addRecipe(recipe("Soup" + i, "Soup number " + i, "Boil."));
+    }
+    for (int i = 0; i < 2990; i++) {
+      recipeBook.removeRecipe("Soup" + i);
+    }
+    assertEquals(List.of("Soup2995"), searchIndex.search("2995", 10));
+    assertEquals(10, searchIndex.search("boil", 100).size());
+    assertEquals(13, searchIndex.size());
+  }
+
+  /** Tests that a closed index stops following the book. */
+  @Test
+  void testClose() {
+    searchIndex.close();
+    recipeBook.addRecipe(recipe("Chili", "Slow simmered chili", "Simmer."));
+    assertTrue(searchIndex.search("simmered", 10).isEmpty());
+  }
+
+  // Negative Tests
+
+  /** Tests that a query without known words finds nothing. */
+  @Test
+  void testNoMatches() {
+    assertTrue(searchIndex.search("sushi", 10).isEmpty());
+    assertTrue(searchIndex.search("  ,.!", 10).isEmpty());
+  }
+
+  /** Tests that a null query or negative count throws an IllegalArgumentException. */
+  @Test
+  void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> searchIndex.search(null, 10));
+    assertThrows(IllegalArgumentException.class, () -> searchIndex.search("stew", -1));
+    assertThrows(IllegalArgumentException.class, () -> new RecipeSearchIndex(null));
+  }
+}
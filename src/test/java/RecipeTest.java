@@ -5,7 +5,10 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.ntnu.iir.bidata.entity.Ingredient;
 import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.untility.IngredientDictionary;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 
@@ -36,6 +39,40 @@ class RecipeTest {
     assertTrue(recipe.getIngredientIterator().hasNext());
   }
 
+  /** Tests that the packed requirements match the ingredients the recipe was made with. */
+  @Test
+  void testPackedRequirements() {
+    Map<String, Ingredient> ingredients = new LinkedHashMap<>();
+    ingredients.put("Tomato", new Ingredient("Tomato", 5.0, 0));
+    ingredients.put("pasta", new Ingredient("pasta", 250, 1));
+    Recipe recipe = new Recipe("Pasta", "Delicious pasta", "Boil pasta and mix", 4, ingredients);
+
+    assertEquals(2, recipe.getIngredientCount());
+    assertEquals("Tomato", recipe.getIngredientName(0));
+    assertEquals(IngredientDictionary.global().findId("Tomato"), recipe.getIngredientId(0));
+    assertEquals("Pasta", recipe.getIngredientName(1));
+    assertEquals(250, recipe.getIngredientAmount(1));
+    assertEquals(1, recipe.getIngredientMeasurement(1));
+    assertEquals("G", recipe.getIngredientMeasurment(1));
+    assertEquals(List.of("Tomato", "pasta"), List.copyOf(recipe.getIngredients().keySet()));
+    assertEquals("Pasta", recipe.getIngredients().get("pasta").getIngredientName());
+  }
+
+  /** Tests that changing the ingredients after creation leaves the recipe unchanged. */
+  @Test
+  void testRequirementsAreCopied() {
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    ingredients.put("Tomato", new Ingredient("Tomato", 5.0, 1));
+    Recipe recipe = new Recipe("Pasta", "Delicious pasta", "Boil pasta and mix", 4, ingredients);
+
+    ingredients.get("Tomato").setExtraIngredientAmount(10);
+    ingredients.put("Salt", new Ingredient("Salt", 1.0, 1));
+    recipe.getIngredients().get("Tomato").setExtraIngredientAmount(10);
+
+    assertEquals(1, recipe.getIngredientCount());
+    assertEquals(5.0, recipe.getIngredientAmount(0));
+  }
+
   // Negative Tests
 
   /**
@@ -88,6 +125,15 @@ class RecipeTest {
         () -> new Recipe("Pasta", "Description", "Instructions", 0, ingredients));
   }
 
+  /** Tests that reading a requirement outside the list throws. */
+  @Test
+  void testRequirementOutsideList() {
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    ingredients.put("Tomato", new Ingredient("Tomato", 5.0, 1));
+    Recipe recipe = new Recipe("Pasta", "Delicious pasta", "Boil pasta and mix", 4, ingredients);
+    assertThrows(IndexOutOfBoundsException.class, () -> recipe.getIngredientAmount(1));
+  }
+
   /**
    * Tests that an IllegalArgumentException is thrown when creating a Recipe with empty ingredients.
    */
@@ -0,0 +1,246 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.ReplicationFollower;
+import edu.ntnu.iir.bidata.logic.ReplicationLeader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the ReplicationLeader and ReplicationFollower classes, over loopback. */
+class ReplicationTest {
+
+  private FoodStorage leaderStorage;
+  private RecipeBook leaderBook;
+  private final List<AutoCloseable> closeables = new ArrayList<>();
+
+  /** Sets up an empty storage and book for the leader. */
+  @BeforeEach
+  void setUp() {
+    leaderStorage = new FoodStorage(new ConcurrentHashMap<>());
+    leaderBook = new RecipeBook(new ConcurrentHashMap<>());
+  }
+
+  /** Closes every leader and follower of the test. */
+  @AfterEach
+  void tearDown() throws Exception {
+    for (int i = closeables.size() - 1; i >= 0; i--) {
+      closeables.get(i).close();
+    }
+  }
+
+  private ReplicationLeader startLeader(int backlog) throws IOException {
+    ReplicationLeader leader = new ReplicationLeader(leaderStorage, leaderBook,
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0, backlog);
+    leader.start();
+    closeables.add(leader);
+    return leader;
+  }
+
+  private ReplicationFollower startFollower(int port) {
+    ReplicationFollower follower = new ReplicationFollower(
+        new FoodStorage(new ConcurrentHashMap<>()), new RecipeBook(new ConcurrentHashMap<>()),
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    follower.start();
+    closeables.add(follower);
+    return follower;
+  }
+
+  private static Recipe pancakes(double flour) {
+    Map<String, Ingredient> ingredients = new LinkedHashMap<>();
+    ingredients.put("Flour", new Ingredient("Flour", flour, 1));
+    ingredients.put("Egg", new Ingredient("Egg", 2, 0));
+    return new Recipe("Pancakes", "Fluffy", "Mix and fry", 4, ingredients);
+  }
+
+  private static void assertSameState(FoodStorage expected, FoodStorage actual) {
+    assertEquals(expected.getIngredients().keySet(), actual.getIngredients().keySet());
+    for (Ingredient ingredient : expected.getIngredients().values()) {
+      Ingredient copy = actual.getIngredient(ingredient.getIngredientName());
+      assertEquals(ingredient.getIngredientAmount(), copy.getIngredientAmount());
+      assertEquals(ingredient.getIngredientPrice(), copy.getIngredientPrice());
+      assertEquals(ingredient.getExpireLocalDate(), copy.getExpireLocalDate());
+    }
+  }
+
+  // Positive Tests
+
+  /** Tests that a follower replays adds, amount changes and removals in order. */
+  @Test
+  void testFollowerReplaysChanges() throws Exception {
+    ReplicationLeader leader = startLeader(ReplicationLeader.DEFAULT_BACKLOG);
+    ReplicationFollower follower = startFollower(leader.getPort());
+
+    leaderStorage.addIngredient(new Ingredient("Milk", 1.5, 2, 30, "2999-01-01"));
+    leaderStorage.addIngredient(new Ingredient("Egg", 12, 0, 36, "2999-01-01"));
+    leaderStorage.useIngredientAmount("Milk", 0.3);
+    leaderStorage.addIngredientAmount("Egg", 6);
+    leaderStorage.useIngredientAmount("Egg", 18);
+    leaderBook.addRecipe(pancakes(200));
+    leaderBook.addRecipe(pancakes(250));
+
+    assertTrue(follower.awaitSequence(leader.getLastSequence(), 5000));
+    assertSameState(leaderStorage, follower.getFoodStorage());
+    assertNull(follower.getFoodStorage().getIngredient("Egg"));
+    assertEquals(250, follower.getRecipeBook().getRecipe("Pancakes").getIngredients()
+        .get("Flour").getIngredientAmount());
+    assertTrue(leader.awaitReplicated(leader.getLastSequence(), 1, 5000));
+    assertEquals(0L, leader.getFollowerLags().values().iterator().next());
+    assertEquals(0, follower.getLagEntries());
+  }
+
+  /** Tests that a follower that starts late catches up from a snapshot and the log. */
+  @Test
+  void testLateFollowerCatchesUpFromSnapshot() throws Exception {
+    ReplicationLeader leader = startLeader(4);
+    for (int i = 0; i < 20; i++) {
+      leaderStorage.addIngredient(new Ingredient("Item " + i, 1 + i, 0, 10, "2999-01-01"));
+    }
+    leaderBook.addRecipe(pancakes(100));
+
+    ReplicationFollower follower = startFollower(leader.getPort());
+    assertTrue(follower.awaitSequence(leader.getLastSequence(), 5000));
+    assertEquals(1, follower.getSnapshotCount());
+
+    leaderStorage.removeIngredient("Item 3");
+    leaderBook.removeRecipe("Pancakes");
+    assertTrue(follower.awaitSequence(leader.getLastSequence(), 5000));
+    assertSameState(leaderStorage, follower.getFoodStorage());
+    assertEquals(0, follower.getRecipeBook().getRecipeBookSize());
+    assertEquals(1, follower.getSnapshotCount());
+  }
+
+  /** Tests that a follower that reconnects resumes from the log without a snapshot. */
+  @Test
+  void testReconnectResumesFromLog() throws Exception {
+    ReplicationLeader leader = startLeader(ReplicationLeader.DEFAULT_BACKLOG);
+    ReplicationFollower follower = startFollower(leader.getPort());
+    leaderStorage.addIngredient(new Ingredient("Milk", 1, 2, 20, "2999-01-01"));
+    assertTrue(follower.awaitSequence(leader.getLastSequence(), 5000));
+    long snapshots = follower.getSnapshotCount();
+
+    follower.followLeader(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+        leader.getPort()));
+    leaderStorage.addIngredientAmount("Milk", 1);
+    assertTrue(follower.awaitSequence(leader.getLastSequence(), 5000));
+
+    assertEquals(snapshots, follower.getSnapshotCount());
+    assertEquals(2, follower.getFoodStorage().getIngredient("Milk").getIngredientAmount());
+  }
+
+  /** Tests failover: a follower is promoted and another follower switches to it. */
+  @Test
+  void testPromoteAfterLeaderLoss() throws Exception {
+    ReplicationLeader leader = startLeader(ReplicationLeader.DEFAULT_BACKLOG);
+    ReplicationFollower standby = startFollower(leader.getPort());
+    ReplicationFollower reader = startFollower(leader.getPort());
+    leaderStorage.addIngredient(new Ingredient("Milk", 1, 2, 20, "2999-01-01"));
+    assertTrue(leader.awaitReplicated(leader.getLastSequence(), 2, 5000));
+    long lastSequence = leader.getLastSequence();
+    leader.close();
+
+    ReplicationLeader promoted = standby.promote(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    closeables.add(promoted);
+    assertEquals(lastSequence, promoted.getLastSequence());
+    reader.followLeader(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+        promoted.getPort()));
+    standby.getFoodStorage().useIngredientAmount("Milk", 0.25);
+
+    assertTrue(reader.awaitSequence(promoted.getLastSequence(), 5000));
+    assertSameState(standby.getFoodStorage(), reader.getFoodStorage());
+    assertEquals(0.75, reader.getFoodStorage().getIngredient("Milk").getIngredientAmount());
+    assertTrue(reader.getMillisSinceLeaderContact() >= 0);
+  }
+
+  /** Tests a follower of a leader that runs in another JVM, changed over its console. */
+  @Test
+  void testFollowerOfLeaderInAnotherJvm() throws Exception {
+    Process process = new ProcessBuilder(
+        Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+        "-cp", System.getProperty("java.class.path"),
+        "-Dfoodwaste.console.port=0", "-Dfoodwaste.replication.port=0",
+        "edu.ntnu.iir.bidata.FoodWasteApp")
+        .redirectErrorStream(true)
+        .start();
+    closeables.add(process::destroyForcibly);
+    BufferedReader processOutput = new BufferedReader(
+        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    int consolePort = -1;
+    int replicationPort = -1;
+    while (consolePort < 0 || replicationPort < 0) {
+      String line = processOutput.readLine();
+      assertNotNull(line, "leader JVM stopped");
+      String port = line.substring(line.lastIndexOf(' ') + 1);
+      if (line.startsWith("Serving")) {
+        consolePort = Integer.parseInt(port);
+      } else if (line.startsWith("Replicating")) {
+        replicationPort = Integer.parseInt(port);
+      }
+    }
+
+    ReplicationFollower follower = startFollower(replicationPort);
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), consolePort)) {
+      OutputStream input = socket.getOutputStream();
+      input.write("1\nMilk\n2\n1\n20\n2999-01-01\nn\n0\n".getBytes(StandardCharsets.UTF_8));
+      input.flush();
+      socket.getInputStream().readAllBytes();
+    }
+
+    for (int i = 0; i < 500 && follower.getFoodStorage().getIngredient("Milk") == null; i++) {
+      Thread.sleep(10);
+    }
+    assertNotNull(follower.getFoodStorage().getIngredient("Milk"));
+    assertEquals(1, follower.getFoodStorage().getIngredient("Milk").getIngredientAmount());
+  }
+
+  // Negative Tests
+
+  /** Tests that a follower without a leader waits and applies nothing. */
+  @Test
+  void testFollowerWithoutLeader() throws Exception {
+    ReplicationLeader leader = startLeader(ReplicationLeader.DEFAULT_BACKLOG);
+    int port = leader.getPort();
+    leader.close();
+
+    ReplicationFollower follower = startFollower(port);
+    assertFalse(follower.awaitSequence(1, 300));
+    assertEquals(-1, follower.getMillisSinceLeaderContact());
+  }
+
+  /** Tests that invalid arguments throw an IllegalArgumentException. */
+  @Test
+  void testInvalidArguments() throws IOException {
+    assertThrows(IllegalArgumentException.class,
+        () -> new ReplicationLeader(null, leaderBook, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ReplicationLeader(leaderStorage, leaderBook,
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), -1, 10));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ReplicationFollower(leaderStorage, leaderBook, null));
+    ReplicationLeader leader = startLeader(10);
+    assertThrows(IllegalStateException.class, leader::start);
+  }
+}
@@ -0,0 +1,264 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.CookabilityReport;
+import edu.ntnu.iir.bidata.logic.CoverageMatch;
+import edu.ntnu.iir.bidata.logic.DatasetGenerator;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.RecipeAdvisor;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.RecipeCoverageIndex;
+import edu.ntnu.iir.bidata.logic.RecipeSearchIndex;
+import edu.ntnu.iir.bidata.logic.RecipeShardServer;
+import edu.ntnu.iir.bidata.logic.ShardedRecipeBook;
+import edu.ntnu.iir.bidata.logic.ShardedResult;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the ShardedRecipeBook and RecipeShardServer classes, over loopback. */
+class ShardedRecipeBookTest {
+
+  private final List<AutoCloseable> closeables = new ArrayList<>();
+
+  /** Closes every shard, client and process of the test. */
+  @AfterEach
+  void tearDown() throws Exception {
+    for (int i = closeables.size() - 1; i >= 0; i--) {
+      closeables.get(i).close();
+    }
+  }
+
+  private InetSocketAddress startShard() throws IOException {
+    RecipeShardServer shard = new RecipeShardServer(0);
+    shard.start();
+    closeables.add(shard);
+    return new InetSocketAddress(InetAddress.getLoopbackAddress(), shard.getPort());
+  }
+
+  private InetSocketAddress startShardProcess() throws IOException {
+    Process process = new ProcessBuilder(
+        Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+        "-cp", System.getProperty("java.class.path"),
+        "-Dfoodwaste.shard.port=0", "edu.ntnu.iir.bidata.FoodWasteApp")
+        .redirectErrorStream(true)
+        .start();
+    closeables.add(process::destroyForcibly);
+    BufferedReader processOutput = new BufferedReader(
+        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    String line = processOutput.readLine();
+    while (line != null && !line.startsWith("Serving")) {
+      line = processOutput.readLine();
+    }
+    assertNotNull(line, "shard JVM stopped");
+    int port = Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1));
+    return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+  }
+
+  private ShardedRecipeBook client(long timeoutMillis, InetSocketAddress... shards) {
+    ShardedRecipeBook recipes = new ShardedRecipeBook(List.of(shards), timeoutMillis);
+    closeables.add(recipes);
+    return recipes;
+  }
+
+  private static Recipe pancakes() {
+    Map<String, Ingredient> ingredients = new LinkedHashMap<>();
+    ingredients.put("Flour", new Ingredient("Flour", 200, 1));
+    ingredients.put("Egg", new Ingredient("Egg", 2, 0));
+    return new Recipe("Pancakes", "Fluffy griddle cakes", "Mix and fry", 4, ingredients);
+  }
+
+  private static List<String> namesOf(List<CoverageMatch> matches) {
+    List<String> names = new ArrayList<>();
+    for (CoverageMatch match : matches) {
+      names.add(match.getRecipeName());
+    }
+    return names;
+  }
+
+  // Positive Tests
+
+  /** Tests that merged top lists over three shards match those of one book. */
+  @Test
+  void testMergedResultsMatchOneBook() throws Exception {
+    ShardedRecipeBook recipes = client(ShardedRecipeBook.DEFAULT_TIMEOUT_MILLIS,
+        startShard(), startShard(), startShard());
+    DatasetGenerator generator = new DatasetGenerator(11L, 40, 1.0, LocalDate.now());
+    RecipeBook recipeBook = new RecipeBook(new ConcurrentHashMap<>());
+    generator.fillRecipeBook(recipeBook, 600);
+    FoodStorage foodStorage = new FoodStorage(new ConcurrentHashMap<>());
+    generator.fillStorage(foodStorage, 3000);
+    for (Recipe recipe : recipeBook.getRecipes().values()) {
+      recipes.addRecipe(recipe);
+    }
+
+    ShardedResult<CoverageMatch> matches = recipes.findBestMatches(foodStorage, 25);
+    assertTrue(matches.isComplete(), matches.getFailedShards().toString());
+    try (RecipeCoverageIndex coverageIndex = new RecipeCoverageIndex(recipeBook)) {
+      assertEquals(namesOf(coverageIndex.findBestMatches(foodStorage, 25)),
+          namesOf(matches.getResults()));
+    }
+
+    List<String> readyRecipes =
+        new ArrayList<>(new RecipeAdvisor(foodStorage, recipeBook).suggestRecipesToMake());
+    Collections.sort(readyRecipes);
+    ShardedResult<String> suggestions = recipes.suggestRecipesToMake(foodStorage, 1000);
+    assertEquals(readyRecipes, suggestions.getResults());
+    assertEquals(3, suggestions.getShardCount());
+
+    String recipeName = recipeBook.getRecipes().keySet().iterator().next();
+    CookabilityReport report = recipes.checkIfCookable(recipeName, foodStorage);
+    CookabilityReport expected = new RecipeAdvisor(foodStorage, recipeBook)
+        .checkIfCookable(recipeBook.getRecipe(recipeName));
+    assertEquals(expected.isCookable(), report.isCookable());
+    assertEquals(expected.getMissingIngredients(), report.getMissingIngredients());
+    assertEquals(expected.getExpiredIngredients(), report.getExpiredIngredients());
+  }
+
+  /** Tests search, replacing and removing a recipe on the shard picked by its name. */
+  @Test
+  void testSearchAndRemove() throws Exception {
+    ShardedRecipeBook recipes = client(ShardedRecipeBook.DEFAULT_TIMEOUT_MILLIS,
+        startShard(), startShard());
+    recipes.addRecipe(pancakes());
+    recipes.addRecipe(pancakes());
+    for (int i = 0; i < 20; i++) {
+      Map<String, Ingredient> ingredients = new LinkedHashMap<>();
+      ingredients.put("Rice", new Ingredient("Rice", 100, 1));
+      recipes.addRecipe(new Recipe("Rice bowl " + i, "Plain", "Boil", 1, ingredients));
+    }
+
+    assertEquals(List.of("Pancakes"), recipes.search("griddle", 5).getResults());
+    assertEquals(5, recipes.search("rice", 5).getResults().size());
+    recipes.removeRecipe("Pancakes");
+    assertTrue(recipes.search("griddle", 5).getResults().isEmpty());
+  }
+
+  /** Tests that shards rank a search with the word rarity of all recipes together. */
+  @Test
+  void testSearchRanksLikeOneBook() throws Exception {
+    ShardedRecipeBook recipes = client(ShardedRecipeBook.DEFAULT_TIMEOUT_MILLIS,
+        startShard(), startShard(), startShard());
+    RecipeBook recipeBook = new RecipeBook(new ConcurrentHashMap<>());
+    String[] descriptions = {"Spicy bean soup", "Mild bean stew with rice", "Spicy rice"};
+    for (int i = 0; i < 40; i++) {
+      Map<String, Ingredient> ingredients = new LinkedHashMap<>();
+      ingredients.put("Rice", new Ingredient("Rice", 100, 1));
+      Recipe recipe = new Recipe("Dish " + i, descriptions[i % 3],
+          "Stir" + " and stir".repeat(i % 5), 2, ingredients);
+      recipeBook.addRecipe(recipe);
+      recipes.addRecipe(recipe);
+    }
+
+    try (RecipeSearchIndex searchIndex = new RecipeSearchIndex(recipeBook)) {
+      for (String query : List.of("spicy rice soup", "bean stew", "stir rice")) {
+        ShardedResult<String> hits = recipes.search(query, 40);
+        assertTrue(hits.isComplete());
+        assertEquals(searchIndex.search(query, 40), hits.getResults());
+      }
+    }
+  }
+
+  /** Tests shards in other JVMs, and a partial result once one of them is stopped. */
+  @Test
+  void testShardsInOtherProcesses() throws Exception {
+    ShardedRecipeBook recipes = client(ShardedRecipeBook.DEFAULT_TIMEOUT_MILLIS,
+        startShardProcess(), startShardProcess());
+    FoodStorage foodStorage = new FoodStorage(new ConcurrentHashMap<>());
+    foodStorage.addIngredient(new Ingredient("Flour", 500, 1, 10, "2999-01-01"));
+    foodStorage.addIngredient(new Ingredient("Egg", 6, 0, 30, "2999-01-01"));
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Recipe recipe = pancakes();
+      names.add("Pancakes " + i);
+      recipes.addRecipe(new Recipe("Pancakes " + i, recipe.getRecipeDescription(),
+          recipe.getRecipeInstructions(), 4, recipe.getIngredients()));
+    }
+
+    assertEquals(names, recipes.suggestRecipesToMake(foodStorage, 10).getResults());
+    assertTrue(recipes.checkIfCookable("Pancakes 3", foodStorage).isCookable());
+
+    int stoppedShard = recipes.shardOf("Pancakes 0");
+    closeables.get(stoppedShard).close();
+    ShardedResult<CoverageMatch> matches = recipes.findBestMatches(foodStorage, 10);
+    assertFalse(matches.isComplete());
+    assertEquals(List.of(stoppedShard), new ArrayList<>(matches.getFailedShards().keySet()));
+    for (CoverageMatch match : matches.getResults()) {
+      assertEquals(1 - stoppedShard, recipes.shardOf(match.getRecipeName()));
+    }
+    assertFalse(matches.getResults().isEmpty());
+  }
+
+  // Negative Tests
+
+  /** Tests that a shard that never answers is given up on at the deadline. */
+  @Test
+  void testSlowShardTimesOut() throws Exception {
+    ServerSocket silentShard = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    closeables.add(silentShard);
+    List<Socket> silentConnections = Collections.synchronizedList(new ArrayList<>());
+    Thread.ofVirtual().start(() -> {
+      try {
+        while (true) {
+          silentConnections.add(silentShard.accept());
+        }
+      } catch (IOException e) {
+        // ? The test is over
+      }
+    });
+    closeables.add(() -> {
+      for (Socket socket : silentConnections) {
+        socket.close();
+      }
+    });
+    ShardedRecipeBook recipes = client(200, startShard(),
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), silentShard.getLocalPort()));
+
+    long start = System.nanoTime();
+    ShardedResult<String> result = recipes.search("anything", 5);
+    assertTrue(System.nanoTime() - start < 2_000_000_000L);
+    assertEquals(List.of(1), new ArrayList<>(result.getFailedShards().keySet()));
+    assertTrue(result.getResults().isEmpty());
+  }
+
+  /** Tests that invalid arguments and missing recipes throw exceptions. */
+  @Test
+  void testInvalidArguments() throws Exception {
+    assertThrows(IllegalArgumentException.class, () -> new ShardedRecipeBook(List.of()));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ShardedRecipeBook(List.of(startShard()), 0));
+    ShardedRecipeBook recipes = client(ShardedRecipeBook.DEFAULT_TIMEOUT_MILLIS, startShard());
+    assertThrows(IllegalArgumentException.class, () -> recipes.removeRecipe("Pancakes"));
+    assertThrows(IllegalArgumentException.class,
+        () -> recipes.checkIfCookable("Pancakes", new FoodStorage(new ConcurrentHashMap<>())));
+    assertThrows(IllegalArgumentException.class, () -> recipes.search("griddle", -1));
+    assertThrows(IllegalArgumentException.class, () -> recipes.findBestMatches(null, 5));
+
+    ServerSocket closedShard = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    int port = closedShard.getLocalPort();
+    closedShard.close();
+    ShardedRecipeBook unreachable =
+        client(200, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    assertThrows(IOException.class, () -> unreachable.addRecipe(pancakes()));
+  }
+}
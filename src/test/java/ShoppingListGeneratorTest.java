@@ -0,0 +1,97 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.MealPlanEntry;
+import edu.ntnu.iir.bidata.logic.ShoppingList;
+import edu.ntnu.iir.bidata.logic.ShoppingListGenerator;
+import edu.ntnu.iir.bidata.logic.ShoppingListItem;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the ShoppingListGenerator class. */
+class ShoppingListGeneratorTest {
+
+  private static final LocalDate MONDAY = LocalDate.parse("2024-05-06");
+
+  private FoodStorage foodStorage;
+  private ShoppingListGenerator generator;
+  private Recipe omelette;
+
+  /** Sets up a storage with eggs that expire on Tuesday and a two-serving omelette. */
+  @BeforeEach
+  void setUp() {
+    foodStorage = new FoodStorage(new HashMap<>());
+    foodStorage.addIngredient(new Ingredient("Egg", 6, 0, 30, "2024-05-07"));
+    generator = new ShoppingListGenerator(foodStorage);
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    ingredients.put("Egg", new Ingredient("Egg", 4, 0));
+    ingredients.put("Milk", new Ingredient("Milk", 0.2, 2));
+    omelette = new Recipe("Omelette", "Description", "Instructions", 2, ingredients);
+  }
+
+  // Positive Tests
+
+  /** Tests that requirements are scaled, summed and covered by stock before buying. */
+  @Test
+  void testAggregatesAcrossPlan() {
+    ShoppingList list = generator.generate(List.of(
+        new MealPlanEntry(omelette, 1, MONDAY),
+        new MealPlanEntry(omelette, 4, MONDAY.plusDays(1))), Map.of("Milk", 20.0));
+
+    // 2 + 8 eggs needed, 6 stored and fresh on both days
+    ShoppingListItem eggs = list.getItem("Egg");
+    assertEquals(4.0, eggs.getAmount(), 1e-9);
+    assertEquals("Unit", eggs.getMeasurement());
+    assertEquals(20.0, eggs.getEstimatedCost(), 1e-9);
+
+    ShoppingListItem milk = list.getItem("Milk");
+    assertEquals(0.5, milk.getAmount(), 1e-9);
+    assertEquals(10.0, milk.getEstimatedCost(), 1e-9);
+    assertEquals(30.0, list.getTotalCost(), 1e-9);
+  }
+
+  /** Tests that stock expiring before a meal isnt counted for that meal. */
+  @Test
+  void testStockExpiringBeforeUseIsBought() {
+    ShoppingList list = generator.generate(List.of(
+        new MealPlanEntry(omelette, 2, MONDAY.plusDays(2))));
+
+    assertEquals(4.0, list.getItem("Egg").getAmount(), 1e-9);
+    assertFalse(list.getItem("Milk").isPriceKnown());
+  }
+
+  /** Tests that nothing is bought when the stock covers the plan. */
+  @Test
+  void testCoveredPlanHasNoItem() {
+    ShoppingList list = generator.generate(List.of(
+        new MealPlanEntry(omelette, 2, MONDAY)), Map.of("Milk", 20.0));
+
+    assertNull(list.getItem("Egg"));
+    assertEquals(1, list.getItems().size());
+    assertTrue(generator.generate(List.of()).isEmpty());
+  }
+
+  // Negative Tests
+
+  /** Tests that a meal with no servings throws an IllegalArgumentException. */
+  @Test
+  void testZeroServings() {
+    assertThrows(IllegalArgumentException.class, () -> new MealPlanEntry(omelette, 0, MONDAY));
+  }
+
+  /** Tests that a null plan throws an IllegalArgumentException. */
+  @Test
+  void testNullPlan() {
+    assertThrows(IllegalArgumentException.class, () -> generator.generate(null));
+  }
+}
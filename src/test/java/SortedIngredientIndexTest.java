@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.Page;
+import edu.ntnu.iir.bidata.logic.SortedIngredientIndex;
+import edu.ntnu.iir.bidata.logic.SortedIngredientIndex.SortKey;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the SortedIngredientIndex class. */
+class SortedIngredientIndexTest {
+
+  private FoodStorage foodStorage;
+  private SortedIngredientIndex sortedIndex;
+
+  /** Sets up milk worth 40, eggs worth 50 and flour worth 10, expiring in that order. */
+  @BeforeEach
+  void setUp() {
+    foodStorage = new FoodStorage(new HashMap<>());
+    foodStorage.addIngredient(new Ingredient("Milk", 2, 2, 20, "2030-01-01"));
+    foodStorage.addIngredient(new Ingredient("Egg", 10, 0, 50, "2030-02-01"));
+    foodStorage.addIngredient(new Ingredient("Flour", 1000, 1, 10, "2031-01-01"));
+    sortedIndex = new SortedIngredientIndex(foodStorage);
+  }
+
+  private List<String> allNames(SortKey sortKey, int pageSize) {
+    List<String> names = new ArrayList<>();
+    String cursor = null;
+    do {
+      Page<Ingredient> page = sortedIndex.getPage(sortKey, pageSize, cursor);
+      for (Ingredient ingredient : page.getItems()) {
+        names.add(ingredient.getIngredientName());
+      }
+      cursor = page.getNextCursor();
+    } while (cursor != null);
+    return names;
+  }
+
+  // Positive Tests
+
+  /** Tests the name, value and expiry orders. */
+  @Test
+  void testSortOrders() {
+    assertEquals(List.of("Egg", "Flour", "Milk"), allNames(SortKey.NAME, 2));
+    assertEquals(List.of("Egg", "Milk", "Flour"), allNames(SortKey.VALUE, 2));
+    assertEquals(List.of("Milk", "Egg", "Flour"), allNames(SortKey.EXPIRY, 1));
+  }
+
+  /** Tests that used up and added ingredients leave and join the listings. */
+  @Test
+  void testStorageChangesUpdateListings() {
+    foodStorage.useIngredientAmount("Egg", 10);
+    foodStorage.addIngredient(new Ingredient("Butter", 1, 1, 45, "2029-01-01"));
+
+    assertEquals(List.of("Butter", "Milk", "Flour"), allNames(SortKey.VALUE, 5));
+    assertEquals(List.of("Butter", "Milk", "Flour"), allNames(SortKey.EXPIRY, 2));
+    assertEquals(3, sortedIndex.size());
+  }
+
+  /** Tests that the page holds the stored ingredients. */
+  @Test
+  void testPageHoldsStoredIngredients() {
+    Ingredient first = sortedIndex.getPage(SortKey.NAME, 1, null).getItems().get(0);
+    assertEquals(foodStorage.getIngredient("Egg"), first);
+  }
+
+  // Negative Tests
+
+  /** Tests that a cursor from a recipe listing isnt accepted. */
+  @Test
+  void testInvalidCursor() {
+    String valueCursor = sortedIndex.getPage(SortKey.VALUE, 1, null).getNextCursor();
+    assertThrows(IllegalArgumentException.class,
+        () -> sortedIndex.getPage(SortKey.EXPIRY, 1, valueCursor));
+    assertThrows(IllegalArgumentException.class,
+        () -> sortedIndex.getPage(SortKey.NAME, -1, null));
+  }
+}
@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.Page;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.SortedRecipeIndex;
+import edu.ntnu.iir.bidata.logic.SortedRecipeIndex.SortKey;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the SortedRecipeIndex class and its cursors. */
+class SortedRecipeIndexTest {
+
+  private RecipeBook recipeBook;
+  private SortedRecipeIndex sortedIndex;
+
+  /** Sets up a book with five recipes of different servings. */
+  @BeforeEach
+  void setUp() {
+    recipeBook = new RecipeBook(new HashMap<>());
+    recipeBook.addRecipe(recipe("Soup", 4));
+    recipeBook.addRecipe(recipe("Omelette", 1));
+    recipeBook.addRecipe(recipe("Pancakes", 4));
+    recipeBook.addRecipe(recipe("Lasagna", 8));
+    recipeBook.addRecipe(recipe("Bread", 2));
+    sortedIndex = new SortedRecipeIndex(recipeBook);
+  }
+
+  private static Recipe recipe(String name, int servings) {
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    ingredients.put("Egg", new Ingredient("Egg", 1, 0));
+    return new Recipe(name, "Description", "Instructions", servings, ingredients);
+  }
+
+  private List<String> allPages(SortKey sortKey, int pageSize) {
+    List<String> names = new ArrayList<>();
+    String cursor = null;
+    do {
+      Page<String> page = sortedIndex.getPage(sortKey, pageSize, cursor);
+      names.addAll(page.getItems());
+      cursor = page.getNextCursor();
+    } while (cursor != null);
+    return names;
+  }
+
+  // Positive Tests
+
+  /** Tests that pages follow each other in name order. */
+  @Test
+  void testPagesByName() {
+    Page<String> first = sortedIndex.getPage(SortKey.NAME, 2, null);
+    assertEquals(List.of("Bread", "Lasagna"), first.getItems());
+    assertTrue(first.hasNextPage());
+
+    assertEquals(List.of("Bread", "Lasagna", "Omelette", "Pancakes", "Soup"),
+        allPages(SortKey.NAME, 2));
+  }
+
+  /** Tests the servings order, with names breaking ties. */
+  @Test
+  void testPagesByServings() {
+    assertEquals(List.of("Omelette", "Bread", "Pancakes", "Soup", "Lasagna"),
+        allPages(SortKey.SERVINGS, 3));
+  }
+
+  /** Tests that the last page has no next cursor. */
+  @Test
+  void testLastPage() {
+    Page<String> page = sortedIndex.getPage(SortKey.NAME, 5, null);
+    assertEquals(5, page.getItems().size());
+    assertFalse(page.hasNextPage());
+    assertNull(page.getNextCursor());
+  }
+
+  /** Tests that a cursor stays valid while recipes are added and removed. */
+  @Test
+  void testCursorIsStableAcrossChanges() {
+    Page<String> first = sortedIndex.getPage(SortKey.NAME, 2, null);
+    recipeBook.removeRecipe("Lasagna");
+    recipeBook.addRecipe(recipe("Apple pie", 6));
+    recipeBook.addRecipe(recipe("Muffins", 12));
+
+    Page<String> second = sortedIndex.getPage(SortKey.NAME, 2, first.getNextCursor());
+    assertEquals(List.of("Muffins", "Omelette"), second.getItems());
+    assertEquals(6, sortedIndex.size());
+  }
+
+  /** Tests that a replaced recipe moves to its new servings. */
+  @Test
+  void testReplacedRecipeMoves() {
+    recipeBook.addRecipe(recipe("Omelette", 10));
+    assertEquals(List.of("Bread", "Pancakes", "Soup", "Lasagna", "Omelette"),
+        allPages(SortKey.SERVINGS, 10));
+  }
+
+  // Negative Tests
+
+  /** Tests that invalid page requests throw an IllegalArgumentException. */
+  @Test
+  void testInvalidPageRequests() {
+    String nameCursor = sortedIndex.getPage(SortKey.NAME, 1, null).getNextCursor();
+    assertThrows(IllegalArgumentException.class,
+        () -> sortedIndex.getPage(SortKey.SERVINGS, 1, nameCursor));
+    assertThrows(IllegalArgumentException.class,
+        () -> sortedIndex.getPage(SortKey.NAME, 1, "not a cursor"));
+    assertThrows(IllegalArgumentException.class,
+        () -> sortedIndex.getPage(SortKey.NAME, 0, null));
+    assertThrows(IllegalArgumentException.class, () -> sortedIndex.getPage(null, 1, null));
+  }
+
+  /** Tests that a closed index no longer follows the book. */
+  @Test
+  void testClose() {
+    sortedIndex.close();
+    recipeBook.addRecipe(recipe("Muffins", 12));
+    assertEquals(5, sortedIndex.size());
+  }
+}
@@ -0,0 +1,58 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.logic.StorageStressHarness;
+import edu.ntnu.iir.bidata.logic.StorageStressHarness.OperationType;
+import edu.ntnu.iir.bidata.logic.StressReport;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the StorageStressHarness and StressReport classes. */
+class StorageStressHarnessTest {
+
+  // Positive Tests
+
+  /** Tests that many virtual threads leave a linearizable history. */
+  @Test
+  void testVirtualThreadsAreConsistent() throws InterruptedException {
+    StressReport report = new StorageStressHarness(32, 2000, 8, true).run(1L);
+
+    assertTrue(report.isConsistent(), report.toString());
+    long operationCount = 0;
+    for (OperationType type : OperationType.values()) {
+      operationCount += report.getOperationCount(type);
+      assertTrue(report.getOperationCount(type) > 0);
+      assertTrue(report.getLatencyPercentile(type, 50)
+          <= report.getLatencyPercentile(type, 99.9));
+    }
+    assertEquals(32 * 2000, operationCount);
+    assertTrue(report.getRejectedCount(OperationType.USE) > 0);
+    assertTrue(report.getThroughput() > 0);
+  }
+
+  /** Tests that platform threads leave a linearizable history. */
+  @Test
+  void testPlatformThreadsAreConsistent() throws InterruptedException {
+    StressReport report = new StorageStressHarness(8, 5000, 4, false).run(2L);
+
+    assertTrue(report.isConsistent(), report.toString());
+    assertEquals(0, report.getViolationCount());
+    assertTrue(report.toString().contains("SWEEP"));
+  }
+
+  // Negative Tests
+
+  /** Tests that invalid arguments throw an IllegalArgumentException. */
+  @Test
+  void testInvalidArguments() throws InterruptedException {
+    assertThrows(IllegalArgumentException.class,
+        () -> new StorageStressHarness(0, 10, 8, true));
+    assertThrows(IllegalArgumentException.class,
+        () -> new StorageStressHarness(4, 10, 3, true));
+    assertThrows(IllegalArgumentException.class,
+        () -> new StorageStressHarness(100_000, 100_000, 8, true));
+    StressReport report = new StorageStressHarness(1, 10, 4, true).run(3L);
+    assertThrows(IllegalArgumentException.class,
+        () -> report.getLatencyPercentile(OperationType.ADD, 101));
+  }
+}
@@ -0,0 +1,171 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.CookabilityReport;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.RecipeAdvisor;
+import edu.ntnu.iir.bidata.logic.RecipeBitsetIndex;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.SubstitutionGraph;
+import edu.ntnu.iir.bidata.untility.IngredientDictionary;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the SubstitutionGraph class and substitutes in the RecipeAdvisor. */
+class SubstitutionGraphTest {
+
+  private SubstitutionGraph substitutions;
+  private FoodStorage foodStorage;
+  private RecipeBook recipeBook;
+  private RecipeAdvisor advisor;
+
+  /** Sets up milk substitutes, a storage without milk and a porridge recipe. */
+  @BeforeEach
+  void setUp() {
+    substitutions = new SubstitutionGraph(new IngredientDictionary());
+    substitutions.addSubstitution("Milk", "Food cream", 1.0);
+    substitutions.addSubstitution("Food cream", "Yogurt", 1.5);
+
+    foodStorage = new FoodStorage(new HashMap<>());
+    foodStorage.addIngredient(new Ingredient("Oats", 500, 1, 20, "2999-01-01"));
+    foodStorage.addIngredient(new Ingredient("Yogurt", 1, 2, 30, "2999-01-01"));
+
+    Map<String, Ingredient> ingredients = new HashMap<>();
+    ingredients.put("Oats", new Ingredient("Oats", 100, 1));
+    ingredients.put("Milk", new Ingredient("Milk", 0.5, 2));
+    recipeBook = new RecipeBook(new HashMap<>());
+    recipeBook.addRecipe(new Recipe("Porridge", "Warm porridge", "Boil.", 1, ingredients));
+
+    advisor = new RecipeAdvisor(foodStorage, recipeBook, substitutions);
+  }
+
+  // Positive Tests
+
+  /** Tests that substitutions chain and multiply their ratios. */
+  @Test
+  void testTransitiveSubstitutes() {
+    Map<String, Double> milkSubstitutes = substitutions.getSubstitutes("Milk");
+
+    assertEquals(List.of("Food cream", "Yogurt"), List.copyOf(milkSubstitutes.keySet()));
+    assertEquals(1.5, milkSubstitutes.get("Yogurt"));
+    assertTrue(substitutions.getSubstitutes("Yogurt").isEmpty());
+  }
+
+  /** Tests that the cheapest chain wins when there are several. */
+  @Test
+  void testCheapestChainWins() {
+    substitutions.addSubstitution("Milk", "Yogurt", 2.0);
+    assertEquals(1.5, substitutions.getSubstitutes("Milk").get("Yogurt"));
+
+    substitutions.addSubstitution("Milk", "Yogurt", 1.2);
+    assertEquals(1.2, substitutions.getSubstitutes("Milk").get("Yogurt"));
+  }
+
+  /** Tests that a substitute makes a recipe cookable and is used when cooking. */
+  @Test
+  void testCookWithSubstitute() {
+    CookabilityReport report = advisor.checkIfCookable(recipeBook.getRecipe("Porridge"));
+    assertTrue(report.isCookable());
+    assertEquals(Map.of("Milk", "Yogurt"), report.getSubstitutions());
+    assertEquals(List.of("Porridge"), advisor.suggestRecipesToMake());
+
+    advisor.cookRecipe(recipeBook.getRecipe("Porridge"));
+
+    assertEquals(0.25, foodStorage.getIngredient("Yogurt").getIngredientAmount(), 1e-9);
+    assertEquals(400.0, foodStorage.getIngredient("Oats").getIngredientAmount(), 1e-9);
+  }
+
+  /** Tests that the substitute that expires first is preferred. */
+  @Test
+  void testPrefersSubstituteExpiringFirst() {
+    foodStorage.addIngredient(new Ingredient("Food cream", 1, 2, 25, "2998-01-01"));
+    assertEquals("Food cream", advisor.checkIfCookable(recipeBook.getRecipe("Porridge"))
+        .getSubstitutions().get("Milk"));
+
+    foodStorage.removeIngredient("Food cream");
+    foodStorage.addIngredient(new Ingredient("Food cream", 1, 2, 25, "3000-01-01"));
+    assertEquals("Yogurt", advisor.checkIfCookable(recipeBook.getRecipe("Porridge"))
+        .getSubstitutions().get("Milk"));
+  }
+
+  /** Tests that the bitset pruning lets recipes through that substitutes complete. */
+  @Test
+  void testSuggestCookableWithBitsetIndex() {
+    RecipeBitsetIndex bitsetIndex = RecipeBitsetIndex.build(recipeBook,
+        substitutions.getDictionary());
+    assertEquals(List.of("Porridge"), advisor.suggestCookableRecipes(bitsetIndex));
+  }
+
+  /** Tests that a loop back to an ingredient doesnt change the chains through it. */
+  @Test
+  void testLoopKeepsRatios() {
+    substitutions.addSubstitution("Yogurt", "Food cream", 1 / 1.5);
+    substitutions.addSubstitution("Food cream", "Milk", 1.0);
+
+    assertEquals(1.0, substitutions.getSubstitutes("Milk").get("Food cream"), 1e-9);
+    assertEquals(1.5, substitutions.getSubstitutes("Milk").get("Yogurt"), 1e-9);
+    assertEquals(1 / 1.5, substitutions.getSubstitutes("Yogurt").get("Milk"), 1e-9);
+
+    advisor.cookRecipe(recipeBook.getRecipe("Porridge"));
+    assertEquals(0.25, foodStorage.getIngredient("Yogurt").getIngredientAmount(), 1e-9);
+  }
+
+  // Negative Tests
+
+  /** Tests that stock the exact ingredients use isnt handed out to substitutes too. */
+  @Test
+  void testStockIsNotCountedTwice() {
+    substitutions.addSubstitution("Milk", "Oats", 1.0);
+    foodStorage.removeIngredient("Yogurt");
+    foodStorage.removeIngredient("Oats");
+    foodStorage.addIngredient(new Ingredient("Oats", 100.2, 1, 20, "2999-01-01"));
+
+    CookabilityReport report = advisor.checkIfCookable(recipeBook.getRecipe("Porridge"));
+    assertFalse(report.isCookable());
+    assertEquals(List.of("Milk"), report.getMissingIngredients());
+    assertNull(report.getSubstitutions().get("Milk"));
+  }
+
+  /** Tests that a removed substitution no longer applies. */
+  @Test
+  void testRemoveSubstitution() {
+    assertTrue(substitutions.removeSubstitution("Food cream", "Yogurt"));
+    assertFalse(substitutions.removeSubstitution("Food cream", "Yogurt"));
+    assertFalse(advisor.checkIfCookable(recipeBook.getRecipe("Porridge")).isCookable());
+  }
+
+  /** Tests that a loop that would make an ingredient out of less of itself is refused. */
+  @Test
+  void testLoopBelowOneIsRefused() {
+    assertThrows(IllegalArgumentException.class,
+        () -> substitutions.addSubstitution("Yogurt", "Food cream", 0.5));
+    assertThrows(IllegalArgumentException.class,
+        () -> substitutions.addSubstitution("Yogurt", "Milk", 0.5));
+    assertEquals(1.0, substitutions.getSubstitutes("Milk").get("Food cream"));
+    assertEquals(1.5, substitutions.getSubstitutes("Milk").get("Yogurt"));
+
+    advisor.cookRecipe(recipeBook.getRecipe("Porridge"));
+    assertEquals(0.25, foodStorage.getIngredient("Yogurt").getIngredientAmount(), 1e-9);
+  }
+
+  /** Tests that invalid substitutions throw an IllegalArgumentException. */
+  @Test
+  void testInvalidSubstitution() {
+    assertThrows(IllegalArgumentException.class,
+        () -> substitutions.addSubstitution("Milk", "Milk", 1.0));
+    assertThrows(IllegalArgumentException.class,
+        () -> substitutions.addSubstitution("Milk", " ", 1.0));
+    assertThrows(IllegalArgumentException.class,
+        () -> substitutions.addSubstitution("Milk", "Water", 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> substitutions.addSubstitution("Milk", "Water", Double.NaN));
+  }
+}
@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.untility.TraceSpan;
+import edu.ntnu.iir.bidata.untility.Tracer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for the Tracer and TraceSpan classes. */
+@SuppressWarnings("try")
+class TracerTest {
+
+  @TempDir
+  Path tempDir;
+
+  @AfterEach
+  void tearDown() {
+    Tracer.shutdown();
+  }
+
+  // Positive Tests
+
+  /** Tests that spans are no-ops while sampling is off. */
+  @Test
+  void testDisabledTracerReturnsNoop() {
+    assertSame(TraceSpan.NOOP, Tracer.startSpan("anything"));
+    assertSame(TraceSpan.NOOP, Tracer.currentSpan());
+  }
+
+  /** Tests that nested spans share a trace id and point to their parent. */
+  @Test
+  void testNestedSpansShareTrace() {
+    Tracer.configure(1.0, tempDir.resolve("trace.jsonl"));
+    try (TraceSpan root = Tracer.startSpan("root")) {
+      try (TraceSpan child = Tracer.startSpan("child")) {
+        assertEquals(root.getTraceId(), child.getTraceId());
+        assertSame(root, child.getParentSpan());
+        assertSame(child, Tracer.currentSpan());
+      }
+      assertSame(root, Tracer.currentSpan());
+    }
+    assertSame(TraceSpan.NOOP, Tracer.currentSpan());
+  }
+
+  /** Tests that a virtual thread started inside a span continues the trace. */
+  @Test
+  void testTraceIsPropagatedToVirtualThreads() throws InterruptedException {
+    Tracer.configure(1.0, tempDir.resolve("trace.jsonl"));
+    long[] childTraceId = new long[1];
+    try (TraceSpan root = Tracer.startSpan("root")) {
+      Thread thread = Thread.ofVirtual().start(() -> {
+        try (TraceSpan child = Tracer.startSpan("child")) {
+          childTraceId[0] = child.getTraceId();
+        }
+      });
+      thread.join();
+      assertEquals(root.getTraceId(), childTraceId[0]);
+    }
+  }
+
+  /** Tests that traced storage operations are exported as JSON lines. */
+  @Test
+  void testSpansAreExportedToFile() throws Exception {
+    Path traceFile = tempDir.resolve("trace.jsonl");
+    Tracer.configure(1.0, traceFile);
+    FoodStorage foodStorage = new FoodStorage(new HashMap<>());
+    try (TraceSpan root = Tracer.startSpan("test")) {
+      foodStorage.addIngredient(new Ingredient("Tomato", 5.0, 1));
+    }
+    Tracer.flush();
+
+    List<String> lines = Files.readAllLines(traceFile);
+    assertTrue(lines.stream().anyMatch(line -> line.contains("\"name\":\"Ingredient.new\"")));
+    assertTrue(lines.stream()
+        .anyMatch(line -> line.contains("\"name\":\"FoodStorage.addIngredient\"")));
+    assertTrue(lines.stream().anyMatch(line -> line.contains("\"parentId\":null")));
+  }
+
+  // Negative Tests
+
+  /** Tests that an IllegalArgumentException is thrown for a sample rate above 1. */
+  @Test
+  void testInvalidSampleRate() {
+    assertThrows(IllegalArgumentException.class,
+        () -> Tracer.configure(1.5, tempDir.resolve("trace.jsonl")));
+  }
+}
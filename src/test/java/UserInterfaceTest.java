@@ -0,0 +1,98 @@
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.entity.Recipe;
+import edu.ntnu.iir.bidata.logic.CookabilityCache;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.RecipeBook;
+import edu.ntnu.iir.bidata.logic.RecipeSearchIndex;
+import edu.ntnu.iir.bidata.ui.UserInterface;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Scanner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the UserInterface class, over in-memory streams. */
+class UserInterfaceTest {
+
+  private RecipeBook recipeBook;
+  private ByteArrayOutputStream output;
+  private UserInterface userInterface;
+
+  /** Sets up an interface on a book with a pancake recipe and a rice recipe. */
+  @BeforeEach
+  void setUp() {
+    recipeBook = new RecipeBook(new HashMap<>());
+    Map<String, Ingredient> pancakeIngredients = new HashMap<>();
+    pancakeIngredients.put("Flour", new Ingredient("Flour", 200, 1));
+    recipeBook.addRecipe(new Recipe(
+        "Pancakes", "Fluffy griddle cakes", "Mix and fry", 4, pancakeIngredients));
+    Map<String, Ingredient> riceIngredients = new HashMap<>();
+    riceIngredients.put("Rice", new Ingredient("Rice", 100, 1));
+    recipeBook.addRecipe(new Recipe("Rice bowl", "Plain rice", "Boil", 1, riceIngredients));
+    output = new ByteArrayOutputStream();
+    userInterface = new UserInterface(new FoodStorage(new HashMap<>()), recipeBook,
+        new ByteArrayInputStream(new byte[0]), new PrintStream(output, true));
+  }
+
+  /** Stops the interface from following the book. */
+  @AfterEach
+  void tearDown() {
+    userInterface.close();
+  }
+
+  private String search(String recipeName) {
+    userInterface.searchForRecipe(new Scanner(recipeName + "\n"));
+    return output.toString(StandardCharsets.UTF_8);
+  }
+
+  // Positive Tests
+
+  /** Tests that an unknown recipe name lists the recipes matching its words. */
+  @Test
+  void testUnknownNameListsMatches() {
+    String shown = search("griddle");
+
+    assertTrue(shown.contains("recipes that match"));
+    assertTrue(shown.contains("  Pancakes"));
+    assertFalse(shown.contains("Rice bowl"));
+  }
+
+  /** Tests that closing a session leaves a shared search index following the book. */
+  @Test
+  void testSharedIndexStaysOpen() {
+    FoodStorage foodStorage = new FoodStorage(new HashMap<>());
+    try (RecipeSearchIndex searchIndex = new RecipeSearchIndex(recipeBook)) {
+      new UserInterface(foodStorage, recipeBook, searchIndex,
+          new CookabilityCache(foodStorage, recipeBook),
+          new ByteArrayInputStream(new byte[0]), new PrintStream(output, true)).close();
+      recipeBook.removeRecipe("Pancakes");
+
+      assertTrue(searchIndex.search("griddle", 5).isEmpty());
+    }
+  }
+
+  // Negative Tests
+
+  /** Tests that a name matching nothing says the recipe doesnt exist. */
+  @Test
+  void testNameWithoutMatches() {
+    assertTrue(search("lasagna").contains("Recipe doesn't exist."));
+  }
+
+  /** Tests that a null storage, book or shared index throws an IllegalArgumentException. */
+  @Test
+  void testNullArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new UserInterface(null, recipeBook));
+    assertThrows(IllegalArgumentException.class, () -> new UserInterface(
+        new FoodStorage(new HashMap<>()), recipeBook, null, null, System.in, System.out));
+  }
+}
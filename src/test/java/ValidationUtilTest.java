@@ -0,0 +1,146 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.untility.ValidationCode;
+import edu.ntnu.iir.bidata.untility.ValidationUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Scanner;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the non-throwing checks and parsers of the ValidationUtil class. */
+class ValidationUtilTest {
+
+  private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+  private static long parseWithFormatter(String text) {
+    try {
+      return LocalDate.parse(text, FORMATTER).toEpochDay();
+    } catch (Exception e) {
+      return ValidationUtil.NOT_PARSED;
+    }
+  }
+
+  // Positive Tests
+
+  /** Tests that the date parser agrees with LocalDate on every day of many years. */
+  @Test
+  void testEpochDayMatchesLocalDate() {
+    LocalDate date = LocalDate.of(1, 1, 1);
+    while (date.getYear() < 2200) {
+      String text = date.format(FORMATTER);
+      assertEquals(date.toEpochDay(), ValidationUtil.tryParseEpochDay(text), text);
+      date = date.plusDays(date.getYear() < 1900 ? 37 : 1);
+    }
+    assertEquals(LocalDate.of(9999, 12, 31).toEpochDay(),
+        ValidationUtil.tryParseEpochDay("9999-12-31"));
+  }
+
+  /** Tests that days past the end of a month resolve like the date formatter. */
+  @Test
+  void testDayPastMonthEndMatchesFormatter() {
+    String[] dates = {"2023-02-29", "2023-02-31", "2024-02-30", "1900-02-29", "2000-02-30",
+        "2023-04-31", "2023-11-31"};
+    for (String text : dates) {
+      assertEquals(parseWithFormatter(text), ValidationUtil.tryParseEpochDay(text), text);
+    }
+  }
+
+  /** Tests that numbers parse like Integer.parseInt and Double.parseDouble. */
+  @Test
+  void testParseNumbers() {
+    assertEquals(42, ValidationUtil.tryParseInt("42"));
+    assertEquals(-7, ValidationUtil.tryParseInt("-7"));
+    assertEquals(Integer.MAX_VALUE, ValidationUtil.tryParseInt("2147483647"));
+    assertEquals(Integer.MIN_VALUE, ValidationUtil.tryParseInt("-2147483648"));
+    assertEquals(2.5, ValidationUtil.tryParseDouble("2.5"));
+    assertEquals(0.5, ValidationUtil.tryParseDouble(" .5 "));
+    assertEquals(-1e3, ValidationUtil.tryParseDouble("-1E3"));
+  }
+
+  /** Tests that valid ingredient values give the valid code. */
+  @Test
+  void testValidateIngredient() {
+    assertTrue(ValidationUtil.validateIngredient("Milk", 1, 2, 0).isValid());
+  }
+
+  /** Tests that an ingredient from validated values equals one from the constructor. */
+  @Test
+  void testFromValidated() {
+    long epochDay = ValidationUtil.tryParseEpochDay("2999-01-01");
+    Ingredient fromValidated = Ingredient.fromValidated("mILK", 2, 2, 20, epochDay);
+    Ingredient constructed = new Ingredient("mILK", 2, 2, 20, "2999-01-01");
+
+    assertEquals(constructed.getIngredientName(), fromValidated.getIngredientName());
+    assertEquals(constructed.getIngredientExpireDate(), fromValidated.getIngredientExpireDate());
+  }
+
+  /** Tests that the prompting number check asks again after text that isnt a number. */
+  @Test
+  void testPromptRetriesAfterText() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    Scanner input = new Scanner("abc\n-1\n3.5\n");
+
+    double amount = ValidationUtil.isVaildDoubleInput(input,
+        new PrintStream(output, true, StandardCharsets.UTF_8), "amount");
+
+    assertEquals(3.5, amount);
+  }
+
+  // Negative Tests
+
+  /** Tests that malformed dates are not parsed, like with the date formatter. */
+  @Test
+  void testInvalidDates() {
+    String[] dates = {"", "2023-1-01", "2023/01/01", "2023-13-01", "2023-00-10", "2023-01-00",
+        "2023-01-32", "0000-01-01", "20a3-01-01", "2023-01-01 ", "+023-01-01"};
+    for (String text : dates) {
+      assertEquals(ValidationUtil.NOT_PARSED, ValidationUtil.tryParseEpochDay(text), text);
+      assertEquals(ValidationUtil.NOT_PARSED, parseWithFormatter(text), text);
+    }
+    assertEquals(ValidationUtil.NOT_PARSED, ValidationUtil.tryParseEpochDay(null));
+  }
+
+  /** Tests that text that isnt a number is not parsed. */
+  @Test
+  void testInvalidNumbers() {
+    assertEquals(ValidationUtil.NOT_PARSED, ValidationUtil.tryParseInt("2147483648"));
+    assertEquals(ValidationUtil.NOT_PARSED, ValidationUtil.tryParseInt("1.0"));
+    assertEquals(ValidationUtil.NOT_PARSED, ValidationUtil.tryParseInt("-"));
+    assertEquals(ValidationUtil.NOT_PARSED, ValidationUtil.tryParseInt(""));
+    assertTrue(Double.isNaN(ValidationUtil.tryParseDouble("abc")));
+    assertTrue(Double.isNaN(ValidationUtil.tryParseDouble(".")));
+    assertTrue(Double.isNaN(ValidationUtil.tryParseDouble("1e")));
+    assertTrue(Double.isNaN(ValidationUtil.tryParseDouble("NaN")));
+  }
+
+  /** Tests that each invalid value gives its own code. */
+  @Test
+  void testInvalidIngredientCodes() {
+    assertEquals(ValidationCode.BLANK_NAME, ValidationUtil.validateIngredient(" ", 1, 0, 0));
+    assertEquals(ValidationCode.BLANK_NAME, ValidationUtil.validateIngredient(null, 1, 0, 0));
+    assertEquals(ValidationCode.NAME_EDGE_SPACE,
+        ValidationUtil.validateIngredient("Milk ", 1, 0, 0));
+    assertEquals(ValidationCode.WRONG_MEASUREMENT,
+        ValidationUtil.validateIngredient("Milk", 1, 3, 0));
+    assertEquals(ValidationCode.NON_POSITIVE_AMOUNT,
+        ValidationUtil.validateIngredient("Milk", Double.NaN, 0, 0));
+    assertEquals(ValidationCode.NEGATIVE_PRICE,
+        ValidationUtil.validateIngredient("Milk", 1, 0, -1));
+  }
+
+  /** Tests that the constructor throws with the message of the code. */
+  @Test
+  void testConstructorUsesCodeMessage() {
+    IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+        () -> new Ingredient("Milk", 1, 0, 0, "2023-13-01"));
+    assertEquals(ValidationCode.WRONG_DATE_FORMAT.getMessage(), exception.getMessage());
+    assertThrows(IllegalArgumentException.class,
+        () -> new Ingredient(null, 1, 0, 0, "2023-01-01"));
+  }
+}
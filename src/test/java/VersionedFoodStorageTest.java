@@ -0,0 +1,159 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.iir.bidata.entity.Ingredient;
+import edu.ntnu.iir.bidata.logic.FoodStorage;
+import edu.ntnu.iir.bidata.logic.PersistentIngredientMap;
+import edu.ntnu.iir.bidata.logic.VersionedFoodStorage;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the VersionedFoodStorage and PersistentIngredientMap classes. */
+class VersionedFoodStorageTest {
+
+  private MutableClock clock;
+  private VersionedFoodStorage storage;
+
+  /** Clock that only moves when the test moves it. */
+  private static class MutableClock extends Clock {
+    private Instant now = Instant.parse("2024-05-01T12:00:00Z");
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock();
+    storage = new VersionedFoodStorage(clock, 100);
+  }
+
+  // Positive Tests
+
+  /** Tests that a snapshot does not change when the storage changes. */
+  @Test
+  void testSnapshotIsIsolatedFromLaterChanges() {
+    storage.addIngredient(new Ingredient("Milk", 2.0, 2, 20, "2999-01-01"));
+    FoodStorage before = storage.snapshot();
+
+    storage.useIngredientAmount("Milk", 0.5);
+    storage.addIngredient(new Ingredient("Egg", 6.0, 0, 30, "2999-01-01"));
+
+    assertEquals(2.0, before.getIngredient("Milk").getIngredientAmount());
+    assertNull(before.getIngredient("Egg"));
+    assertEquals(1.5, storage.getIngredient("Milk").getIngredientAmount());
+    assertEquals(3, storage.getVersion());
+  }
+
+  /** Tests reading the storage as it was at an earlier point in time. */
+  @Test
+  void testSnapshotAtPointInTime() {
+    storage.addIngredient(new Ingredient("Milk", 2.0, 2, 20, "2999-01-01"));
+    Instant evening = clock.now;
+    clock.now = clock.now.plusSeconds(3600);
+    storage.removeIngredient("Milk");
+
+    assertTrue(storage.snapshotAt(evening).getIngredients().containsKey("Milk"));
+    assertFalse(storage.snapshotAt(clock.now).getIngredients().containsKey("Milk"));
+    assertNull(storage.snapshotAt(evening.minusSeconds(86_400)));
+  }
+
+  /** Tests that using the whole amount removes the ingredient. */
+  @Test
+  void testUsingWholeAmountRemovesIngredient() {
+    storage.addIngredient(new Ingredient("Egg", 2.0, 0, 10, "2999-01-01"));
+    assertEquals(0.0, storage.useIngredientAmount("Egg", 2.0));
+    assertNull(storage.getIngredient("Egg"));
+  }
+
+  /** Tests the trie with many keys, including keys with equal hash codes. */
+  @Test
+  void testPersistentMapWithManyKeysAndCollisions() {
+    Ingredient ingredient = new Ingredient("Salt", 1.0, 1);
+    PersistentIngredientMap map = PersistentIngredientMap.empty();
+    for (int i = 0; i < 5000; i++) {
+      map = map.plus("Item" + i, ingredient);
+    }
+    // "Aa" and "BB" have the same String hash code
+    map = map.plus("Aa", ingredient).plus("BB", ingredient);
+    PersistentIngredientMap full = map;
+    for (int i = 0; i < 5000; i += 2) {
+      map = map.minus("Item" + i);
+    }
+    map = map.minus("Aa");
+
+    assertEquals(5002, full.size());
+    assertEquals(2501, map.size());
+    assertSame(ingredient, map.get("BB"));
+    assertNull(map.get("Aa"));
+    assertNull(map.get("Item0"));
+    assertSame(ingredient, full.get("Item0"));
+
+    Set<String> keys = new HashSet<>();
+    map.forEach((name, value) -> keys.add(name));
+    assertEquals(2501, keys.size());
+    assertTrue(keys.contains("Item1"));
+  }
+
+  // Negative Tests
+
+  /** Tests that a snapshot cant be changed. */
+  @Test
+  void testSnapshotIsReadOnly() {
+    FoodStorage snapshot = storage.snapshot();
+    Ingredient ingredient = new Ingredient("Egg", 2.0, 0, 10, "2999-01-01");
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.addIngredient(ingredient));
+  }
+
+  /** Tests that changing an old snapshot leaves the storage and its other versions alone. */
+  @Test
+  void testChangingSnapshotLeavesVersionsAlone() {
+    storage.addIngredient(new Ingredient("Milk", 2.0, 2, 20, "2999-01-01"));
+    Instant first = clock.now;
+    FoodStorage before = storage.snapshot();
+    clock.now = clock.now.plusSeconds(60);
+    storage.useIngredientAmount("Milk", 0.5);
+    FoodStorage old = storage.snapshotAt(first);
+
+    assertThrows(UnsupportedOperationException.class,
+        () -> before.useIngredientAmount("Milk", 0.5));
+    assertThrows(UnsupportedOperationException.class,
+        () -> old.addIngredientAmount("Milk", 1.0));
+    assertThrows(UnsupportedOperationException.class, () -> old.removeIngredient("Milk"));
+    assertThrows(UnsupportedOperationException.class,
+        () -> old.removeExpiredIngredients(LocalDate.of(3000, 1, 1)));
+    assertEquals(1.5, storage.getIngredient("Milk").getIngredientAmount());
+    assertEquals(2.0, before.getIngredient("Milk").getIngredientAmount());
+    assertEquals(2.0, old.getIngredient("Milk").getIngredientAmount());
+    assertEquals(2, storage.getVersion());
+  }
+
+  /** Tests that using an ingredient that isnt stored throws an IllegalArgumentException. */
+  @Test
+  void testUseMissingIngredient() {
+    assertThrows(IllegalArgumentException.class, () -> storage.useIngredientAmount("Egg", 1));
+  }
+}